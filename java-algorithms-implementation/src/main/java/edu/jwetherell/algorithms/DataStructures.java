@@ -16,10 +16,20 @@ import java.util.Random;
 import java.util.Set;
 
 import edu.jwetherell.algorithms.dataStructures.AVLTree;
+import edu.jwetherell.algorithms.dataStructures.BPlusTree;
 import edu.jwetherell.algorithms.dataStructures.BTree;
 import edu.jwetherell.algorithms.dataStructures.BinarySearchTree;
 import edu.jwetherell.algorithms.dataStructures.BinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.CompactSuffixTrie;
+import edu.jwetherell.algorithms.dataStructures.ConcurrentDisjointSet;
+import edu.jwetherell.algorithms.dataStructures.ConcurrentHashMap;
+import edu.jwetherell.algorithms.dataStructures.ConcurrentPriorityQueue;
+import edu.jwetherell.algorithms.dataStructures.DaryHeap;
+import edu.jwetherell.algorithms.dataStructures.DiskBTree;
+import edu.jwetherell.algorithms.dataStructures.DisjointSet;
+import edu.jwetherell.algorithms.dataStructures.DoubleBinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.EdgeList;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 import edu.jwetherell.algorithms.dataStructures.HashMap;
 import edu.jwetherell.algorithms.dataStructures.IHeap;
@@ -28,9 +38,14 @@ import edu.jwetherell.algorithms.dataStructures.IMap;
 import edu.jwetherell.algorithms.dataStructures.IQueue;
 import edu.jwetherell.algorithms.dataStructures.IStack;
 import edu.jwetherell.algorithms.dataStructures.ITree;
+import edu.jwetherell.algorithms.dataStructures.IndexedBinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.IntBinaryHeap;
 import edu.jwetherell.algorithms.dataStructures.IntervalTree;
 import edu.jwetherell.algorithms.dataStructures.KdTree;
+import edu.jwetherell.algorithms.dataStructures.LongBinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.PairingHeap;
 import edu.jwetherell.algorithms.dataStructures.PatriciaTrie;
+import edu.jwetherell.algorithms.dataStructures.PrimitiveHashMap;
 import edu.jwetherell.algorithms.dataStructures.QuadTree;
 import edu.jwetherell.algorithms.dataStructures.RadixTrie;
 import edu.jwetherell.algorithms.dataStructures.RedBlackTree;
@@ -47,12 +62,23 @@ import edu.jwetherell.algorithms.dataStructures.Stack;
 import edu.jwetherell.algorithms.dataStructures.SuffixTrie;
 import edu.jwetherell.algorithms.dataStructures.Treap;
 import edu.jwetherell.algorithms.dataStructures.Trie;
+import edu.jwetherell.algorithms.graph.AStar;
 import edu.jwetherell.algorithms.graph.BellmanFord;
+import edu.jwetherell.algorithms.graph.Boruvka;
+import edu.jwetherell.algorithms.graph.BreadthFirstSearch;
 import edu.jwetherell.algorithms.graph.CycleDetection;
 import edu.jwetherell.algorithms.graph.Dijkstra;
+import edu.jwetherell.algorithms.graph.Dinic;
+import edu.jwetherell.algorithms.graph.DistanceMatrix;
+import edu.jwetherell.algorithms.graph.DynamicShortestPaths;
 import edu.jwetherell.algorithms.graph.FloydWarshall;
 import edu.jwetherell.algorithms.graph.Johnson;
+import edu.jwetherell.algorithms.graph.Kruskal;
 import edu.jwetherell.algorithms.graph.Prim;
+import edu.jwetherell.algorithms.graph.PushRelabel;
+import edu.jwetherell.algorithms.graph.ShortestPathTree;
+import edu.jwetherell.algorithms.graph.Snapshot;
+import edu.jwetherell.algorithms.graph.StronglyConnectedComponents;
 import edu.jwetherell.algorithms.graph.TopologicalSort;
 
 @SuppressWarnings("unchecked")
@@ -75,8 +101,9 @@ public class DataStructures {
     private static boolean validateStructure = true; // Is the data structure valid (passed invariants) and proper size
     private static boolean validateContents = true; // Was the item added/removed really added/removed from the structure
     private static boolean validateIterator = true; // Does the iterator(s) work
+    private static boolean debugConcurrency = true; // Throughput of the concurrent data structures from one thread to one per core
 
-    private static final int TESTS = 34; // Max number of dynamic data structures to test
+    private static final int TESTS = 54; // Max number of dynamic data structures to test
     private static final String[] testNames = new String[TESTS]; // Array to hold the test names
     private static final long[][] testResults = new long[TESTS][]; // Array to hold the test results
     private static int testIndex = 0; // Index into the tests
@@ -166,6 +193,18 @@ public class DataStructures {
             return false;
         }
 
+        passed = testBPlusTree();
+        if (!passed) {
+            System.err.println("B+Tree failed.");
+            return false;
+        }
+
+        passed = testDiskBTree();
+        if (!passed) {
+            System.err.println("Disk B-Tree failed.");
+            return false;
+        }
+
         passed = testTreap();
         if (!passed) {
             System.err.println("Treap failed.");
@@ -314,6 +353,18 @@ public class DataStructures {
             return false;
         }
 
+        passed = testIntHashMap();
+        if (!passed) {
+            System.err.println("Int Hash Map failed.");
+            return false;
+        }
+
+        passed = testConcurrentHashMap();
+        if (!passed) {
+            System.err.println("Concurrent Hash Map failed.");
+            return false;
+        }
+
         passed = testJavaTreeMap();
         if (!passed) {
             System.err.println("Java Tree Map failed.");
@@ -338,11 +389,53 @@ public class DataStructures {
             return false;
         }
 
+        // Sets
+
+        passed = testDisjointSet();
+        if (!passed) {
+            System.err.println("Disjoint Set failed.");
+            return false;
+        }
+
         if (debugTime && debugMemory) {
             String results = getTestResults(testNumber, testNames, testResults);
             System.out.println(results);
         }
 
+        if (debugConcurrency) {
+            passed = testConcurrentHashMapScaling();
+            if (!passed) {
+                System.err.println("Concurrent Hash Map scaling failed.");
+                return false;
+            }
+
+            passed = testConcurrentDisjointSetScaling();
+            if (!passed) {
+                System.err.println("Concurrent Disjoint Set scaling failed.");
+                return false;
+            }
+
+            passed = testConcurrentPriorityQueueScaling();
+            if (!passed) {
+                System.err.println("Concurrent Priority Queue scaling failed.");
+                return false;
+            }
+        }
+
+        if (debugTime) {
+            passed = testOrderedTreesComparison();
+            if (!passed) {
+                System.err.println("Ordered trees comparison failed.");
+                return false;
+            }
+
+            passed = testDiskBTreeComparison();
+            if (!passed) {
+                System.err.println("Disk B-Tree comparison failed.");
+                return false;
+            }
+        }
+
         // MY STATIC DATA STRUCTURES
 
         passed = testCompactSuffixTrie();
@@ -427,6 +520,101 @@ public class DataStructures {
         return true;
     }
 
+    private static boolean testBPlusTree() {
+        String bstName = "B+Tree";
+        BPlusTree<Integer> bst = new BPlusTree<Integer>(4);
+        Collection<Integer> bstCollection = bst.toCollection();
+
+        if((validateStructure||validateContents) && !testTree(bst,Integer.class,bstName)) return false;
+        if(!testJavaCollection(bstCollection,Integer.class,bstName)) return false;
+
+        // Range scans walk the linked leaves
+        for (int i = 0; i < unsorted.length; i++) {
+            bst.add(unsorted[i]);
+        }
+        int quarter = sorted.length / 4;
+        int end = sorted.length - quarter;
+        Iterator<Integer> range = bst.range(sorted[quarter], sorted[end]);
+        for (int i = quarter; i < end; i++) {
+            Integer value = (range.hasNext()) ? range.next() : null;
+            if (!sorted[i].equals(value)) {
+                System.err.println(bstName+" YIKES!! range returned " + value + " instead of " + sorted[i] + ".");
+                handleError(bst);
+                return false;
+            }
+        }
+        if (range.hasNext()) {
+            System.err.println(bstName+" YIKES!! range didn't stop at " + sorted[end] + ".");
+            handleError(bst);
+            return false;
+        }
+
+        // Bulk load from the sorted values
+        BPlusTree<Integer> bulk = new BPlusTree<Integer>(4, sorted);
+        if (validateStructure && (!bulk.validate() || bulk.size() != sorted.length)) {
+            System.err.println(bstName+" YIKES!! bulk load is invalid.");
+            handleError(bulk);
+            return false;
+        }
+        Iterator<Integer> all = bulk.range(null, null);
+        for (int i = 0; i < sorted.length; i++) {
+            Integer value = (all.hasNext()) ? all.next() : null;
+            if (!sorted[i].equals(value)) {
+                System.err.println(bstName+" YIKES!! bulk load returned " + value + " instead of " + sorted[i] + ".");
+                handleError(bulk);
+                return false;
+            }
+        }
+        if((validateStructure||validateContents) && !testTree(bulk,Integer.class,bstName+" [bulk]")) return false;
+        return true;
+    }
+
+    private static boolean testDiskBTree() {
+        String bstName = "Disk B-Tree";
+        java.io.File file = null;
+        try {
+            file = java.io.File.createTempFile("btree", ".db");
+            file.delete();
+            DiskBTree<Integer> bst = new DiskBTree<Integer>(file, new DiskBTree.IntegerSerializer());
+            Collection<Integer> bstCollection = bst.toCollection();
+
+            if((validateStructure||validateContents) && !testTree(bst,Integer.class,bstName)) return false;
+            if(!testJavaCollection(bstCollection,Integer.class,bstName)) return false;
+
+            // Without a close the changes are only in the log, opening again replays it
+            for (int i = 0; i < unsorted.length; i++) {
+                bst.add(unsorted[i]);
+            }
+            DiskBTree<Integer> recovered = new DiskBTree<Integer>(file, new DiskBTree.IntegerSerializer());
+            Iterator<Integer> all = recovered.range(null, null);
+            for (int i = 0; i < sorted.length; i++) {
+                Integer value = (all.hasNext()) ? all.next() : null;
+                if (!sorted[i].equals(value)) {
+                    System.err.println(bstName+" YIKES!! replay returned " + value + " instead of " + sorted[i] + ".");
+                    handleError(recovered);
+                    return false;
+                }
+            }
+            if (all.hasNext() || (validateStructure && !recovered.validate())) {
+                System.err.println(bstName+" YIKES!! replay is invalid.");
+                handleError(recovered);
+                return false;
+            }
+            recovered.close();
+            // Holds the same pages as the replay, closing only releases the files
+            bst.close();
+        } catch (java.io.IOException e) {
+            System.err.println(bstName+" YIKES!! " + e);
+            return false;
+        } finally {
+            if (file != null) {
+                file.delete();
+                new java.io.File(file.getPath() + ".wal").delete();
+            }
+        }
+        return true;
+    }
+
     private static boolean testBST() {
         String bstName = "BST";
         BinarySearchTree<Integer> bst = new BinarySearchTree<Integer>();
@@ -545,6 +733,80 @@ public class DataStructures {
             Graph.CostPathPair<Integer> pair = Prim.getMinimumSpanningTree(undirected, start);
             if (debug > 1) System.out.println(pair.toString());
 
+            if (debug > 1) System.out.println("Kruskal's minimum spanning tree of the undirected graph");
+            Graph.CostPathPair<Integer> kruskalPair = Kruskal.getMinimumSpanningTree(undirected);
+            if (debug > 1) System.out.println(kruskalPair.toString());
+            if (kruskalPair.getCost() != pair.getCost() || kruskalPair.getPath().size() != pair.getPath().size()) {
+                System.err.println("Kruskal's minimum spanning tree mismatch. " + kruskalPair + " != " + pair);
+                return false;
+            }
+
+            if (debug > 1) System.out.println("Boruvka's minimum spanning tree of the undirected graph");
+            Graph.CostPathPair<Integer> boruvkaPair = Boruvka.getMinimumSpanningTree(undirected, null, 2);
+            if (debug > 1) System.out.println(boruvkaPair.toString());
+            if (boruvkaPair.getCost() != pair.getCost() || boruvkaPair.getPath().size() != pair.getPath().size()) {
+                System.err.println("Boruvka's minimum spanning tree mismatch. " + boruvkaPair + " != " + pair);
+                return false;
+            }
+
+            // Shortest path tree
+            ShortestPathTree<Integer> tree = Dijkstra.getShortestPathTree(undirected, start);
+            if (debug > 1) System.out.println(tree.toString());
+            if (tree.distanceTo(end) != pair1.getCost() || !tree.pathTo(end).equals(pair1.getPath())) {
+                System.err.println("Shortest path tree mismatch. " + tree.getCostPathPair(end) + " != " + pair1);
+                return false;
+            }
+
+            // Compact graph
+            CompactGraph<Integer> compact = new CompactGraph<Integer>(undirected);
+            if (debug > 1) System.out.println("Compact copy of the undirected graph.\n" + compact.toString());
+            int compactStart = compact.indexOf(start);
+            int[] compactCosts1 = Dijkstra.getShortestPaths(compact, compactStart);
+            int[] compactCosts2 = BellmanFord.getShortestPaths(compact, compactStart);
+            for (int i = 0; i < compact.getNumberOfVerticies(); i++) {
+                int cost = map1.get(compact.getVertex(i)).getCost();
+                if (compactCosts1[i] != cost || compactCosts2[i] != cost) {
+                    System.err.println("Compact graph shortest path cost mismatch. vertex=" + compact.getVertex(i));
+                    return false;
+                }
+            }
+            CompactGraph.CostPathPair compactPair = Dijkstra.getShortestPath(compact, compactStart, compact.indexOf(end));
+            if (debug > 1) System.out.println(compactPair.toString());
+            if (compactPair.getCost() != pair1.getCost()) {
+                System.err.println("Compact graph shortest path cost mismatch. " + compactPair.getCost() + " != " + pair1.getCost());
+                return false;
+            }
+            CompactGraph.CostPathPair bidirectionalPair = Dijkstra.getShortestPathBidirectional(compact, compactStart, compact.indexOf(end));
+            if (debug > 1) System.out.println(bidirectionalPair.toString());
+            if (bidirectionalPair.getCost() != pair1.getCost()) {
+                System.err.println("Bidirectional shortest path cost mismatch. " + bidirectionalPair.getCost() + " != " + pair1.getCost());
+                return false;
+            }
+            // Coordinates where no edge is shorter than the distance between its verticies
+            double[] x = new double[compact.getNumberOfVerticies()];
+            double[] y = new double[compact.getNumberOfVerticies()];
+            x[compact.indexOf(v2)] = 6;
+            y[compact.indexOf(v3)] = 8;
+            x[compact.indexOf(v4)] = 8;
+            y[compact.indexOf(v4)] = 9;
+            x[compact.indexOf(v5)] = 8;
+            y[compact.indexOf(v5)] = 12;
+            x[compact.indexOf(v6)] = 2;
+            y[compact.indexOf(v6)] = 8;
+            CompactGraph.CostPathPair aStarPair = AStar.getShortestPath(compact, compactStart, compact.indexOf(end), new AStar.EuclideanHeuristic(x, y));
+            if (debug > 1) System.out.println(aStarPair.toString());
+            if (aStarPair.getCost() != compactPair.getCost() || !Arrays.equals(aStarPair.getPath(), compactPair.getPath())) {
+                System.err.println("A* shortest path mismatch. " + aStarPair + " != " + compactPair);
+                return false;
+            }
+            int[] compactTree = Prim.getMinimumSpanningTree(compact, compactStart);
+            int compactTreeCost = 0;
+            for (int e : compactTree) compactTreeCost += compact.getCost(e);
+            if (compactTreeCost != pair.getCost()) {
+                System.err.println("Compact graph minimum spanning tree cost mismatch. " + compactTreeCost + " != " + pair.getCost());
+                return false;
+            }
+
             // Prim on a graph with cycles
             java.util.List<Graph.Vertex<Integer>> cyclicVerticies = new ArrayList<Graph.Vertex<Integer>>();
             Graph.Vertex<Integer> cv1 = new Graph.Vertex<Integer>(1);
@@ -577,6 +839,14 @@ public class DataStructures {
             if (debug > 1) System.out.println("Prim's minimum spanning tree of a cyclic undirected graph from " + start.getValue());
             Graph.CostPathPair<Integer> cyclicPair = Prim.getMinimumSpanningTree(cyclicUndirected, start);
             if (debug > 1) System.out.println(cyclicPair.toString());
+            if (Kruskal.getMinimumSpanningTree(cyclicUndirected).getCost() != cyclicPair.getCost()) {
+                System.err.println("Kruskal's minimum spanning tree of a cyclic graph mismatch.");
+                return false;
+            }
+            if (Boruvka.getMinimumSpanningTree(cyclicUndirected, null, 2).getCost() != cyclicPair.getCost()) {
+                System.err.println("Boruvka's minimum spanning tree of a cyclic graph mismatch.");
+                return false;
+            }
 
             if (debug > 1) System.out.println();
         }
@@ -650,6 +920,36 @@ public class DataStructures {
                 else System.out.println("No path from " + start.getValue() + " to " + end.getValue());
             }
 
+            // Breadth first search, number of edges from the start vertex
+            if (debug > 1) System.out.println("Breadth first search of the directed graph from " + start.getValue());
+            Map<Graph.Vertex<Integer>, Integer> hops = BreadthFirstSearch.getDistances(directed, start, null, 1);
+            if (debug > 1) System.out.println(hops);
+            int[] expectedHops = { 0, 1, 1, 2, 2, 1, 3 };
+            for (int i = 0; i < verticies.size(); i++) {
+                Integer hop = hops.get(verticies.get(i));
+                if (hop == null || hop != expectedHops[i]) {
+                    System.err.println("Breadth first search mismatch. vertex=" + verticies.get(i).getValue() + " hops=" + hop);
+                    return false;
+                }
+            }
+
+            // Dynamic shortest paths, repaired after each edge update
+            if (debug > 1) System.out.println("Dynamic shortest paths of the directed graph from " + start.getValue());
+            DynamicShortestPaths<Integer> dynamic = new DynamicShortestPaths<Integer>(directed, start);
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            directed.setEdgeCost(e3_6, 20);
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            directed.addEdge(new Graph.Edge<Integer>(1, v2, v5));
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            directed.removeEdge(e1_3);
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            directed.setEdgeCost(e2_4, 3);
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            directed.removeEdge(e1_2);
+            if (!checkDynamicShortestPaths(directed, dynamic)) return false;
+            if (debug > 1) System.out.println(getPathMapString(start, dynamic.getShortestPaths()));
+            dynamic.detach();
+
             if (debug > 1) System.out.println();
         }
 
@@ -697,6 +997,15 @@ public class DataStructures {
                 else System.out.println("No path from " + start.getValue() + " to " + end.getValue());
             }
 
+            // Compact graph
+            CompactGraph<Integer> compact = new CompactGraph<Integer>(directed);
+            CompactGraph.CostPathPair compactPair = BellmanFord.getShortestPath(compact, compact.indexOf(start), compact.indexOf(end));
+            if (debug > 1) System.out.println(compactPair);
+            if ((compactPair == null) != (pair2 == null) || (compactPair != null && compactPair.getCost() != pair2.getCost())) {
+                System.err.println("Compact graph Bellman-Ford mismatch.");
+                return false;
+            }
+
             if (debug > 1) System.out.println("Johnson's all-pairs shortest path of the directed graph.");
             Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>> paths = Johnson.getAllPairsShortestPaths(directed);
             if (debug > 1) {
@@ -708,6 +1017,40 @@ public class DataStructures {
             Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Integer>> pathWeights = FloydWarshall.getAllPairsShortestPaths(directed);
             if (debug > 1) System.out.println(getWeightMapString(pathWeights));
 
+            // Snapshots of the graph and its distance matrix
+            if (debug > 1) System.out.println("Snapshots of the directed graph and its distance matrix.");
+            DistanceMatrix<Integer> matrix = FloydWarshall.getAllPairsShortestPathMatrix(directed);
+            java.io.File graphFile = null;
+            java.io.File matrixFile = null;
+            try {
+                graphFile = java.io.File.createTempFile("graph", ".snapshot");
+                matrixFile = java.io.File.createTempFile("matrix", ".snapshot");
+                Snapshot.writeGraph(directed, graphFile);
+                Snapshot.writeDistanceMatrix(matrix, matrixFile);
+                Graph<Integer> readGraph = Snapshot.readGraph(graphFile);
+                DistanceMatrix<Integer> readMatrix = Snapshot.readDistanceMatrix(matrixFile);
+                DistanceMatrix<Integer> mappedMatrix = Snapshot.mapDistanceMatrix(matrixFile);
+                if (readGraph.getType() != directed.getType() || !readGraph.getVerticies().equals(directed.getVerticies())
+                    || !readGraph.getEdges().equals(directed.getEdges())) {
+                    System.err.println("Graph snapshot mismatch.");
+                    return false;
+                }
+                for (Graph.Vertex<Integer> from : directed.getVerticies()) {
+                    for (Graph.Vertex<Integer> to : directed.getVerticies()) {
+                        if (readMatrix.get(from, to) != matrix.get(from, to) || mappedMatrix.get(from, to) != matrix.get(from, to)) {
+                            System.err.println("Distance matrix snapshot mismatch.");
+                            return false;
+                        }
+                    }
+                }
+            } catch (java.io.IOException e) {
+                System.err.println("Snapshots failed. " + e);
+                return false;
+            } finally {
+                if (graphFile != null) graphFile.delete();
+                if (matrixFile != null) matrixFile.delete();
+            }
+
             if (debug > 1) System.out.println();
         }
 
@@ -744,12 +1087,16 @@ public class DataStructures {
             Graph<Integer> undirectedWithCycle = new Graph<Integer>(cycledVerticies, cycledEdges);
             if (debug > 1) System.out.println(undirectedWithCycle.toString());
 
+            if (debug > 1) System.out.println("Cycle detection of the undirected graph.");
+            boolean undirectedWithCycleResult = CycleDetection.detect(undirectedWithCycle);
             if (debug > 1) {
-                System.out.println("Cycle detection of the undirected graph.");
-                boolean result = CycleDetection.detect(undirectedWithCycle);
-                System.out.println("result=" + result);
+                System.out.println("result=" + undirectedWithCycleResult);
                 System.out.println();
             }
+            if (undirectedWithCycleResult != true) {
+                System.err.println("Cycle detection of the undirected graph failed.");
+                return false;
+            }
 
             java.util.List<Graph.Vertex<Integer>> verticies = new ArrayList<Graph.Vertex<Integer>>();
             Graph.Vertex<Integer> v1 = new Graph.Vertex<Integer>(1);
@@ -780,12 +1127,16 @@ public class DataStructures {
             Graph<Integer> undirectedWithoutCycle = new Graph<Integer>(verticies, edges);
             if (debug > 1) System.out.println(undirectedWithoutCycle.toString());
 
+            if (debug > 1) System.out.println("Cycle detection of the undirected graph.");
+            boolean undirectedWithoutCycleResult = CycleDetection.detect(undirectedWithoutCycle);
             if (debug > 1) {
-                System.out.println("Cycle detection of the undirected graph.");
-                boolean result = CycleDetection.detect(undirectedWithoutCycle);
-                System.out.println("result=" + result);
+                System.out.println("result=" + undirectedWithoutCycleResult);
                 System.out.println();
             }
+            if (undirectedWithoutCycleResult != false) {
+                System.err.println("Cycle detection of the undirected graph failed.");
+                return false;
+            }
         }
 
         {   // DIRECTED GRAPH
@@ -822,11 +1173,143 @@ public class DataStructures {
             if (debug > 1) System.out.println(directed.toString());
 
             if (debug > 1) System.out.println("Topological sort of the directed graph.");
-            java.util.List<Graph.Vertex<Integer>> results = TopologicalSort.sort(directed);
+            CompactGraph<Integer> compact = new CompactGraph<Integer>(directed);
+            int[] compactResults = TopologicalSort.sort(compact);
+            if (debug > 1) System.out.println("compact result=" + java.util.Arrays.toString(compactResults));
+            if (compactResults == null || compactResults.length != compact.getNumberOfVerticies()) {
+                System.err.println("Compact graph topological sort failed.");
+                return false;
+            }
+            int[] position = new int[compactResults.length];
+            for (int i = 0; i < compactResults.length; i++) position[compactResults[i]] = i;
+            for (int v = 0; v < compact.getNumberOfVerticies(); v++) {
+                for (int e = compact.getEdgeStart(v); e < compact.getEdgeEnd(v); e++) {
+                    if (position[v] > position[compact.getTarget(e)]) {
+                        System.err.println("Compact graph topological sort out of order.");
+                        return false;
+                    }
+                }
+            }
+
+            java.util.List<Graph.Vertex<Integer>> results = TopologicalSort.sortSourcesFirst(directed);
             if (debug > 1) {
                 System.out.println("result=" + results);
                 System.out.println();
             }
+            if (results.size() != compactResults.length || directed.getEdges().size() != edges.size()) {
+                System.err.println("Topological sort failed.");
+                return false;
+            }
+            for (int i = 0; i < compactResults.length; i++) {
+                if (results.get(i) != compact.getVertex(compactResults[i])) {
+                    System.err.println("Topological sort mismatch. " + results + " != " + java.util.Arrays.toString(compactResults));
+                    return false;
+                }
+            }
+
+            // The original sort keeps its sinks first order
+            java.util.List<Graph.Vertex<Integer>> reversed = TopologicalSort.sort(directed);
+            if (debug > 1) System.out.println("sinks first result=" + reversed);
+            if (reversed.size() != verticies.size() || directed.getEdges().size() != edges.size()) {
+                System.err.println("Sinks first topological sort failed.");
+                return false;
+            }
+            for (Graph.Edge<Integer> e : directed.getEdges()) {
+                if (reversed.indexOf(e.getFromVertex()) < reversed.indexOf(e.getToVertex())) {
+                    System.err.println("Sinks first topological sort out of order. " + reversed);
+                    return false;
+                }
+            }
+
+            // Strongly connected components and cycles
+            if (CycleDetection.detect(directed) || StronglyConnectedComponents.getComponents(directed).size() != verticies.size()) {
+                System.err.println("Cycle detection of the directed acyclic graph failed.");
+                return false;
+            }
+            directed.addEdge(new Graph.Edge<Integer>(7, cv3, cv1));
+            java.util.List<java.util.List<Graph.Vertex<Integer>>> components = StronglyConnectedComponents.getComponents(directed);
+            if (debug > 1) System.out.println("Strongly connected components of the directed graph with a cycle.\n" + components);
+            if (!CycleDetection.detect(directed) || components.size() != 3 || components.get(components.size() - 1).size() != 4
+                || TopologicalSort.sort(new CompactGraph<Integer>(directed)) != null) {
+                System.err.println("Strongly connected components of the directed graph failed.");
+                return false;
+            }
+        }
+
+        {   // DIRECTED GRAPH (FLOW NETWORK)
+            if (debug > 1) System.out.println("Directed Graph maximum flow.");
+            java.util.List<Graph.Vertex<Integer>> verticies = new ArrayList<Graph.Vertex<Integer>>();
+            Graph.Vertex<Integer> s = new Graph.Vertex<Integer>(0);
+            verticies.add(s);
+            Graph.Vertex<Integer> fv1 = new Graph.Vertex<Integer>(1);
+            verticies.add(fv1);
+            Graph.Vertex<Integer> fv2 = new Graph.Vertex<Integer>(2);
+            verticies.add(fv2);
+            Graph.Vertex<Integer> fv3 = new Graph.Vertex<Integer>(3);
+            verticies.add(fv3);
+            Graph.Vertex<Integer> fv4 = new Graph.Vertex<Integer>(4);
+            verticies.add(fv4);
+            Graph.Vertex<Integer> t = new Graph.Vertex<Integer>(5);
+            verticies.add(t);
+
+            java.util.List<Graph.Edge<Integer>> edges = new ArrayList<Graph.Edge<Integer>>();
+            edges.add(new Graph.Edge<Integer>(16, s, fv1));
+            edges.add(new Graph.Edge<Integer>(13, s, fv2));
+            edges.add(new Graph.Edge<Integer>(12, fv1, fv3));
+            edges.add(new Graph.Edge<Integer>(4, fv2, fv1));
+            edges.add(new Graph.Edge<Integer>(14, fv2, fv4));
+            edges.add(new Graph.Edge<Integer>(9, fv3, fv2));
+            edges.add(new Graph.Edge<Integer>(20, fv3, t));
+            edges.add(new Graph.Edge<Integer>(7, fv4, fv3));
+            edges.add(new Graph.Edge<Integer>(4, fv4, t));
+
+            Graph<Integer> network = new Graph<Integer>(Graph.TYPE.DIRECTED, verticies, edges);
+            if (debug > 1) System.out.println(network.toString());
+
+            long dinicFlow = Dinic.getMaximumFlow(network, s, t);
+            long pushRelabelFlow = PushRelabel.getMaximumFlow(network, s, t);
+            if (debug > 1) System.out.println("Dinic's maximum flow=" + dinicFlow + " push-relabel maximum flow=" + pushRelabelFlow);
+            if (dinicFlow != 23 || pushRelabelFlow != 23) {
+                System.err.println("Maximum flow failed. dinic=" + dinicFlow + " push-relabel=" + pushRelabelFlow);
+                return false;
+            }
+
+            // Same network read back from edge list files
+            if (debug > 1) System.out.println("Edge list files of the flow network.");
+            java.io.File text = null;
+            java.io.File binary = null;
+            try {
+                text = java.io.File.createTempFile("network", ".txt");
+                binary = java.io.File.createTempFile("network", ".bin");
+                java.io.PrintWriter textOut = new java.io.PrintWriter(text, "US-ASCII");
+                java.io.DataOutputStream binaryOut = new java.io.DataOutputStream(new java.io.FileOutputStream(binary));
+                textOut.println("# from to capacity");
+                for (Graph.Edge<Integer> e : edges) {
+                    textOut.println(e.getFromVertex().getValue() + " " + e.getToVertex().getValue() + " " + e.getCost());
+                    binaryOut.writeInt(e.getFromVertex().getValue());
+                    binaryOut.writeInt(e.getToVertex().getValue());
+                    binaryOut.writeInt(e.getCost());
+                }
+                textOut.close();
+                binaryOut.close();
+
+                EdgeList textEdges = EdgeList.readText(text, null, 2);
+                EdgeList binaryEdges = EdgeList.readBinary(binary, java.nio.ByteOrder.BIG_ENDIAN, null, 2);
+                if (textEdges.getNumberOfEdges() != edges.size() || binaryEdges.getNumberOfEdges() != edges.size()
+                    || Dinic.getMaximumFlow(textEdges.toCompactGraph(Graph.TYPE.DIRECTED), 0, 5, null) != 23
+                    || PushRelabel.getMaximumFlow(binaryEdges.toGraph(Graph.TYPE.DIRECTED), new Graph.Vertex<Integer>(0), new Graph.Vertex<Integer>(5)) != 23) {
+                    System.err.println("Edge list files of the flow network failed.");
+                    return false;
+                }
+            } catch (java.io.IOException e) {
+                System.err.println("Edge list files of the flow network failed. " + e);
+                return false;
+            } finally {
+                if (text != null) text.delete();
+                if (binary != null) binary.delete();
+            }
+
+            if (debug > 1) System.out.println();
         }
 
         return true;
@@ -839,12 +1322,80 @@ public class DataStructures {
         if((validateStructure||validateContents) && !testHeap(aHeapMin,aNameMin,BinaryHeap.Type.MIN, Integer.class)) return false;
         if(!testJavaCollection(aCollectionMin,Integer.class,aNameMin)) return false;
 
+        String aiNameMin = "Min-Heap [array indexed]";
+        BinaryHeap.BinaryHeapArray<Integer> aiHeapMin = new BinaryHeap.BinaryHeapArray<Integer>(BinaryHeap.Type.MIN, true);
+        Collection<Integer> aiCollectionMin = aiHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(aiHeapMin,aiNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(aiCollectionMin,Integer.class,aiNameMin)) return false;
+
         String tNameMin = "Min-Heap [tree]";
         BinaryHeap.BinaryHeapTree<Integer> tHeapMin = new BinaryHeap.BinaryHeapTree<Integer>(BinaryHeap.Type.MIN);
         Collection<Integer> tCollectionMin = tHeapMin.toCollection();
         if((validateStructure||validateContents) && !testHeap(tHeapMin,tNameMin,BinaryHeap.Type.MIN, Integer.class)) return false;
         if(!testJavaCollection(tCollectionMin,Integer.class,tNameMin)) return false;
 
+        String iNameMin = "Min-Heap [indexed]";
+        IndexedBinaryHeap<Integer> iHeapMin = new IndexedBinaryHeap<Integer>(BinaryHeap.Type.MIN);
+        Collection<Integer> iCollectionMin = iHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(iHeapMin,iNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(iCollectionMin,Integer.class,iNameMin)) return false;
+
+        String dNameMin = "Min-Heap [4-ary]";
+        DaryHeap<Integer> dHeapMin = new DaryHeap<Integer>(BinaryHeap.Type.MIN);
+        Collection<Integer> dCollectionMin = dHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(dHeapMin,dNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(dCollectionMin,Integer.class,dNameMin)) return false;
+
+        String phNameMin = "Min-Heap [pairing]";
+        PairingHeap<Integer> phHeapMin = new PairingHeap<Integer>(BinaryHeap.Type.MIN);
+        Collection<Integer> phCollectionMin = phHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(phHeapMin,phNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(phCollectionMin,Integer.class,phNameMin)) return false;
+
+        String cNameMin = "Min-Heap [concurrent]";
+        ConcurrentPriorityQueue<Integer> cHeapMin = new ConcurrentPriorityQueue<Integer>(BinaryHeap.Type.MIN);
+        Collection<Integer> cCollectionMin = cHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(cHeapMin,cNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(cCollectionMin,Integer.class,cNameMin)) return false;
+
+        String pIntNameMin = "Min-Heap [int]";
+        IntBinaryHeap pIntHeapMin = new IntBinaryHeap(BinaryHeap.Type.MIN);
+        Collection<Integer> pIntCollectionMin = pIntHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pIntHeapMin,pIntNameMin,BinaryHeap.Type.MIN,Integer.class)) return false;
+        if(!testJavaCollection(pIntCollectionMin,Integer.class,pIntNameMin)) return false;
+
+        int[] values = new int[unsorted.length];
+        for (int i = 0; i < unsorted.length; i++) {
+            values[i] = unsorted[i];
+        }
+        IntBinaryHeap hIntHeapMin = new IntBinaryHeap(BinaryHeap.Type.MIN, values);
+        if (validateStructure && !hIntHeapMin.validate()) {
+            System.err.println(pIntNameMin+" YIKES!! heapify is not a valid heap.");
+            handleError(hIntHeapMin);
+            return false;
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            int correct = sorted[i];
+            int item = hIntHeapMin.poll();
+            if (validateContents && item != correct) {
+                System.err.println(pIntNameMin+" YIKES!! heapify " + item + " does not match heap item.");
+                handleError(hIntHeapMin);
+                return false;
+            }
+        }
+
+        String pLongNameMin = "Min-Heap [long]";
+        LongBinaryHeap pLongHeapMin = new LongBinaryHeap(BinaryHeap.Type.MIN);
+        Collection<Long> pLongCollectionMin = pLongHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pLongHeapMin,pLongNameMin,BinaryHeap.Type.MIN,Long.class)) return false;
+        if(!testJavaCollection(pLongCollectionMin,Long.class,pLongNameMin)) return false;
+
+        String pDoubleNameMin = "Min-Heap [double]";
+        DoubleBinaryHeap pDoubleHeapMin = new DoubleBinaryHeap(BinaryHeap.Type.MIN);
+        Collection<Double> pDoubleCollectionMin = pDoubleHeapMin.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pDoubleHeapMin,pDoubleNameMin,BinaryHeap.Type.MIN,Double.class)) return false;
+        if(!testJavaCollection(pDoubleCollectionMin,Double.class,pDoubleNameMin)) return false;
+
         return true;
     }
 
@@ -855,12 +1406,80 @@ public class DataStructures {
         if((validateStructure||validateContents) && !testHeap(aHeapMax,aNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
         if(!testJavaCollection(aCollectionMax,Integer.class,aNameMax)) return false;
 
+        String aiNameMax = "Max-Heap [array indexed]";
+        BinaryHeap.BinaryHeapArray<Integer> aiHeapMax = new BinaryHeap.BinaryHeapArray<Integer>(BinaryHeap.Type.MAX, true);
+        Collection<Integer> aiCollectionMax = aiHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(aiHeapMax,aiNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(aiCollectionMax,Integer.class,aiNameMax)) return false;
+
         String lNameMax = "Max-Heap [tree]";
         BinaryHeap.BinaryHeapTree<Integer> tHeapMax = new BinaryHeap.BinaryHeapTree<Integer>(BinaryHeap.Type.MAX);
         Collection<Integer> tCollectionMax = tHeapMax.toCollection();
         if((validateStructure||validateContents) && !testHeap(tHeapMax,lNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
         if(!testJavaCollection(tCollectionMax,Integer.class,lNameMax)) return false;
 
+        String iNameMax = "Max-Heap [indexed]";
+        IndexedBinaryHeap<Integer> iHeapMax = new IndexedBinaryHeap<Integer>(BinaryHeap.Type.MAX);
+        Collection<Integer> iCollectionMax = iHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(iHeapMax,iNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(iCollectionMax,Integer.class,iNameMax)) return false;
+
+        String dNameMax = "Max-Heap [4-ary]";
+        DaryHeap<Integer> dHeapMax = new DaryHeap<Integer>(BinaryHeap.Type.MAX);
+        Collection<Integer> dCollectionMax = dHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(dHeapMax,dNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(dCollectionMax,Integer.class,dNameMax)) return false;
+
+        String phNameMax = "Max-Heap [pairing]";
+        PairingHeap<Integer> phHeapMax = new PairingHeap<Integer>(BinaryHeap.Type.MAX);
+        Collection<Integer> phCollectionMax = phHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(phHeapMax,phNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(phCollectionMax,Integer.class,phNameMax)) return false;
+
+        String cNameMax = "Max-Heap [concurrent]";
+        ConcurrentPriorityQueue<Integer> cHeapMax = new ConcurrentPriorityQueue<Integer>(BinaryHeap.Type.MAX);
+        Collection<Integer> cCollectionMax = cHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(cHeapMax,cNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(cCollectionMax,Integer.class,cNameMax)) return false;
+
+        String pIntNameMax = "Max-Heap [int]";
+        IntBinaryHeap pIntHeapMax = new IntBinaryHeap(BinaryHeap.Type.MAX);
+        Collection<Integer> pIntCollectionMax = pIntHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pIntHeapMax,pIntNameMax,BinaryHeap.Type.MAX,Integer.class)) return false;
+        if(!testJavaCollection(pIntCollectionMax,Integer.class,pIntNameMax)) return false;
+
+        int[] values = new int[unsorted.length];
+        for (int i = 0; i < unsorted.length; i++) {
+            values[i] = unsorted[i];
+        }
+        IntBinaryHeap hIntHeapMax = new IntBinaryHeap(BinaryHeap.Type.MAX, values);
+        if (validateStructure && !hIntHeapMax.validate()) {
+            System.err.println(pIntNameMax+" YIKES!! heapify is not a valid heap.");
+            handleError(hIntHeapMax);
+            return false;
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            int correct = sorted[sorted.length - (i + 1)];
+            int item = hIntHeapMax.poll();
+            if (validateContents && item != correct) {
+                System.err.println(pIntNameMax+" YIKES!! heapify " + item + " does not match heap item.");
+                handleError(hIntHeapMax);
+                return false;
+            }
+        }
+
+        String pLongNameMax = "Max-Heap [long]";
+        LongBinaryHeap pLongHeapMax = new LongBinaryHeap(BinaryHeap.Type.MAX);
+        Collection<Long> pLongCollectionMax = pLongHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pLongHeapMax,pLongNameMax,BinaryHeap.Type.MAX,Long.class)) return false;
+        if(!testJavaCollection(pLongCollectionMax,Long.class,pLongNameMax)) return false;
+
+        String pDoubleNameMax = "Max-Heap [double]";
+        DoubleBinaryHeap pDoubleHeapMax = new DoubleBinaryHeap(BinaryHeap.Type.MAX);
+        Collection<Double> pDoubleCollectionMax = pDoubleHeapMax.toCollection();
+        if((validateStructure||validateContents) && !testHeap(pDoubleHeapMax,pDoubleNameMax,BinaryHeap.Type.MAX,Double.class)) return false;
+        if(!testJavaCollection(pDoubleCollectionMax,Double.class,pDoubleNameMax)) return false;
+
         return true;
     }
 
@@ -874,6 +1493,597 @@ public class DataStructures {
         return true;
     }
 
+    private static boolean testIntHashMap() {
+        String mapName = "IntHashMap";
+        PrimitiveHashMap.IntHashMap<String> map = new PrimitiveHashMap.IntHashMap<String>(unsorted.length/2, PrimitiveHashMap.DEFAULT_LOAD_FACTOR);
+        java.util.Map<Integer,String> jMap = map.toMap();
+
+        if((validateStructure||validateContents) && !testMap(map,Type.Integer,mapName)) return false;
+        if(!testJavaMap(jMap,Type.Integer,mapName)) return false;
+        return true;
+    }
+
+    private static boolean testConcurrentHashMap() {
+        String mapName = "ConcurrentHashMap";
+        ConcurrentHashMap<Integer,String> map = new ConcurrentHashMap<Integer,String>();
+        java.util.Map<Integer,String> jMap = map.toMap();
+
+        if((validateStructure||validateContents) && !testMap(map,Type.Integer,mapName)) return false;
+        if(!testJavaMap(jMap,Type.Integer,mapName)) return false;
+        return true;
+    }
+
+    private static boolean testConcurrentHashMapScaling() {
+        final int keys = RANDOM_SIZE;
+        final int operations = 1000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // One thread, doubling up to one thread per core
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            final ConcurrentHashMap<Integer,String> map = new ConcurrentHashMap<Integer,String>(keys, ConcurrentHashMap.DEFAULT_LOAD_FACTOR, threads);
+            for (int i = 0; i < keys; i += 2) {
+                map.put(i, String.valueOf(i));
+            }
+
+            final java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+            final java.util.concurrent.CountDownLatch finish = new java.util.concurrent.CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final long seed = RANDOM.nextLong();
+                Thread thread = new Thread() {
+                    @Override
+                    public void run() {
+                        Random random = new Random(seed);
+                        try {
+                            start.await();
+                            // 80% lookups, 10% puts, 10% removes
+                            for (int i = 0; i < operations; i++) {
+                                Integer key = random.nextInt(keys);
+                                int operation = random.nextInt(10);
+                                if (operation == 0) map.put(key, "value");
+                                else if (operation == 1) map.remove(key);
+                                else map.get(key);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            finish.countDown();
+                        }
+                    }
+                };
+                thread.start();
+            }
+
+            long before = System.nanoTime();
+            start.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            long time = Math.max(1L, (System.nanoTime() - before) / 1000000);
+
+            if (validateStructure && !map.validate()) {
+                System.err.println("ConcurrentHashMap YIKES!! invalid after " + threads + " threads.");
+                handleError(map);
+                return false;
+            }
+            if (debug > 0) System.out.println("ConcurrentHashMap threads=" + threads + " time=" + time + " ms throughput=" + FORMAT.format(((double) threads * operations) / time) + " ops/ms");
+            if (threads >= cores) break;
+        }
+        if (debug > 0) System.out.println();
+
+        return true;
+    }
+
+    private static boolean testConcurrentPriorityQueueScaling() {
+        final int operations = 1000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // One producer and one consumer, doubling up to one of each per core
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ConcurrentPriorityQueue<Integer> queue = new ConcurrentPriorityQueue<Integer>(BinaryHeap.Type.MIN);
+            long time = testProducersConsumers(queue, false, threads, operations);
+            if (time < 0) {
+                System.err.println("ConcurrentPriorityQueue YIKES!! lost values with " + threads + " producers and consumers.");
+                handleError(queue);
+                return false;
+            }
+            if (debug > 0) System.out.println("ConcurrentPriorityQueue producers=" + threads + " consumers=" + threads + " time=" + time + " ms throughput=" + FORMAT.format((2d * operations) / time) + " ops/ms");
+
+            // What the queue replaces, a binary heap behind one lock
+            DaryHeap<Integer> heap = new DaryHeap<Integer>(BinaryHeap.Type.MIN, 2);
+            time = testProducersConsumers(heap, true, threads, operations);
+            if (time < 0) {
+                System.err.println("Locked Min-Heap YIKES!! lost values with " + threads + " producers and consumers.");
+                handleError(heap);
+                return false;
+            }
+            if (debug > 0) System.out.println("Locked Min-Heap producers=" + threads + " consumers=" + threads + " time=" + time + " ms throughput=" + FORMAT.format((2d * operations) / time) + " ops/ms");
+            if (threads >= cores) break;
+        }
+        if (debug > 0) System.out.println();
+
+        return true;
+    }
+
+    /**
+     * Producers add the operations between them while consumers remove them.
+     *
+     * @return time in ms, or -1 if what came out doesn't match what went in.
+     */
+    private static long testProducersConsumers(final IHeap<Integer> heap, final boolean lock, int threads, final int operations) {
+        final java.util.concurrent.atomic.AtomicInteger remaining = new java.util.concurrent.atomic.AtomicInteger(operations);
+        final java.util.concurrent.atomic.AtomicLong produced = new java.util.concurrent.atomic.AtomicLong();
+        final java.util.concurrent.atomic.AtomicLong consumed = new java.util.concurrent.atomic.AtomicLong();
+        final java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+        final java.util.concurrent.CountDownLatch finish = new java.util.concurrent.CountDownLatch(2 * threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = RANDOM.nextLong();
+            final int count = operations / threads + ((t < operations % threads) ? 1 : 0);
+            Thread producer = new Thread() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    long sum = 0;
+                    try {
+                        start.await();
+                        for (int i = 0; i < count; i++) {
+                            Integer value = random.nextInt(RANDOM_SIZE);
+                            sum += value;
+                            if (lock) {
+                                synchronized (heap) {
+                                    heap.add(value);
+                                }
+                            } else {
+                                heap.add(value);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        produced.addAndGet(sum);
+                        finish.countDown();
+                    }
+                }
+            };
+            producer.start();
+
+            Thread consumer = new Thread() {
+                @Override
+                public void run() {
+                    long sum = 0;
+                    try {
+                        start.await();
+                        while (remaining.get() > 0) {
+                            Integer value = null;
+                            if (lock) {
+                                synchronized (heap) {
+                                    value = heap.removeHead();
+                                }
+                            } else {
+                                value = heap.removeHead();
+                            }
+                            if (value == null) {
+                                // Consumers got ahead of the producers
+                                Thread.yield();
+                                continue;
+                            }
+                            sum += value;
+                            remaining.decrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        consumed.addAndGet(sum);
+                        finish.countDown();
+                    }
+                }
+            };
+            consumer.start();
+        }
+
+        long before = System.nanoTime();
+        start.countDown();
+        try {
+            finish.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        long time = Math.max(1L, (System.nanoTime() - before) / 1000000);
+
+        if (produced.get() != consumed.get() || heap.size() != 0) return -1;
+        if (validateStructure && !heap.validate()) return -1;
+        return time;
+    }
+
+    private static boolean testDiskBTreeComparison() {
+        final int keys = 1000000;
+        final int lookups = 100000;
+        final int ranges = 1000;
+        final int rangeSize = 1000;
+
+        Integer[] ordered = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            ordered[i] = 2 * i;
+        }
+        Integer[] probes = new Integer[lookups];
+        for (int i = 0; i < lookups; i++) {
+            // Half of the probes miss
+            probes[i] = RANDOM.nextInt(2 * keys);
+        }
+        Integer[] starts = new Integer[ranges];
+        for (int i = 0; i < ranges; i++) {
+            starts[i] = RANDOM.nextInt(2 * (keys - rangeSize));
+        }
+
+        BTree<Integer> bTree = new BTree<Integer>(32);
+        Integer[] shuffled = Arrays.copyOf(ordered, keys);
+        Collections.shuffle(Arrays.asList(shuffled), RANDOM);
+        for (Integer value : shuffled) bTree.add(value);
+        int expected = 0;
+        long before = System.nanoTime();
+        for (Integer value : probes) if (bTree.contains(value)) expected++;
+        long bLookup = (System.nanoTime() - before) / 1000000;
+        if (debug > 0) {
+            System.out.println("Disk B-Tree with " + keys + " keys, " + lookups + " lookups and " + ranges + " range scans of " + rangeSize + " keys (ms)");
+            System.out.println("B-Tree in memory lookups=" + bLookup + " range scans=n/a");
+        }
+
+        java.io.File file = null;
+        try {
+            file = java.io.File.createTempFile("btree", ".db");
+            file.delete();
+            DiskBTree<Integer> tree = new DiskBTree<Integer>(file, new DiskBTree.IntegerSerializer());
+            before = System.nanoTime();
+            tree.load(ordered);
+            long load = (System.nanoTime() - before) / 1000000;
+            tree.close();
+            if (debug > 0) System.out.println("Disk B-Tree bulk load=" + load + " ms file=" + file.length() + " bytes");
+
+            // A pool which holds every page, and one which holds a sixteenth of them
+            long pages = file.length() / 4096;
+            int[] pools = new int[] { (int) pages + 1, (int) Math.max(16, pages / 16) };
+            for (int pool : pools) {
+                // Cold is the first pass over a freshly opened tree, warm the second
+                long[] lookup = new long[4];
+                tree = new DiskBTree<Integer>(file, new DiskBTree.IntegerSerializer(), 4096, pool);
+                for (int pass = 0; pass < 2; pass++) {
+                    long reads = tree.getPageReads();
+                    int found = 0;
+                    before = System.nanoTime();
+                    for (Integer value : probes) if (tree.contains(value)) found++;
+                    lookup[2 * pass] = (System.nanoTime() - before) / 1000000;
+                    lookup[2 * pass + 1] = tree.getPageReads() - reads;
+                    if (found != expected) {
+                        System.err.println("Disk B-Tree YIKES!! found " + found + " but B-Tree " + expected + ".");
+                        handleError(tree);
+                        return false;
+                    }
+                }
+                tree.close();
+
+                long[] range = new long[4];
+                long[] sums = new long[2];
+                tree = new DiskBTree<Integer>(file, new DiskBTree.IntegerSerializer(), 4096, pool);
+                for (int pass = 0; pass < 2; pass++) {
+                    long reads = tree.getPageReads();
+                    before = System.nanoTime();
+                    for (Integer from : starts) {
+                        Iterator<Integer> iterator = tree.range(from, from + 2 * rangeSize);
+                        while (iterator.hasNext()) sums[pass] += iterator.next();
+                    }
+                    range[2 * pass] = (System.nanoTime() - before) / 1000000;
+                    range[2 * pass + 1] = tree.getPageReads() - reads;
+                }
+                tree.close();
+                if (sums[0] != sums[1]) {
+                    System.err.println("Disk B-Tree YIKES!! range scans summed to " + sums[0] + " and " + sums[1] + ".");
+                    return false;
+                }
+
+                if (debug > 0) {
+                    System.out.println("Disk B-Tree pool=" + pool + " pages lookups cold=" + lookup[0] + " (" + lookup[1] + " page reads) warm=" + lookup[2] + " (" + lookup[3] + " page reads)"
+                                       + " range scans cold=" + range[0] + " (" + range[1] + " page reads) warm=" + range[2] + " (" + range[3] + " page reads)");
+                }
+            }
+            if (debug > 0) System.out.println();
+        } catch (java.io.IOException e) {
+            System.err.println("Disk B-Tree YIKES!! " + e);
+            return false;
+        } finally {
+            if (file != null) {
+                file.delete();
+                new java.io.File(file.getPath() + ".wal").delete();
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean testOrderedTreesComparison() {
+        final int keys = 1000000;
+        final int lookups = 1000000;
+        final int ranges = 1000;
+        final int rangeSize = 1000;
+
+        Integer[] ordered = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            ordered[i] = 2 * i;
+        }
+        Integer[] shuffled = Arrays.copyOf(ordered, keys);
+        Collections.shuffle(Arrays.asList(shuffled), RANDOM);
+        Integer[] probes = new Integer[lookups];
+        for (int i = 0; i < lookups; i++) {
+            // Half of the probes miss
+            probes[i] = RANDOM.nextInt(2 * keys);
+        }
+
+        // Random adds
+        BPlusTree<Integer> bPlusTree = new BPlusTree<Integer>();
+        long before = System.nanoTime();
+        for (Integer value : shuffled) bPlusTree.add(value);
+        long bPlusAdd = (System.nanoTime() - before) / 1000000;
+
+        BTree<Integer> bTree = new BTree<Integer>(32);
+        before = System.nanoTime();
+        for (Integer value : shuffled) bTree.add(value);
+        long bAdd = (System.nanoTime() - before) / 1000000;
+
+        java.util.TreeMap<Integer,Boolean> treeMap = new java.util.TreeMap<Integer,Boolean>();
+        before = System.nanoTime();
+        for (Integer value : shuffled) treeMap.put(value, Boolean.TRUE);
+        long mapAdd = (System.nanoTime() - before) / 1000000;
+
+        // Sorted loads, the B-Tree has no bulk path so it adds in order
+        before = System.nanoTime();
+        BPlusTree<Integer> bPlusBulk = new BPlusTree<Integer>(64, ordered);
+        long bPlusLoad = (System.nanoTime() - before) / 1000000;
+
+        BTree<Integer> bTreeSorted = new BTree<Integer>(32);
+        before = System.nanoTime();
+        for (Integer value : ordered) bTreeSorted.add(value);
+        long bLoad = (System.nanoTime() - before) / 1000000;
+
+        before = System.nanoTime();
+        java.util.TreeMap<Integer,Boolean> treeMapSorted = new java.util.TreeMap<Integer,Boolean>(treeMap);
+        long mapLoad = (System.nanoTime() - before) / 1000000;
+
+        if (validateStructure && (!bPlusTree.validate() || !bPlusBulk.validate() || bPlusTree.size() != keys || bPlusBulk.size() != keys)) {
+            System.err.println("B+Tree YIKES!! invalid after adding " + keys + " keys.");
+            handleError(bPlusTree);
+            return false;
+        }
+
+        // Lookups
+        int bPlusFound = 0;
+        before = System.nanoTime();
+        for (Integer value : probes) if (bPlusBulk.contains(value)) bPlusFound++;
+        long bPlusLookup = (System.nanoTime() - before) / 1000000;
+
+        int bFound = 0;
+        before = System.nanoTime();
+        for (Integer value : probes) if (bTree.contains(value)) bFound++;
+        long bLookup = (System.nanoTime() - before) / 1000000;
+
+        int mapFound = 0;
+        before = System.nanoTime();
+        for (Integer value : probes) if (treeMapSorted.containsKey(value)) mapFound++;
+        long mapLookup = (System.nanoTime() - before) / 1000000;
+
+        if (bPlusFound != mapFound || bFound != mapFound) {
+            System.err.println("B+Tree YIKES!! found " + bPlusFound + " and B-Tree " + bFound + " but TreeMap " + mapFound + ".");
+            return false;
+        }
+
+        // Range scans, the B-Tree has no ordered iteration
+        long bPlusSum = 0;
+        long mapSum = 0;
+        Integer[] starts = new Integer[ranges];
+        for (int i = 0; i < ranges; i++) {
+            starts[i] = RANDOM.nextInt(2 * (keys - rangeSize));
+        }
+        before = System.nanoTime();
+        for (Integer from : starts) {
+            Iterator<Integer> iterator = bPlusBulk.range(from, from + 2 * rangeSize);
+            while (iterator.hasNext()) bPlusSum += iterator.next();
+        }
+        long bPlusRange = (System.nanoTime() - before) / 1000000;
+
+        before = System.nanoTime();
+        for (Integer from : starts) {
+            for (Integer value : treeMapSorted.subMap(from, from + 2 * rangeSize).keySet()) mapSum += value;
+        }
+        long mapRange = (System.nanoTime() - before) / 1000000;
+
+        if (bPlusSum != mapSum) {
+            System.err.println("B+Tree YIKES!! range scans summed to " + bPlusSum + " instead of " + mapSum + ".");
+            return false;
+        }
+
+        if (debug > 0) {
+            System.out.println("Ordered trees with " + keys + " keys, " + lookups + " lookups and " + ranges + " range scans of " + rangeSize + " keys (ms)");
+            System.out.println("B+Tree  random adds=" + bPlusAdd + " sorted load=" + bPlusLoad + " lookups=" + bPlusLookup + " range scans=" + bPlusRange);
+            System.out.println("B-Tree  random adds=" + bAdd + " sorted load=" + bLoad + " lookups=" + bLookup + " range scans=n/a");
+            System.out.println("TreeMap random adds=" + mapAdd + " sorted load=" + mapLoad + " lookups=" + mapLookup + " range scans=" + mapRange);
+            System.out.println();
+        }
+
+        return true;
+    }
+
+    private static boolean testDisjointSet() {
+        int size = RANDOM_SIZE;
+        int[] from = new int[size];
+        int[] to = new int[size];
+        for (int i = 0; i < size; i++) {
+            from[i] = RANDOM.nextInt(size);
+            to[i] = RANDOM.nextInt(size);
+        }
+
+        // Expected sets, labeled by a search over the joined pairs
+        java.util.List<java.util.List<Integer>> adjacent = new ArrayList<java.util.List<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            adjacent.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < size; i++) {
+            adjacent.get(from[i]).add(to[i]);
+            adjacent.get(to[i]).add(from[i]);
+        }
+        int[] labels = new int[size];
+        Arrays.fill(labels, -1);
+        int sets = 0;
+        for (int i = 0; i < size; i++) {
+            if (labels[i] >= 0) continue;
+            java.util.Deque<Integer> stack = new java.util.ArrayDeque<Integer>();
+            stack.push(i);
+            labels[i] = sets;
+            while (!stack.isEmpty()) {
+                for (int j : adjacent.get(stack.pop())) {
+                    if (labels[j] >= 0) continue;
+                    labels[j] = sets;
+                    stack.push(j);
+                }
+            }
+            sets++;
+        }
+
+        {   // Disjoint set
+            long beforeMemory = DataStructures.getMemoryUse();
+            DisjointSet set = new DisjointSet(size);
+            long afterMemory = DataStructures.getMemoryUse();
+
+            long beforeUnion = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                set.union(from[i], to[i]);
+            }
+            long afterUnion = System.nanoTime();
+            if (validateStructure && (!set.validate() || set.getNumberOfSets() != sets)) {
+                System.err.println("DisjointSet YIKES!! invalid after union. sets=" + set.getNumberOfSets() + " expected=" + sets);
+                handleError(set);
+                return false;
+            }
+
+            long beforeFind = System.nanoTime();
+            int[] roots = new int[sets];
+            Arrays.fill(roots, -1);
+            for (int i = 0; i < size; i++) {
+                int root = set.find(i);
+                if (roots[labels[i]] < 0) roots[labels[i]] = root;
+                if (validateContents && roots[labels[i]] != root) {
+                    System.err.println("DisjointSet YIKES!! " + i + " is in the wrong set.");
+                    handleError(set);
+                    return false;
+                }
+            }
+            long afterFind = System.nanoTime();
+            if (debug > 0) System.out.println("DisjointSet size=" + size + " unionTime=" + FORMAT.format((afterUnion - beforeUnion) / 1000000d) + " ms findTime="
+                                              + FORMAT.format((afterFind - beforeFind) / 1000000d) + " ms memory=" + (afterMemory - beforeMemory) + " bytes");
+        }
+
+        {   // Concurrent disjoint set, on one thread
+            long beforeMemory = DataStructures.getMemoryUse();
+            ConcurrentDisjointSet set = new ConcurrentDisjointSet(size);
+            long afterMemory = DataStructures.getMemoryUse();
+
+            long beforeUnion = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                set.union(from[i], to[i]);
+            }
+            long afterUnion = System.nanoTime();
+            if (validateStructure && (!set.validate() || set.getNumberOfSets() != sets)) {
+                System.err.println("ConcurrentDisjointSet YIKES!! invalid after union. sets=" + set.getNumberOfSets() + " expected=" + sets);
+                handleError(set);
+                return false;
+            }
+
+            long beforeFind = System.nanoTime();
+            int[] roots = new int[sets];
+            Arrays.fill(roots, -1);
+            for (int i = 0; i < size; i++) {
+                int root = set.find(i);
+                if (roots[labels[i]] < 0) roots[labels[i]] = root;
+                if (validateContents && (roots[labels[i]] != root || !set.isConnected(i, roots[labels[i]]))) {
+                    System.err.println("ConcurrentDisjointSet YIKES!! " + i + " is in the wrong set.");
+                    handleError(set);
+                    return false;
+                }
+            }
+            long afterFind = System.nanoTime();
+            if (debug > 0) System.out.println("ConcurrentDisjointSet size=" + size + " unionTime=" + FORMAT.format((afterUnion - beforeUnion) / 1000000d) + " ms findTime="
+                                              + FORMAT.format((afterFind - beforeFind) / 1000000d) + " ms memory=" + (afterMemory - beforeMemory) + " bytes");
+        }
+        if (debug > 0) System.out.println();
+
+        return true;
+    }
+
+    private static boolean testConcurrentDisjointSetScaling() {
+        final int size = 1000000;
+        final int operations = 1000000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // One thread, doubling up to one thread per core
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            final int[][] from = new int[threads][operations];
+            final int[][] to = new int[threads][operations];
+            DisjointSet expected = new DisjointSet(size);
+            for (int t = 0; t < threads; t++) {
+                for (int i = 0; i < operations; i++) {
+                    from[t][i] = RANDOM.nextInt(size);
+                    to[t][i] = RANDOM.nextInt(size);
+                    expected.union(from[t][i], to[t][i]);
+                }
+            }
+
+            final ConcurrentDisjointSet set = new ConcurrentDisjointSet(size);
+            final java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+            final java.util.concurrent.CountDownLatch finish = new java.util.concurrent.CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final int[] threadFrom = from[t];
+                final int[] threadTo = to[t];
+                Thread thread = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            for (int i = 0; i < operations; i++) {
+                                set.union(threadFrom[i], threadTo[i]);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            finish.countDown();
+                        }
+                    }
+                };
+                thread.start();
+            }
+
+            long before = System.nanoTime();
+            start.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            long time = Math.max(1L, (System.nanoTime() - before) / 1000000);
+
+            if (validateStructure && (!set.validate() || set.getNumberOfSets() != expected.getNumberOfSets())) {
+                System.err.println("ConcurrentDisjointSet YIKES!! invalid after " + threads + " threads. sets=" + set.getNumberOfSets() + " expected="
+                                   + expected.getNumberOfSets());
+                return false;
+            }
+            if (debug > 0) System.out.println("ConcurrentDisjointSet threads=" + threads + " time=" + time + " ms throughput=" + FORMAT.format(((double) threads * operations) / time) + " unions/ms");
+            if (threads >= cores) break;
+        }
+        if (debug > 0) System.out.println();
+
+        return true;
+    }
+
     private static boolean testIntervalTree() {
         {   // Interval tree
             if (debug > 1) System.out.println("Interval Tree.");
@@ -1886,6 +3096,12 @@ public class DataStructures {
         else if(String.class.equals(type)) {
             returnValue = type.cast(String.valueOf(value));
         }
+        else if(Long.class.equals(type)) {
+            returnValue = type.cast(Long.valueOf(value));
+        }
+        else if(Double.class.equals(type)) {
+            returnValue = type.cast(Double.valueOf(value));
+        }
         else {
             throw new IllegalArgumentException("Unsupported type " + type.getName());
         }
@@ -2162,6 +3378,87 @@ public class DataStructures {
             }
         }
 
+        // Add all in one batch, remove half in one batch, put back a quarter, remove the rest
+        Collection<T> batch = new ArrayList<T>(unsorted.length);
+        for (int i = 0; i < unsorted.length; i++) {
+            batch.add(parseT(unsorted[i], clazz));
+        }
+        heap.addAll(batch);
+        if (validateStructure && (!heap.validate() || heap.size() != unsorted.length)) {
+            System.err.println(name+" YIKES!! addAll caused a size mismatch.");
+            handleError(heap);
+            return false;
+        }
+        java.util.List<T> heads = heap.removeHead(half);
+        batch.clear();
+        batch.addAll(heads.subList(0, quarter));
+        heap.addAll(batch);
+        if (validateStructure && (!heap.validate() || heap.size() != unsorted.length - (half - quarter))) {
+            System.err.println(name+" YIKES!! addAll caused a size mismatch.");
+            handleError(heap);
+            return false;
+        }
+        java.util.List<T> rest = heap.removeHead(unsorted.length);
+        if (validateStructure && (heads.size() != half || rest.size() != unsorted.length - half + quarter)) {
+            System.err.println(name+" YIKES!! removeHead(k) caused a size mismatch.");
+            handleError(heap);
+            return false;
+        }
+        for (int i = 0; i < heads.size() + rest.size(); i++) {
+            // The rest starts with the quarter which was put back
+            int j = (i < half) ? i : ((i - half < quarter) ? i - half : i - quarter);
+            T item = (i < half) ? heads.get(i) : rest.get(i - half);
+            T correct = parseT((type == BinaryHeap.Type.MIN) ? sorted[j] : sorted[sorted.length - (j + 1)], clazz);
+            if (validateStructure && (item.compareTo(correct)!=0)) {
+                System.err.println(name+" YIKES!! " + item + " does not match heap item.");
+                handleError(heap);
+                return false;
+            }
+        }
+
+        // Add all, move the first half past the tail and the second half past the head
+        java.util.List<T> changed = new ArrayList<T>(unsorted.length);
+        for (int i = 0; i < unsorted.length; i++) {
+            heap.add(parseT(unsorted[i], clazz));
+        }
+        for (int i = 0; i < unsorted.length; i++) {
+            T item = parseT(unsorted[i], clazz);
+            int priority = (i < half) ? unsorted[i] + 2 * RANDOM_SIZE : unsorted[i] - 2 * RANDOM_SIZE;
+            if (type == BinaryHeap.Type.MAX) priority = 2 * unsorted[i] - priority;
+            T newItem = parseT(priority, clazz);
+            changed.add(newItem);
+            if (!heap.changePriority(item, newItem)) {
+                System.err.println(name+" YIKES!! " + item + " priority wasn't changed.");
+                handleError(heap);
+                return false;
+            }
+            if (validateStructure && (!heap.validate() || heap.size() != unsorted.length)) {
+                System.err.println(name+" YIKES!! " + item + " priority change caused a size mismatch.");
+                handleError(heap);
+                return false;
+            }
+            if (validateContents && (heap.contains(item) || !heap.contains(newItem))) {
+                System.err.println(name+" YIKES!! " + item + " priority change didn't replace it.");
+                handleError(heap);
+                return false;
+            }
+        }
+        if (heap.changePriority(parseT(INVALID, clazz), parseT(INVALID, clazz))) {
+            System.err.println(name+" YIKES!! changed priority of a missing item.");
+            handleError(heap);
+            return false;
+        }
+        Collections.sort(changed);
+        if (type == BinaryHeap.Type.MAX) Collections.reverse(changed);
+        for (int i = 0; i < changed.size(); i++) {
+            T item = heap.removeHead();
+            if (validateStructure && (item.compareTo(changed.get(i))!=0)) {
+                System.err.println(name+" YIKES!! " + item + " does not match heap item.");
+                handleError(heap);
+                return false;
+            }
+        }
+
         if (validateStructure && (heap.size() != 0)) {
             System.err.println(name+" YIKES!! a size mismatch.");
             handleError(heap);
@@ -3678,6 +4975,22 @@ public class DataStructures {
         return resultsBuilder.toString();
     }
 
+    private static boolean checkDynamicShortestPaths(Graph<Integer> g, DynamicShortestPaths<Integer> dynamic) {
+        Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> expected = Dijkstra.getShortestPaths(g, dynamic.getSource());
+        for (Graph.Vertex<Integer> v : g.getVerticies()) {
+            Graph.CostPathPair<Integer> pair = dynamic.getShortestPath(v);
+            int cost = 0;
+            for (Graph.Edge<Integer> e : pair.getPath()) {
+                cost += e.getCost();
+            }
+            if (expected.get(v).getCost() != pair.getCost() || (pair.getCost() != Integer.MAX_VALUE && cost != pair.getCost())) {
+                System.err.println("Dynamic shortest path mismatch. " + pair + " != " + expected.get(v));
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static final String getPathMapString(Graph.Vertex<Integer> start, Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> map) {
         StringBuilder builder = new StringBuilder();
         for (Graph.Vertex<Integer> v : map.keySet()) {
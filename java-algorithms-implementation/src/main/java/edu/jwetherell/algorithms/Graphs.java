@@ -0,0 +1,617 @@
+package edu.jwetherell.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.EdgeList;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+import edu.jwetherell.algorithms.graph.BellmanFord;
+import edu.jwetherell.algorithms.graph.Boruvka;
+import edu.jwetherell.algorithms.graph.BreadthFirstSearch;
+import edu.jwetherell.algorithms.graph.DeltaStepping;
+import edu.jwetherell.algorithms.graph.Dijkstra;
+import edu.jwetherell.algorithms.graph.Dinic;
+import edu.jwetherell.algorithms.graph.DistanceMatrix;
+import edu.jwetherell.algorithms.graph.DynamicShortestPaths;
+import edu.jwetherell.algorithms.graph.FloydWarshall;
+import edu.jwetherell.algorithms.graph.Johnson;
+import edu.jwetherell.algorithms.graph.Kruskal;
+import edu.jwetherell.algorithms.graph.Prim;
+import edu.jwetherell.algorithms.graph.PushRelabel;
+import edu.jwetherell.algorithms.graph.Snapshot;
+
+public class Graphs {
+
+    private static final DecimalFormat FORMAT = new DecimalFormat("#.###");
+    private static final int NUMBER_OF_VERTICIES = 5000;
+    private static final int NUMBER_OF_EDGES = 50000;
+    private static final int MAX_COST = 100;
+    private static final int NUMBER_OF_UPDATES = 200;
+    private static final int EDGE_LIST_VERTICIES = 1000000;
+    private static final int EDGE_LIST_EDGES = 4000000;
+    private static final int BFS_VERTICIES = 1000000;
+    private static final int BFS_EDGES = 8000000;
+    private static final int GRID_SIZE = 500;
+    private static final int FLOW_VERTICIES = 100000;
+    private static final int FLOW_EDGES = 1000000;
+    private static final int MAX_CAPACITY = 1000;
+    private static final int ALL_PAIRS_VERTICIES = 1000;
+    private static final int ALL_PAIRS_EDGES = 10000;
+    private static final int[] THREADS = { 1, 4, 16, 32 };
+
+    private static final Random RANDOM = new Random(1234);
+
+    private static Graph<Integer> graph = null;
+    private static List<Graph.Vertex<Integer>> verticies = null;
+
+    public static void main(String[] args) {
+        System.out.println("Generating random directed graph.");
+        generateGraph();
+        System.out.println("Generated graph with " + NUMBER_OF_VERTICIES + " verticies and " + NUMBER_OF_EDGES + " edges.");
+        System.out.println();
+
+        Graph.Vertex<Integer> start = verticies.get(0);
+        Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> expected = null;
+
+        {
+            System.out.println("Dijkstra's shortest paths.");
+            long before = System.nanoTime();
+            expected = Dijkstra.getShortestPaths(graph, start);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Bellman-Ford's shortest paths [compact].");
+            CompactGraph<Integer> compact = new CompactGraph<Integer>(graph);
+            long before = System.nanoTime();
+            int[] result = BellmanFord.getShortestPaths(compact, compact.indexOf(start));
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (!check(expected, compact, result))
+                System.err.println("Bellman-Ford's shortest paths do not match Dijkstra's.");
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Delta-stepping shortest paths. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> result = DeltaStepping.getShortestPaths(graph, start, executor, threads);
+                long after = System.nanoTime();
+                System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (!check(expected, result))
+                    System.err.println("Delta-stepping shortest paths do not match Dijkstra's.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Dynamic shortest paths. updates=" + NUMBER_OF_UPDATES);
+            DynamicShortestPaths<Integer> dynamic = new DynamicShortestPaths<Integer>(graph, start);
+            long dynamicTime = 0L;
+            long recomputeTime = 0L;
+            for (int i = 0; i < NUMBER_OF_UPDATES; i++) {
+                long before = System.nanoTime();
+                update();
+                long after = System.nanoTime();
+                dynamicTime += after - before;
+
+                before = System.nanoTime();
+                expected = Dijkstra.getShortestPaths(graph, start);
+                after = System.nanoTime();
+                recomputeTime += after - before;
+            }
+            System.out.println("Repaired in " + FORMAT.format(dynamicTime / 1000000d) + " ms");
+            System.out.println("Recomputed in " + FORMAT.format(recomputeTime / 1000000d) + " ms");
+            if (!check(expected, dynamic.getShortestPaths()))
+                System.err.println("Dynamic shortest paths do not match Dijkstra's.");
+            dynamic.detach();
+            System.out.println();
+            System.gc();
+        }
+
+        System.out.println("Generating random undirected graph.");
+        CompactGraph<Integer> undirected = generateUndirectedGraph();
+        System.out.println("Generated graph with " + NUMBER_OF_VERTICIES + " verticies and " + NUMBER_OF_EDGES + " edges.");
+        System.out.println();
+
+        int expectedCost = 0;
+        {
+            System.out.println("Kruskal's minimum spanning tree [compact].");
+            long before = System.nanoTime();
+            int[] tree = Kruskal.getMinimumSpanningTree(undirected);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            expectedCost = getCost(undirected, tree);
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Prim's minimum spanning tree [compact].");
+            long before = System.nanoTime();
+            int[] tree = Prim.getMinimumSpanningTree(undirected, 0);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (getCost(undirected, tree) != expectedCost)
+                System.err.println("Prim's minimum spanning tree does not match Kruskal's.");
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Boruvka's minimum spanning tree [compact]. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                int[] tree = Boruvka.getMinimumSpanningTree(undirected, executor, threads);
+                long after = System.nanoTime();
+                System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (getCost(undirected, tree) != expectedCost)
+                    System.err.println("Boruvka's minimum spanning tree does not match Kruskal's.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+
+        try {
+            readEdgeLists();
+        } catch (IOException e) {
+            System.err.println("Reading edge lists failed. " + e);
+        }
+
+        System.out.println("Generating random directed graph for breadth first search.");
+        CompactGraph<Integer> bfsGraph = generateBreadthFirstSearchGraph();
+        System.out.println("Generated graph with " + BFS_VERTICIES + " verticies and " + BFS_EDGES + " edges.");
+        System.out.println();
+
+        int[] expectedHops = null;
+        {
+            System.out.println("Breadth first search [compact].");
+            long before = System.nanoTime();
+            expectedHops = BreadthFirstSearch.getDistances(bfsGraph, 0, null, 1);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Breadth first search [compact]. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                int[] hops = BreadthFirstSearch.getDistances(bfsGraph, 0, executor, threads);
+                long after = System.nanoTime();
+                System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (!Arrays.equals(expectedHops, hops))
+                    System.err.println("Parallel breadth first search does not match sequential.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+        bfsGraph = null;
+
+        System.out.println("Generating grid flow network.");
+        CompactGraph<Integer> grid = generateGridNetwork();
+        System.out.println("Generated network with " + grid.getNumberOfVerticies() + " verticies and " + grid.getNumberOfEdges() + " edges.");
+        System.out.println();
+        maximumFlow(grid, grid.getNumberOfVerticies() - 2, grid.getNumberOfVerticies() - 1);
+        grid = null;
+
+        System.out.println("Generating random flow network.");
+        CompactGraph<Integer> network = generateRandomNetwork();
+        System.out.println("Generated network with " + FLOW_VERTICIES + " verticies and " + FLOW_EDGES + " edges.");
+        System.out.println();
+        maximumFlow(network, 0, FLOW_VERTICIES - 1);
+        network = null;
+
+        System.out.println("Generating random directed graph with negative costs.");
+        CompactGraph<Integer> allPairs = generateAllPairsGraph();
+        System.out.println("Generated graph with " + ALL_PAIRS_VERTICIES + " verticies and " + ALL_PAIRS_EDGES + " edges.");
+        System.out.println();
+
+        DistanceMatrix<Integer> expectedMatrix = null;
+        {
+            System.out.println("Floyd-Warshall's all pairs shortest paths.");
+            long before = System.nanoTime();
+            expectedMatrix = FloydWarshall.getAllPairsShortestPathMatrix(allPairs, null, 1);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Johnson's all pairs shortest paths. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                DistanceMatrix<Integer> result = Johnson.getAllPairsShortestPathMatrix(allPairs, executor, threads);
+                long after = System.nanoTime();
+                System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (!check(expectedMatrix, result))
+                    System.err.println("Johnson's all pairs shortest paths do not match Floyd-Warshall's.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+
+        try {
+            snapshots(expectedMatrix);
+        } catch (IOException e) {
+            System.err.println("Snapshots failed. " + e);
+        }
+    }
+
+    /**
+     * Time writing and loading snapshots of the random graph and the all
+     * pairs distance matrix.
+     */
+    private static void snapshots(DistanceMatrix<Integer> matrix) throws IOException {
+        File graphFile = File.createTempFile("graph", ".snapshot");
+        File matrixFile = File.createTempFile("matrix", ".snapshot");
+        graphFile.deleteOnExit();
+        matrixFile.deleteOnExit();
+
+        {
+            System.out.println("Graph snapshot.");
+            long before = System.nanoTime();
+            Snapshot.writeGraph(graph, graphFile);
+            long after = System.nanoTime();
+            System.out.println("Wrote " + graphFile.length() + " bytes in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            before = System.nanoTime();
+            Graph<Integer> g = Snapshot.readGraph(graphFile);
+            after = System.nanoTime();
+            System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (!g.getEdges().equals(graph.getEdges()))
+                System.err.println("Graph snapshot does not match the graph.");
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Distance matrix snapshot.");
+            long before = System.nanoTime();
+            Snapshot.writeDistanceMatrix(matrix, matrixFile);
+            long after = System.nanoTime();
+            System.out.println("Wrote " + matrixFile.length() + " bytes in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            before = System.nanoTime();
+            DistanceMatrix<Integer> read = Snapshot.readDistanceMatrix(matrixFile);
+            after = System.nanoTime();
+            System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (!check(matrix, read))
+                System.err.println("Distance matrix snapshot does not match the matrix.");
+            before = System.nanoTime();
+            DistanceMatrix<Integer> mapped = Snapshot.mapDistanceMatrix(matrixFile);
+            after = System.nanoTime();
+            System.out.println("Mapped in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (!check(matrix, mapped))
+                System.err.println("Mapped distance matrix snapshot does not match the matrix.");
+            System.out.println();
+            System.gc();
+        }
+
+        graphFile.delete();
+        matrixFile.delete();
+    }
+
+    private static void generateGraph() {
+        verticies = new ArrayList<Graph.Vertex<Integer>>(NUMBER_OF_VERTICIES);
+        for (int i = 0; i < NUMBER_OF_VERTICIES; i++) {
+            verticies.add(new Graph.Vertex<Integer>(i));
+        }
+        List<Graph.Edge<Integer>> edges = new ArrayList<Graph.Edge<Integer>>(NUMBER_OF_EDGES);
+        for (int i = 0; i < NUMBER_OF_EDGES; i++) {
+            Graph.Vertex<Integer> from = verticies.get(RANDOM.nextInt(NUMBER_OF_VERTICIES));
+            Graph.Vertex<Integer> to = verticies.get(RANDOM.nextInt(NUMBER_OF_VERTICIES));
+            edges.add(new Graph.Edge<Integer>(RANDOM.nextInt(MAX_COST), from, to));
+        }
+        graph = new Graph<Integer>(Graph.TYPE.DIRECTED, verticies, edges);
+    }
+
+    /**
+     * Mostly cost changes, like traffic, with some edges added and removed.
+     */
+    private static void update() {
+        int type = RANDOM.nextInt(10);
+        List<Graph.Edge<Integer>> edges = graph.getEdges();
+        if (type == 0) {
+            Graph.Vertex<Integer> from = verticies.get(RANDOM.nextInt(NUMBER_OF_VERTICIES));
+            Graph.Vertex<Integer> to = verticies.get(RANDOM.nextInt(NUMBER_OF_VERTICIES));
+            graph.addEdge(new Graph.Edge<Integer>(RANDOM.nextInt(MAX_COST), from, to));
+        } else if (type == 1) {
+            graph.removeEdge(edges.get(RANDOM.nextInt(edges.size())));
+        } else {
+            graph.setEdgeCost(edges.get(RANDOM.nextInt(edges.size())), RANDOM.nextInt(MAX_COST));
+        }
+    }
+
+    private static CompactGraph<Integer> generateUndirectedGraph() {
+        int[] from = new int[NUMBER_OF_EDGES];
+        int[] to = new int[NUMBER_OF_EDGES];
+        int[] cost = new int[NUMBER_OF_EDGES];
+        for (int i = 0; i < NUMBER_OF_EDGES; i++) {
+            from[i] = RANDOM.nextInt(NUMBER_OF_VERTICIES);
+            to[i] = RANDOM.nextInt(NUMBER_OF_VERTICIES);
+            cost[i] = RANDOM.nextInt(MAX_COST);
+        }
+        return (new CompactGraph<Integer>(Graph.TYPE.UNDIRECTED, NUMBER_OF_VERTICIES, NUMBER_OF_EDGES, from, to, cost));
+    }
+
+    private static int getCost(CompactGraph<Integer> g, int[] edges) {
+        int cost = 0;
+        for (int e : edges) {
+            cost += g.getCost(e);
+        }
+        return cost;
+    }
+
+    /**
+     * Edge costs are a random non-negative cost plus the difference of random
+     * vertex potentials, so some are negative but no cycle is.
+     */
+    /**
+     * Time reading the same random edge list as text, line by line and from a
+     * memory mapped file, and as binary.
+     */
+    private static void readEdgeLists() throws IOException {
+        System.out.println("Writing random edge lists.");
+        File text = File.createTempFile("edges", ".txt");
+        File binary = File.createTempFile("edges", ".bin");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+        Writer textOut = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(text), "US-ASCII"));
+        DataOutputStream binaryOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binary)));
+        try {
+            for (int i = 0; i < EDGE_LIST_EDGES; i++) {
+                int from = RANDOM.nextInt(EDGE_LIST_VERTICIES);
+                int to = RANDOM.nextInt(EDGE_LIST_VERTICIES);
+                int cost = RANDOM.nextInt(MAX_COST);
+                textOut.write(from + " " + to + " " + cost + "\n");
+                binaryOut.writeInt(from);
+                binaryOut.writeInt(to);
+                binaryOut.writeInt(cost);
+            }
+        } finally {
+            textOut.close();
+            binaryOut.close();
+        }
+        System.out.println("Wrote " + EDGE_LIST_EDGES + " edges, text=" + text.length() + " bytes binary=" + binary.length() + " bytes.");
+        System.out.println();
+
+        {
+            System.out.println("Reading text edge list [BufferedReader].");
+            long before = System.nanoTime();
+            int[] from = new int[EDGE_LIST_EDGES];
+            int[] to = new int[EDGE_LIST_EDGES];
+            int[] cost = new int[EDGE_LIST_EDGES];
+            int size = 0;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(text), "US-ASCII"));
+            try {
+                String line = null;
+                while ((line = reader.readLine()) != null) {
+                    String[] values = line.split(" ");
+                    from[size] = Integer.parseInt(values[0]);
+                    to[size] = Integer.parseInt(values[1]);
+                    cost[size++] = Integer.parseInt(values[2]);
+                }
+            } finally {
+                reader.close();
+            }
+            new CompactGraph<Integer>(Graph.TYPE.DIRECTED, EDGE_LIST_VERTICIES, size, from, to, cost);
+            long after = System.nanoTime();
+            System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Reading text edge list [mapped]. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                EdgeList edges = EdgeList.readText(text, executor, threads);
+                edges.toCompactGraph(Graph.TYPE.DIRECTED);
+                long after = System.nanoTime();
+                System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (edges.getNumberOfEdges() != EDGE_LIST_EDGES)
+                    System.err.println("Text edge list is missing edges.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+
+        for (int threads : THREADS) {
+            System.out.println("Reading binary edge list [mapped]. threads=" + threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                long before = System.nanoTime();
+                EdgeList edges = EdgeList.readBinary(binary, ByteOrder.BIG_ENDIAN, executor, threads);
+                edges.toCompactGraph(Graph.TYPE.DIRECTED);
+                long after = System.nanoTime();
+                System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+                if (edges.getNumberOfEdges() != EDGE_LIST_EDGES)
+                    System.err.println("Binary edge list is missing edges.");
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Reading binary edge list [mapped] into a Graph.");
+            long before = System.nanoTime();
+            Graph<Integer> g = EdgeList.readBinary(binary, ByteOrder.BIG_ENDIAN, null, 1).toGraph(Graph.TYPE.DIRECTED);
+            long after = System.nanoTime();
+            System.out.println("Read in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (g.getEdges().size() != EDGE_LIST_EDGES)
+                System.err.println("Graph is missing edges.");
+            System.out.println();
+            System.gc();
+        }
+
+        text.delete();
+        binary.delete();
+    }
+
+    private static CompactGraph<Integer> generateBreadthFirstSearchGraph() {
+        int[] from = new int[BFS_EDGES];
+        int[] to = new int[BFS_EDGES];
+        int[] cost = new int[BFS_EDGES];
+        for (int i = 0; i < BFS_EDGES; i++) {
+            from[i] = RANDOM.nextInt(BFS_VERTICIES);
+            to[i] = RANDOM.nextInt(BFS_VERTICIES);
+        }
+        return (new CompactGraph<Integer>(Graph.TYPE.DIRECTED, BFS_VERTICIES, BFS_EDGES, from, to, cost));
+    }
+
+    private static void maximumFlow(CompactGraph<Integer> network, int source, int sink) {
+        long expectedFlow = 0;
+        {
+            System.out.println("Dinic's maximum flow [compact].");
+            long before = System.nanoTime();
+            expectedFlow = Dinic.getMaximumFlow(network, source, sink, null);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            System.out.println("Flow=" + expectedFlow);
+            System.out.println();
+            System.gc();
+        }
+
+        {
+            System.out.println("Push-relabel maximum flow [compact].");
+            long before = System.nanoTime();
+            long flow = PushRelabel.getMaximumFlow(network, source, sink, null);
+            long after = System.nanoTime();
+            System.out.println("Computed in " + FORMAT.format((after - before) / 1000000d) + " ms");
+            if (flow != expectedFlow)
+                System.err.println("Push-relabel maximum flow does not match Dinic's.");
+            System.out.println();
+            System.gc();
+        }
+    }
+
+    /**
+     * Square grid with edges both ways between neighbours, the source feeds
+     * the left column and the right column drains into the sink.
+     */
+    private static CompactGraph<Integer> generateGridNetwork() {
+        int n = GRID_SIZE * GRID_SIZE + 2;
+        int source = n - 2;
+        int sink = n - 1;
+        int m = 4 * GRID_SIZE * (GRID_SIZE - 1) + 2 * GRID_SIZE;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        int[] capacity = new int[m];
+        int i = 0;
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int column = 0; column < GRID_SIZE; column++) {
+                int v = row * GRID_SIZE + column;
+                if (column + 1 < GRID_SIZE) {
+                    from[i] = v; to[i] = v + 1; capacity[i++] = 1 + RANDOM.nextInt(MAX_CAPACITY);
+                    from[i] = v + 1; to[i] = v; capacity[i++] = 1 + RANDOM.nextInt(MAX_CAPACITY);
+                }
+                if (row + 1 < GRID_SIZE) {
+                    from[i] = v; to[i] = v + GRID_SIZE; capacity[i++] = 1 + RANDOM.nextInt(MAX_CAPACITY);
+                    from[i] = v + GRID_SIZE; to[i] = v; capacity[i++] = 1 + RANDOM.nextInt(MAX_CAPACITY);
+                }
+            }
+            from[i] = source; to[i] = row * GRID_SIZE; capacity[i++] = Integer.MAX_VALUE;
+            from[i] = row * GRID_SIZE + GRID_SIZE - 1; to[i] = sink; capacity[i++] = Integer.MAX_VALUE;
+        }
+        return (new CompactGraph<Integer>(Graph.TYPE.DIRECTED, n, m, from, to, capacity));
+    }
+
+    private static CompactGraph<Integer> generateRandomNetwork() {
+        int[] from = new int[FLOW_EDGES];
+        int[] to = new int[FLOW_EDGES];
+        int[] capacity = new int[FLOW_EDGES];
+        for (int i = 0; i < FLOW_EDGES; i++) {
+            from[i] = RANDOM.nextInt(FLOW_VERTICIES);
+            to[i] = RANDOM.nextInt(FLOW_VERTICIES);
+            capacity[i] = 1 + RANDOM.nextInt(MAX_CAPACITY);
+        }
+        return (new CompactGraph<Integer>(Graph.TYPE.DIRECTED, FLOW_VERTICIES, FLOW_EDGES, from, to, capacity));
+    }
+
+    private static CompactGraph<Integer> generateAllPairsGraph() {
+        int[] potentials = new int[ALL_PAIRS_VERTICIES];
+        for (int i = 0; i < ALL_PAIRS_VERTICIES; i++) {
+            potentials[i] = RANDOM.nextInt(MAX_COST);
+        }
+        int[] from = new int[ALL_PAIRS_EDGES];
+        int[] to = new int[ALL_PAIRS_EDGES];
+        int[] cost = new int[ALL_PAIRS_EDGES];
+        for (int i = 0; i < ALL_PAIRS_EDGES; i++) {
+            from[i] = RANDOM.nextInt(ALL_PAIRS_VERTICIES);
+            to[i] = RANDOM.nextInt(ALL_PAIRS_VERTICIES);
+            cost[i] = RANDOM.nextInt(MAX_COST) + potentials[from[i]] - potentials[to[i]];
+        }
+        return (new CompactGraph<Integer>(Graph.TYPE.DIRECTED, ALL_PAIRS_VERTICIES, ALL_PAIRS_EDGES, from, to, cost));
+    }
+
+    private static boolean check(DistanceMatrix<Integer> expected, DistanceMatrix<Integer> result) {
+        if (result == null || expected.size() != result.size())
+            return false;
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < expected.size(); j++) {
+                if (expected.get(i, j) != result.get(i, j))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean check(Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> expected, Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> result) {
+        for (Graph.Vertex<Integer> v : verticies) {
+            if (expected.get(v).getCost() != result.get(v).getCost())
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean check(Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> expected, CompactGraph<Integer> compact, int[] result) {
+        for (Graph.Vertex<Integer> v : verticies) {
+            if (expected.get(v).getCost() != result[compact.indexOf(v)])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,704 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * B+tree is a B-tree which keeps every value in its leaves, the internal nodes
+ * only hold copies of keys to route a search. The leaves are linked to each
+ * other in order, so after a single search a range of values is read by
+ * walking the leaves without going back up the tree. Keys are kept in plain
+ * arrays and searched with a binary search, a node with many keys is then
+ * read from a few cache lines instead of being chased through objects.
+ *
+ * Adding and removing values split, borrow and merge nodes on the way down,
+ * so nothing has to go back up the tree. Sorted values can be bulk loaded
+ * into full leaves in O(n).
+ *
+ * http://en.wikipedia.org/wiki/B%2B_tree
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class BPlusTree<T extends Comparable<T>> implements ITree<T> {
+
+    private static final int DEFAULT_ORDER = 64;
+
+    private int maxKeySize = DEFAULT_ORDER;
+    private int minKeySize = (DEFAULT_ORDER - 1) / 2;
+
+    private Node<T> root = null;
+    // Left most leaf, the start of the linked leaves
+    private Node<T> first = null;
+    private int size = 0;
+
+    /**
+     * Constructor for B+Tree with up to 64 keys in a node.
+     */
+    public BPlusTree() {
+        this(DEFAULT_ORDER);
+    }
+
+    /**
+     * Constructor for B+Tree of ordered parameter. Order here means maximum
+     * number of keys in a node, a non-root node holds at least (order-1)/2.
+     *
+     * @param order
+     *            of the B+Tree, at least three.
+     */
+    public BPlusTree(int order) {
+        if (order < 3)
+            throw (new IllegalArgumentException("Order must be at least three."));
+
+        this.maxKeySize = order;
+        this.minKeySize = (order - 1) / 2;
+        this.root = new Node<T>(order, true);
+        this.first = root;
+    }
+
+    /**
+     * Constructor for B+Tree holding the values, which are loaded into full
+     * leaves in O(n).
+     *
+     * @param order
+     *            of the B+Tree, at least three.
+     * @param sorted
+     *            values in ascending order without duplicates.
+     */
+    public BPlusTree(int order, T[] sorted) {
+        this(order);
+        if (sorted == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        load(sorted);
+    }
+
+    /**
+     * Build the tree bottom up, the leaves are filled completely and every
+     * level above gets one key less than children.
+     */
+    private void load(T[] sorted) {
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+            if (i > 0 && sorted[i - 1].compareTo(sorted[i]) >= 0)
+                throw (new IllegalArgumentException("Values must be sorted and unique."));
+        }
+        if (sorted.length == 0)
+            return;
+
+        // Leaves
+        int count = (sorted.length + maxKeySize - 1) / maxKeySize;
+        Node<T>[] level = (Node<T>[]) new Node<?>[count];
+        int[] sizes = split(sorted.length, count, maxKeySize, minKeySize);
+        Node<T> prev = null;
+        for (int i = 0, start = 0; i < count; start += sizes[i], i++) {
+            Node<T> leaf = new Node<T>(maxKeySize, true);
+            System.arraycopy(sorted, start, leaf.keys, 0, sizes[i]);
+            leaf.keysSize = sizes[i];
+            leaf.prev = prev;
+            if (prev != null)
+                prev.next = leaf;
+            prev = leaf;
+            level[i] = leaf;
+        }
+        first = level[0];
+
+        // Internal levels, a node with k keys has k+1 children
+        while (level.length > 1) {
+            int parents = (level.length + maxKeySize) / (maxKeySize + 1);
+            int[] children = split(level.length, parents, maxKeySize + 1, minKeySize + 1);
+            Node<T>[] upper = (Node<T>[]) new Node<?>[parents];
+            for (int i = 0, start = 0; i < parents; start += children[i], i++) {
+                Node<T> node = new Node<T>(maxKeySize, false);
+                for (int j = 0; j < children[i]; j++) {
+                    Node<T> child = level[start + j];
+                    node.children[j] = child;
+                    if (j > 0)
+                        node.keys[j - 1] = lowest(child);
+                }
+                node.keysSize = children[i] - 1;
+                upper[i] = node;
+            }
+            level = upper;
+        }
+        root = level[0];
+        size = sorted.length;
+    }
+
+    /**
+     * Sizes of the nodes when n entries are packed into count nodes, all full
+     * except that the last two share what is left if the last one would be
+     * under-full.
+     */
+    private static int[] split(int n, int count, int max, int min) {
+        int[] sizes = new int[count];
+        Arrays.fill(sizes, max);
+        int last = n - (count - 1) * max;
+        sizes[count - 1] = last;
+        if (count > 1 && last < min) {
+            int both = max + last;
+            sizes[count - 2] = both - both / 2;
+            sizes[count - 1] = both / 2;
+        }
+        return sizes;
+    }
+
+    private static <T extends Comparable<T>> T lowest(Node<T> node) {
+        while (!node.leaf) {
+            node = node.children[0];
+        }
+        return node.keys[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null)
+            return false;
+
+        if (root.keysSize == maxKeySize) {
+            Node<T> node = new Node<T>(maxKeySize, false);
+            node.children[0] = root;
+            root = node;
+            splitChild(root, 0);
+        }
+
+        Node<T> node = root;
+        while (!node.leaf) {
+            int index = childIndex(node, value);
+            if (node.children[index].keysSize == maxKeySize) {
+                // Split on the way down, so the parent always has room
+                splitChild(node, index);
+                if (value.compareTo(node.keys[index]) >= 0)
+                    index++;
+            }
+            node = node.children[index];
+        }
+
+        int index = search(node.keys, node.keysSize, value);
+        if (index >= 0)
+            return false;
+
+        insert(node.keys, node.keysSize, -(index + 1), value);
+        node.keysSize++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Split the full child at index into two nodes, the key which separates
+     * them is added to the parent. A leaf keeps its keys and passes a copy of
+     * the first key of the right half up, an internal node passes its middle
+     * key up.
+     */
+    private void splitChild(Node<T> parent, int index) {
+        Node<T> left = parent.children[index];
+        Node<T> right = new Node<T>(maxKeySize, left.leaf);
+        int middle = left.keysSize / 2;
+        T separator;
+        if (left.leaf) {
+            right.keysSize = left.keysSize - middle;
+            System.arraycopy(left.keys, middle, right.keys, 0, right.keysSize);
+            Arrays.fill(left.keys, middle, left.keysSize, null);
+            left.keysSize = middle;
+            separator = right.keys[0];
+
+            right.next = left.next;
+            if (right.next != null)
+                right.next.prev = right;
+            right.prev = left;
+            left.next = right;
+        } else {
+            separator = left.keys[middle];
+            right.keysSize = left.keysSize - middle - 1;
+            System.arraycopy(left.keys, middle + 1, right.keys, 0, right.keysSize);
+            System.arraycopy(left.children, middle + 1, right.children, 0, right.keysSize + 1);
+            Arrays.fill(left.keys, middle, left.keysSize, null);
+            Arrays.fill(left.children, middle + 1, left.keysSize + 1, null);
+            left.keysSize = middle;
+        }
+
+        insert(parent.keys, parent.keysSize, index, separator);
+        insert(parent.children, parent.keysSize + 1, index + 1, right);
+        parent.keysSize++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        if (value == null)
+            return null;
+
+        Node<T> node = root;
+        while (!node.leaf) {
+            int index = childIndex(node, value);
+            if (node.children[index].keysSize <= minKeySize) {
+                // Fill up on the way down, so the parent never under-flows
+                index = fill(node, index);
+                if (node == root && node.keysSize == 0) {
+                    root = node.children[0];
+                    node = root;
+                    continue;
+                }
+            }
+            node = node.children[index];
+        }
+
+        int index = search(node.keys, node.keysSize, value);
+        if (index < 0)
+            return null;
+
+        T removed = node.keys[index];
+        delete(node.keys, node.keysSize, index);
+        node.keysSize--;
+        size--;
+        // Separators above can still hold the removed key, they only route
+        return removed;
+    }
+
+    /**
+     * Give the child at index more than the minimum number of keys by
+     * borrowing a key from a sibling or, if both are at the minimum, by
+     * merging with one.
+     *
+     * @return index of the child which now covers the old child's keys.
+     */
+    private int fill(Node<T> parent, int index) {
+        if (index > 0 && parent.children[index - 1].keysSize > minKeySize) {
+            borrowFromLeft(parent, index);
+            return index;
+        }
+        if (index < parent.keysSize && parent.children[index + 1].keysSize > minKeySize) {
+            borrowFromRight(parent, index);
+            return index;
+        }
+        if (index > 0) {
+            merge(parent, index - 1);
+            return index - 1;
+        }
+        merge(parent, index);
+        return index;
+    }
+
+    private void borrowFromLeft(Node<T> parent, int index) {
+        Node<T> left = parent.children[index - 1];
+        Node<T> node = parent.children[index];
+        if (node.leaf) {
+            insert(node.keys, node.keysSize, 0, left.keys[left.keysSize - 1]);
+            parent.keys[index - 1] = node.keys[0];
+        } else {
+            insert(node.keys, node.keysSize, 0, parent.keys[index - 1]);
+            insert(node.children, node.keysSize + 1, 0, left.children[left.keysSize]);
+            parent.keys[index - 1] = left.keys[left.keysSize - 1];
+            left.children[left.keysSize] = null;
+        }
+        left.keys[left.keysSize - 1] = null;
+        left.keysSize--;
+        node.keysSize++;
+    }
+
+    private void borrowFromRight(Node<T> parent, int index) {
+        Node<T> node = parent.children[index];
+        Node<T> right = parent.children[index + 1];
+        if (node.leaf) {
+            node.keys[node.keysSize] = right.keys[0];
+            delete(right.keys, right.keysSize, 0);
+            parent.keys[index] = right.keys[0];
+        } else {
+            node.keys[node.keysSize] = parent.keys[index];
+            node.children[node.keysSize + 1] = right.children[0];
+            parent.keys[index] = right.keys[0];
+            delete(right.keys, right.keysSize, 0);
+            delete(right.children, right.keysSize + 1, 0);
+        }
+        node.keysSize++;
+        right.keysSize--;
+    }
+
+    /**
+     * Merge the child at index + 1 into the child at index and drop the key
+     * which separated them from the parent.
+     */
+    private void merge(Node<T> parent, int index) {
+        Node<T> left = parent.children[index];
+        Node<T> right = parent.children[index + 1];
+        if (left.leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.keysSize, right.keysSize);
+            left.keysSize += right.keysSize;
+            left.next = right.next;
+            if (left.next != null)
+                left.next.prev = left;
+        } else {
+            left.keys[left.keysSize] = parent.keys[index];
+            System.arraycopy(right.keys, 0, left.keys, left.keysSize + 1, right.keysSize);
+            System.arraycopy(right.children, 0, left.children, left.keysSize + 1, right.keysSize + 1);
+            left.keysSize += right.keysSize + 1;
+        }
+
+        delete(parent.keys, parent.keysSize, index);
+        delete(parent.children, parent.keysSize + 1, index + 1);
+        parent.keysSize--;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(T value) {
+        if (value == null)
+            return false;
+
+        Node<T> node = getLeaf(value);
+        return (search(node.keys, node.keysSize, value) >= 0);
+    }
+
+    /**
+     * Get the leaf which would hold the value.
+     */
+    private Node<T> getLeaf(T value) {
+        Node<T> node = root;
+        while (!node.leaf) {
+            node = node.children[childIndex(node, value)];
+        }
+        return node;
+    }
+
+    /**
+     * Iterate the values from inclusive to exclusive in ascending order. A
+     * NULL bound leaves that end of the range open.
+     *
+     * @param from
+     *            lowest value of the range, inclusive.
+     * @param to
+     *            end of the range, exclusive.
+     * @return iterator over the values in the range.
+     */
+    public java.util.Iterator<T> range(T from, T to) {
+        return (new BPlusTreeIterator<T>(this, from, to));
+    }
+
+    /**
+     * Index of the child to follow for the value. Keys equal to a separator
+     * belong to the right of it.
+     */
+    private static <T extends Comparable<T>> int childIndex(Node<T> node, T value) {
+        int index = search(node.keys, node.keysSize, value);
+        return (index >= 0) ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Binary search of the first size keys.
+     *
+     * @return index of the value or -(insertion point) - 1 if not found.
+     */
+    private static <T extends Comparable<T>> int search(T[] keys, int size, T value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = keys[middle].compareTo(value);
+            if (result < 0)
+                low = middle + 1;
+            else if (result > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -(low + 1);
+    }
+
+    private static <E> void insert(E[] array, int size, int index, E value) {
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+    }
+
+    private static <E> void delete(E[] array, int size, int index) {
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        array[size - 1] = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        int depth = -1;
+        int count = 0;
+        Node<T> previousLeaf = null;
+        Deque<Node<T>> nodes = new ArrayDeque<Node<T>>();
+        Deque<Object[]> bounds = new ArrayDeque<Object[]>();
+        nodes.push(root);
+        bounds.push(new Object[] { null, null, 0 });
+        while (!nodes.isEmpty()) {
+            Node<T> node = nodes.pop();
+            Object[] bound = bounds.pop();
+            T lower = (T) bound[0];
+            T upper = (T) bound[1];
+            int level = (Integer) bound[2];
+
+            if (node != root && (node.keysSize < minKeySize || node.keysSize > maxKeySize))
+                return false;
+            for (int i = 0; i < node.keysSize; i++) {
+                T key = node.keys[i];
+                if (key == null)
+                    return false;
+                if (i > 0 && node.keys[i - 1].compareTo(key) >= 0)
+                    return false;
+                if (lower != null && key.compareTo(lower) < 0)
+                    return false;
+                if (upper != null && key.compareTo(upper) >= 0)
+                    return false;
+            }
+
+            if (node.leaf) {
+                // Leaves are all on one level and linked left to right
+                if (depth < 0)
+                    depth = level;
+                else if (depth != level)
+                    return false;
+                if (node.prev != previousLeaf || (previousLeaf == null && node != first))
+                    return false;
+                if (previousLeaf != null && previousLeaf.next != node)
+                    return false;
+                previousLeaf = node;
+                count += node.keysSize;
+                continue;
+            }
+
+            if (node != root && node.keysSize == 0)
+                return false;
+            // Pushed right to left, so the leaves are visited in order
+            for (int i = node.keysSize; i >= 0; i--) {
+                if (node.children[i] == null)
+                    return false;
+                T childLower = (i == 0) ? lower : node.keys[i - 1];
+                T childUpper = (i == node.keysSize) ? upper : node.keys[i];
+                nodes.push(node.children[i]);
+                bounds.push(new Object[] { childLower, childUpper, level + 1 });
+            }
+        }
+        if (previousLeaf == null || previousLeaf.next != null)
+            return false;
+        return (count == size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatibleBPlusTree<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return TreePrinter.getString(this);
+    }
+
+    private static class Node<T extends Comparable<T>> {
+
+        private final boolean leaf;
+        private T[] keys = null;
+        private int keysSize = 0;
+        // Internal nodes only
+        private Node<T>[] children = null;
+        // Leaves only
+        private Node<T> prev = null;
+        private Node<T> next = null;
+
+        private Node(int maxKeySize, boolean leaf) {
+            this.leaf = leaf;
+            this.keys = (T[]) new Comparable<?>[maxKeySize];
+            if (!leaf)
+                this.children = (Node<T>[]) new Node<?>[maxKeySize + 1];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("leaf=").append(leaf).append(" keys=[");
+            for (int i = 0; i < keysSize; i++) {
+                builder.append(keys[i]);
+                if (i < keysSize - 1)
+                    builder.append(", ");
+            }
+            builder.append("]");
+            return builder.toString();
+        }
+    }
+
+    private static class TreePrinter {
+
+        public static <T extends Comparable<T>> String getString(BPlusTree<T> tree) {
+            if (tree.size == 0) return "Tree has no nodes.";
+            return getString(tree.root, "", true);
+        }
+
+        private static <T extends Comparable<T>> String getString(Node<T> node, String prefix, boolean isTail) {
+            StringBuilder builder = new StringBuilder();
+
+            builder.append(prefix).append((isTail ? "└── " : "├── "));
+            for (int i = 0; i < node.keysSize; i++) {
+                builder.append(node.keys[i]);
+                if (i < node.keysSize - 1)
+                    builder.append(", ");
+            }
+            builder.append("\n");
+
+            if (!node.leaf) {
+                for (int i = 0; i < node.keysSize; i++) {
+                    builder.append(getString(node.children[i], prefix + (isTail ? "    " : "│   "), false));
+                }
+                builder.append(getString(node.children[node.keysSize], prefix + (isTail ? "    " : "│   "), true));
+            }
+
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Walks the linked leaves from the first value in the range until the
+     * end of the range.
+     */
+    private static class BPlusTreeIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+        private BPlusTree<T> tree = null;
+        private T to = null;
+        private Node<T> leaf = null;
+        private int index = 0;
+        private T last = null;
+
+        protected BPlusTreeIterator(BPlusTree<T> tree, T from, T to) {
+            this.tree = tree;
+            this.to = to;
+            seek(from, true);
+        }
+
+        /**
+         * Move to the first value after, or if inclusive at, the value.
+         */
+        private void seek(T value, boolean inclusive) {
+            if (value == null) {
+                leaf = tree.first;
+                index = 0;
+                return;
+            }
+            leaf = tree.getLeaf(value);
+            index = search(leaf.keys, leaf.keysSize, value);
+            if (index >= 0)
+                index = (inclusive) ? index : index + 1;
+            else
+                index = -(index + 1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            while (leaf != null && index >= leaf.keysSize) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return (leaf != null && (to == null || leaf.keys[index].compareTo(to) < 0));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T next() {
+            if (!hasNext()) return null;
+            last = leaf.keys[index++];
+            return last;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (last == null)
+                throw (new IllegalStateException());
+            // Removing can move keys between leaves, so find the spot again
+            tree.remove(last);
+            seek(last, false);
+            last = null;
+        }
+    }
+
+    public static class JavaCompatibleBPlusTree<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private BPlusTree<T> tree = null;
+
+        public JavaCompatibleBPlusTree() {
+            tree = new BPlusTree<T>();
+        }
+
+        public JavaCompatibleBPlusTree(BPlusTree<T> tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(T value) {
+            return tree.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (tree.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return tree.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return tree.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Values come out in ascending order.
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return tree.range(null, null);
+        }
+    }
+}
@@ -38,7 +38,8 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
     public T[] getHeap();
 
     /**
-     * A binary heap using an array to hold the nodes.
+     * A binary heap using an array to hold the nodes. It can keep the index of
+     * every value in a hash map, which makes locating a value O(1).
      * 
      * @author Justin Wetherell <phishman3579@gmail.com>
      */
@@ -49,6 +50,8 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
         private Type type = Type.MIN;
         private int size = 0;
         private T[] array = (T[]) new Comparable[MINIMUM_SIZE];
+        // Index of every value, NULL unless the heap is indexed
+        private java.util.Map<T, Integer> indices = null;
 
         /**
          * Get the parent index of this index, will return Integer.MIN_VALUE if
@@ -105,6 +108,49 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             this.type = type;
         }
 
+        /**
+         * Constructor for heap which can keep the index of every value in a
+         * hash map. An indexed heap finds values in O(1), so contains() is O(1)
+         * and remove() and changePriority() are O(log n), but every move in
+         * the array also updates the map. Values of an indexed heap have to be
+         * unique.
+         * 
+         * @param type
+         *            Heap type.
+         * @param indexed
+         *            keep the index of every value.
+         */
+        public BinaryHeapArray(Type type, boolean indexed) {
+            this(type);
+            if (indexed)
+                indices = new java.util.HashMap<T, Integer>();
+        }
+
+        /**
+         * Does this heap keep the index of every value.
+         * 
+         * @return True if the heap is indexed.
+         */
+        public boolean isIndexed() {
+            return (indices != null);
+        }
+
+        /**
+         * Constructor for heap holding the values, heapified in O(n).
+         * 
+         * @param type
+         *            Heap type.
+         * @param values
+         *            to put in the heap.
+         */
+        public BinaryHeapArray(Type type, T[] values) {
+            this(type);
+            if (values == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+
+            addAll(Arrays.asList(values));
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -118,6 +164,9 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
          */
         @Override
         public boolean add(T value) {
+            if (indices != null && (value == null || indices.containsKey(value)))
+                return false;
+
             int growSize = this.size;
             if (size >= array.length) {
                 array = Arrays.copyOf(array, (growSize + (growSize>>1)));
@@ -129,23 +178,95 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return true;
         }
 
-        protected void heapUp(int nodeIndex) {
+        /**
+         * {@inheritDoc}
+         * 
+         * NULL values are ignored, so are values already in an indexed heap.
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            if (values == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+
+            int start = size;
+            if (size + values.size() > array.length) {
+                array = Arrays.copyOf(array, Math.max(size + values.size(), size + (size>>1)));
+            }
+            for (T value : values) {
+                if (value == null || (indices != null && indices.containsKey(value))) continue;
+                set(size++, value);
+            }
+
+            int added = size - start;
+            if (added == 0) return false;
+
+            // Sifting each value up costs about k log n compares, heapifying
+            // everything about 2n
+            if ((long) added * (32 - Integer.numberOfLeadingZeros(size)) > 2L * size) {
+                for (int i = (size >> 1) - 1; i >= 0; i--) {
+                    heapDown(i);
+                }
+            } else {
+                for (int i = start; i < size; i++) {
+                    heapUp(i);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Move the node up until its parent comes before it.
+         * 
+         * @param nodeIndex
+         *            of the node to heap up.
+         * @return final index of the node.
+         */
+        protected int heapUp(int nodeIndex) {
             T value = this.array[nodeIndex];
-            while (nodeIndex >= 0) {
+            while (nodeIndex > 0) {
                 int parentIndex = getParentIndex(nodeIndex);
-                if (parentIndex < 0) break;
                 T parent = this.array[parentIndex];
+                if (!isBefore(value, parent)) break;
 
-                if ((type == Type.MIN && parent != null && value.compareTo(parent) < 0)
-                    || (type == Type.MAX && parent != null && value.compareTo(parent) > 0)
-                ) {
-                    // Node is less than parent, switch node with parent
-                    this.array[parentIndex] = value;
-                    this.array[nodeIndex] = parent;
-                } else {
-                    nodeIndex = parentIndex;
-                }
+                // Node comes before parent, parent moves down into its spot
+                set(nodeIndex, parent);
+                nodeIndex = parentIndex;
+            }
+            set(nodeIndex, value);
+            return nodeIndex;
+        }
+
+        /**
+         * Put the value at the index, and remember the index if the heap is
+         * indexed.
+         */
+        private void set(int index, T value) {
+            this.array[index] = value;
+            if (indices != null) indices.put(value, index);
+        }
+
+        /**
+         * Does value a belong closer to the head than value b.
+         */
+        private boolean isBefore(T a, T b) {
+            int result = a.compareTo(b);
+            return (type == Type.MIN) ? (result < 0) : (result > 0);
+        }
+
+        /**
+         * Get the index of the value, O(1) if the heap is indexed.
+         * 
+         * @return index of the value or -1 if it isn't in the heap.
+         */
+        private int indexOf(T value) {
+            if (indices != null) {
+                Integer index = indices.get(value);
+                return (index != null) ? index.intValue() : -1;
             }
+            for (int i = 0; i < size; i++) {
+                if (array[i].equals(value)) return i;
+            }
+            return -1;
         }
 
         /**
@@ -153,26 +274,27 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
          */
         @Override
         public T remove(T value) {
-            if (array.length == 0) return null;
-            for (int i = 0; i < size; i++) {
-                T node = array[i];
-                if (node.equals(value)) return remove(i);
-            }
-            return null;
+            if (value == null) return null;
+            return remove(indexOf(value));
         }
 
         private T remove(int index) {
             if (index<0 || index>=size) return null;
 
             T t = array[index];
-            array[index] = array[--size];
-            array[size] = null;
-
-            heapDown(index);
+            if (indices != null) indices.remove(t);
+            size--;
+            if (index < size) {
+                array[index] = array[size];
+                array[size] = null;
+                // The tail can belong above or below its new spot
+                heapDown(heapUp(index));
+            } else {
+                array[size] = null;
+            }
 
-            int shrinkSize = size;
-            if (size >= MINIMUM_SIZE && size < (shrinkSize + (shrinkSize<<1))) {
-                System.arraycopy(array, 0, array, 0, size);
+            if (array.length > MINIMUM_SIZE && size < (array.length >> 2)) {
+                array = Arrays.copyOf(array, Math.max(MINIMUM_SIZE, array.length >> 1));
             }
 
             return t;
@@ -180,15 +302,32 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
 
         /**
          * {@inheritDoc}
+         * 
+         * O(log n) if the heap is indexed, the new value must not already be in
+         * an indexed heap.
          */
         @Override
-        public boolean contains(T value) {
-            if (array.length == 0) return false;
-            for (int i = 0; i < size; i++) {
-                T t = array[i];
-                if (t.equals(value)) return true;
+        public boolean changePriority(T oldValue, T newValue) {
+            if (oldValue == null || newValue == null) return false;
+            int index = indexOf(oldValue);
+            if (index < 0) return false;
+
+            if (indices != null) {
+                if (!oldValue.equals(newValue) && indices.containsKey(newValue)) return false;
+                indices.remove(array[index]);
             }
-            return false;
+            array[index] = newValue;
+            heapDown(heapUp(index));
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(T value) {
+            if (value == null) return false;
+            return (indexOf(value) >= 0);
         }
 
         /**
@@ -197,6 +336,13 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
         @Override
         public boolean validate() {
             if (array.length == 0) return true;
+            if (indices != null) {
+                if (indices.size() != size) return false;
+                for (int i = 0; i < size; i++) {
+                    Integer index = indices.get(array[i]);
+                    if (index == null || index.intValue() != i) return false;
+                }
+            }
             return validateNode(0);
         }
 
@@ -266,62 +412,49 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
          */
         @Override
         public T removeHead() {
-            return remove(getHeadValue());
+            return remove(0);
         }
 
-        protected void heapDown(int index) {
-            T value = this.array[index];
-            int leftIndex = getLeftIndex(index);
-            int rightIndex = getRightIndex(index);
-            T left = (leftIndex != Integer.MIN_VALUE && leftIndex < this.size) ? this.array[leftIndex] : null;
-            T right = (rightIndex != Integer.MIN_VALUE && rightIndex < this.size) ? this.array[rightIndex] : null;
-
-            if (left == null && right == null) {
-                // Nothing to do here
-                return;
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<T> removeHead(int k) {
+            if (k < 0)
+                throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+            int count = Math.min(k, size);
+            List<T> heads = new ArrayList<T>(count);
+            for (int i = 0; i < count; i++) {
+                heads.add(remove(0));
             }
+            return heads;
+        }
 
-            T nodeToMove = null;
-            int nodeToMoveIndex = -1;
-            if ((type == Type.MIN && left != null && right != null && value.compareTo(left) > 0 && value.compareTo(right) > 0)
-                || (type == Type.MAX && left != null && right != null && value.compareTo(left) < 0 && value.compareTo(right) < 0)) {
-                // Both children are greater/lesser than node
-                if ((type == Type.MIN && right.compareTo(left) < 0) || (type == Type.MAX && right.compareTo(left) > 0)) {
-                    // Right is greater/lesser than left
-                    nodeToMove = right;
-                    nodeToMoveIndex = rightIndex;
-                } else if ((type == Type.MIN && left.compareTo(right) < 0)
-                           || (type == Type.MAX && left.compareTo(right) > 0)
-                ) {
-                    // Left is greater/lesser than right
-                    nodeToMove = left;
-                    nodeToMoveIndex = leftIndex;
-                } else {
-                    // Both children are equal, use right
-                    nodeToMove = right;
-                    nodeToMoveIndex = rightIndex;
+        /**
+         * Move the node down until it comes before both children.
+         * 
+         * @param index
+         *            of the node to heap down.
+         */
+        protected void heapDown(int index) {
+            T value = this.array[index];
+            int half = size >> 1;
+            while (index < half) {
+                int childIndex = getLeftIndex(index);
+                T child = this.array[childIndex];
+                int rightIndex = getRightIndex(index);
+                if (rightIndex < size && isBefore(this.array[rightIndex], child)) {
+                    childIndex = rightIndex;
+                    child = this.array[rightIndex];
                 }
-            } else if ((type == Type.MIN && right != null && value.compareTo(right) > 0)
-                       || (type == Type.MAX && right != null && value.compareTo(right) < 0)
-            ) {
-                // Right is greater/lesser than node
-                nodeToMove = right;
-                nodeToMoveIndex = rightIndex;
-            } else if ((type == Type.MIN && left != null && value.compareTo(left) > 0)
-                       || (type == Type.MAX && left != null && value.compareTo(left) < 0)
-            ) {
-                // Left is greater/lesser than node
-                nodeToMove = left;
-                nodeToMoveIndex = leftIndex;
-            }
-            // No node to move, stop recursion
-            if (nodeToMove == null) return;
-
-            // Re-factor heap sub-tree
-            this.array[nodeToMoveIndex] = value;
-            this.array[index] = nodeToMove;
+                if (!isBefore(child, value)) break;
 
-            heapDown(nodeToMoveIndex);
+                // Child comes before node, child moves up into its spot
+                set(index, child);
+                index = childIndex;
+            }
+            set(index, value);
         }
 
         /**
@@ -409,6 +542,22 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             this.type = type;
         }
 
+        /**
+         * Constructor for heap holding the values, heapified in O(n).
+         * 
+         * @param type
+         *            Heap type.
+         * @param values
+         *            to put in the heap.
+         */
+        public BinaryHeapTree(Type type, T[] values) {
+            this(type);
+            if (values == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+
+            addAll(Arrays.asList(values));
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -446,6 +595,56 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return add(new Node<T>(null, value));
         }
 
+        /**
+         * {@inheritDoc}
+         * 
+         * A large batch is heapified in an array and the tree is rebuilt from
+         * it, instead of walking down from the root for every value.
+         * NULL values are ignored.
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            if (values == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+
+            int added = 0;
+            for (T value : values) {
+                if (value != null) added++;
+            }
+            if (added == 0) return false;
+
+            int total = size + added;
+            // Each add costs about 2 log n steps, rebuilding everything about 3n
+            if ((long) added * (32 - Integer.numberOfLeadingZeros(total)) * 2 <= 3L * total) {
+                for (T value : values) {
+                    if (value != null) add(value);
+                }
+                return true;
+            }
+
+            T[] all = Arrays.copyOf(getHeap(), total);
+            int index = size;
+            for (T value : values) {
+                if (value != null) all[index++] = value;
+            }
+            BinaryHeapArray<T> heap = new BinaryHeapArray<T>(type, all);
+
+            // Link the nodes in level order, node i has children 2i+1 and 2i+2
+            Node<T>[] nodes = (Node<T>[]) new Node<?>[total];
+            for (int i = 0; i < total; i++) {
+                Node<T> parent = (i > 0) ? nodes[(i - 1) / 2] : null;
+                Node<T> node = new Node<T>(parent, heap.array[i]);
+                if (parent != null) {
+                    if (i % 2 == 1) parent.left = node;
+                    else parent.right = node;
+                }
+                nodes[i] = node;
+            }
+            root = nodes[0];
+            size = total;
+            return true;
+        }
+
         private boolean add(Node<T> newNode) {
             if (root == null) {
                 root = newNode;
@@ -620,6 +819,21 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return null;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean changePriority(T oldValue, T newValue) {
+            if (root == null || oldValue == null || newValue == null) return false;
+            Node<T> node = getNode(root,oldValue);
+            if (node == null) return false;
+
+            node.value = newValue;
+            heapDown(node);
+            heapUp(node);
+            return true;
+        }
+
         /**
          * Heap up the heap from this node.
          * 
@@ -863,6 +1077,23 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return result;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<T> removeHead(int k) {
+            if (k < 0)
+                throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+            int count = Math.min(k, size);
+            List<T> heads = new ArrayList<T>(count);
+            for (int i = 0; i < count; i++) {
+                heads.add(root.value);
+                removeRoot();
+            }
+            return heads;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -959,6 +1190,14 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return heap.add(value);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return heap.addAll(values);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -1048,6 +1287,14 @@ public interface BinaryHeap<T extends Comparable<T>> extends IHeap<T> {
             return heap.add(value);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return heap.addAll(values);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -0,0 +1,342 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable graph stored in compressed sparse row (CSR) form. Verticies are the
+ * integers 0 to n-1 and all edges live in three flat arrays. The edges leaving
+ * vertex v are the entries from getEdgeStart(v) up to, but not including,
+ * getEdgeEnd(v) of the target and cost arrays, so a whole adjacency list is one
+ * contiguous run of memory instead of a list of Edge objects.
+ *
+ * http://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_row_.28CSR_or_CRS.29
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class CompactGraph<T extends Comparable<T>> {
+
+    private Graph.TYPE type = Graph.TYPE.UNDIRECTED;
+    private int[] offsets = null;
+    private int[] targets = null;
+    private int[] costs = null;
+
+    // Only populated when built from a Graph, maps indices back to the objects
+    private List<Graph.Vertex<T>> verticies = null;
+    private Map<Graph.Vertex<T>, Integer> indices = null;
+    private Graph.Edge<T>[] edges = null;
+
+    // Built on first use, racing threads build equal copies
+    private volatile CompactGraph<T> transpose = null;
+
+    /**
+     * Build a compact copy of the graph. Vertex indices follow the order of
+     * graph.getVerticies() and the edges of each vertex keep their order.
+     *
+     * @param graph
+     *            to copy.
+     */
+    public CompactGraph(Graph<T> graph) {
+        if (graph == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        this.type = graph.getType();
+        this.verticies = new ArrayList<Graph.Vertex<T>>(graph.getVerticies());
+        this.indices = new java.util.HashMap<Graph.Vertex<T>, Integer>();
+        for (int i = 0; i < verticies.size(); i++) {
+            indices.put(verticies.get(i), i);
+        }
+
+        int numberOfEdges = 0;
+        for (Graph.Vertex<T> v : verticies) {
+            numberOfEdges += v.getEdges().size();
+        }
+
+        this.offsets = new int[verticies.size() + 1];
+        this.targets = new int[numberOfEdges];
+        this.costs = new int[numberOfEdges];
+        this.edges = (Graph.Edge<T>[]) new Graph.Edge<?>[numberOfEdges];
+        int edge = 0;
+        for (int i = 0; i < verticies.size(); i++) {
+            offsets[i] = edge;
+            for (Graph.Edge<T> e : verticies.get(i).getEdges()) {
+                Integer to = indices.get(e.getToVertex());
+                // Skip edges which leave the graph
+                if (to == null) continue;
+                targets[edge] = to;
+                costs[edge] = e.getCost();
+                edges[edge] = e;
+                edge++;
+            }
+        }
+        offsets[verticies.size()] = edge;
+        if (edge < numberOfEdges) {
+            targets = Arrays.copyOf(targets, edge);
+            costs = Arrays.copyOf(costs, edge);
+            edges = Arrays.copyOf(edges, edge);
+        }
+    }
+
+    /**
+     * Build a graph from parallel edge arrays. Only the first numberOfEdges
+     * entries of the arrays are used, so growable buffers can be passed in
+     * directly. An UNDIRECTED graph stores each edge in both directions.
+     *
+     * @param type
+     *            of the graph.
+     * @param numberOfVerticies
+     *            in the graph, vertex indices are 0 to numberOfVerticies-1.
+     * @param numberOfEdges
+     *            number of entries of the arrays to use.
+     * @param from
+     *            vertex index of each edge.
+     * @param to
+     *            vertex index of each edge.
+     * @param cost
+     *            of each edge.
+     */
+    public CompactGraph(Graph.TYPE type, int numberOfVerticies, int numberOfEdges, int[] from, int[] to, int[] cost) {
+        if (from == null || to == null || cost == null)
+            throw (new NullPointerException("Edge arrays must be non-NULL."));
+        if (numberOfVerticies < 0 || numberOfEdges < 0 || numberOfEdges > from.length || numberOfEdges > to.length || numberOfEdges > cost.length)
+            throw (new IllegalArgumentException("Invalid number of verticies or edges."));
+
+        this.type = type;
+        boolean undirected = (type == Graph.TYPE.UNDIRECTED);
+
+        // Counting sort of the edges by their from vertex
+        this.offsets = new int[numberOfVerticies + 1];
+        for (int i = 0; i < numberOfEdges; i++) {
+            int f = from[i];
+            int t = to[i];
+            if (f < 0 || f >= numberOfVerticies || t < 0 || t >= numberOfVerticies)
+                throw (new IllegalArgumentException("Edge " + f + "->" + t + " is out of range."));
+            offsets[f + 1]++;
+            if (undirected) offsets[t + 1]++;
+        }
+        for (int i = 0; i < numberOfVerticies; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int total = offsets[numberOfVerticies];
+        this.targets = new int[total];
+        this.costs = new int[total];
+        int[] next = Arrays.copyOf(offsets, numberOfVerticies);
+        for (int i = 0; i < numberOfEdges; i++) {
+            int f = from[i];
+            int t = to[i];
+            int index = next[f]++;
+            targets[index] = t;
+            costs[index] = cost[i];
+            if (undirected) {
+                index = next[t]++;
+                targets[index] = f;
+                costs[index] = cost[i];
+            }
+        }
+    }
+
+    private CompactGraph(Graph.TYPE type, int[] offsets, int[] targets, int[] costs) {
+        this.type = type;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+    }
+
+    /**
+     * Graph with every edge reversed, an UNDIRECTED graph is its own
+     * transpose. Vertex indices are the same in both graphs but edge indices
+     * are not.
+     *
+     * @return transpose of this graph.
+     */
+    public CompactGraph<T> transpose() {
+        if (type == Graph.TYPE.UNDIRECTED)
+            return this;
+
+        CompactGraph<T> result = transpose;
+        if (result != null)
+            return result;
+
+        int n = getNumberOfVerticies();
+        int[] reverseOffsets = new int[n + 1];
+        for (int e = 0; e < targets.length; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] reverseTargets = new int[targets.length];
+        int[] reverseCosts = new int[targets.length];
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int index = next[targets[e]]++;
+                reverseTargets[index] = v;
+                reverseCosts[index] = costs[e];
+            }
+        }
+        result = new CompactGraph<T>(type, reverseOffsets, reverseTargets, reverseCosts);
+        result.verticies = verticies;
+        result.indices = indices;
+        result.transpose = this;
+        transpose = result;
+        return result;
+    }
+
+    /**
+     * Graph with the same verticies and edges but different edge costs. Only
+     * the cost array is new, the structure is shared with this graph.
+     *
+     * @param costs
+     *            cost of each edge index.
+     * @return graph using the costs.
+     */
+    public CompactGraph<T> withCosts(int[] costs) {
+        if (costs == null)
+            throw (new NullPointerException("Costs must be non-NULL."));
+        if (costs.length != targets.length)
+            throw (new IllegalArgumentException("Costs must hold one cost per edge."));
+
+        CompactGraph<T> result = new CompactGraph<T>(type, offsets, targets, costs);
+        result.verticies = verticies;
+        result.indices = indices;
+        result.edges = edges;
+        return result;
+    }
+
+    public Graph.TYPE getType() {
+        return type;
+    }
+
+    public int getNumberOfVerticies() {
+        return offsets.length - 1;
+    }
+
+    public int getNumberOfEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Index of the first edge leaving the vertex.
+     */
+    public int getEdgeStart(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * Index one past the last edge leaving the vertex.
+     */
+    public int getEdgeEnd(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    public int getOutDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /**
+     * Vertex index the edge points to.
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getCost(int edge) {
+        return costs[edge];
+    }
+
+    /**
+     * Vertex object for the index, only available when built from a Graph.
+     *
+     * @param index
+     *            of the vertex.
+     * @return vertex or NULL if not built from a Graph.
+     */
+    public Graph.Vertex<T> getVertex(int index) {
+        if (verticies == null) return null;
+        return verticies.get(index);
+    }
+
+    /**
+     * Edge object for the index, only available when built from a Graph.
+     *
+     * @param edge
+     *            index of the edge.
+     * @return edge or NULL if not built from a Graph.
+     */
+    public Graph.Edge<T> getEdge(int edge) {
+        if (edges == null) return null;
+        return edges[edge];
+    }
+
+    /**
+     * Index of the vertex, only available when built from a Graph.
+     *
+     * @param vertex
+     *            to find.
+     * @return index of the vertex or -1 if not found.
+     */
+    public int indexOf(Graph.Vertex<T> vertex) {
+        if (indices == null) return -1;
+        Integer index = indices.get(vertex);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int v = 0; v < getNumberOfVerticies(); v++) {
+            builder.append("vertex:").append(" index=").append(v);
+            if (verticies != null) builder.append(" value=").append(verticies.get(v).getValue());
+            builder.append("\n");
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                builder.append("\t").append("edge:").append(" [").append(v).append("]").append(" -> ").append("[")
+                       .append(targets[e]).append("]").append(" = ").append(costs[e]).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    public static class CostPathPair {
+
+        private int cost = 0;
+        private int[] path = null;
+
+        public CostPathPair(int cost, int[] path) {
+            if (path == null)
+                throw (new NullPointerException("path cannot be NULL."));
+
+            this.cost = cost;
+            this.path = path;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        /**
+         * Vertex indices along the path, starting with the first vertex.
+         */
+        public int[] getPath() {
+            return path;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Cost = ").append(cost).append("\n");
+            builder.append("\t").append(Arrays.toString(path)).append("\n");
+            return builder.toString();
+        }
+    }
+}
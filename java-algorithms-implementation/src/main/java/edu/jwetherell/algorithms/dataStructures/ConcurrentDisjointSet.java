@@ -0,0 +1,174 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Disjoint-set (union-find) of the integers 0 to n-1 which can be shared
+ * between threads without locks. A root is linked under another with a
+ * compare-and-set on its parent, which fails if the root was linked by another
+ * thread first, then the union is retried from the new roots. Roots are linked
+ * by a fixed random priority of their element instead of a rank, so there is
+ * no second field to keep in step. Find halves the path it walks with
+ * compare-and-sets, losing a race only leaves a longer path.
+ *
+ * http://en.wikipedia.org/wiki/Disjoint-set_data_structure
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class ConcurrentDisjointSet {
+
+    private AtomicIntegerArray parent = null;
+    private AtomicInteger numberOfSets = null;
+
+    /**
+     * Create n sets each holding one element.
+     *
+     * @param size
+     *            number of elements.
+     */
+    public ConcurrentDisjointSet(int size) {
+        if (size < 0)
+            throw (new IllegalArgumentException("Size cannot be negative."));
+
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, i);
+        }
+        numberOfSets = new AtomicInteger(size);
+    }
+
+    /**
+     * @return number of elements.
+     */
+    public int size() {
+        return parent.length();
+    }
+
+    /**
+     * @return number of disjoint sets.
+     */
+    public int getNumberOfSets() {
+        return numberOfSets.get();
+    }
+
+    /**
+     * Find the set holding the element. The root can change as soon as it is
+     * returned if other threads are joining sets.
+     *
+     * @param x
+     *            element to find.
+     * @return root element of the set.
+     */
+    public int find(int x) {
+        if (x < 0 || x >= parent.length())
+            throw (new IllegalArgumentException("Element " + x + " is out of range."));
+
+        while (true) {
+            int p = parent.get(x);
+            if (p == x)
+                return x;
+            int grandparent = parent.get(p);
+            // Path halving, another thread may have moved x already
+            if (p != grandparent)
+                parent.compareAndSet(x, p, grandparent);
+            x = grandparent;
+        }
+    }
+
+    /**
+     * Join the sets holding the two elements.
+     *
+     * @param x
+     *            element of the first set.
+     * @param y
+     *            element of the second set.
+     * @return True if this call joined two different sets.
+     */
+    public boolean union(int x, int y) {
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y)
+                return false;
+
+            // Link the lower priority root under the higher one
+            if (isLower(y, x)) {
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+            if (parent.compareAndSet(x, x, y)) {
+                numberOfSets.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Are the two elements in the same set.
+     *
+     * @return True if they are in the same set when the call returns.
+     */
+    public boolean isConnected(int x, int y) {
+        while (true) {
+            x = find(x);
+            y = find(y);
+            if (x == y)
+                return true;
+            // x was still a root after y's root was found, so they were apart
+            if (parent.get(x) == x)
+                return false;
+        }
+    }
+
+    /**
+     * Validate the parent links and the number of sets, only meaningful when
+     * no other thread is joining sets.
+     *
+     * @return True if every element leads to a root and the number of roots
+     *         matches.
+     */
+    public boolean validate() {
+        int n = parent.length();
+        int roots = 0;
+        for (int i = 0; i < n; i++) {
+            int p = parent.get(i);
+            if (p < 0 || p >= n)
+                return false;
+            if (p == i)
+                roots++;
+            else if (!isLower(i, p))
+                return false;
+        }
+        return (roots == numberOfSets.get());
+    }
+
+    /**
+     * Priorities only increase along a path, so links can never form a cycle.
+     */
+    private static boolean isLower(int x, int y) {
+        int xPriority = priority(x);
+        int yPriority = priority(y);
+        return (xPriority < yPriority || (xPriority == yPriority && x < y));
+    }
+
+    /**
+     * Fixed pseudo-random priority of an element, spreads the links so they
+     * don't follow the order the elements were joined in.
+     */
+    private static int priority(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("sets=").append(numberOfSets.get()).append(" parents=").append(parent.toString());
+        return builder.toString();
+    }
+}
@@ -0,0 +1,576 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hash Map which can be shared between threads. The map is split into
+ * segments (lock striping), each one a separately locked hash table, so
+ * writers only contend when their keys fall into the same segment. Readers
+ * never take a lock, they walk the volatile bucket chains directly.
+ *
+ * http://en.wikipedia.org/wiki/Hash_table
+ * http://en.wikipedia.org/wiki/Lock_(computer_science)#Granularity
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class ConcurrentHashMap<K, V> implements IMap<K,V> {
+
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MAXIMUM_SEGMENTS = 1 << 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Segment<K, V>[] segments = null;
+    private int segmentShift = 0;
+    private int segmentMask = 0;
+
+    /**
+     * Create a hash map with the default capacity, load factor and
+     * concurrency level.
+     */
+    public ConcurrentHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Create a hash map.
+     *
+     * @param initialCapacity
+     *            number of expected entries.
+     * @param loadFactor
+     *            maximum average number of entries per bucket before a segment
+     *            grows.
+     * @param concurrencyLevel
+     *            expected number of concurrently writing threads, rounded up to
+     *            a power of two number of segments.
+     */
+    public ConcurrentHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        if (initialCapacity < 0)
+            throw (new IllegalArgumentException("Initial capacity cannot be negative."));
+        if (loadFactor <= 0 || Float.isNaN(loadFactor))
+            throw (new IllegalArgumentException("Load factor must be greater than zero."));
+        if (concurrencyLevel <= 0)
+            throw (new IllegalArgumentException("Concurrency level must be greater than zero."));
+
+        int shift = 0;
+        int numberOfSegments = 1;
+        while (numberOfSegments < concurrencyLevel && numberOfSegments < MAXIMUM_SEGMENTS) {
+            shift++;
+            numberOfSegments <<= 1;
+        }
+        // Segment is chosen by the high bits of the hash, bucket by the low bits
+        segmentShift = 32 - shift;
+        segmentMask = numberOfSegments - 1;
+
+        int perSegment = (int) Math.ceil(Math.min(initialCapacity, MAXIMUM_CAPACITY) / (double) numberOfSegments / loadFactor);
+        int buckets = 1;
+        while (buckets < perSegment) {
+            buckets <<= 1;
+        }
+
+        segments = (Segment<K, V>[]) new Segment<?, ?>[numberOfSegments];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment<K, V>(buckets, loadFactor);
+        }
+    }
+
+    /**
+     * The hashing function. Mixes all the bits of the key's hash code, the high
+     * bits pick the segment and the low bits pick the bucket.
+     *
+     * @param key
+     *            to create a hash for.
+     * @return Integer which represents the key.
+     */
+    private static int hashingFunction(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        h *= 0xC2B2AE35;
+        h ^= (h >>> 16);
+        return h;
+    }
+
+    private Segment<K, V> getSegment(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw (new NullPointerException("Key and value cannot be NULL."));
+        int hash = hashingFunction(key);
+        return getSegment(hash).put(key, hash, value, false);
+    }
+
+    /**
+     * Put key->value pair in the map only if the key is not already mapped.
+     *
+     * @param key
+     *            to be inserted.
+     * @param value
+     *            to be inserted.
+     * @return V current value or null if the value was inserted.
+     */
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null)
+            throw (new NullPointerException("Key and value cannot be NULL."));
+        int hash = hashingFunction(key);
+        return getSegment(hash).put(key, hash, value, true);
+    }
+
+    /**
+     * Replace the value mapped to key only if it is currently mapped to
+     * oldValue.
+     *
+     * @param key
+     *            whose value is to be replaced.
+     * @param oldValue
+     *            expected current value.
+     * @param newValue
+     *            value to be inserted.
+     * @return True if the value was replaced.
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw (new NullPointerException("Key and values cannot be NULL."));
+        int hash = hashingFunction(key);
+        return getSegment(hash).replace(key, hash, oldValue, newValue);
+    }
+
+    /**
+     * Atomically compute a new value for the key from its current value (NULL
+     * if not mapped). Returning NULL from the function removes the key. The
+     * function is called while the key's segment is locked, so it should be
+     * short and must not use this map.
+     *
+     * @param key
+     *            to compute a value for.
+     * @param function
+     *            computing the new value from the key and current value.
+     * @return V new value or null if the key was removed.
+     */
+    public V compute(K key, RemappingFunction<K, V> function) {
+        if (key == null || function == null)
+            throw (new NullPointerException("Key and function cannot be NULL."));
+        int hash = hashingFunction(key);
+        return getSegment(hash).compute(key, hash, function);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) return null;
+        int hash = hashingFunction(key);
+        return getSegment(hash).get(key, hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(K key) {
+        return (get(key)!=null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) return null;
+        int hash = hashingFunction(key);
+        return getSegment(hash).remove(key, hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.count;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Map<K,V> toMap() {
+        return (new JavaCompatibleConcurrentHashMap<K,V>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        java.util.Set<K> keys = new java.util.HashSet<K>();
+        for (int i = 0; i < segments.length; i++) {
+            Segment<K, V> segment = segments[i];
+            segment.lock();
+            try {
+                int count = 0;
+                AtomicReferenceArray<Node<K, V>> table = segment.table;
+                for (int index = 0; index < table.length(); index++) {
+                    for (Node<K, V> node = table.get(index); node != null; node = node.next) {
+                        K k = node.key;
+                        V v = node.value;
+                        if (k==null || v==null) return false;
+                        if (node.hash != hashingFunction(k)) return false;
+                        if (((node.hash >>> segmentShift) & segmentMask) != i) return false;
+                        if ((node.hash & (table.length() - 1)) != index) return false;
+                        if (keys.contains(k)) return false;
+                        keys.add(k);
+                        count++;
+                    }
+                }
+                if (count != segment.count) return false;
+            } finally {
+                segment.unlock();
+            }
+        }
+        return (keys.size()==size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Segment<K, V> segment : segments) {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            for (int index = 0; index < table.length(); index++) {
+                for (Node<K, V> node = table.get(index); node != null; node = node.next) {
+                    builder.append(node.key).append("=").append(node.value).append(", ");
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Function used to atomically compute a new value for a key.
+     */
+    public static interface RemappingFunction<K, V> {
+
+        /**
+         * Compute the new value for the key.
+         *
+         * @param key
+         *            being computed.
+         * @param value
+         *            currently mapped to key or NULL if not mapped.
+         * @return new value or NULL to remove the key.
+         */
+        public V apply(K key, V value);
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+        private final int hash;
+        private volatile V value;
+        private volatile Node<K, V> next;
+
+        private Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A segment is a hash table guarded by its own lock. Writers lock the
+     * segment, readers rely on the volatile table, next and value fields to
+     * always see a consistent chain.
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+
+        private static final long serialVersionUID = -2001752926705396395L;
+
+        private volatile AtomicReferenceArray<Node<K, V>> table = null;
+        private volatile int count = 0;
+        private int threshold = 0;
+        private float loadFactor = DEFAULT_LOAD_FACTOR;
+
+        private Segment(int buckets, float loadFactor) {
+            this.loadFactor = loadFactor;
+            setTable(new AtomicReferenceArray<Node<K, V>>(buckets));
+        }
+
+        private void setTable(AtomicReferenceArray<Node<K, V>> table) {
+            threshold = (int) (table.length() * loadFactor);
+            this.table = table;
+        }
+
+        private static <K, V> Node<K, V> getNode(AtomicReferenceArray<Node<K, V>> table, Object key, int hash) {
+            Node<K, V> node = table.get(hash & (table.length() - 1));
+            while (node != null) {
+                if (node.hash == hash && key.equals(node.key)) return node;
+                node = node.next;
+            }
+            return null;
+        }
+
+        private V get(Object key, int hash) {
+            if (count == 0) return null;
+            Node<K, V> node = getNode(table, key, hash);
+            return (node != null) ? node.value : null;
+        }
+
+        private V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                Node<K, V> node = getNode(tab, key, hash);
+                if (node != null) {
+                    V prev = node.value;
+                    if (!onlyIfAbsent) node.value = value;
+                    return prev;
+                }
+                insert(key, hash, value);
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        private boolean replace(K key, int hash, V oldValue, V newValue) {
+            lock();
+            try {
+                Node<K, V> node = getNode(table, key, hash);
+                if (node == null || !oldValue.equals(node.value)) return false;
+                node.value = newValue;
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V compute(K key, int hash, RemappingFunction<K, V> function) {
+            lock();
+            try {
+                Node<K, V> node = getNode(table, key, hash);
+                V value = function.apply(key, (node != null) ? node.value : null);
+                if (value == null) {
+                    if (node != null) unlink(key, hash);
+                } else if (node != null) {
+                    node.value = value;
+                } else {
+                    insert(key, hash, value);
+                }
+                return value;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V remove(Object key, int hash) {
+            lock();
+            try {
+                return unlink(key, hash);
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * Insert a new node at the head of its bucket. Must hold the lock.
+         */
+        private void insert(K key, int hash, V value) {
+            if (count >= threshold) resize();
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int index = hash & (tab.length() - 1);
+            tab.set(index, new Node<K, V>(key, hash, value, tab.get(index)));
+            count++;
+        }
+
+        /**
+         * Unlink the node from its bucket. Must hold the lock. Readers already
+         * on the node keep following its next pointer.
+         */
+        private V unlink(Object key, int hash) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int index = hash & (tab.length() - 1);
+            Node<K, V> prev = null;
+            Node<K, V> node = tab.get(index);
+            while (node != null) {
+                if (node.hash == hash && key.equals(node.key)) {
+                    if (prev == null) tab.set(index, node.next);
+                    else prev.next = node.next;
+                    count--;
+                    return node.value;
+                }
+                prev = node;
+                node = node.next;
+            }
+            return null;
+        }
+
+        /**
+         * Double the table. Nodes are copied rather than re-linked so readers
+         * still walking the old table see unchanged chains. Must hold the lock.
+         */
+        private void resize() {
+            AtomicReferenceArray<Node<K, V>> oldTable = table;
+            if (oldTable.length() >= MAXIMUM_CAPACITY) return;
+
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<Node<K, V>>(oldTable.length() << 1);
+            int mask = newTable.length() - 1;
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<K, V> node = oldTable.get(i); node != null; node = node.next) {
+                    int index = node.hash & mask;
+                    newTable.set(index, new Node<K, V>(node.key, node.hash, node.value, newTable.get(index)));
+                }
+            }
+            setTable(newTable);
+        }
+    }
+
+    private static class JavaCompatibleIteratorWrapper<K,V> implements java.util.Iterator<java.util.Map.Entry<K, V>> {
+
+        private ConcurrentHashMap<K,V> map = null;
+        private java.util.Iterator<java.util.Map.Entry<K, V>> iter = null;
+        private java.util.Map.Entry<K, V> lastEntry = null;
+
+        public JavaCompatibleIteratorWrapper(ConcurrentHashMap<K,V> map, java.util.Iterator<java.util.Map.Entry<K, V>> iter) {
+            this.map = map;
+            this.iter = iter;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            if (iter==null) return false;
+            return iter.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Map.Entry<K, V> next() {
+            if (iter==null) return null;
+
+            lastEntry = iter.next();
+            return lastEntry;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (iter==null || lastEntry==null) return;
+
+            map.remove(lastEntry.getKey());
+            iter.remove();
+        }
+    }
+
+    private static class JavaCompatibleMapEntry<K,V> extends java.util.AbstractMap.SimpleEntry<K,V> {
+
+        private static final long serialVersionUID = -3528367616574186128L;
+
+        public JavaCompatibleMapEntry(K key, V value) {
+            super(key, value);
+        }
+    }
+
+    private static class JavaCompatibleConcurrentHashMap<K,V> extends java.util.AbstractMap<K,V> {
+
+        private ConcurrentHashMap<K,V> map = null;
+
+        protected JavaCompatibleConcurrentHashMap(ConcurrentHashMap<K,V> map) {
+            this.map = map;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V put(K key, V value) {
+            return map.put(key, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V get(Object key) {
+            return map.get((K)key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V remove(Object key) {
+            return map.remove((K)key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean containsKey(Object key) {
+            return map.contains((K)key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Set<java.util.Map.Entry<K, V>> entrySet() {
+            java.util.Set<java.util.Map.Entry<K, V>> set = new java.util.HashSet<java.util.Map.Entry<K, V>>() {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public java.util.Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return (new JavaCompatibleIteratorWrapper<K,V>(map,super.iterator()));
+                }
+            };
+            // Weakly consistent snapshot of the segments
+            for (Segment<K, V> segment : map.segments) {
+                AtomicReferenceArray<Node<K, V>> table = segment.table;
+                for (int index = 0; index < table.length(); index++) {
+                    for (Node<K, V> node = table.get(index); node != null; node = node.next) {
+                        java.util.Map.Entry<K, V> entry = new JavaCompatibleMapEntry<K, V>(node.key, node.value);
+                        set.add(entry);
+                    }
+                }
+            }
+            return set;
+        }
+    }
+}
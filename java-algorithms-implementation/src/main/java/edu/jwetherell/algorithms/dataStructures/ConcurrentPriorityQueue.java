@@ -0,0 +1,401 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Priority queue which can be shared between threads, built on a lock-free
+ * skip list. Each value is stored under a key made of the value and a
+ * sequence number, so equal values can sit in the queue together and come out
+ * first in first out. Adding is a skip list insert, removing the head is a
+ * poll of the first key, neither takes a lock, so producers and consumers only
+ * contend on the nodes they actually touch.
+ *
+ * Removing and locating a value is O(log n), the keys of equal values are
+ * next to each other. The size is kept in a counter, while other threads are
+ * changing the queue it can be briefly off by the operations in flight.
+ *
+ * http://en.wikipedia.org/wiki/Skip_list
+ * http://en.wikipedia.org/wiki/Priority_queue
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class ConcurrentPriorityQueue<T extends Comparable<T>> implements IHeap<T> {
+
+    private final BinaryHeap.Type type;
+    private final ConcurrentSkipListMap<Key<T>, Boolean> map;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Constructor for queue, defaults to a min-heap.
+     */
+    public ConcurrentPriorityQueue() {
+        this(BinaryHeap.Type.MIN);
+    }
+
+    /**
+     * Constructor for queue.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public ConcurrentPriorityQueue(BinaryHeap.Type type) {
+        if (type == null)
+            throw (new NullPointerException("Type must be non-NULL."));
+
+        this.type = type;
+        this.map = new ConcurrentSkipListMap<Key<T>, Boolean>(new KeyComparator<T>(type));
+    }
+
+    /**
+     * Get the heap type.
+     *
+     * @return MIN or MAX.
+     */
+    public BinaryHeap.Type getType() {
+        return type;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return Math.max(0, size.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null)
+            return false;
+
+        map.put(new Key<T>(value, sequence.getAndIncrement()), Boolean.TRUE);
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A skip list has no bulk build, every value is inserted on its own in
+     * O(log n). NULL values are ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends T> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        boolean changed = false;
+        for (T value : values) {
+            changed |= add(value);
+        }
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getHeadValue() {
+        java.util.Map.Entry<Key<T>, Boolean> entry = map.firstEntry();
+        if (entry == null)
+            return null;
+        return entry.getKey().value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Safe to call from many consumers, each head goes to exactly one.
+     */
+    @Override
+    public T removeHead() {
+        java.util.Map.Entry<Key<T>, Boolean> entry = map.pollFirstEntry();
+        if (entry == null)
+            return null;
+
+        size.decrementAndGet();
+        return entry.getKey().value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Other consumers can take heads in between, so the values are in heap
+     * order but not necessarily consecutive.
+     */
+    @Override
+    public java.util.List<T> removeHead(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        java.util.List<T> heads = new java.util.ArrayList<T>(Math.min(k, size()));
+        for (int i = 0; i < k; i++) {
+            T value = removeHead();
+            if (value == null)
+                break;
+            heads.add(value);
+        }
+        return heads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        if (value == null)
+            return null;
+
+        for (Key<T> key : getKeys(value)) {
+            if (!key.value.equals(value))
+                continue;
+            // Another thread may have taken it first
+            if (map.remove(key) != null) {
+                size.decrementAndGet();
+                return key.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The old value is removed and the new one added, other threads can see
+     * the queue with neither in between.
+     */
+    @Override
+    public boolean changePriority(T oldValue, T newValue) {
+        if (newValue == null || remove(oldValue) == null)
+            return false;
+
+        add(newValue);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This is an O(log n) operation.
+     */
+    @Override
+    public boolean contains(T value) {
+        if (value == null)
+            return false;
+
+        for (Key<T> key : getKeys(value)) {
+            if (key.value.equals(value))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Keys of every value which compares equal to the value.
+     */
+    private java.util.Set<Key<T>> getKeys(T value) {
+        Key<T> from = new Key<T>(value, Long.MIN_VALUE);
+        Key<T> to = new Key<T>(value, Long.MAX_VALUE);
+        return map.subMap(from, true, to, true).keySet();
+    }
+
+    /**
+     * Remove every value from the queue.
+     */
+    public void clear() {
+        while (removeHead() != null) { }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only meaningful while no other thread is changing the queue.
+     */
+    @Override
+    public boolean validate() {
+        Comparator<? super Key<T>> comparator = map.comparator();
+        Key<T> previous = null;
+        int count = 0;
+        for (Key<T> key : map.keySet()) {
+            if (key.value == null)
+                return false;
+            if (previous != null && comparator.compare(previous, key) >= 0)
+                return false;
+            previous = key;
+            count++;
+        }
+        return (count == size.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatibleConcurrentPriorityQueue<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size()).append(" ");
+        builder.append(toCollection());
+        return builder.toString();
+    }
+
+    private static final class Key<T extends Comparable<T>> {
+
+        private final T value;
+        private final long sequence;
+
+        private Key(T value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "value=" + value + " sequence=" + sequence;
+        }
+    }
+
+    private static final class KeyComparator<T extends Comparable<T>> implements Comparator<Key<T>> {
+
+        private final boolean max;
+
+        private KeyComparator(BinaryHeap.Type type) {
+            this.max = (type == BinaryHeap.Type.MAX);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compare(Key<T> a, Key<T> b) {
+            int result = a.value.compareTo(b.value);
+            if (result != 0)
+                return (max) ? -result : result;
+            // Equal values in the order they were added
+            return (a.sequence < b.sequence) ? -1 : ((a.sequence == b.sequence) ? 0 : 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static class JavaCompatibleConcurrentPriorityQueue<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private ConcurrentPriorityQueue<T> queue = null;
+
+        public JavaCompatibleConcurrentPriorityQueue() {
+            queue = new ConcurrentPriorityQueue<T>();
+        }
+
+        public JavaCompatibleConcurrentPriorityQueue(ConcurrentPriorityQueue<T> queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(T value) {
+            return queue.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return queue.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (queue.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return queue.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Weakly consistent, it walks the queue in heap order and never throws
+         * ConcurrentModificationException.
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return (new ConcurrentPriorityQueueIterator<T>(this.queue));
+        }
+
+        private static class ConcurrentPriorityQueueIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+            private ConcurrentPriorityQueue<T> queue = null;
+            private java.util.Iterator<Key<T>> keys = null;
+            private Key<T> last = null;
+
+            protected ConcurrentPriorityQueueIterator(ConcurrentPriorityQueue<T> queue) {
+                this.queue = queue;
+                this.keys = queue.map.keySet().iterator();
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public T next() {
+                last = keys.next();
+                return last.value;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw (new IllegalStateException());
+                if (queue.map.remove(last) != null)
+                    queue.size.decrementAndGet();
+                last = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary heap is an array based heap where every node has d children instead
+ * of two. The tree is log(d) times shallower, so adding a value and moving it
+ * up does fewer compares, while removing the head compares d children on each
+ * level. The children of a node sit next to each other in the array, with d=4
+ * they usually share a cache line, which makes removeHead heavy workloads
+ * faster than with a binary heap.
+ *
+ * http://en.wikipedia.org/wiki/D-ary_heap
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class DaryHeap<T extends Comparable<T>> implements IHeap<T> {
+
+    private static final int MINIMUM_SIZE = 10;
+    private static final int DEFAULT_ARITY = 4;
+
+    private BinaryHeap.Type type = BinaryHeap.Type.MIN;
+    private int arity = DEFAULT_ARITY;
+    private int size = 0;
+    private T[] array = (T[]) new Comparable<?>[MINIMUM_SIZE];
+
+    /**
+     * Constructor for a 4-ary heap, defaults to a min-heap.
+     */
+    public DaryHeap() {
+        size = 0;
+    }
+
+    /**
+     * Constructor for a 4-ary heap.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public DaryHeap(BinaryHeap.Type type) {
+        this();
+        this.type = type;
+    }
+
+    /**
+     * Constructor for heap.
+     *
+     * @param type
+     *            Heap type.
+     * @param arity
+     *            number of children of each node, at least two.
+     */
+    public DaryHeap(BinaryHeap.Type type, int arity) {
+        this(type);
+        if (arity < 2)
+            throw (new IllegalArgumentException("Arity must be at least two."));
+        this.arity = arity;
+    }
+
+    /**
+     * Constructor for a 4-ary heap holding the values, heapified in O(n).
+     *
+     * @param type
+     *            Heap type.
+     * @param values
+     *            to put in the heap.
+     */
+    public DaryHeap(BinaryHeap.Type type, T[] values) {
+        this(type);
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        addAll(Arrays.asList(values));
+    }
+
+    /**
+     * Get the number of children of each node.
+     *
+     * @return arity of the heap.
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null)
+            return false;
+
+        if (size >= array.length) {
+            array = Arrays.copyOf(array, size + (size >> 1));
+        }
+        array[size] = value;
+
+        heapUp(size++);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * NULL values are ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends T> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        int start = size;
+        if (size + values.size() > array.length) {
+            array = Arrays.copyOf(array, Math.max(size + values.size(), size + (size >> 1)));
+        }
+        for (T value : values) {
+            if (value == null)
+                continue;
+            array[size++] = value;
+        }
+
+        int added = size - start;
+        if (added == 0)
+            return false;
+
+        // Moving each value up costs about k log n / log d compares,
+        // heapifying everything about d n / (d - 1)
+        int depth = (32 - Integer.numberOfLeadingZeros(size)) / (32 - Integer.numberOfLeadingZeros(arity - 1));
+        if ((long) added * (depth + 1) * (arity - 1) > (long) arity * size) {
+            for (int i = (size - 2) / arity; i >= 0; i--) {
+                heapDown(i);
+            }
+        } else {
+            for (int i = start; i < size; i++) {
+                heapUp(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        return remove(indexOf(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean changePriority(T oldValue, T newValue) {
+        if (newValue == null)
+            return false;
+        int index = indexOf(oldValue);
+        if (index < 0)
+            return false;
+
+        array[index] = newValue;
+        heapDown(heapUp(index));
+        return true;
+    }
+
+    private int indexOf(T value) {
+        if (value == null)
+            return -1;
+
+        for (int i = 0; i < size; i++) {
+            if (array[i].equals(value))
+                return i;
+        }
+        return -1;
+    }
+
+    private T remove(int index) {
+        if (index < 0 || index >= size)
+            return null;
+
+        T t = array[index];
+        size--;
+        if (index < size) {
+            array[index] = array[size];
+            array[size] = null;
+            // The tail can belong above or below its new spot
+            heapDown(heapUp(index));
+        } else {
+            array[size] = null;
+        }
+
+        if (array.length > MINIMUM_SIZE && size < (array.length >> 2)) {
+            array = Arrays.copyOf(array, Math.max(MINIMUM_SIZE, array.length >> 1));
+        }
+
+        return t;
+    }
+
+    /**
+     * Remove every value from the heap.
+     */
+    public void clear() {
+        Arrays.fill(array, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(T value) {
+        return (indexOf(value) >= 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        for (int i = 1; i < size; i++) {
+            if (isBefore(array[i], array[(i - 1) / arity]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the heap in array form.
+     *
+     * @return array representing the heap.
+     */
+    public T[] getHeap() {
+        T[] nodes = (T[]) new Comparable<?>[size];
+        System.arraycopy(array, 0, nodes, 0, size);
+        return nodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getHeadValue() {
+        if (size == 0)
+            return null;
+        return array[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T removeHead() {
+        return remove(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.List<T> removeHead(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        int count = Math.min(k, size);
+        java.util.List<T> heads = new java.util.ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            heads.add(remove(0));
+        }
+        return heads;
+    }
+
+    /**
+     * Does value a belong closer to the head than value b.
+     */
+    private boolean isBefore(T a, T b) {
+        int result = a.compareTo(b);
+        return (type == BinaryHeap.Type.MIN) ? (result < 0) : (result > 0);
+    }
+
+    /**
+     * Move the value at index up until its parent comes before it.
+     *
+     * @return final index of the value.
+     */
+    private int heapUp(int index) {
+        T value = array[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) / arity;
+            T parent = array[parentIndex];
+            if (!isBefore(value, parent))
+                break;
+
+            // Hole moves up, parent moves down into it
+            array[index] = parent;
+            index = parentIndex;
+        }
+        array[index] = value;
+        return index;
+    }
+
+    /**
+     * Move the value at index down until it comes before all its children.
+     */
+    private void heapDown(int index) {
+        T value = array[index];
+        // Last index with a child, also keeps arity * index from overflowing
+        int lastParent = (size - 2) / arity;
+        while (size > 1 && index <= lastParent) {
+            int first = arity * index + 1;
+            int last = Math.min(first + arity, size);
+            int childIndex = first;
+            T child = array[first];
+            for (int i = first + 1; i < last; i++) {
+                if (isBefore(array[i], child)) {
+                    childIndex = i;
+                    child = array[i];
+                }
+            }
+            if (!isBefore(child, value))
+                break;
+
+            array[index] = child;
+            index = childIndex;
+        }
+        array[index] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatibleDaryHeap<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("arity=").append(arity).append(" size=").append(size).append(" ");
+        builder.append(Arrays.toString(getHeap()));
+        return builder.toString();
+    }
+
+    public static class JavaCompatibleDaryHeap<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private DaryHeap<T> heap = null;
+
+        public JavaCompatibleDaryHeap() {
+            heap = new DaryHeap<T>();
+        }
+
+        public JavaCompatibleDaryHeap(DaryHeap<T> heap) {
+            this.heap = heap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(T value) {
+            return heap.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return heap.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (heap.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return heap.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return (new DaryHeapIterator<T>(this.heap));
+        }
+
+        private static class DaryHeapIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+            private DaryHeap<T> heap = null;
+            private int last = -1;
+            private int index = -1;
+
+            protected DaryHeapIterator(DaryHeap<T> heap) {
+                this.heap = heap;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return (index+1<heap.size);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public T next() {
+                if (++index>=heap.size) return null;
+                last = index;
+                return heap.array[index];
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                heap.remove(last);
+            }
+        }
+    }
+}
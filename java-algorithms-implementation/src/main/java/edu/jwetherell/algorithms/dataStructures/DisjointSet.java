@@ -0,0 +1,142 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+/**
+ * Disjoint-set (union-find) of the integers 0 to n-1. Each set is a tree
+ * stored in a parent array, the root names the set. Union by rank keeps the
+ * trees shallow and find halves the path it walks by pointing every other
+ * element at its grandparent, so both take nearly constant amortized time.
+ *
+ * http://en.wikipedia.org/wiki/Disjoint-set_data_structure
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class DisjointSet {
+
+    private int[] parent = null;
+    // Upper bound of each root's tree height, never more than log2(n) < 128
+    private byte[] rank = null;
+    private int numberOfSets = 0;
+
+    /**
+     * Create n sets each holding one element.
+     *
+     * @param size
+     *            number of elements.
+     */
+    public DisjointSet(int size) {
+        if (size < 0)
+            throw (new IllegalArgumentException("Size cannot be negative."));
+
+        parent = new int[size];
+        rank = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        numberOfSets = size;
+    }
+
+    /**
+     * @return number of elements.
+     */
+    public int size() {
+        return parent.length;
+    }
+
+    /**
+     * @return number of disjoint sets.
+     */
+    public int getNumberOfSets() {
+        return numberOfSets;
+    }
+
+    /**
+     * Find the set holding the element.
+     *
+     * @param x
+     *            element to find.
+     * @return root element of the set.
+     */
+    public int find(int x) {
+        if (x < 0 || x >= parent.length)
+            throw (new IllegalArgumentException("Element " + x + " is out of range."));
+
+        while (parent[x] != x) {
+            // Path halving
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Join the sets holding the two elements.
+     *
+     * @param x
+     *            element of the first set.
+     * @param y
+     *            element of the second set.
+     * @return True if the elements were in different sets.
+     */
+    public boolean union(int x, int y) {
+        int xRoot = find(x);
+        int yRoot = find(y);
+        if (xRoot == yRoot)
+            return false;
+
+        if (rank[xRoot] < rank[yRoot]) {
+            parent[xRoot] = yRoot;
+        } else if (rank[xRoot] > rank[yRoot]) {
+            parent[yRoot] = xRoot;
+        } else {
+            parent[yRoot] = xRoot;
+            rank[xRoot]++;
+        }
+        numberOfSets--;
+        return true;
+    }
+
+    /**
+     * Are the two elements in the same set.
+     *
+     * @return True if they are in the same set.
+     */
+    public boolean isConnected(int x, int y) {
+        return (find(x) == find(y));
+    }
+
+    /**
+     * Validate the parent links and the number of sets.
+     *
+     * @return True if every element leads to a root of higher rank and the
+     *         number of roots matches.
+     */
+    public boolean validate() {
+        int roots = 0;
+        for (int i = 0; i < parent.length; i++) {
+            int p = parent[i];
+            if (p < 0 || p >= parent.length)
+                return false;
+            if (p == i)
+                roots++;
+            else if (rank[p] <= rank[i])
+                return false;
+        }
+        return (roots == numberOfSets);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("sets=").append(numberOfSets).append(" parents=[");
+        for (int i = 0; i < parent.length; i++) {
+            builder.append(parent[i]);
+            if (i < parent.length - 1)
+                builder.append(", ");
+        }
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,1356 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * B-tree kept in a file instead of on the heap, so it can index more keys
+ * than fit in memory. Every node is a fixed size page of the file, keys are
+ * written with a serializer into fixed size slots and searched with a binary
+ * search directly in the page. Like a B+tree all keys live in the leaves and
+ * the leaves are chained left to right for range scans.
+ *
+ * Pages are read through a buffer pool which holds a fixed number of pages and
+ * replaces them with the CLOCK algorithm, a page is pinned while it is being
+ * used and a pinned page is never replaced.
+ *
+ * Every add and remove is made durable through a write-ahead log before it
+ * returns. The log record holds an image of each page the operation changed,
+ * and the pages stay pinned until the record is forced to disk, so no page
+ * reaches the file before the log describes it. After a crash the records are
+ * written over their pages again, which gives the same result no matter how
+ * often it is repeated. A checkpoint writes the dirty pages, forces the file
+ * and empties the log.
+ *
+ * Removing keys does not merge nodes, an emptied leaf stays in the chain,
+ * as in many disk based B-trees.
+ *
+ * http://en.wikipedia.org/wiki/B-tree
+ * http://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock
+ * http://en.wikipedia.org/wiki/Write-ahead_logging
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class DiskBTree<T extends Comparable<T>> implements ITree<T>, Closeable {
+
+    private static final int MAGIC = 0x42545245;
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+    private static final int DEFAULT_POOL_SIZE = 256;
+    private static final int MINIMUM_POOL_SIZE = 16;
+    private static final long CHECKPOINT_SIZE = 16 * 1024 * 1024;
+
+    // Page zero holds the meta data, no node points to it
+    private static final int NONE = 0;
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    // Type, number of keys, next leaf
+    private static final int HEADER = 9;
+
+    private final KeySerializer<T> serializer;
+    private final int pageSize;
+    private final int keySize;
+    private final int maxLeafKeys;
+    private final int maxInternalKeys;
+    private final int keysOffset;
+    private final ByteBuffer scratch;
+
+    private final RandomAccessFile dataFile;
+    private final FileChannel data;
+    private final WriteAheadLog log;
+    private final BufferPool pool;
+    // Frames pinned by the running add or remove
+    private final List<Frame> operation = new ArrayList<Frame>();
+    private boolean failed = false;
+
+    private int root = NONE;
+    private int first = NONE;
+    private int pages = 0;
+    private int size = 0;
+
+    /**
+     * Constructor for a tree of 4K pages with a pool of 256 pages.
+     *
+     * @param file
+     *            to keep the tree in, created if it doesn't exist.
+     * @param serializer
+     *            of the keys.
+     */
+    public DiskBTree(File file, KeySerializer<T> serializer) throws IOException {
+        this(file, serializer, DEFAULT_PAGE_SIZE, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Constructor for tree. An existing file is opened and any operations in
+     * its log are replayed. The log is kept next to the file, with ".wal"
+     * added to its name, and is emptied when a new file is created.
+     *
+     * @param file
+     *            to keep the tree in, created if it doesn't exist.
+     * @param serializer
+     *            of the keys.
+     * @param pageSize
+     *            size of a node in bytes, must be the same each time the file
+     *            is opened.
+     * @param poolSize
+     *            number of pages kept in memory, at least 16.
+     */
+    public DiskBTree(File file, KeySerializer<T> serializer, int pageSize, int poolSize) throws IOException {
+        if (file == null)
+            throw (new NullPointerException("File must be non-NULL."));
+        if (serializer == null)
+            throw (new NullPointerException("Serializer must be non-NULL."));
+        if (poolSize < MINIMUM_POOL_SIZE)
+            throw (new IllegalArgumentException("Pool must hold at least " + MINIMUM_POOL_SIZE + " pages."));
+
+        this.serializer = serializer;
+        this.pageSize = pageSize;
+        this.keySize = serializer.getSize();
+        this.maxLeafKeys = (pageSize - HEADER) / keySize;
+        this.maxInternalKeys = (pageSize - HEADER - 4) / (keySize + 4);
+        this.keysOffset = HEADER + 4 * (maxInternalKeys + 1);
+        if (maxLeafKeys < 3 || maxInternalKeys < 3)
+            throw (new IllegalArgumentException("Page must hold at least three keys."));
+        this.scratch = ByteBuffer.allocate(keySize);
+
+        this.dataFile = new RandomAccessFile(file, "rw");
+        this.data = dataFile.getChannel();
+        this.log = new WriteAheadLog(new File(file.getPath() + ".wal"));
+        this.pool = new BufferPool(data, pageSize, poolSize);
+
+        if (data.size() == 0) {
+            create();
+        } else {
+            readMeta();
+        }
+        replay();
+    }
+
+    /**
+     * Write an empty tree, a single empty leaf as the root.
+     */
+    private void create() throws IOException {
+        // A log left behind by an earlier file of the same name belongs to other pages
+        log.truncate();
+
+        root = 1;
+        first = 1;
+        pages = 2;
+        size = 0;
+        Frame frame = pool.pin(root, false);
+        initialize(frame.page, LEAF);
+        frame.dirty = true;
+        pool.unpin(frame);
+        pool.flush();
+        data.force(true);
+        writeMeta();
+        data.force(true);
+    }
+
+    private void readMeta() throws IOException {
+        ByteBuffer meta = ByteBuffer.allocate(28);
+        read(data, meta, 0);
+        if (meta.getInt(0) != MAGIC)
+            throw (new IllegalArgumentException("File is not a B-Tree."));
+        if (meta.getInt(4) != pageSize || meta.getInt(8) != keySize)
+            throw (new IllegalArgumentException("File was written with a different page or key size."));
+
+        root = meta.getInt(12);
+        first = meta.getInt(16);
+        pages = meta.getInt(20);
+        size = meta.getInt(24);
+    }
+
+    private void writeMeta() throws IOException {
+        ByteBuffer meta = ByteBuffer.allocate(28);
+        meta.putInt(MAGIC).putInt(pageSize).putInt(keySize).putInt(root).putInt(first).putInt(pages).putInt(size);
+        meta.flip();
+        write(data, meta, 0);
+    }
+
+    /**
+     * Write the page images of every complete log record over their pages, a
+     * record which was cut short by a crash ends the log.
+     */
+    private void replay() throws IOException {
+        long position = 0;
+        ByteBuffer record = null;
+        while ((record = log.read(position)) != null) {
+            position += 4 + record.capacity();
+            root = record.getInt();
+            first = record.getInt();
+            pages = record.getInt();
+            size = record.getInt();
+            int images = record.getInt();
+            for (int i = 0; i < images; i++) {
+                int pageId = record.getInt();
+                ByteBuffer image = record.slice();
+                image.limit(pageSize);
+                write(data, image, (long) pageId * pageSize);
+                record.position(record.position() + pageSize);
+            }
+        }
+        if (log.size() > 0) {
+            data.force(true);
+            writeMeta();
+            data.force(true);
+            log.truncate();
+        }
+    }
+
+    /**
+     * Write every changed page to the file and empty the log. Also done on
+     * close and when the log grows past 16MB.
+     */
+    public void checkpoint() throws IOException {
+        pool.flush();
+        data.force(true);
+        // The meta data goes last, it must only point at pages on disk
+        writeMeta();
+        data.force(true);
+        log.truncate();
+    }
+
+    /**
+     * Checkpoint and close the file and the log.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!failed)
+            checkpoint();
+        log.close();
+        dataFile.close();
+    }
+
+    /**
+     * Load sorted values into an empty tree, every leaf but the last two is
+     * filled completely. The pages are written straight to the file and made
+     * durable with a checkpoint instead of the log.
+     *
+     * @param sorted
+     *            values in ascending order without duplicates.
+     */
+    public void load(T[] sorted) {
+        if (sorted == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+        if (size != 0)
+            throw (new IllegalStateException("Tree must be empty to bulk load."));
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] == null)
+                throw (new NullPointerException("Values must be non-NULL."));
+            if (i > 0 && sorted[i - 1].compareTo(sorted[i]) >= 0)
+                throw (new IllegalArgumentException("Values must be sorted and unique."));
+        }
+        if (sorted.length == 0)
+            return;
+
+        begin();
+        try {
+            // The pages go after every page the durable meta data can reach
+            checkpoint();
+
+            int count = (sorted.length + maxLeafKeys - 1) / maxLeafKeys;
+            int[] sizes = split(sorted.length, count, maxLeafKeys, (maxLeafKeys - 1) / 2);
+            int[] level = new int[count];
+            Object[] lowest = new Object[count];
+            Frame previous = null;
+            for (int i = 0, start = 0; i < count; start += sizes[i], i++) {
+                Frame frame = pool.pin(pages++, false);
+                initialize(frame.page, LEAF);
+                for (int j = 0; j < sizes[i]; j++) {
+                    serializer.write(sorted[start + j], frame.page, HEADER + j * keySize);
+                }
+                setCount(frame.page, sizes[i]);
+                frame.dirty = true;
+                if (previous != null) {
+                    setNextLeaf(previous.page, frame.pageId);
+                    pool.unpin(previous);
+                }
+                previous = frame;
+                level[i] = frame.pageId;
+                lowest[i] = sorted[start];
+            }
+            pool.unpin(previous);
+            int firstLeaf = level[0];
+
+            while (level.length > 1) {
+                int parents = (level.length + maxInternalKeys) / (maxInternalKeys + 1);
+                int[] children = split(level.length, parents, maxInternalKeys + 1, (maxInternalKeys - 1) / 2 + 1);
+                int[] upper = new int[parents];
+                Object[] upperLowest = new Object[parents];
+                for (int i = 0, start = 0; i < parents; start += children[i], i++) {
+                    Frame frame = pool.pin(pages++, false);
+                    initialize(frame.page, INTERNAL);
+                    for (int j = 0; j < children[i]; j++) {
+                        setChild(frame.page, j, level[start + j]);
+                        if (j > 0)
+                            serializer.write((T) lowest[start + j], frame.page, keysOffset + (j - 1) * keySize);
+                    }
+                    setCount(frame.page, children[i] - 1);
+                    frame.dirty = true;
+                    pool.unpin(frame);
+                    upper[i] = frame.pageId;
+                    upperLowest[i] = lowest[start];
+                }
+                level = upper;
+                lowest = upperLowest;
+            }
+
+            root = level[0];
+            first = firstLeaf;
+            size = sorted.length;
+            checkpoint();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Sizes of the nodes when n entries are packed into count nodes, all full
+     * except that the last two share what is left if the last one would be
+     * under-full.
+     */
+    private static int[] split(int n, int count, int max, int min) {
+        int[] sizes = new int[count];
+        Arrays.fill(sizes, max);
+        int last = n - (count - 1) * max;
+        sizes[count - 1] = last;
+        if (count > 1 && last < min) {
+            int both = max + last;
+            sizes[count - 2] = both - both / 2;
+            sizes[count - 1] = both / 2;
+        }
+        return sizes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null)
+            return false;
+        // Fails before any page is touched if the key doesn't fit
+        serializer.write(value, scratch, 0);
+
+        begin();
+        try {
+            Frame frame = pin(root);
+            if (count(frame.page) == maxKeys(frame.page)) {
+                Frame parent = allocate(INTERNAL);
+                setChild(parent.page, 0, root);
+                splitChild(parent, 0, frame);
+                root = parent.pageId;
+                frame = parent;
+            }
+
+            while (!isLeaf(frame.page)) {
+                int index = childIndex(frame.page, value);
+                Frame child = pin(child(frame.page, index));
+                if (count(child.page) == maxKeys(child.page)) {
+                    // Split on the way down, so the parent always has room
+                    splitChild(frame, index, child);
+                    if (value.compareTo(key(frame.page, index)) >= 0)
+                        child = pin(child(frame.page, index + 1));
+                }
+                frame = child;
+            }
+
+            int index = search(frame.page, value);
+            if (index >= 0) {
+                commit();
+                return false;
+            }
+
+            insertKey(frame.page, -(index + 1), value);
+            changed(frame);
+            size++;
+            commit();
+            return true;
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Split the full child at index into two pages, the key which separates
+     * them is added to the parent. A leaf keeps its keys and passes a copy of
+     * the first key of the right half up, an internal node passes its middle
+     * key up.
+     */
+    private void splitChild(Frame parent, int index, Frame left) throws IOException {
+        ByteBuffer l = left.page;
+        boolean leaf = isLeaf(l);
+        Frame right = allocate((leaf) ? LEAF : INTERNAL);
+        ByteBuffer r = right.page;
+        int count = count(l);
+        int middle = count / 2;
+        T separator = null;
+        if (leaf) {
+            int moved = count - middle;
+            System.arraycopy(l.array(), HEADER + middle * keySize, r.array(), HEADER, moved * keySize);
+            setCount(r, moved);
+            setCount(l, middle);
+            separator = key(r, 0);
+            setNextLeaf(r, nextLeaf(l));
+            setNextLeaf(l, right.pageId);
+        } else {
+            separator = key(l, middle);
+            int moved = count - middle - 1;
+            System.arraycopy(l.array(), keysOffset + (middle + 1) * keySize, r.array(), keysOffset, moved * keySize);
+            System.arraycopy(l.array(), HEADER + (middle + 1) * 4, r.array(), HEADER, (moved + 1) * 4);
+            setCount(r, moved);
+            setCount(l, middle);
+        }
+        changed(left);
+
+        ByteBuffer p = parent.page;
+        int parentCount = count(p);
+        System.arraycopy(p.array(), HEADER + (index + 1) * 4, p.array(), HEADER + (index + 2) * 4, (parentCount - index) * 4);
+        setChild(p, index + 1, right.pageId);
+        insertKey(p, index, separator);
+        changed(parent);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        if (value == null)
+            return null;
+
+        begin();
+        try {
+            Frame frame = pin(root);
+            while (!isLeaf(frame.page)) {
+                frame = pin(child(frame.page, childIndex(frame.page, value)));
+            }
+
+            int index = search(frame.page, value);
+            if (index < 0) {
+                commit();
+                return null;
+            }
+
+            T removed = key(frame.page, index);
+            deleteKey(frame.page, index);
+            changed(frame);
+            size--;
+            commit();
+            return removed;
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(T value) {
+        if (value == null)
+            return false;
+
+        begin();
+        try {
+            int pageId = root;
+            while (true) {
+                Frame frame = pool.pin(pageId, true);
+                try {
+                    if (isLeaf(frame.page))
+                        return (search(frame.page, value) >= 0);
+                    pageId = child(frame.page, childIndex(frame.page, value));
+                } finally {
+                    pool.unpin(frame);
+                }
+            }
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Iterate the values from inclusive to exclusive in ascending order. A
+     * NULL bound leaves that end of the range open.
+     *
+     * @param from
+     *            lowest value of the range, inclusive.
+     * @param to
+     *            end of the range, exclusive.
+     * @return iterator over the values in the range.
+     */
+    public java.util.Iterator<T> range(T from, T to) {
+        return (new DiskBTreeIterator<T>(this, from, to));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of pages read from the file by the buffer pool.
+     *
+     * @return pages read since the tree was opened.
+     */
+    public long getPageReads() {
+        return pool.reads;
+    }
+
+    /**
+     * Get the number of pages written to the file by the buffer pool.
+     *
+     * @return pages written since the tree was opened.
+     */
+    public long getPageWrites() {
+        return pool.writes;
+    }
+
+    private void begin() {
+        if (failed)
+            throw (new IllegalStateException("Tree must be opened again after an I/O error."));
+    }
+
+    /**
+     * The pages of an operation which failed half way may be inconsistent,
+     * they stay pinned so they never reach the file, and opening the tree
+     * again recovers from the log.
+     */
+    private IllegalStateException failure(IOException e) {
+        failed = true;
+        return (new IllegalStateException("I/O error, tree must be opened again.", e));
+    }
+
+    /**
+     * Pin a page for the running operation.
+     */
+    private Frame pin(int pageId) throws IOException {
+        Frame frame = pool.pin(pageId, true);
+        operation.add(frame);
+        return frame;
+    }
+
+    /**
+     * Pin a new page for the running operation.
+     */
+    private Frame allocate(byte type) throws IOException {
+        Frame frame = pool.pin(pages++, false);
+        operation.add(frame);
+        initialize(frame.page, type);
+        changed(frame);
+        return frame;
+    }
+
+    private static void changed(Frame frame) {
+        frame.dirty = true;
+        frame.changed = true;
+    }
+
+    /**
+     * Log the pages the operation changed, then release its pins. Until the
+     * record is forced the pages are pinned, so they can't be written early.
+     */
+    private void commit() throws IOException {
+        List<Frame> changed = new ArrayList<Frame>();
+        for (Frame frame : operation) {
+            if (frame.changed) {
+                frame.changed = false;
+                changed.add(frame);
+            }
+        }
+        if (changed.size() > 0)
+            log.append(root, first, pages, size, changed, pageSize);
+
+        for (Frame frame : operation) {
+            pool.unpin(frame);
+        }
+        operation.clear();
+
+        if (log.size() > CHECKPOINT_SIZE)
+            checkpoint();
+    }
+
+    private static void initialize(ByteBuffer page, byte type) {
+        Arrays.fill(page.array(), (byte) 0);
+        page.put(0, type);
+    }
+
+    private static boolean isLeaf(ByteBuffer page) {
+        return (page.get(0) == LEAF);
+    }
+
+    private static int count(ByteBuffer page) {
+        return page.getInt(1);
+    }
+
+    private static void setCount(ByteBuffer page, int count) {
+        page.putInt(1, count);
+    }
+
+    private static int nextLeaf(ByteBuffer page) {
+        return page.getInt(5);
+    }
+
+    private static void setNextLeaf(ByteBuffer page, int pageId) {
+        page.putInt(5, pageId);
+    }
+
+    private static int child(ByteBuffer page, int index) {
+        return page.getInt(HEADER + 4 * index);
+    }
+
+    private static void setChild(ByteBuffer page, int index, int pageId) {
+        page.putInt(HEADER + 4 * index, pageId);
+    }
+
+    private int maxKeys(ByteBuffer page) {
+        return (isLeaf(page)) ? maxLeafKeys : maxInternalKeys;
+    }
+
+    private int keyOffset(ByteBuffer page, int index) {
+        return ((isLeaf(page)) ? HEADER : keysOffset) + index * keySize;
+    }
+
+    private T key(ByteBuffer page, int index) {
+        return serializer.read(page, keyOffset(page, index));
+    }
+
+    private void insertKey(ByteBuffer page, int index, T value) {
+        int count = count(page);
+        int offset = keyOffset(page, index);
+        System.arraycopy(page.array(), offset, page.array(), offset + keySize, (count - index) * keySize);
+        serializer.write(value, page, offset);
+        setCount(page, count + 1);
+    }
+
+    private void deleteKey(ByteBuffer page, int index) {
+        int count = count(page);
+        int offset = keyOffset(page, index);
+        System.arraycopy(page.array(), offset + keySize, page.array(), offset, (count - index - 1) * keySize);
+        setCount(page, count - 1);
+    }
+
+    /**
+     * Index of the child to follow for the value. Keys equal to a separator
+     * belong to the right of it.
+     */
+    private int childIndex(ByteBuffer page, T value) {
+        int index = search(page, value);
+        return (index >= 0) ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Binary search of the keys in the page, only the keys it compares are
+     * read.
+     *
+     * @return index of the value or -(insertion point) - 1 if not found.
+     */
+    private int search(ByteBuffer page, T value) {
+        int low = 0;
+        int high = count(page) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = key(page, middle).compareTo(value);
+            if (result < 0)
+                low = middle + 1;
+            else if (result > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -(low + 1);
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                break;
+        }
+        // Past the end of the file reads as zeros
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Checks the keys are sorted and within the bounds of their parents, that
+     * all leaves are at the same depth and chained in order, and the size.
+     */
+    @Override
+    public boolean validate() {
+        begin();
+        try {
+            int depth = -1;
+            int count = 0;
+            int expected = first;
+            Deque<Object[]> toVisit = new ArrayDeque<Object[]>();
+            toVisit.push(new Object[] { root, null, null, 0 });
+            while (!toVisit.isEmpty()) {
+                Object[] entry = toVisit.pop();
+                int pageId = (Integer) entry[0];
+                T lower = (T) entry[1];
+                T upper = (T) entry[2];
+                int level = (Integer) entry[3];
+
+                Frame frame = pool.pin(pageId, true);
+                try {
+                    ByteBuffer page = frame.page;
+                    int keys = count(page);
+                    if (keys < 0 || keys > maxKeys(page))
+                        return false;
+                    T previous = null;
+                    for (int i = 0; i < keys; i++) {
+                        T key = key(page, i);
+                        if (previous != null && previous.compareTo(key) >= 0)
+                            return false;
+                        if (lower != null && key.compareTo(lower) < 0)
+                            return false;
+                        if (upper != null && key.compareTo(upper) >= 0)
+                            return false;
+                        previous = key;
+                    }
+
+                    if (isLeaf(page)) {
+                        // Leaves are all on one level and chained left to right
+                        if (depth < 0)
+                            depth = level;
+                        else if (depth != level)
+                            return false;
+                        if (pageId != expected)
+                            return false;
+                        expected = nextLeaf(page);
+                        count += keys;
+                        continue;
+                    }
+
+                    if (page.get(0) != INTERNAL || (keys == 0))
+                        return false;
+                    // Pushed right to left, so the leaves are visited in order
+                    for (int i = keys; i >= 0; i--) {
+                        T childLower = (i == 0) ? lower : key(page, i - 1);
+                        T childUpper = (i == keys) ? upper : key(page, i);
+                        toVisit.push(new Object[] { child(page, i), childLower, childUpper, level + 1 });
+                    }
+                } finally {
+                    pool.unpin(frame);
+                }
+            }
+            return (expected == NONE && count == size);
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatibleDiskBTree<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size).append(" pages=").append(pages).append(" ");
+        builder.append(toCollection());
+        return builder.toString();
+    }
+
+    /**
+     * Writes keys into fixed size slots of a page and reads them back.
+     */
+    public static interface KeySerializer<T> {
+
+        /**
+         * Get the number of bytes of a slot.
+         *
+         * @return size of every serialized key.
+         */
+        public int getSize();
+
+        /**
+         * Write the key into the slot at offset.
+         *
+         * @throws IllegalArgumentException
+         *             if the key doesn't fit into a slot.
+         */
+        public void write(T value, ByteBuffer buffer, int offset);
+
+        /**
+         * Read the key from the slot at offset.
+         */
+        public T read(ByteBuffer buffer, int offset);
+    }
+
+    public static class IntegerSerializer implements KeySerializer<Integer> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getSize() {
+            return 4;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(Integer value, ByteBuffer buffer, int offset) {
+            buffer.putInt(offset, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    }
+
+    public static class LongSerializer implements KeySerializer<Long> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getSize() {
+            return 8;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(Long value, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    }
+
+    public static class DoubleSerializer implements KeySerializer<Double> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getSize() {
+            return 8;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(Double value, ByteBuffer buffer, int offset) {
+            buffer.putDouble(offset, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double read(ByteBuffer buffer, int offset) {
+            return buffer.getDouble(offset);
+        }
+    }
+
+    /**
+     * Strings as UTF-8 after a two byte length, up to a maximum number of
+     * bytes.
+     */
+    public static class StringSerializer implements KeySerializer<String> {
+
+        private static final Charset UTF8 = Charset.forName("UTF-8");
+
+        private final int maxBytes;
+
+        public StringSerializer(int maxBytes) {
+            if (maxBytes < 1 || maxBytes > Short.MAX_VALUE)
+                throw (new IllegalArgumentException("Maximum bytes must be between 1 and " + Short.MAX_VALUE + "."));
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getSize() {
+            return 2 + maxBytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(String value, ByteBuffer buffer, int offset) {
+            byte[] bytes = value.getBytes(UTF8);
+            if (bytes.length > maxBytes)
+                throw (new IllegalArgumentException("Key is longer than " + maxBytes + " bytes."));
+            buffer.putShort(offset, (short) bytes.length);
+            System.arraycopy(bytes, 0, buffer.array(), offset + 2, bytes.length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String read(ByteBuffer buffer, int offset) {
+            int length = buffer.getShort(offset);
+            return new String(buffer.array(), offset + 2, length, UTF8);
+        }
+    }
+
+    /**
+     * Any serializable Comparable, through Java serialization after a four
+     * byte length. Every compare during a search reads the key back, so the
+     * primitive serializers are much faster.
+     */
+    public static class ComparableSerializer<T extends Comparable<T> & java.io.Serializable> implements KeySerializer<T> {
+
+        private final int maxBytes;
+
+        public ComparableSerializer(int maxBytes) {
+            if (maxBytes < 1)
+                throw (new IllegalArgumentException("Maximum bytes must be positive."));
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getSize() {
+            return 4 + maxBytes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(T value, ByteBuffer buffer, int offset) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                ObjectOutputStream output = new ObjectOutputStream(bytes);
+                output.writeObject(value);
+                output.close();
+            } catch (IOException e) {
+                throw (new IllegalArgumentException("Key can't be serialized.", e));
+            }
+            if (bytes.size() > maxBytes)
+                throw (new IllegalArgumentException("Key is longer than " + maxBytes + " bytes."));
+            buffer.putInt(offset, bytes.size());
+            System.arraycopy(bytes.toByteArray(), 0, buffer.array(), offset + 4, bytes.size());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T read(ByteBuffer buffer, int offset) {
+            int length = buffer.getInt(offset);
+            try {
+                ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(buffer.array(), offset + 4, length));
+                return (T) input.readObject();
+            } catch (IOException e) {
+                throw (new IllegalStateException("Key can't be read.", e));
+            } catch (ClassNotFoundException e) {
+                throw (new IllegalStateException("Key can't be read.", e));
+            }
+        }
+    }
+
+    private static class Frame {
+
+        private final ByteBuffer page;
+        private int pageId = -1;
+        private int pins = 0;
+        private boolean referenced = false;
+        // Differs from the file
+        private boolean dirty = false;
+        // Changed by the running operation and not logged yet
+        private boolean changed = false;
+
+        private Frame(int pageSize) {
+            this.page = ByteBuffer.allocate(pageSize);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "pageId=" + pageId + " pins=" + pins + " dirty=" + dirty;
+        }
+    }
+
+    /**
+     * Fixed number of frames holding pages of the file. When a page has to be
+     * read the clock hand sweeps the frames, skipping pinned ones and giving
+     * recently used ones a second chance, and the first other frame is
+     * replaced. A dirty page is written before its frame is reused.
+     */
+    private static class BufferPool {
+
+        private final FileChannel channel;
+        private final int pageSize;
+        private final Frame[] frames;
+        private final Map<Integer, Frame> pages = new HashMap<Integer, Frame>();
+        private int hand = 0;
+        private long reads = 0;
+        private long writes = 0;
+
+        private BufferPool(FileChannel channel, int pageSize, int size) {
+            this.channel = channel;
+            this.pageSize = pageSize;
+            this.frames = new Frame[size];
+            for (int i = 0; i < size; i++) {
+                frames[i] = new Frame(pageSize);
+            }
+        }
+
+        /**
+         * Pin the page, reading it from the file unless it is new.
+         */
+        private Frame pin(int pageId, boolean read) throws IOException {
+            Frame frame = pages.get(pageId);
+            if (frame != null) {
+                frame.pins++;
+                frame.referenced = true;
+                return frame;
+            }
+
+            frame = victim();
+            if (frame.pageId >= 0) {
+                if (frame.dirty)
+                    write(frame);
+                pages.remove(frame.pageId);
+            }
+            frame.pageId = pageId;
+            frame.dirty = false;
+            frame.changed = false;
+            if (read) {
+                frame.page.clear();
+                DiskBTree.read(channel, frame.page, (long) pageId * pageSize);
+                reads++;
+            }
+            frame.pins = 1;
+            frame.referenced = true;
+            pages.put(pageId, frame);
+            return frame;
+        }
+
+        private void unpin(Frame frame) {
+            frame.pins--;
+        }
+
+        private Frame victim() {
+            // Two sweeps clear every reference bit
+            for (int i = 0; i < 2 * frames.length; i++) {
+                Frame frame = frames[hand];
+                hand = (hand + 1) % frames.length;
+                if (frame.pins > 0)
+                    continue;
+                if (frame.referenced) {
+                    frame.referenced = false;
+                    continue;
+                }
+                return frame;
+            }
+            throw (new IllegalStateException("Every page in the buffer pool is pinned."));
+        }
+
+        private void write(Frame frame) throws IOException {
+            frame.page.clear();
+            DiskBTree.write(channel, frame.page, (long) frame.pageId * pageSize);
+            frame.dirty = false;
+            writes++;
+        }
+
+        /**
+         * Write every dirty page.
+         */
+        private void flush() throws IOException {
+            for (Frame frame : frames) {
+                if (frame.pageId >= 0 && frame.dirty)
+                    write(frame);
+            }
+        }
+    }
+
+    /**
+     * Append only file of records, each record is the length, the meta data,
+     * the page images and a CRC32 of everything after the length.
+     */
+    private static class WriteAheadLog {
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+
+        private WriteAheadLog(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "rw");
+            this.channel = this.file.getChannel();
+        }
+
+        private long size() throws IOException {
+            return channel.size();
+        }
+
+        /**
+         * Append a record and force it to disk.
+         */
+        private void append(int root, int first, int pages, int size, List<Frame> frames, int pageSize) throws IOException {
+            int length = 20 + frames.size() * (4 + pageSize) + 8;
+            ByteBuffer record = ByteBuffer.allocate(4 + length);
+            record.putInt(length).putInt(root).putInt(first).putInt(pages).putInt(size).putInt(frames.size());
+            for (Frame frame : frames) {
+                record.putInt(frame.pageId);
+                record.put(frame.page.array(), 0, pageSize);
+            }
+            crc.reset();
+            crc.update(record.array(), 4, length - 8);
+            record.putLong(crc.getValue());
+            record.flip();
+            DiskBTree.write(channel, record, channel.size());
+            channel.force(false);
+        }
+
+        /**
+         * Read the record at position.
+         *
+         * @return record without its length or NULL if there is no complete
+         *         record at position.
+         */
+        private ByteBuffer read(long position) throws IOException {
+            long size = channel.size();
+            if (position + 4 > size)
+                return null;
+            ByteBuffer header = ByteBuffer.allocate(4);
+            DiskBTree.read(channel, header, position);
+            int length = header.getInt(0);
+            if (length < 28 || position + 4 + length > size)
+                return null;
+
+            ByteBuffer record = ByteBuffer.allocate(length);
+            DiskBTree.read(channel, record, position + 4);
+            crc.reset();
+            crc.update(record.array(), 0, length - 8);
+            if (crc.getValue() != record.getLong(length - 8))
+                return null;
+            return record;
+        }
+
+        private void truncate() throws IOException {
+            channel.truncate(0);
+            channel.force(true);
+        }
+
+        private void close() throws IOException {
+            file.close();
+        }
+    }
+
+    /**
+     * Walks the chained leaves from the first value in the range until the
+     * end of the range. The keys of a leaf are copied out, so no page stays
+     * pinned between calls.
+     */
+    private static class DiskBTreeIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+        private DiskBTree<T> tree = null;
+        private T to = null;
+        private List<T> keys = new ArrayList<T>();
+        private int index = 0;
+        private int next = NONE;
+        private T last = null;
+
+        protected DiskBTreeIterator(DiskBTree<T> tree, T from, T to) {
+            this.tree = tree;
+            this.to = to;
+            seek(from, true);
+        }
+
+        /**
+         * Move to the first value after, or if inclusive at, the value.
+         */
+        private void seek(T value, boolean inclusive) {
+            tree.begin();
+            try {
+                int pageId = tree.root;
+                while (true) {
+                    Frame frame = tree.pool.pin(pageId, true);
+                    try {
+                        ByteBuffer page = frame.page;
+                        if (isLeaf(page)) {
+                            load(page);
+                            if (value == null) {
+                                index = 0;
+                            } else {
+                                index = tree.search(page, value);
+                                if (index >= 0)
+                                    index = (inclusive) ? index : index + 1;
+                                else
+                                    index = -(index + 1);
+                            }
+                            return;
+                        }
+                        pageId = (value == null) ? child(page, 0) : child(page, tree.childIndex(page, value));
+                    } finally {
+                        tree.pool.unpin(frame);
+                    }
+                }
+            } catch (IOException e) {
+                throw tree.failure(e);
+            }
+        }
+
+        private void load(ByteBuffer page) {
+            keys.clear();
+            int count = count(page);
+            for (int i = 0; i < count; i++) {
+                keys.add(tree.key(page, i));
+            }
+            next = nextLeaf(page);
+            index = 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            while (index >= keys.size() && next != NONE) {
+                tree.begin();
+                try {
+                    Frame frame = tree.pool.pin(next, true);
+                    try {
+                        load(frame.page);
+                    } finally {
+                        tree.pool.unpin(frame);
+                    }
+                } catch (IOException e) {
+                    throw tree.failure(e);
+                }
+            }
+            return (index < keys.size() && (to == null || keys.get(index).compareTo(to) < 0));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T next() {
+            if (!hasNext()) return null;
+            last = keys.get(index++);
+            return last;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (last == null)
+                throw (new IllegalStateException());
+            tree.remove(last);
+            seek(last, false);
+            last = null;
+        }
+    }
+
+    public static class JavaCompatibleDiskBTree<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private DiskBTree<T> tree = null;
+
+        public JavaCompatibleDiskBTree(DiskBTree<T> tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(T value) {
+            return tree.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (tree.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return tree.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return tree.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Values come out in ascending order.
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return tree.range(null, null);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An array based binary heap of primitive doubles. Values are stored and
+ * compared without boxing, add(double), peek() and poll() never allocate
+ * apart from growing the array. The boxed IHeap methods are there so it can
+ * stand in for the generic heaps.
+ *
+ * Values are ordered like Double.compareTo(), so -0.0 comes before 0.0 and
+ * NaN after every other value.
+ *
+ * Building from an array uses Floyd's bottom-up heapify, which is O(n)
+ * instead of the O(n log n) of adding the values one by one.
+ *
+ * http://en.wikipedia.org/wiki/Binary_heap
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class DoubleBinaryHeap implements BinaryHeap<Double> {
+
+    private static final int MINIMUM_SIZE = 10;
+
+    private BinaryHeap.Type type = BinaryHeap.Type.MIN;
+    private boolean max = false;
+    private int size = 0;
+    private double[] array = new double[MINIMUM_SIZE];
+
+    /**
+     * Constructor for heap, defaults to a min-heap.
+     */
+    public DoubleBinaryHeap() {
+        size = 0;
+    }
+
+    /**
+     * Constructor for heap.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public DoubleBinaryHeap(BinaryHeap.Type type) {
+        this();
+        this.type = type;
+        this.max = (type == BinaryHeap.Type.MAX);
+    }
+
+    /**
+     * Constructor for heap holding the values, heapified in O(n).
+     *
+     * @param type
+     *            Heap type.
+     * @param values
+     *            to put in the heap, the array is copied.
+     */
+    public DoubleBinaryHeap(BinaryHeap.Type type, double[] values) {
+        this(type);
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        array = Arrays.copyOf(values, Math.max(MINIMUM_SIZE, values.length));
+        size = values.length;
+        heapify();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add value to the heap.
+     *
+     * @param value
+     *            to add to the heap.
+     * @return True if added to the heap.
+     */
+    public boolean add(double value) {
+        if (size >= array.length) {
+            array = Arrays.copyOf(array, size + (size >> 1));
+        }
+        array[size] = value;
+        heapUp(size++);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(Double value) {
+        if (value == null)
+            return false;
+        return add(value.doubleValue());
+    }
+
+    /**
+     * Add all the values to the heap. A batch which is large compared to the
+     * heap is heapified bottom-up in O(n) instead of being added one by one.
+     *
+     * @param values
+     *            to add to the heap.
+     * @return True if the heap changed.
+     */
+    public boolean addAll(double[] values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+        if (values.length == 0)
+            return false;
+
+        int start = size;
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+        restore(start);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * NULL values are ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends Double> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        int start = size;
+        ensureCapacity(size + values.size());
+        for (Double value : values) {
+            if (value == null)
+                continue;
+            if (size >= array.length)
+                ensureCapacity(size + 1);
+            array[size++] = value.doubleValue();
+        }
+        if (size == start)
+            return false;
+        restore(start);
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(capacity, array.length + (array.length >> 1)));
+        }
+    }
+
+    /**
+     * Restore the heap after the values from start onwards were appended.
+     */
+    private void restore(int start) {
+        int added = size - start;
+        // Sifting each value up costs about k log n compares, heapifying
+        // everything about 2n
+        if ((long) added * (32 - Integer.numberOfLeadingZeros(size)) > 2L * size) {
+            heapify();
+        } else {
+            for (int i = start; i < size; i++) {
+                heapUp(i);
+            }
+        }
+    }
+
+    /**
+     * Floyd's bottom-up heap construction.
+     */
+    private void heapify() {
+        for (int i = (size >> 1) - 1; i >= 0; i--) {
+            heapDown(i);
+        }
+    }
+
+    /**
+     * Get the value of the head of the heap.
+     *
+     * @return value of the head.
+     * @throws NoSuchElementException
+     *             if the heap is empty.
+     */
+    public double peek() {
+        if (size == 0)
+            throw (new NoSuchElementException("Heap is empty."));
+        return array[0];
+    }
+
+    /**
+     * Remove the head of the heap.
+     *
+     * @return value of the head.
+     * @throws NoSuchElementException
+     *             if the heap is empty.
+     */
+    public double poll() {
+        if (size == 0)
+            throw (new NoSuchElementException("Heap is empty."));
+        return removeAt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double getHeadValue() {
+        if (size == 0)
+            return null;
+        return array[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double removeHead() {
+        if (size == 0)
+            return null;
+        return removeAt(0);
+    }
+
+    /**
+     * Remove up to k heads of the heap.
+     *
+     * @param k
+     *            number of heads to remove.
+     * @return values of the heads in heap order, shorter than k if the heap
+     *         ran out.
+     */
+    public double[] poll(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        double[] heads = new double[Math.min(k, size)];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = removeAt(0);
+        }
+        return heads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.List<Double> removeHead(int k) {
+        double[] values = poll(k);
+        java.util.List<Double> heads = new java.util.ArrayList<Double>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            heads.add(values[i]);
+        }
+        return heads;
+    }
+
+    /**
+     * Remove one occurrence of the value from the heap.
+     *
+     * @param value
+     *            to remove.
+     * @return True if the value was in the heap.
+     */
+    public boolean remove(double value) {
+        int index = indexOf(value);
+        if (index < 0)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double remove(Double value) {
+        if (value == null)
+            return null;
+        int index = indexOf(value.doubleValue());
+        if (index < 0)
+            return null;
+        return removeAt(index);
+    }
+
+    /**
+     * Replace a value in the heap with a new value and restore the heap
+     * around it.
+     *
+     * @param oldValue
+     *            in the heap.
+     * @param newValue
+     *            to replace it with.
+     * @return True if the old value was in the heap and has been replaced.
+     */
+    public boolean changePriority(double oldValue, double newValue) {
+        int index = indexOf(oldValue);
+        if (index < 0)
+            return false;
+
+        array[index] = newValue;
+        heapDown(heapUp(index));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean changePriority(Double oldValue, Double newValue) {
+        if (oldValue == null || newValue == null)
+            return false;
+        return changePriority(oldValue.doubleValue(), newValue.doubleValue());
+    }
+
+    private double removeAt(int index) {
+        double value = array[index];
+        size--;
+        if (index < size) {
+            array[index] = array[size];
+            // The tail can belong above or below its new spot
+            heapDown(heapUp(index));
+        }
+
+        if (array.length > MINIMUM_SIZE && size < (array.length >> 2)) {
+            array = Arrays.copyOf(array, Math.max(MINIMUM_SIZE, array.length >> 1));
+        }
+        return value;
+    }
+
+    /**
+     * Does the value exist in the heap. Warning this is a O(n) operation.
+     *
+     * @param value
+     *            to locate in the heap.
+     * @return True if the value is in heap.
+     */
+    public boolean contains(double value) {
+        return (indexOf(value) >= 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Double value) {
+        if (value == null)
+            return false;
+        return contains(value.doubleValue());
+    }
+
+    private int indexOf(double value) {
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(array[i], value) == 0)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove every value from the heap.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        for (int i = 1; i < size; i++) {
+            if (isBefore(array[i], array[(i - 1) >> 1]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the heap in array form without boxing.
+     *
+     * @return copy of the array representing the heap.
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double[] getHeap() {
+        Double[] nodes = new Double[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = array[i];
+        }
+        return nodes;
+    }
+
+    /**
+     * Does value a belong closer to the head than value b.
+     */
+    private boolean isBefore(double a, double b) {
+        return max ? (Double.compare(a, b) > 0) : (Double.compare(a, b) < 0);
+    }
+
+    /**
+     * Move the value at index up until its parent comes before it.
+     *
+     * @return final index of the value.
+     */
+    private int heapUp(int index) {
+        double value = array[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            double parent = array[parentIndex];
+            if (!isBefore(value, parent))
+                break;
+
+            // Hole moves up, parent moves down into it
+            array[index] = parent;
+            index = parentIndex;
+        }
+        array[index] = value;
+        return index;
+    }
+
+    /**
+     * Move the value at index down until it comes before both children.
+     */
+    private void heapDown(int index) {
+        double value = array[index];
+        int half = size >> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            double child = array[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && isBefore(array[rightIndex], child)) {
+                childIndex = rightIndex;
+                child = array[rightIndex];
+            }
+            if (!isBefore(child, value))
+                break;
+
+            array[index] = child;
+            index = childIndex;
+        }
+        array[index] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<Double> toCollection() {
+        return (new JavaCompatibleDoubleBinaryHeap(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size).append(" ");
+        builder.append(Arrays.toString(toArray()));
+        return builder.toString();
+    }
+
+    public static class JavaCompatibleDoubleBinaryHeap extends java.util.AbstractCollection<Double> {
+
+        private DoubleBinaryHeap heap = null;
+
+        public JavaCompatibleDoubleBinaryHeap() {
+            heap = new DoubleBinaryHeap();
+        }
+
+        public JavaCompatibleDoubleBinaryHeap(DoubleBinaryHeap heap) {
+            this.heap = heap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(Double value) {
+            return heap.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends Double> values) {
+            return heap.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (value instanceof Double) && heap.remove(((Double) value).doubleValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return (value instanceof Double) && heap.contains(((Double) value).doubleValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Iterator<Double> iterator() {
+            return (new DoubleBinaryHeapIterator(this.heap));
+        }
+
+        private static class DoubleBinaryHeapIterator implements java.util.Iterator<Double> {
+
+            private DoubleBinaryHeap heap = null;
+            private int last = -1;
+            private int index = -1;
+
+            protected DoubleBinaryHeapIterator(DoubleBinaryHeap heap) {
+                this.heap = heap;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return (index+1<heap.size);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public Double next() {
+                if (++index>=heap.size) return null;
+                last = index;
+                return heap.array[index];
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                heap.removeAt(last);
+            }
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Edges read from a memory mapped edge list file into flat arrays, ready to be
+ * turned into a CompactGraph or a Graph. Verticies are the integers 0 to the
+ * largest index in the file.
+ *
+ * A text file has one edge per line, "from to" or "from to cost" separated by
+ * spaces, tabs or commas. Edges without a cost cost 1 and lines starting with
+ * '#' or '%' are comments. The bytes are parsed straight out of the mapped
+ * file without making a String per line.
+ *
+ * A binary file is a run of records, each the from, to and cost of an edge as
+ * 32 bit ints.
+ *
+ * Either file can be split into chunks parsed in parallel, the edges keep the
+ * order of the file.
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class EdgeList {
+
+    private static final int RECORD_SIZE = 12;
+    private static final int DEFAULT_COST = 1;
+
+    // Chunks are sized to at most this, leaving room to reach the next line break
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    // Largest region a FileChannel can map at once
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    private int numberOfVerticies = 0;
+    private int numberOfEdges = 0;
+    private int[] from = null;
+    private int[] to = null;
+    private int[] costs = null;
+
+    private EdgeList(int numberOfVerticies, int numberOfEdges, int[] from, int[] to, int[] costs) {
+        this.numberOfVerticies = numberOfVerticies;
+        this.numberOfEdges = numberOfEdges;
+        this.from = from;
+        this.to = to;
+        this.costs = costs;
+    }
+
+    /**
+     * Read a text edge list.
+     *
+     * @param file
+     *            to read.
+     * @param executor
+     *            parses the chunks, NULL to use the calling thread.
+     * @param parallelism
+     *            number of chunks the file is split into.
+     * @return edges of the file.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public static EdgeList readText(File file, ExecutorService executor, int parallelism) throws IOException {
+        if (file == null)
+            throw (new NullPointerException("File must be non-NULL."));
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            long[] bounds = getLineBounds(channel, parallelism);
+
+            List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                final long start = bounds[i];
+                final long end = bounds[i + 1];
+                tasks.add(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws IOException {
+                        return parseText(channel, start, end);
+                    }
+                });
+            }
+            return merge(run(tasks, executor));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Read a binary edge list.
+     *
+     * @param file
+     *            to read.
+     * @param order
+     *            byte order of the ints in the file.
+     * @param executor
+     *            parses the chunks, NULL to use the calling thread.
+     * @param parallelism
+     *            number of chunks the file is split into.
+     * @return edges of the file.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public static EdgeList readBinary(File file, final ByteOrder order, ExecutorService executor, int parallelism) throws IOException {
+        if (file == null || order == null)
+            throw (new NullPointerException("File and byte order must be non-NULL."));
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size % RECORD_SIZE != 0)
+                throw (new IllegalArgumentException("File size is not a multiple of " + RECORD_SIZE + " bytes."));
+            if (size / RECORD_SIZE > Integer.MAX_VALUE)
+                throw (new IllegalArgumentException("Too many edges."));
+
+            // Records never straddle chunks, so each chunk fills its own part
+            // of the arrays.
+            final int numberOfEdges = (int) (size / RECORD_SIZE);
+            final int[] from = new int[numberOfEdges];
+            final int[] to = new int[numberOfEdges];
+            final int[] costs = new int[numberOfEdges];
+            int chunks = getNumberOfChunks(size, parallelism);
+            long perChunk = (numberOfEdges + chunks - 1) / chunks;
+            List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>(chunks);
+            for (long first = 0; first < numberOfEdges; first += perChunk) {
+                final int start = (int) first;
+                final int end = (int) Math.min(numberOfEdges, first + perChunk);
+                tasks.add(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws IOException {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, (long) start * RECORD_SIZE, (long) (end - start) * RECORD_SIZE);
+                        IntBuffer ints = buffer.order(order).asIntBuffer();
+                        int largest = -1;
+                        for (int i = start; i < end; i++) {
+                            int f = ints.get();
+                            int t = ints.get();
+                            if (f < 0 || t < 0)
+                                throw (new IllegalArgumentException("Negative vertex index in edge " + i + "."));
+                            from[i] = f;
+                            to[i] = t;
+                            costs[i] = ints.get();
+                            largest = Math.max(largest, Math.max(f, t));
+                        }
+                        Chunk chunk = new Chunk();
+                        chunk.largest = largest;
+                        return chunk;
+                    }
+                });
+            }
+
+            int largest = -1;
+            for (Chunk chunk : run(tasks, executor)) {
+                largest = Math.max(largest, chunk.largest);
+            }
+            return (new EdgeList(largest + 1, numberOfEdges, from, to, costs));
+        } finally {
+            input.close();
+        }
+    }
+
+    public int getNumberOfVerticies() {
+        return numberOfVerticies;
+    }
+
+    public int getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    public int getFrom(int edge) {
+        return from[edge];
+    }
+
+    public int getTo(int edge) {
+        return to[edge];
+    }
+
+    public int getCost(int edge) {
+        return costs[edge];
+    }
+
+    /**
+     * @param type
+     *            of the graph.
+     * @return compact graph of the edges.
+     */
+    public CompactGraph<Integer> toCompactGraph(Graph.TYPE type) {
+        return (new CompactGraph<Integer>(type, numberOfVerticies, numberOfEdges, from, to, costs));
+    }
+
+    /**
+     * @param type
+     *            of the graph.
+     * @return graph of the edges, the value of each vertex is its index.
+     */
+    public Graph<Integer> toGraph(Graph.TYPE type) {
+        List<Graph.Vertex<Integer>> verticies = new ArrayList<Graph.Vertex<Integer>>(numberOfVerticies);
+        for (int i = 0; i < numberOfVerticies; i++) {
+            verticies.add(new Graph.Vertex<Integer>(i));
+        }
+        List<Graph.Edge<Integer>> edges = new ArrayList<Graph.Edge<Integer>>(numberOfEdges);
+        for (int i = 0; i < numberOfEdges; i++) {
+            edges.add(new Graph.Edge<Integer>(costs[i], verticies.get(from[i]), verticies.get(to[i])));
+        }
+        return (new Graph<Integer>(type, verticies, edges));
+    }
+
+    /**
+     * Edges parsed from one chunk of a file.
+     */
+    private static final class Chunk {
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] costs = new int[16];
+        private int size = 0;
+        private int largest = -1;
+
+        private void add(int f, int t, int cost) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size << 1);
+                to = Arrays.copyOf(to, size << 1);
+                costs = Arrays.copyOf(costs, size << 1);
+            }
+            from[size] = f;
+            to[size] = t;
+            costs[size++] = cost;
+            largest = Math.max(largest, Math.max(f, t));
+        }
+    }
+
+    private static int getNumberOfChunks(long size, int parallelism) {
+        long chunks = Math.max(parallelism, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        return (int) Math.max(1, Math.min(chunks, Math.max(1, size)));
+    }
+
+    /**
+     * Split a text file into chunks which start at the beginning of a line.
+     *
+     * @return offsets of the chunks, the last entry is the size of the file.
+     */
+    private static long[] getLineBounds(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int chunks = getNumberOfChunks(size, parallelism);
+        long perChunk = (size + chunks - 1) / chunks;
+        long[] bounds = new long[chunks + 1];
+        int count = 1;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunks; i++) {
+            // Move the boundary just past the next line break
+            long position = Math.max(i * perChunk, bounds[count - 1]);
+            boolean found = false;
+            while (!found && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0)
+                    break;
+                for (int j = 0; j < read; j++) {
+                    if (buffer.get(j) == '\n') {
+                        position += j + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found)
+                    position += read;
+            }
+            // Only a single huge line can push a chunk past what can be mapped
+            if (position - bounds[count - 1] > MAX_MAPPED_SIZE)
+                throw (new IllegalArgumentException("Line longer than " + (MAX_MAPPED_SIZE - MAX_CHUNK_SIZE) + " bytes."));
+            if (position > bounds[count - 1] && position < size)
+                bounds[count++] = position;
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static Chunk parseText(FileChannel channel, long start, long end) throws IOException {
+        Chunk chunk = new Chunk();
+        if (end <= start)
+            return chunk;
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int length = buffer.limit();
+        int[] values = new int[3];
+        int i = 0;
+        while (i < length) {
+            int lineStart = i;
+            byte b = buffer.get(i);
+            if (b == '#' || b == '%') {
+                while (i < length && buffer.get(i) != '\n') {
+                    i++;
+                }
+                i++;
+                continue;
+            }
+
+            // Up to three numbers on the line
+            int count = 0;
+            while (i < length) {
+                b = buffer.get(i);
+                if (b == '\n') {
+                    i++;
+                    break;
+                }
+                if (b == ' ' || b == '\t' || b == ',' || b == '\r') {
+                    i++;
+                    continue;
+                }
+
+                boolean negative = false;
+                if (b == '-') {
+                    negative = true;
+                    i++;
+                }
+                long value = 0;
+                int digits = 0;
+                while (i < length) {
+                    b = buffer.get(i);
+                    if (b < '0' || b > '9')
+                        break;
+                    value = value * 10 + (b - '0');
+                    if (value > Integer.MAX_VALUE + 1L)
+                        throw (new IllegalArgumentException("Number too large at byte " + (start + i) + "."));
+                    digits++;
+                    i++;
+                }
+                if (digits == 0 || count == values.length)
+                    throw (new IllegalArgumentException("Malformed edge at byte " + (start + lineStart) + "."));
+                value = negative ? -value : value;
+                if (value > Integer.MAX_VALUE)
+                    throw (new IllegalArgumentException("Number too large at byte " + (start + lineStart) + "."));
+                values[count++] = (int) value;
+            }
+
+            if (count == 0)
+                continue;
+            if (count == 1 || values[0] < 0 || values[1] < 0)
+                throw (new IllegalArgumentException("Malformed edge at byte " + (start + lineStart) + "."));
+            chunk.add(values[0], values[1], (count == 3) ? values[2] : DEFAULT_COST);
+        }
+        return chunk;
+    }
+
+    private static EdgeList merge(List<Chunk> chunks) {
+        long total = 0;
+        int largest = -1;
+        for (Chunk chunk : chunks) {
+            total += chunk.size;
+            largest = Math.max(largest, chunk.largest);
+        }
+        if (total > Integer.MAX_VALUE)
+            throw (new IllegalArgumentException("Too many edges."));
+
+        if (chunks.size() == 1) {
+            Chunk chunk = chunks.get(0);
+            return (new EdgeList(largest + 1, chunk.size, chunk.from, chunk.to, chunk.costs));
+        }
+
+        int[] from = new int[(int) total];
+        int[] to = new int[(int) total];
+        int[] costs = new int[(int) total];
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.from, 0, from, size, chunk.size);
+            System.arraycopy(chunk.to, 0, to, size, chunk.size);
+            System.arraycopy(chunk.costs, 0, costs, size, chunk.size);
+            size += chunk.size;
+        }
+        return (new EdgeList(largest + 1, size, from, to, costs));
+    }
+
+    private static List<Chunk> run(List<Callable<Chunk>> tasks, ExecutorService executor) throws IOException {
+        List<Chunk> results = new ArrayList<Chunk>(tasks.size());
+        if (executor == null || tasks.size() == 1) {
+            for (Callable<Chunk> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (IOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw (new IllegalStateException("Parsing edge list failed.", e));
+                }
+            }
+            return results;
+        }
+
+        try {
+            for (Future<Chunk> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while parsing edge list.", e));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw (new IllegalStateException("Parsing edge list failed.", cause));
+        }
+        return results;
+    }
+}
@@ -1,7 +1,9 @@
 package edu.jwetherell.algorithms.dataStructures;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -18,6 +20,7 @@ public class Graph<T extends Comparable<T>> {
 
     private List<Vertex<T>> verticies = new CopyOnWriteArrayList<Vertex<T>>();
     private List<Edge<T>> edges = new CopyOnWriteArrayList<Edge<T>>();
+    private List<EdgeListener<T>> listeners = new CopyOnWriteArrayList<EdgeListener<T>>();
 
     public enum TYPE {
         DIRECTED, UNDIRECTED
@@ -37,17 +40,16 @@ public class Graph<T extends Comparable<T>> {
         }
 
         // Update the object references
+        Map<Vertex<T>, Vertex<T>> lookup = getLookup(this.verticies);
+        List<Edge<T>> copies = new ArrayList<Edge<T>>();
         for (Vertex<T> v : this.verticies) {
             for (Edge<T> e : v.getEdges()) {
-                Vertex<T> fromVertex = e.getFromVertex();
-                Vertex<T> toVertex = e.getToVertex();
-                int indexOfFrom = this.verticies.indexOf(fromVertex);
-                e.from = this.verticies.get(indexOfFrom);
-                int indexOfTo = this.verticies.indexOf(toVertex);
-                e.to = this.verticies.get(indexOfTo);
-                this.edges.add(e);
+                e.from = lookup.get(e.getFromVertex());
+                e.to = lookup.get(e.getToVertex());
+                copies.add(e);
             }
         }
+        this.edges.addAll(copies);
 
         type = g.getType();
     }
@@ -64,26 +66,37 @@ public class Graph<T extends Comparable<T>> {
     public Graph(TYPE type, List<Vertex<T>> verticies, List<Edge<T>> edges) {
         this(type);
         this.verticies.addAll(verticies);
-        this.edges.addAll(edges);
 
+        // The lists copy their array on every write, so the edges are
+        // gathered first and added in one go.
+        Map<Vertex<T>, Vertex<T>> lookup = getLookup(this.verticies);
+        List<Edge<T>> all = new ArrayList<Edge<T>>(edges);
         for (Edge<T> e : edges) {
-            Vertex<T> from = e.from;
-            Vertex<T> to = e.to;
-
-            if (!this.verticies.contains(from) || !this.verticies.contains(to))
+            Vertex<T> fromVertex = lookup.get(e.from);
+            Vertex<T> toVertex = lookup.get(e.to);
+            if (fromVertex == null || toVertex == null)
                 continue;
 
-            int index = this.verticies.indexOf(from);
-            Vertex<T> fromVertex = this.verticies.get(index);
-            index = this.verticies.indexOf(to);
-            Vertex<T> toVertex = this.verticies.get(index);
             fromVertex.addEdge(e);
             if (this.type == TYPE.UNDIRECTED) {
                 Edge<T> reciprical = new Edge<T>(e.cost, toVertex, fromVertex);
                 toVertex.addEdge(reciprical);
-                this.edges.add(reciprical);
+                all.add(reciprical);
             }
         }
+        this.edges.addAll(all);
+    }
+
+    /**
+     * Map from each vertex to the first equal vertex of the list.
+     */
+    private static <T extends Comparable<T>> Map<Vertex<T>, Vertex<T>> getLookup(List<Vertex<T>> verticies) {
+        Map<Vertex<T>, Vertex<T>> lookup = new HashMap<Vertex<T>, Vertex<T>>(verticies.size() * 2);
+        for (Vertex<T> v : verticies) {
+            if (!lookup.containsKey(v))
+                lookup.put(v, v);
+        }
+        return lookup;
     }
 
     public TYPE getType() {
@@ -98,6 +111,124 @@ public class Graph<T extends Comparable<T>> {
         return edges;
     }
 
+    /**
+     * Add an edge between two verticies of the graph, an undirected graph also
+     * gets the reciprocal edge. Listeners are told about each added edge.
+     * 
+     * @param e
+     *            edge to add.
+     */
+    public void addEdge(Edge<T> e) {
+        if (e == null)
+            throw (new NullPointerException("Edge must be non-NULL."));
+
+        addDirectedEdge(e);
+        if (this.type == TYPE.UNDIRECTED)
+            addDirectedEdge(new Edge<T>(e.cost, e.to, e.from));
+    }
+
+    private void addDirectedEdge(Edge<T> e) {
+        e.from.addEdge(e);
+        this.edges.add(e);
+        for (EdgeListener<T> listener : listeners) {
+            listener.edgeAdded(e);
+        }
+    }
+
+    /**
+     * Remove an edge from the graph, an undirected graph also loses the
+     * reciprocal edge. Listeners are told about each removed edge.
+     * 
+     * @param e
+     *            edge to remove.
+     * @return True if the edge was in the graph.
+     */
+    public boolean removeEdge(Edge<T> e) {
+        if (e == null)
+            throw (new NullPointerException("Edge must be non-NULL."));
+
+        Edge<T> reciprical = (this.type == TYPE.UNDIRECTED) ? getReciprical(e) : null;
+        if (!removeDirectedEdge(e))
+            return false;
+        if (reciprical != null)
+            removeDirectedEdge(reciprical);
+        return true;
+    }
+
+    private boolean removeDirectedEdge(Edge<T> e) {
+        if (!removeInstance(e.from.edges, e))
+            return false;
+        removeInstance(this.edges, e);
+        for (EdgeListener<T> listener : listeners) {
+            listener.edgeRemoved(e);
+        }
+        return true;
+    }
+
+    /**
+     * Change the cost of an edge of the graph, an undirected graph also
+     * changes the reciprocal edge. Listeners are told about each changed edge,
+     * which they are not when Edge.setCost() is called directly.
+     * 
+     * @param e
+     *            edge to change.
+     * @param cost
+     *            new cost of the edge.
+     */
+    public void setEdgeCost(Edge<T> e, int cost) {
+        if (e == null)
+            throw (new NullPointerException("Edge must be non-NULL."));
+
+        Edge<T> reciprical = (this.type == TYPE.UNDIRECTED) ? getReciprical(e) : null;
+        setDirectedEdgeCost(e, cost);
+        if (reciprical != null)
+            setDirectedEdgeCost(reciprical, cost);
+    }
+
+    private void setDirectedEdgeCost(Edge<T> e, int cost) {
+        int oldCost = e.cost;
+        if (oldCost == cost)
+            return;
+        e.cost = cost;
+        for (EdgeListener<T> listener : listeners) {
+            listener.edgeCostChanged(e, oldCost);
+        }
+    }
+
+    /**
+     * @return edge going the other way with the same cost or NULL.
+     */
+    private Edge<T> getReciprical(Edge<T> e) {
+        for (Edge<T> r : e.to.edges) {
+            if (r != e && r.to == e.from && r.cost == e.cost)
+                return r;
+        }
+        return null;
+    }
+
+    /**
+     * Remove by identity, equal edges can join the same verticies.
+     */
+    private static <T extends Comparable<T>> boolean removeInstance(List<Edge<T>> list, Edge<T> e) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == e) {
+                list.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void addListener(EdgeListener<T> listener) {
+        if (listener == null)
+            throw (new NullPointerException("Listener must be non-NULL."));
+        listeners.add(listener);
+    }
+
+    public boolean removeListener(EdgeListener<T> listener) {
+        return listeners.remove(listener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -171,6 +302,15 @@ public class Graph<T extends Comparable<T>> {
             return this.value.compareTo(v.value);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            // Weight can change while the vertex is in a map, value can't
+            return (value == null) ? 0 : value.hashCode();
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -300,6 +440,20 @@ public class Graph<T extends Comparable<T>> {
         }
     }
 
+    /**
+     * Told about every edge added, removed or changed through the graph's
+     * addEdge(), removeEdge() and setEdgeCost(). Each call happens after the
+     * graph was changed.
+     */
+    public static interface EdgeListener<T extends Comparable<T>> {
+
+        public void edgeAdded(Edge<T> e);
+
+        public void edgeRemoved(Edge<T> e);
+
+        public void edgeCostChanged(Edge<T> e, int oldCost);
+    }
+
     public static class CostVertexPair<T extends Comparable<T>> implements Comparable<CostVertexPair<T>> {
 
         private int cost = Integer.MAX_VALUE;
@@ -8,33 +8,60 @@ import java.util.List;
  * uses a hash function to map identifying values, known as keys, to their
  * associated values.
  * 
+ * The array grows by doubling when the number of entries passes the maximum
+ * load factor. Rather than moving every entry at once the old buckets are
+ * migrated incrementally, a few on each operation, so no single put pays for
+ * the whole resize.
+ * 
  * http://en.wikipedia.org/wiki/Hash_table
+ * http://en.wikipedia.org/wiki/Hash_table#Incremental_resizing
  * 
  * @author Justin Wetherell <phishman3579@gmail.com>
  */
 @SuppressWarnings("unchecked")
 public class HashMap<K extends Number, V> implements IMap<K,V> {
 
-    private K hashingKey = (K) new Integer(10);
+    private static final int MINIMUM_SIZE = 2;
+    private static final int DEFAULT_SIZE = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int REHASH_STEPS = 4; // Buckets migrated per operation while resizing
+
+    private float loadFactor = DEFAULT_LOAD_FACTOR;
     private List<Pair<K, V>>[] array = null;
+    private List<Pair<K, V>>[] rehashArray = null; // Non-NULL while a resize is in progress
+    private int rehashIndex = 0; // Next bucket of array to migrate into rehashArray
     private int size = 0;
 
     /**
-     * Create a hash map with K as the hashing key.
+     * Create a hash map with K as the initial number of buckets.
      * 
      * @param key
-     *            to use for the hashing key.
+     *            to use for the initial number of buckets.
      */
     public HashMap(K key) {
-        if (key.intValue()>0) hashingKey = key;
-        initializeMap();
+        this(key, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create a hash map with K as the initial number of buckets.
+     * 
+     * @param key
+     *            to use for the initial number of buckets.
+     * @param loadFactor
+     *            maximum average number of entries per bucket before growing.
+     */
+    public HashMap(K key, float loadFactor) {
+        if (loadFactor <= 0 || Float.isNaN(loadFactor))
+            throw (new IllegalArgumentException("Load factor must be greater than zero."));
+        this.loadFactor = loadFactor;
+        initializeMap((key.intValue() > 0) ? key.intValue() : DEFAULT_SIZE);
     }
 
     /**
-     * Create a hash map with the default hashing key.
+     * Create a hash map with the default number of buckets.
      */
     public HashMap() {
-        initializeMap();
+        initializeMap(DEFAULT_SIZE);
     }
 
     /**
@@ -42,19 +69,24 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
      */
     @Override
     public V put(K key, V value) {
-        V prev = null;
-        int hashedKey = hashingFunction(key);
-        List<Pair<K, V>> list = array[hashedKey];
+        rehashStep();
+
+        int hash = hashingFunction(key);
+        Pair<K, V> pair = getPair(key, hash);
         // Do not add duplicates
-        for (Pair<K, V> p : list) {
-            if (p.key.equals(key)) {
-                prev = p.value;
-                p.value = value;
-            }
+        if (pair != null) {
+            V prev = pair.value;
+            pair.value = value;
+            return prev;
         }
-        list.add(new Pair<K, V>(key, value));
+
+        grow();
+
+        // New entries always go into the newest array
+        List<Pair<K, V>>[] table = (rehashArray != null) ? rehashArray : array;
+        getBucket(table, hash).add(new Pair<K, V>(key, value, hash));
         size++;
-        return prev;
+        return null;
     }
 
     /**
@@ -62,13 +94,10 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
      */
     @Override
     public V get(K key) {
-        int hashedKey = hashingFunction(key);
-        List<Pair<K, V>> list = array[hashedKey];
-        for (Pair<K, V> p : list) {
-            if (p.key.equals(key))
-                return p.value;
-        }
-        return null;
+        rehashStep();
+
+        Pair<K, V> pair = getPair(key, hashingFunction(key));
+        return (pair != null) ? pair.value : null;
     }
 
     /**
@@ -84,11 +113,22 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
      */
     @Override
     public V remove(K key) {
-        int hashedKey = hashingFunction(key);
-        List<Pair<K, V>> list = array[hashedKey];
-        for (Pair<K, V> pair : list) {
-            if (pair.key.equals(key)) {
-                list.remove(pair);
+        rehashStep();
+
+        int hash = hashingFunction(key);
+        V value = remove(array, key, hash);
+        if (value == null && rehashArray != null)
+            value = remove(rehashArray, key, hash);
+        return value;
+    }
+
+    private V remove(List<Pair<K, V>>[] table, K key, int hash) {
+        List<Pair<K, V>> list = table[hash & (table.length - 1)];
+        if (list == null) return null;
+        for (int i = 0; i < list.size(); i++) {
+            Pair<K, V> pair = list.get(i);
+            if (pair.hash == hash && pair.key.equals(key)) {
+                list.remove(i);
                 size--;
                 return pair.value;
             }
@@ -106,23 +146,107 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
 
     /**
      * Initialize the hash array.
+     * 
+     * @param buckets
+     *            minimum number of buckets, rounded up to a power of two.
      */
-    private void initializeMap() {
-        array = new ArrayList[hashingKey.intValue()];
-        for (int i = 0; i < array.length; i++) {
-            array[i] = new ArrayList<Pair<K, V>>(2);
+    private void initializeMap(int buckets) {
+        int length = MINIMUM_SIZE;
+        while (length < buckets && length < (1 << 30)) {
+            length <<= 1;
         }
+        array = (List<Pair<K, V>>[]) new List<?>[length];
+        rehashArray = null;
+        rehashIndex = 0;
     }
 
     /**
-     * The hashing function. Converts the key into an integer.
+     * Start a resize if the map has passed the maximum load factor. A resize
+     * which is still in progress is finished first.
+     */
+    private void grow() {
+        List<Pair<K, V>>[] table = (rehashArray != null) ? rehashArray : array;
+        if (size < (table.length * loadFactor) || table.length >= (1 << 30)) return;
+
+        // Small load factors can fill the new array before the old one is drained
+        while (rehashArray != null) {
+            rehashStep();
+        }
+
+        rehashArray = (List<Pair<K, V>>[]) new List<?>[array.length << 1];
+        rehashIndex = 0;
+    }
+
+    /**
+     * Migrate a few buckets from the old array into the new one while a resize
+     * is in progress.
+     */
+    private void rehashStep() {
+        if (rehashArray == null) return;
+
+        for (int i = 0; i < REHASH_STEPS && rehashIndex < array.length; i++) {
+            List<Pair<K, V>> list = array[rehashIndex];
+            if (list != null) {
+                for (Pair<K, V> pair : list) {
+                    getBucket(rehashArray, pair.hash).add(pair);
+                }
+                array[rehashIndex] = null;
+            }
+            rehashIndex++;
+        }
+
+        if (rehashIndex >= array.length) {
+            // Finished migrating
+            array = rehashArray;
+            rehashArray = null;
+            rehashIndex = 0;
+        }
+    }
+
+    private List<Pair<K, V>> getBucket(List<Pair<K, V>>[] table, int hash) {
+        int index = hash & (table.length - 1);
+        List<Pair<K, V>> list = table[index];
+        if (list == null) {
+            list = new ArrayList<Pair<K, V>>(2);
+            table[index] = list;
+        }
+        return list;
+    }
+
+    private Pair<K, V> getPair(K key, int hash) {
+        Pair<K, V> pair = getPair(array, key, hash);
+        if (pair == null && rehashArray != null)
+            pair = getPair(rehashArray, key, hash);
+        return pair;
+    }
+
+    private static <K extends Number, V> Pair<K, V> getPair(List<Pair<K, V>>[] table, K key, int hash) {
+        List<Pair<K, V>> list = table[hash & (table.length - 1)];
+        if (list == null) return null;
+        for (int i = 0; i < list.size(); i++) {
+            Pair<K, V> pair = list.get(i);
+            if (pair.hash == hash && pair.key.equals(key))
+                return pair;
+        }
+        return null;
+    }
+
+    /**
+     * The hashing function. Mixes all the bits of the key's hash code so the
+     * low bits used to pick a bucket depend on the whole key.
      * 
      * @param key
      *            to create a hash for.
      * @return Integer which represents the key.
      */
     private int hashingFunction(K key) {
-        return key.intValue() % hashingKey.intValue();
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85EBCA6B;
+        h ^= (h >>> 13);
+        h *= 0xC2B2AE35;
+        h ^= (h >>> 16);
+        return h;
     }
 
     /**
@@ -139,16 +263,32 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
     @Override
     public boolean validate() {
         java.util.Set<K> keys = new java.util.HashSet<K>();
-        for (List<Pair<K, V>> list : array) {
+        if (!validate(array, keys)) return false;
+        if (rehashArray != null) {
+            // Migrated buckets must have been emptied
+            for (int i = 0; i < rehashIndex; i++) {
+                if (array[i] != null) return false;
+            }
+            if (!validate(rehashArray, keys)) return false;
+        }
+        return (keys.size()==size());
+    }
+
+    private boolean validate(List<Pair<K, V>>[] table, java.util.Set<K> keys) {
+        for (int index = 0; index < table.length; index++) {
+            List<Pair<K, V>> list = table[index];
+            if (list == null) continue;
             for (Pair<K, V> pair : list) {
                 K k = pair.key;
                 V v = pair.value;
                 if (k==null || v==null) return false;
+                if (pair.hash != hashingFunction(k)) return false;
+                if ((pair.hash & (table.length - 1)) != index) return false;
                 if (keys.contains(k)) return false;
                 keys.add(k);
             }
         }
-        return (keys.size()==size());
+        return true;
     }
 
     /**
@@ -157,25 +297,31 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
-        for (int key = 0; key < array.length; key++) {
-            List<Pair<K, V>> list = array[key];
-            for (int item = 0; item < list.size(); item++) {
-                Pair<K, V> p = list.get(item);
+        toString(array, builder);
+        if (rehashArray != null) toString(rehashArray, builder);
+        return builder.toString();
+    }
+
+    private static <K extends Number, V> void toString(List<Pair<K, V>>[] table, StringBuilder builder) {
+        for (List<Pair<K, V>> list : table) {
+            if (list == null) continue;
+            for (Pair<K, V> p : list) {
                 V value = p.value;
-                if (value != null) builder.append(key).append("=").append(value).append(", ");
+                if (value != null) builder.append(p.key).append("=").append(value).append(", ");
             }
         }
-        return builder.toString();
     }
 
     private static final class Pair<K extends Number, V> {
 
         private K key = null;
         private V value = null;
+        private int hash = 0;
 
-        public Pair(K key, V value) {
+        public Pair(K key, V value, int hash) {
             this.key = key;
             this.value = value;
+            this.hash = hash;
         }
 
         @Override
@@ -297,13 +443,19 @@ public class HashMap<K extends Number, V> implements IMap<K,V> {
                     return (new JavaCompatibleIteratorWrapper<K,V>(map,super.iterator()));
                 }
             };
-            for (List<Pair<K, V>> list : map.array) {
+            addEntries(map.array, set);
+            if (map.rehashArray != null) addEntries(map.rehashArray, set);
+            return set;
+        }
+
+        private static <K extends Number, V> void addEntries(List<Pair<K, V>>[] table, java.util.Set<java.util.Map.Entry<K, V>> set) {
+            for (List<Pair<K, V>> list : table) {
+                if (list == null) continue;
                 for (Pair<K, V> p : list) {
                     java.util.Map.Entry<K, V> entry = new JavaCompatibleMapEntry<K, V>(p.key, p.value);
                     set.add(entry);
                 }
             }
-            return set;
         }
     }
 }
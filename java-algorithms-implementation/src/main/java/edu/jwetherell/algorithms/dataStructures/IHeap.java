@@ -22,6 +22,15 @@ public interface IHeap<T> {
      */
     public boolean add(T value);
 
+    /**
+     * Add all the values to the heap. A batch which is large compared to the 
+     * heap is heapified bottom-up in O(n) instead of being added one by one.
+     * 
+     * @param values to add to the heap.
+     * @return True if the heap changed.
+     */
+    public boolean addAll(java.util.Collection<? extends T> values);
+
     /**
      * Get the value of the head node from the heap.
      * 
@@ -36,6 +45,14 @@ public interface IHeap<T> {
      */
     public T removeHead();
 
+    /**
+     * Remove up to k head nodes from the heap.
+     * 
+     * @param k number of head nodes to remove.
+     * @return values of the head nodes in heap order, shorter than k if the heap ran out.
+     */
+    public java.util.List<T> removeHead(int k);
+
     /**
      * Remove the value from the heap.
      * 
@@ -52,6 +69,16 @@ public interface IHeap<T> {
      */
     public boolean contains(T value);
 
+    /**
+     * Replace a value in the heap with a new value, usually the same element 
+     * with a new priority, and restore the heap around it.
+     * 
+     * @param oldValue in the heap.
+     * @param newValue to replace it with.
+     * @return True if the old value was in the heap and has been replaced.
+     */
+    public boolean changePriority(T oldValue, T newValue);
+
     /**
      * Get size of the heap.
      * 
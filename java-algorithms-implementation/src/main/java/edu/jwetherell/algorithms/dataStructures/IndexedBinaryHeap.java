@@ -0,0 +1,457 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * An array based binary heap which also keeps the index of every value in a
+ * hash map. Knowing where a value lives makes contains() O(1) and remove() and
+ * decreaseKey() O(log n), which is what Dijkstra's and Prim's algorithms need
+ * when a vertex's cost improves while it is still waiting in the queue.
+ *
+ * Values are located with equals() and hashCode(), so they have to be unique
+ * and those methods must not depend on the part of the value which orders it.
+ *
+ * http://en.wikipedia.org/wiki/Binary_heap
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public class IndexedBinaryHeap<T extends Comparable<T>> implements BinaryHeap<T> {
+
+    private static final int MINIMUM_SIZE = 10;
+
+    private BinaryHeap.Type type = BinaryHeap.Type.MIN;
+    private int size = 0;
+    private T[] array = (T[]) new Comparable<?>[MINIMUM_SIZE];
+    private java.util.Map<T, Integer> indices = new java.util.HashMap<T, Integer>();
+
+    /**
+     * Constructor for heap, defaults to a min-heap.
+     */
+    public IndexedBinaryHeap() {
+        size = 0;
+    }
+
+    /**
+     * Constructor for heap.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public IndexedBinaryHeap(BinaryHeap.Type type) {
+        this();
+        this.type = type;
+    }
+
+    /**
+     * Constructor for heap holding the values, heapified in O(n).
+     *
+     * @param type
+     *            Heap type.
+     * @param values
+     *            to put in the heap, duplicates are dropped.
+     */
+    public IndexedBinaryHeap(BinaryHeap.Type type, T[] values) {
+        this(type);
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        addAll(Arrays.asList(values));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return True if added, false if the value is already in the heap.
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null || indices.containsKey(value))
+            return false;
+
+        if (size >= array.length) {
+            array = Arrays.copyOf(array, size + (size >> 1));
+        }
+        array[size] = value;
+        indices.put(value, size);
+
+        heapUp(size++);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * NULL values and values already in the heap are ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends T> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        int start = size;
+        if (size + values.size() > array.length) {
+            array = Arrays.copyOf(array, Math.max(size + values.size(), size + (size >> 1)));
+        }
+        for (T value : values) {
+            if (value == null || indices.containsKey(value))
+                continue;
+            array[size] = value;
+            indices.put(value, size);
+            size++;
+        }
+
+        int added = size - start;
+        if (added == 0)
+            return false;
+
+        // Sifting each value up costs about k log n compares, heapifying
+        // everything about 2n
+        if ((long) added * (32 - Integer.numberOfLeadingZeros(size)) > 2L * size) {
+            for (int i = (size >> 1) - 1; i >= 0; i--) {
+                heapDown(i);
+            }
+        } else {
+            for (int i = start; i < size; i++) {
+                heapUp(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The value has moved towards the head of the heap while in it, its
+     * ordering key has decreased in a min-heap or increased in a max-heap.
+     * Restore the heap in O(log n).
+     *
+     * @param value
+     *            whose key has changed.
+     * @return True if the value is in the heap.
+     */
+    public boolean decreaseKey(T value) {
+        Integer index = indices.get(value);
+        if (index == null)
+            return false;
+
+        heapUp(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This is an O(log n) operation, the new value must not already be in the
+     * heap.
+     */
+    @Override
+    public boolean changePriority(T oldValue, T newValue) {
+        if (newValue == null)
+            return false;
+        Integer index = indices.get(oldValue);
+        if (index == null)
+            return false;
+        if (!newValue.equals(oldValue) && indices.containsKey(newValue))
+            return false;
+
+        indices.remove(array[index]);
+        array[index] = newValue;
+        heapDown(heapUp(index));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        Integer index = indices.get(value);
+        if (index == null)
+            return null;
+
+        return remove(index.intValue());
+    }
+
+    private T remove(int index) {
+        if (index < 0 || index >= size)
+            return null;
+
+        T t = array[index];
+        indices.remove(t);
+        size--;
+        if (index < size) {
+            T last = array[size];
+            array[index] = last;
+            indices.put(last, index);
+            array[size] = null;
+            // The tail can belong above or below its new spot
+            heapDown(heapUp(index));
+        } else {
+            array[size] = null;
+        }
+
+        if (array.length > MINIMUM_SIZE && size < (array.length >> 2)) {
+            array = Arrays.copyOf(array, Math.max(MINIMUM_SIZE, array.length >> 1));
+        }
+
+        return t;
+    }
+
+    /**
+     * Remove every value from the heap.
+     */
+    public void clear() {
+        Arrays.fill(array, 0, size, null);
+        indices.clear();
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This is an O(1) operation.
+     */
+    @Override
+    public boolean contains(T value) {
+        return indices.containsKey(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        if (indices.size() != size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            Integer index = indices.get(array[i]);
+            if (index == null || index.intValue() != i)
+                return false;
+            if (i > 0 && isBefore(array[i], array[(i - 1) >> 1]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T[] getHeap() {
+        T[] nodes = (T[]) new Comparable<?>[size];
+        System.arraycopy(array, 0, nodes, 0, size);
+        return nodes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getHeadValue() {
+        if (size == 0)
+            return null;
+        return array[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T removeHead() {
+        return remove(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.List<T> removeHead(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        int count = Math.min(k, size);
+        java.util.List<T> heads = new java.util.ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            heads.add(remove(0));
+        }
+        return heads;
+    }
+
+    /**
+     * Does value a belong closer to the head than value b.
+     */
+    private boolean isBefore(T a, T b) {
+        int result = a.compareTo(b);
+        return (type == BinaryHeap.Type.MIN) ? (result < 0) : (result > 0);
+    }
+
+    /**
+     * Move the value at index up until its parent comes before it.
+     *
+     * @return final index of the value.
+     */
+    private int heapUp(int index) {
+        T value = array[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            T parent = array[parentIndex];
+            if (!isBefore(value, parent))
+                break;
+
+            // Hole moves up, parent moves down into it
+            array[index] = parent;
+            indices.put(parent, index);
+            index = parentIndex;
+        }
+        array[index] = value;
+        indices.put(value, index);
+        return index;
+    }
+
+    /**
+     * Move the value at index down until it comes before both children.
+     */
+    private void heapDown(int index) {
+        T value = array[index];
+        int half = size >> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            T child = array[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && isBefore(array[rightIndex], child)) {
+                childIndex = rightIndex;
+                child = array[rightIndex];
+            }
+            if (!isBefore(child, value))
+                break;
+
+            array[index] = child;
+            indices.put(child, index);
+            index = childIndex;
+        }
+        array[index] = value;
+        indices.put(value, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatibleIndexedBinaryHeap<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size).append(" ");
+        builder.append(Arrays.toString(getHeap()));
+        return builder.toString();
+    }
+
+    public static class JavaCompatibleIndexedBinaryHeap<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private IndexedBinaryHeap<T> heap = null;
+
+        public JavaCompatibleIndexedBinaryHeap() {
+            heap = new IndexedBinaryHeap<T>();
+        }
+
+        public JavaCompatibleIndexedBinaryHeap(IndexedBinaryHeap<T> heap) {
+            this.heap = heap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean add(T value) {
+            return heap.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return heap.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean remove(Object value) {
+            return (heap.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean contains(Object value) {
+            return heap.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return (new IndexedBinaryHeapIterator<T>(this.heap));
+        }
+
+        private static class IndexedBinaryHeapIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+            private IndexedBinaryHeap<T> heap = null;
+            private int last = -1;
+            private int index = -1;
+
+            protected IndexedBinaryHeapIterator(IndexedBinaryHeap<T> heap) {
+                this.heap = heap;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return (index+1<heap.size);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public T next() {
+                if (++index>=heap.size) return null;
+                last = index;
+                return heap.array[index];
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                heap.remove(last);
+            }
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An array based binary heap of primitive longs. Values are stored and
+ * compared without boxing, add(long), peek() and poll() never allocate
+ * apart from growing the array. The boxed IHeap methods are there so it can
+ * stand in for the generic heaps.
+ *
+ * Building from an array uses Floyd's bottom-up heapify, which is O(n)
+ * instead of the O(n log n) of adding the values one by one.
+ *
+ * http://en.wikipedia.org/wiki/Binary_heap
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class LongBinaryHeap implements BinaryHeap<Long> {
+
+    private static final int MINIMUM_SIZE = 10;
+
+    private BinaryHeap.Type type = BinaryHeap.Type.MIN;
+    private boolean max = false;
+    private int size = 0;
+    private long[] array = new long[MINIMUM_SIZE];
+
+    /**
+     * Constructor for heap, defaults to a min-heap.
+     */
+    public LongBinaryHeap() {
+        size = 0;
+    }
+
+    /**
+     * Constructor for heap.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public LongBinaryHeap(BinaryHeap.Type type) {
+        this();
+        this.type = type;
+        this.max = (type == BinaryHeap.Type.MAX);
+    }
+
+    /**
+     * Constructor for heap holding the values, heapified in O(n).
+     *
+     * @param type
+     *            Heap type.
+     * @param values
+     *            to put in the heap, the array is copied.
+     */
+    public LongBinaryHeap(BinaryHeap.Type type, long[] values) {
+        this(type);
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        array = Arrays.copyOf(values, Math.max(MINIMUM_SIZE, values.length));
+        size = values.length;
+        heapify();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add value to the heap.
+     *
+     * @param value
+     *            to add to the heap.
+     * @return True if added to the heap.
+     */
+    public boolean add(long value) {
+        if (size >= array.length) {
+            array = Arrays.copyOf(array, size + (size >> 1));
+        }
+        array[size] = value;
+        heapUp(size++);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(Long value) {
+        if (value == null)
+            return false;
+        return add(value.longValue());
+    }
+
+    /**
+     * Add all the values to the heap. A batch which is large compared to the
+     * heap is heapified bottom-up in O(n) instead of being added one by one.
+     *
+     * @param values
+     *            to add to the heap.
+     * @return True if the heap changed.
+     */
+    public boolean addAll(long[] values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+        if (values.length == 0)
+            return false;
+
+        int start = size;
+        ensureCapacity(size + values.length);
+        System.arraycopy(values, 0, array, size, values.length);
+        size += values.length;
+        restore(start);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * NULL values are ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends Long> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        int start = size;
+        ensureCapacity(size + values.size());
+        for (Long value : values) {
+            if (value == null)
+                continue;
+            if (size >= array.length)
+                ensureCapacity(size + 1);
+            array[size++] = value.longValue();
+        }
+        if (size == start)
+            return false;
+        restore(start);
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, Math.max(capacity, array.length + (array.length >> 1)));
+        }
+    }
+
+    /**
+     * Restore the heap after the values from start onwards were appended.
+     */
+    private void restore(int start) {
+        int added = size - start;
+        // Sifting each value up costs about k log n compares, heapifying
+        // everything about 2n
+        if ((long) added * (32 - Integer.numberOfLeadingZeros(size)) > 2L * size) {
+            heapify();
+        } else {
+            for (int i = start; i < size; i++) {
+                heapUp(i);
+            }
+        }
+    }
+
+    /**
+     * Floyd's bottom-up heap construction.
+     */
+    private void heapify() {
+        for (int i = (size >> 1) - 1; i >= 0; i--) {
+            heapDown(i);
+        }
+    }
+
+    /**
+     * Get the value of the head of the heap.
+     *
+     * @return value of the head.
+     * @throws NoSuchElementException
+     *             if the heap is empty.
+     */
+    public long peek() {
+        if (size == 0)
+            throw (new NoSuchElementException("Heap is empty."));
+        return array[0];
+    }
+
+    /**
+     * Remove the head of the heap.
+     *
+     * @return value of the head.
+     * @throws NoSuchElementException
+     *             if the heap is empty.
+     */
+    public long poll() {
+        if (size == 0)
+            throw (new NoSuchElementException("Heap is empty."));
+        return removeAt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long getHeadValue() {
+        if (size == 0)
+            return null;
+        return array[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long removeHead() {
+        if (size == 0)
+            return null;
+        return removeAt(0);
+    }
+
+    /**
+     * Remove up to k heads of the heap.
+     *
+     * @param k
+     *            number of heads to remove.
+     * @return values of the heads in heap order, shorter than k if the heap
+     *         ran out.
+     */
+    public long[] poll(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        long[] heads = new long[Math.min(k, size)];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = removeAt(0);
+        }
+        return heads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.List<Long> removeHead(int k) {
+        long[] values = poll(k);
+        java.util.List<Long> heads = new java.util.ArrayList<Long>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            heads.add(values[i]);
+        }
+        return heads;
+    }
+
+    /**
+     * Remove one occurrence of the value from the heap.
+     *
+     * @param value
+     *            to remove.
+     * @return True if the value was in the heap.
+     */
+    public boolean remove(long value) {
+        int index = indexOf(value);
+        if (index < 0)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long remove(Long value) {
+        if (value == null)
+            return null;
+        int index = indexOf(value.longValue());
+        if (index < 0)
+            return null;
+        return removeAt(index);
+    }
+
+    /**
+     * Replace a value in the heap with a new value and restore the heap
+     * around it.
+     *
+     * @param oldValue
+     *            in the heap.
+     * @param newValue
+     *            to replace it with.
+     * @return True if the old value was in the heap and has been replaced.
+     */
+    public boolean changePriority(long oldValue, long newValue) {
+        int index = indexOf(oldValue);
+        if (index < 0)
+            return false;
+
+        array[index] = newValue;
+        heapDown(heapUp(index));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean changePriority(Long oldValue, Long newValue) {
+        if (oldValue == null || newValue == null)
+            return false;
+        return changePriority(oldValue.longValue(), newValue.longValue());
+    }
+
+    private long removeAt(int index) {
+        long value = array[index];
+        size--;
+        if (index < size) {
+            array[index] = array[size];
+            // The tail can belong above or below its new spot
+            heapDown(heapUp(index));
+        }
+
+        if (array.length > MINIMUM_SIZE && size < (array.length >> 2)) {
+            array = Arrays.copyOf(array, Math.max(MINIMUM_SIZE, array.length >> 1));
+        }
+        return value;
+    }
+
+    /**
+     * Does the value exist in the heap. Warning this is a O(n) operation.
+     *
+     * @param value
+     *            to locate in the heap.
+     * @return True if the value is in heap.
+     */
+    public boolean contains(long value) {
+        return (indexOf(value) >= 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Long value) {
+        if (value == null)
+            return false;
+        return contains(value.longValue());
+    }
+
+    private int indexOf(long value) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove every value from the heap.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        for (int i = 1; i < size; i++) {
+            if (isBefore(array[i], array[(i - 1) >> 1]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the heap in array form without boxing.
+     *
+     * @return copy of the array representing the heap.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Long[] getHeap() {
+        Long[] nodes = new Long[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = array[i];
+        }
+        return nodes;
+    }
+
+    /**
+     * Does value a belong closer to the head than value b.
+     */
+    private boolean isBefore(long a, long b) {
+        return max ? (a > b) : (a < b);
+    }
+
+    /**
+     * Move the value at index up until its parent comes before it.
+     *
+     * @return final index of the value.
+     */
+    private int heapUp(int index) {
+        long value = array[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            long parent = array[parentIndex];
+            if (!isBefore(value, parent))
+                break;
+
+            // Hole moves up, parent moves down into it
+            array[index] = parent;
+            index = parentIndex;
+        }
+        array[index] = value;
+        return index;
+    }
+
+    /**
+     * Move the value at index down until it comes before both children.
+     */
+    private void heapDown(int index) {
+        long value = array[index];
+        int half = size >> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            long child = array[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && isBefore(array[rightIndex], child)) {
+                childIndex = rightIndex;
+                child = array[rightIndex];
+            }
+            if (!isBefore(child, value))
+                break;
+
+            array[index] = child;
+            index = childIndex;
+        }
+        array[index] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<Long> toCollection() {
+        return (new JavaCompatibleLongBinaryHeap(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size).append(" ");
+        builder.append(Arrays.toString(toArray()));
+        return builder.toString();
+    }
+
+    public static class JavaCompatibleLongBinaryHeap extends java.util.AbstractCollection<Long> {
+
+        private LongBinaryHeap heap = null;
+
+        public JavaCompatibleLongBinaryHeap() {
+            heap = new LongBinaryHeap();
+        }
+
+        public JavaCompatibleLongBinaryHeap(LongBinaryHeap heap) {
+            this.heap = heap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(Long value) {
+            return heap.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends Long> values) {
+            return heap.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (value instanceof Long) && heap.remove(((Long) value).longValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return (value instanceof Long) && heap.contains(((Long) value).longValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Iterator<Long> iterator() {
+            return (new LongBinaryHeapIterator(this.heap));
+        }
+
+        private static class LongBinaryHeapIterator implements java.util.Iterator<Long> {
+
+            private LongBinaryHeap heap = null;
+            private int last = -1;
+            private int index = -1;
+
+            protected LongBinaryHeapIterator(LongBinaryHeap heap) {
+                this.heap = heap;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return (index+1<heap.size);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public Long next() {
+                if (++index>=heap.size) return null;
+                last = index;
+                return heap.array[index];
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                heap.removeAt(last);
+            }
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A pairing heap is a heap ordered multi-way tree. Adding a value and melding
+ * two heaps only link two roots, which is O(1). Removing the head pairs up its
+ * children left to right and then links the pairs right to left, which is
+ * O(log n) amortized. Every node keeps its first child, its next sibling and
+ * the node before it, which is its parent if it is the first child, so any
+ * node can be cut out of the tree.
+ *
+ * http://en.wikipedia.org/wiki/Pairing_heap
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class PairingHeap<T extends Comparable<T>> implements IHeap<T> {
+
+    private BinaryHeap.Type type = BinaryHeap.Type.MIN;
+    private int size = 0;
+    private Node<T> root = null;
+
+    /**
+     * Constructor for heap, defaults to a min-heap.
+     */
+    public PairingHeap() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Constructor for heap.
+     *
+     * @param type
+     *            Heap type.
+     */
+    public PairingHeap(BinaryHeap.Type type) {
+        this();
+        this.type = type;
+    }
+
+    /**
+     * Constructor for heap holding the values.
+     *
+     * @param type
+     *            Heap type.
+     * @param values
+     *            to put in the heap.
+     */
+    public PairingHeap(BinaryHeap.Type type, T[] values) {
+        this(type);
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        addAll(Arrays.asList(values));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(T value) {
+        if (value == null)
+            return false;
+
+        Node<T> node = new Node<T>(value);
+        root = (root == null) ? node : link(root, node);
+        size++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Adding is O(1), so a batch is always added one by one. NULL values are
+     * ignored.
+     */
+    @Override
+    public boolean addAll(java.util.Collection<? extends T> values) {
+        if (values == null)
+            throw (new NullPointerException("Values must be non-NULL."));
+
+        int start = size;
+        for (T value : values) {
+            add(value);
+        }
+        return (size != start);
+    }
+
+    /**
+     * Move every value of the other heap into this heap in O(1). The other
+     * heap is empty afterwards.
+     *
+     * @param other
+     *            heap of the same type to meld with.
+     */
+    public void meld(PairingHeap<T> other) {
+        if (other == null)
+            throw (new NullPointerException("Heap must be non-NULL."));
+        if (other.type != type)
+            throw (new IllegalArgumentException("Heaps must be of the same type."));
+        if (other == this || other.root == null)
+            return;
+
+        root = (root == null) ? other.root : link(root, other.root);
+        size += other.size;
+        other.root = null;
+        other.size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T getHeadValue() {
+        if (root == null)
+            return null;
+        return root.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T removeHead() {
+        if (root == null)
+            return null;
+
+        T value = root.value;
+        root = combine(root.child);
+        size--;
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.List<T> removeHead(int k) {
+        if (k < 0)
+            throw (new IllegalArgumentException("Number of heads must be non-negative."));
+
+        int count = Math.min(k, size);
+        java.util.List<T> heads = new java.util.ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            heads.add(removeHead());
+        }
+        return heads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T remove(T value) {
+        Node<T> node = getNode(value);
+        if (node == null)
+            return null;
+
+        remove(node);
+        return node.value;
+    }
+
+    private void remove(Node<T> node) {
+        if (node == root) {
+            root = combine(root.child);
+        } else {
+            // Cut the sub-tree out, then link what is left of it back in
+            cut(node);
+            Node<T> children = combine(node.child);
+            node.child = null;
+            if (children != null)
+                root = link(root, children);
+        }
+        size--;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Moving a value towards the head cuts its sub-tree out and links it with
+     * the root in O(1), moving it away removes and adds it again.
+     */
+    @Override
+    public boolean changePriority(T oldValue, T newValue) {
+        if (newValue == null)
+            return false;
+        Node<T> node = getNode(oldValue);
+        if (node == null)
+            return false;
+
+        if (!isBefore(node.value, newValue)) {
+            node.value = newValue;
+            if (node != root) {
+                cut(node);
+                root = link(root, node);
+            }
+            return true;
+        }
+
+        remove(node);
+        node.value = newValue;
+        node.child = null;
+        root = (root == null) ? node : link(root, node);
+        size++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(T value) {
+        return (getNode(value) != null);
+    }
+
+    /**
+     * Get the node which has the value, sub-trees whose root comes after the
+     * value are skipped.
+     *
+     * @param value
+     *            to search for.
+     * @return Node<T> which equals value or NULL if not found.
+     */
+    private Node<T> getNode(T value) {
+        if (value == null || root == null)
+            return null;
+
+        Deque<Node<T>> toVisit = new ArrayDeque<Node<T>>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Node<T> node = toVisit.pop();
+            // Siblings are not ordered against each other
+            if (node.sibling != null)
+                toVisit.push(node.sibling);
+            if (node.value.equals(value))
+                return node;
+            if (node.child != null && !isBefore(value, node.value))
+                toVisit.push(node.child);
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        if (root == null)
+            return (size == 0);
+        if (root.prev != null || root.sibling != null)
+            return false;
+
+        int count = 0;
+        Deque<Node<T>> toVisit = new ArrayDeque<Node<T>>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Node<T> node = toVisit.pop();
+            count++;
+            for (Node<T> child = node.child, prev = node; child != null; prev = child, child = child.sibling) {
+                if (child.prev != prev || isBefore(child.value, node.value))
+                    return false;
+                toVisit.push(child);
+            }
+        }
+        return (count == size);
+    }
+
+    /**
+     * Does value a belong closer to the head than value b.
+     */
+    private boolean isBefore(T a, T b) {
+        int result = a.compareTo(b);
+        return (type == BinaryHeap.Type.MIN) ? (result < 0) : (result > 0);
+    }
+
+    /**
+     * Link two roots, the one which comes after becomes the first child of
+     * the other.
+     *
+     * @return the new root.
+     */
+    private Node<T> link(Node<T> a, Node<T> b) {
+        if (isBefore(b.value, a.value)) {
+            Node<T> t = a;
+            a = b;
+            b = t;
+        }
+        b.prev = a;
+        b.sibling = a.child;
+        if (a.child != null)
+            a.child.prev = b;
+        a.child = b;
+        return a;
+    }
+
+    /**
+     * Detach the node, and its sub-tree, from its parent and siblings.
+     */
+    private void cut(Node<T> node) {
+        if (node.prev.child == node)
+            node.prev.child = node.sibling;
+        else
+            node.prev.sibling = node.sibling;
+        if (node.sibling != null)
+            node.sibling.prev = node.prev;
+        node.prev = null;
+        node.sibling = null;
+    }
+
+    /**
+     * Two pass pairing of a list of siblings into one tree. The first pass
+     * links pairs left to right, the second links the pairs right to left.
+     *
+     * @return root of the combined tree or NULL if there were no siblings.
+     */
+    private Node<T> combine(Node<T> first) {
+        if (first == null)
+            return null;
+
+        // The pairs are chained through their sibling field in reverse order
+        Node<T> pairs = null;
+        Node<T> node = first;
+        while (node != null) {
+            Node<T> second = node.sibling;
+            Node<T> next = (second != null) ? second.sibling : null;
+            node.prev = null;
+            node.sibling = null;
+            if (second != null) {
+                second.prev = null;
+                second.sibling = null;
+                node = link(node, second);
+            }
+            node.sibling = pairs;
+            pairs = node;
+            node = next;
+        }
+
+        Node<T> result = pairs;
+        node = pairs.sibling;
+        result.sibling = null;
+        while (node != null) {
+            Node<T> next = node.sibling;
+            node.sibling = null;
+            result = link(result, node);
+            node = next;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Collection<T> toCollection() {
+        return (new JavaCompatiblePairingHeap<T>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("size=").append(size).append(" ");
+        builder.append(toCollection());
+        return builder.toString();
+    }
+
+    private static class Node<T extends Comparable<T>> {
+
+        private T value = null;
+        private Node<T> child = null;
+        private Node<T> sibling = null;
+        // Parent if this is the first child, otherwise the previous sibling
+        private Node<T> prev = null;
+
+        private Node(T value) {
+            this.value = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "value=" + value + " child=" + ((child != null) ? child.value : "NULL") + " sibling="
+                    + ((sibling != null) ? sibling.value : "NULL");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static class JavaCompatiblePairingHeap<T extends Comparable<T>> extends java.util.AbstractCollection<T> {
+
+        private PairingHeap<T> heap = null;
+
+        public JavaCompatiblePairingHeap() {
+            heap = new PairingHeap<T>();
+        }
+
+        public JavaCompatiblePairingHeap(PairingHeap<T> heap) {
+            this.heap = heap;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean add(T value) {
+            return heap.add(value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean addAll(java.util.Collection<? extends T> values) {
+            return heap.addAll(values);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean remove(Object value) {
+            return (heap.remove((T)value)!=null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Object value) {
+            return heap.contains((T)value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Iterator<T> iterator() {
+            return (new PairingHeapIterator<T>(this.heap));
+        }
+
+        /**
+         * Walks the nodes as they were when the iterator was created, removing
+         * a node relinks the tree under it.
+         */
+        private static class PairingHeapIterator<T extends Comparable<T>> implements java.util.Iterator<T> {
+
+            private PairingHeap<T> heap = null;
+            private java.util.List<Node<T>> nodes = new java.util.ArrayList<Node<T>>();
+            private Node<T> last = null;
+            private int index = -1;
+
+            protected PairingHeapIterator(PairingHeap<T> heap) {
+                this.heap = heap;
+                if (heap.root == null)
+                    return;
+
+                Deque<Node<T>> toVisit = new ArrayDeque<Node<T>>();
+                toVisit.push(heap.root);
+                while (!toVisit.isEmpty()) {
+                    Node<T> node = toVisit.pop();
+                    nodes.add(node);
+                    if (node.sibling != null)
+                        toVisit.push(node.sibling);
+                    if (node.child != null)
+                        toVisit.push(node.child);
+                }
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean hasNext() {
+                return (index+1<nodes.size());
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public T next() {
+                if (++index>=nodes.size()) return null;
+                last = nodes.get(index);
+                return last.value;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void remove() {
+                heap.remove(last);
+            }
+        }
+    }
+}
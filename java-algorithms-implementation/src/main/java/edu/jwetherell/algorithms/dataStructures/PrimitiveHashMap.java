@@ -0,0 +1,746 @@
+package edu.jwetherell.algorithms.dataStructures;
+
+/**
+ * Hash Map using open addressing with Robin Hood linear probing over primitive
+ * keys. Keys and values are stored in parallel arrays, so there is no boxed key,
+ * entry object or bucket list per mapping. The arrays are sized to a power of
+ * two and doubled when the load factor is exceeded. Removal uses backward shift
+ * deletion, so no tombstones are left behind.
+ *
+ * http://en.wikipedia.org/wiki/Open_addressing
+ * http://en.wikipedia.org/wiki/Hash_table#Robin_Hood_hashing
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+@SuppressWarnings("unchecked")
+public abstract class PrimitiveHashMap<K extends Number, V> implements IMap<K,V> {
+
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    protected float loadFactor = DEFAULT_LOAD_FACTOR;
+    protected int threshold = 0;
+    protected int mask = 0;
+    protected int size = 0;
+    // A NULL value marks an empty slot, NULL values are not allowed in the map.
+    protected V[] values = null;
+
+    protected PrimitiveHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw (new IllegalArgumentException("Initial capacity cannot be negative."));
+        if (loadFactor <= 0 || loadFactor >= 1 || Float.isNaN(loadFactor))
+            throw (new IllegalArgumentException("Load factor must be between zero and one."));
+        this.loadFactor = loadFactor;
+        initializeMap(getCapacity(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Number of slots in the backing key/value arrays.
+     *
+     * @return number of slots.
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Smallest power of two which can hold capacity entries at the load factor.
+     */
+    private static int getCapacity(int capacity, float loadFactor) {
+        long needed = (long) Math.ceil(capacity / (double) loadFactor);
+        int result = 2;
+        while (result < needed && result < MAXIMUM_CAPACITY) {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Initialize the key and value arrays.
+     *
+     * @param capacity
+     *            power of two number of slots.
+     */
+    protected void initializeMap(int capacity) {
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+        threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+        size = 0;
+        allocateKeys(capacity);
+    }
+
+    /**
+     * Double the arrays when the map has grown past the load factor.
+     */
+    protected void ensureCapacity() {
+        if (size < threshold) return;
+        if (values.length == MAXIMUM_CAPACITY)
+            throw (new IllegalStateException("Map cannot grow past " + MAXIMUM_CAPACITY + " slots."));
+        rehash(values.length << 1);
+    }
+
+    /**
+     * Distance of the entry at index from its home slot.
+     */
+    protected int probeDistance(int index) {
+        return (index - (hashAt(index) & mask)) & mask;
+    }
+
+    /**
+     * Shift the entries following the removed slot back until one is found in
+     * its home slot, which keeps the probe sequences intact without tombstones.
+     *
+     * @param index
+     *            of the slot being removed.
+     * @return value which was removed.
+     */
+    protected V removeIndex(int index) {
+        V prev = values[index];
+        int next = (index + 1) & mask;
+        while (values[next] != null && probeDistance(next) != 0) {
+            moveEntry(next, index);
+            index = next;
+            next = (next + 1) & mask;
+        }
+        values[index] = null;
+        size--;
+        return prev;
+    }
+
+    /**
+     * Allocate the key array for the capacity.
+     */
+    protected abstract void allocateKeys(int capacity);
+
+    /**
+     * Re-insert all the entries into arrays of the new capacity.
+     */
+    protected abstract void rehash(int capacity);
+
+    /**
+     * Hash of the key stored at the index.
+     */
+    protected abstract int hashAt(int index);
+
+    /**
+     * Move the key and value from one slot to another.
+     */
+    protected abstract void moveEntry(int from, int to);
+
+    /**
+     * Boxed key stored at the index.
+     */
+    protected abstract K keyAt(int index);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean validate() {
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) continue;
+            count++;
+            // Every entry has to be reachable by a lookup from its home slot
+            if (indexOf(keyAt(i)) != i) return false;
+        }
+        return (count == size);
+    }
+
+    /**
+     * Index of the key or -1 if not found.
+     */
+    protected abstract int indexOf(K key);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public java.util.Map<K,V> toMap() {
+        return (new JavaCompatiblePrimitiveHashMap<K,V>(this));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            V value = values[i];
+            if (value != null) builder.append(keyAt(i)).append("=").append(value).append(", ");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Open addressing hash map with primitive int keys.
+     *
+     * @author Justin Wetherell <phishman3579@gmail.com>
+     */
+    public static class IntHashMap<V> extends PrimitiveHashMap<Integer,V> {
+
+        private int[] keys; // Allocated by the super constructor, so no initializer
+
+        /**
+         * Create a hash map with the default capacity and load factor.
+         */
+        public IntHashMap() {
+            this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+        }
+
+        /**
+         * Create a hash map which can hold initialCapacity entries without
+         * resizing.
+         *
+         * @param initialCapacity
+         *            number of expected entries.
+         * @param loadFactor
+         *            maximum ratio of entries to slots before growing.
+         */
+        public IntHashMap(int initialCapacity, float loadFactor) {
+            super(initialCapacity, loadFactor);
+        }
+
+        /**
+         * The hashing function. Mixes the bits of the key so that sequential
+         * keys do not cluster.
+         */
+        private static int hashingFunction(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Put key->value pair in the map.
+         *
+         * @param key
+         *            to be inserted.
+         * @param value
+         *            to be inserted.
+         * @return V previous value or null if none.
+         */
+        public V put(int key, V value) {
+            if (value == null)
+                throw (new NullPointerException("Value cannot be NULL."));
+
+            ensureCapacity();
+
+            int index = hashingFunction(key) & mask;
+            int distance = 0;
+            boolean carrying = false; // Are we carrying a displaced entry
+            while (true) {
+                if (values[index] == null) {
+                    keys[index] = key;
+                    values[index] = value;
+                    size++;
+                    return null;
+                }
+                if (!carrying && keys[index] == key) {
+                    V prev = values[index];
+                    values[index] = value;
+                    return prev;
+                }
+                int existing = probeDistance(index);
+                if (existing < distance) {
+                    // Rob the rich, swap with the entry closer to home
+                    int k = keys[index];
+                    V v = values[index];
+                    keys[index] = key;
+                    values[index] = value;
+                    key = k;
+                    value = v;
+                    distance = existing;
+                    carrying = true;
+                }
+                index = (index + 1) & mask;
+                distance++;
+            }
+        }
+
+        /**
+         * Get value for key.
+         *
+         * @param key
+         *            to get value for.
+         * @return value mapped to key.
+         */
+        public V get(int key) {
+            int index = indexOf(key);
+            return (index < 0) ? null : values[index];
+        }
+
+        /**
+         * Does the map contain the key.
+         *
+         * @param key
+         *            to locate in the map.
+         * @return True if key is in the map.
+         */
+        public boolean contains(int key) {
+            return (indexOf(key) >= 0);
+        }
+
+        /**
+         * Remove key and value from map.
+         *
+         * @param key
+         *            to remove from the map.
+         * @return value removed or null if not found.
+         */
+        public V remove(int key) {
+            int index = indexOf(key);
+            if (index < 0) return null;
+            return removeIndex(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V put(Integer key, V value) {
+            return put(key.intValue(), value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V get(Integer key) {
+            return get(key.intValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Integer key) {
+            return contains(key.intValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V remove(Integer key) {
+            return remove(key.intValue());
+        }
+
+        private int indexOf(int key) {
+            int index = hashingFunction(key) & mask;
+            int distance = 0;
+            while (values[index] != null) {
+                if (keys[index] == key) return index;
+                // Key would have displaced this entry if it was in the map
+                if (probeDistance(index) < distance) return -1;
+                index = (index + 1) & mask;
+                distance++;
+            }
+            return -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int indexOf(Integer key) {
+            return indexOf(key.intValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void allocateKeys(int capacity) {
+            keys = new int[capacity];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void rehash(int capacity) {
+            int[] oldKeys = keys;
+            V[] oldValues = values;
+            initializeMap(capacity);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int hashAt(int index) {
+            return hashingFunction(keys[index]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void moveEntry(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Integer keyAt(int index) {
+            return keys[index];
+        }
+    }
+
+    /**
+     * Open addressing hash map with primitive long keys.
+     *
+     * @author Justin Wetherell <phishman3579@gmail.com>
+     */
+    public static class LongHashMap<V> extends PrimitiveHashMap<Long,V> {
+
+        private long[] keys; // Allocated by the super constructor, so no initializer
+
+        /**
+         * Create a hash map with the default capacity and load factor.
+         */
+        public LongHashMap() {
+            this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+        }
+
+        /**
+         * Create a hash map which can hold initialCapacity entries without
+         * resizing.
+         *
+         * @param initialCapacity
+         *            number of expected entries.
+         * @param loadFactor
+         *            maximum ratio of entries to slots before growing.
+         */
+        public LongHashMap(int initialCapacity, float loadFactor) {
+            super(initialCapacity, loadFactor);
+        }
+
+        /**
+         * The hashing function. Folds and mixes all 64 bits of the key.
+         */
+        private static int hashingFunction(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            h ^= (h >>> 32);
+            return (int) (h ^ (h >>> 16));
+        }
+
+        /**
+         * Put key->value pair in the map.
+         *
+         * @param key
+         *            to be inserted.
+         * @param value
+         *            to be inserted.
+         * @return V previous value or null if none.
+         */
+        public V put(long key, V value) {
+            if (value == null)
+                throw (new NullPointerException("Value cannot be NULL."));
+
+            ensureCapacity();
+
+            int index = hashingFunction(key) & mask;
+            int distance = 0;
+            boolean carrying = false; // Are we carrying a displaced entry
+            while (true) {
+                if (values[index] == null) {
+                    keys[index] = key;
+                    values[index] = value;
+                    size++;
+                    return null;
+                }
+                if (!carrying && keys[index] == key) {
+                    V prev = values[index];
+                    values[index] = value;
+                    return prev;
+                }
+                int existing = probeDistance(index);
+                if (existing < distance) {
+                    // Rob the rich, swap with the entry closer to home
+                    long k = keys[index];
+                    V v = values[index];
+                    keys[index] = key;
+                    values[index] = value;
+                    key = k;
+                    value = v;
+                    distance = existing;
+                    carrying = true;
+                }
+                index = (index + 1) & mask;
+                distance++;
+            }
+        }
+
+        /**
+         * Get value for key.
+         *
+         * @param key
+         *            to get value for.
+         * @return value mapped to key.
+         */
+        public V get(long key) {
+            int index = indexOf(key);
+            return (index < 0) ? null : values[index];
+        }
+
+        /**
+         * Does the map contain the key.
+         *
+         * @param key
+         *            to locate in the map.
+         * @return True if key is in the map.
+         */
+        public boolean contains(long key) {
+            return (indexOf(key) >= 0);
+        }
+
+        /**
+         * Remove key and value from map.
+         *
+         * @param key
+         *            to remove from the map.
+         * @return value removed or null if not found.
+         */
+        public V remove(long key) {
+            int index = indexOf(key);
+            if (index < 0) return null;
+            return removeIndex(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V put(Long key, V value) {
+            return put(key.longValue(), value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V get(Long key) {
+            return get(key.longValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean contains(Long key) {
+            return contains(key.longValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V remove(Long key) {
+            return remove(key.longValue());
+        }
+
+        private int indexOf(long key) {
+            int index = hashingFunction(key) & mask;
+            int distance = 0;
+            while (values[index] != null) {
+                if (keys[index] == key) return index;
+                // Key would have displaced this entry if it was in the map
+                if (probeDistance(index) < distance) return -1;
+                index = (index + 1) & mask;
+                distance++;
+            }
+            return -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int indexOf(Long key) {
+            return indexOf(key.longValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void allocateKeys(int capacity) {
+            keys = new long[capacity];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void rehash(int capacity) {
+            long[] oldKeys = keys;
+            V[] oldValues = values;
+            initializeMap(capacity);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int hashAt(int index) {
+            return hashingFunction(keys[index]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void moveEntry(int from, int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Long keyAt(int index) {
+            return keys[index];
+        }
+    }
+
+    private static class JavaCompatibleIteratorWrapper<K extends Number,V> implements java.util.Iterator<java.util.Map.Entry<K, V>> {
+
+        private PrimitiveHashMap<K,V> map = null;
+        private java.util.Iterator<java.util.Map.Entry<K, V>> iter = null;
+        private java.util.Map.Entry<K, V> lastEntry = null;
+
+        public JavaCompatibleIteratorWrapper(PrimitiveHashMap<K,V> map, java.util.Iterator<java.util.Map.Entry<K, V>> iter) {
+            this.map = map;
+            this.iter = iter;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            if (iter==null) return false;
+            return iter.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Map.Entry<K, V> next() {
+            if (iter==null) return null;
+
+            lastEntry = iter.next();
+            return lastEntry;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (iter==null || lastEntry==null) return;
+
+            map.remove(lastEntry.getKey());
+            iter.remove();
+        }
+    }
+
+    private static class JavaCompatibleMapEntry<K extends Number,V> extends java.util.AbstractMap.SimpleEntry<K,V> {
+
+        private static final long serialVersionUID = -4193734870428765125L;
+
+        public JavaCompatibleMapEntry(K key, V value) {
+            super(key, value);
+        }
+    }
+
+    private static class JavaCompatiblePrimitiveHashMap<K extends Number,V> extends java.util.AbstractMap<K,V> {
+
+        private PrimitiveHashMap<K,V> map = null;
+
+        protected JavaCompatiblePrimitiveHashMap(PrimitiveHashMap<K,V> map) {
+            this.map = map;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V put(K key, V value) {
+            return map.put(key, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public V remove(Object key) {
+            return map.remove((K)key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean containsKey(Object key) {
+            return map.contains((K)key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public java.util.Set<java.util.Map.Entry<K, V>> entrySet() {
+            java.util.Set<java.util.Map.Entry<K, V>> set = new java.util.HashSet<java.util.Map.Entry<K, V>>() {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public java.util.Iterator<java.util.Map.Entry<K, V>> iterator() {
+                    return (new JavaCompatibleIteratorWrapper<K,V>(map,super.iterator()));
+                }
+            };
+            for (int i = 0; i < map.values.length; i++) {
+                V value = map.values[i];
+                if (value == null) continue;
+                java.util.Map.Entry<K, V> entry = new JavaCompatibleMapEntry<K, V>(map.keyAt(i), value);
+                set.add(entry);
+            }
+            return set;
+        }
+    }
+}
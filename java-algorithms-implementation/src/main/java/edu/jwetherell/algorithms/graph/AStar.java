@@ -0,0 +1,126 @@
+package edu.jwetherell.algorithms.graph;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.mathematics.Distance;
+
+/**
+ * A* search finds the shortest path between two verticies. It is Dijkstra's
+ * algorithm where each vertex is ordered by the cost to reach it plus a
+ * heuristic estimate of the remaining cost to the goal, so the search heads
+ * towards the goal instead of growing evenly in every direction. The path is
+ * the shortest as long as the heuristic never over estimates.
+ *
+ * http://en.wikipedia.org/wiki/A*_search_algorithm
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class AStar {
+
+    private static final ThreadLocal<SearchState> states = new ThreadLocal<SearchState>() {
+        @Override
+        protected SearchState initialValue() {
+            return new SearchState();
+        }
+    };
+
+    private AStar() { }
+
+    /**
+     * A* shortest path on a compact graph. The search state is kept per thread
+     * and reused, so a query only touches the verticies it reaches. Edge costs
+     * are not checked per query and must be non-negative.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param end
+     *            index of the ending vertex.
+     * @param heuristic
+     *            estimate of the cost from a vertex to end.
+     * @return cost and vertex indices of the shortest path or NULL if end is
+     *         unreachable.
+     */
+    public static CompactGraph.CostPathPair getShortestPath(CompactGraph<?> g, int start, int end, Heuristic heuristic) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+        if (heuristic == null)
+            throw (new NullPointerException("Heuristic must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n || end < 0 || end >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        SearchState state = states.get();
+        state.reset(n);
+        state.update(start, 0, heuristic.estimate(start, end), -1);
+        while (!state.isEmpty()) {
+            int vertex = state.poll();
+            if (vertex == end)
+                return (new CompactGraph.CostPathPair(state.getCost(end), state.getPath(end)));
+
+            int lowestCostToThisVertex = state.getCost(vertex);
+            for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                int to = g.getTarget(e);
+                int cost = lowestCostToThisVertex + g.getCost(e);
+                // A settled vertex is opened again if the heuristic was only
+                // admissible and a cheaper path shows up later.
+                if (cost < state.getCost(to))
+                    state.update(to, cost, cost + heuristic.estimate(to, end), vertex);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimate of the cost between two verticies. To find the shortest path
+     * it must never be more than the real cost.
+     */
+    public static interface Heuristic {
+
+        /**
+         * @param vertex
+         *            index of the vertex.
+         * @param goal
+         *            index of the goal vertex.
+         * @return estimated cost from vertex to goal.
+         */
+        public int estimate(int vertex, int goal);
+    }
+
+    /**
+     * Straight line distance between the verticies' coordinates. It never
+     * over estimates when every edge costs at least the distance between its
+     * verticies.
+     */
+    public static class EuclideanHeuristic implements Heuristic {
+
+        private double[] x = null;
+        private double[] y = null;
+
+        /**
+         * @param x
+         *            coordinate of each vertex index.
+         * @param y
+         *            coordinate of each vertex index.
+         */
+        public EuclideanHeuristic(double[] x, double[] y) {
+            if (x == null || y == null)
+                throw (new NullPointerException("Coordinates must be non-NULL."));
+            if (x.length != y.length)
+                throw (new IllegalArgumentException("Coordinate arrays must be the same length."));
+
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int estimate(int vertex, int goal) {
+            // Rounded down so it can't exceed an integer edge cost
+            return (int) Distance.euclideanDistance(x[vertex], y[vertex], x[goal], y[goal]);
+        }
+    }
+}
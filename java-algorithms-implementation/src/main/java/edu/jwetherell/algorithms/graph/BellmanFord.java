@@ -1,11 +1,10 @@
 package edu.jwetherell.algorithms.graph;
 
-import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 
 /**
@@ -20,36 +19,54 @@ import edu.jwetherell.algorithms.dataStructures.Graph;
 public class BellmanFord {
 
     private static Map<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>> costs = null;
-    private static Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>> paths = null;
+    private static Map<Graph.Vertex<Integer>, Graph.Edge<Integer>> previous = null;
     private static boolean containsNegativeWeightCycle = false;
 
     private BellmanFord() { }
 
     public static Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> getShortestPaths(Graph<Integer> g, Graph.Vertex<Integer> start) {
-        getShortestPath(g, start, null);
-        Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> map = new HashMap<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>>();
-        for (Graph.CostVertexPair<Integer> pair : costs.values()) {
-            int cost = pair.getCost();
-            Graph.Vertex<Integer> vertex = pair.getVertex();
-            Set<Graph.Edge<Integer>> path = paths.get(vertex);
-            map.put(vertex, new Graph.CostPathPair<Integer>(cost, path));
-        }
-        return map;
+        ShortestPathTree<Integer> tree = getShortestPathTree(g, start);
+        if (tree == null)
+            return null;
+        return tree.toMap();
+    }
+
+    /**
+     * Bellman-Ford's shortest paths from start to every vertex, the paths are
+     * only built when asked for.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @return shortest path tree rooted at start or NULL if the graph contains
+     *         a negative weight cycle.
+     */
+    public static ShortestPathTree<Integer> getShortestPathTree(Graph<Integer> g, Graph.Vertex<Integer> start) {
+        if (!search(g, start))
+            return null;
+        return (new ShortestPathTree<Integer>(start, costs, previous));
     }
 
     public static Graph.CostPathPair<Integer> getShortestPath(Graph<Integer> g, Graph.Vertex<Integer> start, Graph.Vertex<Integer> end) {
+        ShortestPathTree<Integer> tree = getShortestPathTree(g, start);
+        if (tree != null && end != null)
+            return tree.getCostPathPair(end);
+        return null;
+    }
+
+    private static boolean search(Graph<Integer> g, Graph.Vertex<Integer> start) {
         if (g == null)
             throw (new NullPointerException("Graph must be non-NULL."));
 
         // Reset variables
         costs = null;
-        paths = null;
+        previous = null;
         containsNegativeWeightCycle = false;
 
-        paths = new TreeMap<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>();
-        for (Graph.Vertex<Integer> v : g.getVerticies()) {
-            paths.put(v, new LinkedHashSet<Graph.Edge<Integer>>());
-        }
+        // Only the last edge of each shortest path is kept, the paths are
+        // rebuilt from them on demand.
+        previous = new TreeMap<Graph.Vertex<Integer>, Graph.Edge<Integer>>();
 
         costs = new TreeMap<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>>();
         for (Graph.Vertex<Integer> v : g.getVerticies()) {
@@ -84,25 +101,103 @@ public class BellmanFord {
                         // Uhh ohh... negative weight cycle
                         System.out.println("Graph contains a negative weight cycle.");
                         containsNegativeWeightCycle = true;
-                        return null;
+                        return false;
                     } else {
                         // Found a shorter path to a reachable vertex
                         pair.setCost(cost);
-                        Set<Graph.Edge<Integer>> set = paths.get(e.getToVertex());
-                        set.clear();
-                        set.addAll(paths.get(e.getFromVertex()));
-                        set.add(e);
+                        previous.put(e.getToVertex(), e);
                     }
                 }
             }
         }
 
-        if (end != null) {
-            Graph.CostVertexPair<Integer> pair = costs.get(end);
-            Set<Graph.Edge<Integer>> set = paths.get(end);
-            return (new Graph.CostPathPair<Integer>(pair.getCost(), set));
+        return true;
+    }
+
+    /**
+     * Bellman-Ford's shortest paths on a compact graph.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @return cost from start to every vertex, Integer.MAX_VALUE if
+     *         unreachable, or NULL if the graph contains a negative weight
+     *         cycle.
+     */
+    public static int[] getShortestPaths(CompactGraph<?> g, int start) {
+        int[] previous = new int[(g != null) ? g.getNumberOfVerticies() : 0];
+        return getShortestPaths(g, start, previous);
+    }
+
+    /**
+     * Bellman-Ford's shortest path on a compact graph.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param end
+     *            index of the ending vertex.
+     * @return cost and vertex indices of the shortest path or NULL if end is
+     *         unreachable or the graph contains a negative weight cycle.
+     */
+    public static CompactGraph.CostPathPair getShortestPath(CompactGraph<?> g, int start, int end) {
+        int[] previous = new int[(g != null) ? g.getNumberOfVerticies() : 0];
+        int[] dist = getShortestPaths(g, start, previous);
+        if (dist == null || dist[end] == Integer.MAX_VALUE)
+            return null;
+        return (new CompactGraph.CostPathPair(dist[end], Dijkstra.toPath(previous, start, end)));
+    }
+
+    private static int[] getShortestPaths(CompactGraph<?> g, int start, int[] previous) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        // Reset variables
+        containsNegativeWeightCycle = false;
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        dist[start] = 0;
+
+        // The graph should be finished by the n-1 time through this loop, the
+        // n-th pass performs the negative weight cycle check.
+        for (int i = 0; i < n; i++) {
+            boolean changed = false;
+            for (int vertex = 0; vertex < n; vertex++) {
+                int lowestCostToThisVertex = dist[vertex];
+                // If the cost of the from vertex is MAX_VALUE then treat as
+                // INIFINITY.
+                if (lowestCostToThisVertex == Integer.MAX_VALUE)
+                    continue;
+
+                for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                    int to = g.getTarget(e);
+                    int cost = lowestCostToThisVertex + g.getCost(e);
+                    if (cost < dist[to]) {
+                        if (i == n - 1) {
+                            // Uhh ohh... negative weight cycle
+                            containsNegativeWeightCycle = true;
+                            return null;
+                        }
+                        // Found a shorter path to a reachable vertex
+                        dist[to] = cost;
+                        previous[to] = vertex;
+                        changed = true;
+                    }
+                }
+            }
+            // Nothing relaxed this pass, so nothing will relax in later ones
+            if (!changed)
+                break;
         }
-        return null;
+        return dist;
     }
 
     public static boolean containsNegativeWeightCycle() {
@@ -0,0 +1,261 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.ConcurrentDisjointSet;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Borůvka's minimum spanning tree. Only works on undirected graphs. Every
+ * round each component picks the cheapest edge leaving it, all of those edges
+ * join the tree and the components they connect are contracted into one. The
+ * number of components at least halves each round. Picking, joining and
+ * contracting are split across an executor, the cheapest edge of a component
+ * is lowered with a compare-and-set and the components are joined in a
+ * concurrent disjoint set so the workers need no locks. Ties are broken by
+ * edge index so no cycle can be picked. A graph which is not connected gets a
+ * minimum spanning forest.
+ *
+ * http://en.wikipedia.org/wiki/Bor%C5%AFvka's_algorithm
+ *
+ * Worst case: O(E log V)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class Boruvka {
+
+    private static final long NONE = Long.MAX_VALUE;
+
+    private Boruvka() { }
+
+    /**
+     * Borůvka's minimum spanning tree.
+     *
+     * @param g
+     *            undirected graph.
+     * @param executor
+     *            runs each round's work, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each round's work is split into.
+     * @return cost and edges of the tree.
+     */
+    public static Graph.CostPathPair<Integer> getMinimumSpanningTree(Graph<Integer> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int[] tree = getMinimumSpanningTree(compact, executor, parallelism);
+
+        int cost = 0;
+        Set<Graph.Edge<Integer>> path = new LinkedHashSet<Graph.Edge<Integer>>();
+        for (int e : tree) {
+            cost += compact.getCost(e);
+            path.add(compact.getEdge(e));
+        }
+        return (new Graph.CostPathPair<Integer>(cost, path));
+    }
+
+    /**
+     * Borůvka's minimum spanning tree on a compact graph.
+     *
+     * @param g
+     *            undirected graph.
+     * @param executor
+     *            runs each round's work, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each round's work is split into.
+     * @return indices of the tree's edges, the edges of g.getEdge() when built
+     *         from a Graph.
+     */
+    public static int[] getMinimumSpanningTree(CompactGraph<?> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        // Borůvka's algorithm only works on undirected graphs
+        if (g.getType() == Graph.TYPE.DIRECTED) throw (new IllegalArgumentException("Undirected graphs only."));
+
+        // Each undirected edge is stored both ways, only the copy leaving the
+        // lower vertex is kept. The endpoints are rewritten to their
+        // component as the components are contracted.
+        final int n = g.getNumberOfVerticies();
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                if (u < g.getTarget(e))
+                    size++;
+            }
+        }
+        int[] from = new int[size];
+        int[] to = new int[size];
+        int[] ids = new int[size];
+        size = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                if (u < g.getTarget(e)) {
+                    from[size] = u;
+                    to[size] = g.getTarget(e);
+                    ids[size] = e;
+                    size++;
+                }
+            }
+        }
+
+        int[] tree = new int[Math.max(n - 1, 0)];
+        int edges = 0;
+        final ConcurrentDisjointSet components = new ConcurrentDisjointSet(n);
+        final int[] labels = new int[n];
+        final AtomicLongArray cheapest = new AtomicLongArray(n);
+        while (size > 0) {
+            // Cheapest edge leaving each component
+            for (int i = 0; i < n; i++) {
+                cheapest.set(i, NONE);
+            }
+            final CompactGraph<?> graph = g;
+            final int[] edgeFrom = from;
+            final int[] edgeTo = to;
+            final int[] edgeIds = ids;
+            run(split(size, parallelism, new Range() {
+                @Override
+                public int[] run(int start, int end) {
+                    for (int i = start; i < end; i++) {
+                        long packed = (((long) graph.getCost(edgeIds[i])) << 32) | (i & 0xFFFFFFFFL);
+                        lower(cheapest, edgeFrom[i], packed);
+                        lower(cheapest, edgeTo[i], packed);
+                    }
+                    return null;
+                }
+            }), executor);
+
+            // Join the components along the picked edges, an edge picked by
+            // both of its components only joins them once.
+            for (int[] joined : run(split(n, parallelism, new Range() {
+                @Override
+                public int[] run(int start, int end) {
+                    int[] joined = new int[end - start];
+                    int size = 0;
+                    for (int c = start; c < end; c++) {
+                        long packed = cheapest.get(c);
+                        if (packed == NONE)
+                            continue;
+                        int i = (int) packed;
+                        if (components.union(edgeFrom[i], edgeTo[i]))
+                            joined[size++] = edgeIds[i];
+                    }
+                    return Arrays.copyOf(joined, size);
+                }
+            }), executor)) {
+                System.arraycopy(joined, 0, tree, edges, joined.length);
+                edges += joined.length;
+            }
+
+            // Contract, each endpoint becomes the root of its component
+            run(split(n, parallelism, new Range() {
+                @Override
+                public int[] run(int start, int end) {
+                    for (int v = start; v < end; v++) {
+                        labels[v] = components.find(v);
+                    }
+                    return null;
+                }
+            }), executor);
+            List<int[]> ranges = run(split(size, parallelism, new Range() {
+                @Override
+                public int[] run(int start, int end) {
+                    int kept = start;
+                    for (int i = start; i < end; i++) {
+                        int x = labels[edgeFrom[i]];
+                        int y = labels[edgeTo[i]];
+                        if (x == y)
+                            continue;
+                        edgeFrom[kept] = x;
+                        edgeTo[kept] = y;
+                        edgeIds[kept] = edgeIds[i];
+                        kept++;
+                    }
+                    return new int[] { start, kept };
+                }
+            }), executor);
+            int kept = 0;
+            for (int[] range : ranges) {
+                int length = range[1] - range[0];
+                System.arraycopy(from, range[0], from, kept, length);
+                System.arraycopy(to, range[0], to, kept, length);
+                System.arraycopy(ids, range[0], ids, kept, length);
+                kept += length;
+            }
+            size = kept;
+        }
+
+        return (edges == tree.length) ? tree : Arrays.copyOf(tree, edges);
+    }
+
+    private static void lower(AtomicLongArray cheapest, int component, long packed) {
+        while (true) {
+            long current = cheapest.get(component);
+            if (current <= packed || cheapest.compareAndSet(component, current, packed))
+                return;
+        }
+    }
+
+    /**
+     * Work on the entries from start up to, but not including, end.
+     */
+    private static interface Range {
+
+        public int[] run(int start, int end);
+    }
+
+    private static List<Callable<int[]>> split(int size, int parallelism, final Range range) {
+        int chunk = Math.max(1, (size + parallelism - 1) / parallelism);
+        List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>(parallelism);
+        for (int from = 0; from < size; from += chunk) {
+            final int start = from;
+            final int end = Math.min(size, from + chunk);
+            tasks.add(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return range.run(start, end);
+                }
+            });
+        }
+        return tasks;
+    }
+
+    private static List<int[]> run(List<Callable<int[]>> tasks, ExecutorService executor) {
+        List<int[]> results = new ArrayList<int[]>(tasks.size());
+        if (executor == null || tasks.size() == 1) {
+            for (Callable<int[]> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw (new IllegalStateException("Contracting components failed.", e));
+                }
+            }
+            return results;
+        }
+
+        try {
+            for (Future<int[]> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while contracting components.", e));
+        } catch (ExecutionException e) {
+            throw (new IllegalStateException("Contracting components failed.", e.getCause()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,323 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Level synchronous, direction optimizing breadth first search. Each level's
+ * frontier is expanded in parallel, visited verticies are kept in a bitmap.
+ *
+ * While the frontier is small it expands top-down, every frontier vertex
+ * claims its unvisited neighbours with a compare-and-set on the bitmap. Once
+ * the frontier's edges outnumber a fraction of the unexplored edges it
+ * switches to bottom-up, every unvisited vertex looks through its incoming
+ * edges for a parent in the frontier and stops at the first one. That skips
+ * most edges of the middle levels of a low diameter graph. When the frontier
+ * shrinks again it switches back.
+ *
+ * http://en.wikipedia.org/wiki/Breadth-first_search
+ * http://parlab.eecs.berkeley.edu/sites/all/parlab/files/main.pdf
+ *
+ * Worst case: O(V + E)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class BreadthFirstSearch {
+
+    // Frontiers smaller than this are expanded on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    // Go bottom-up when the frontier's edges are more than 1/ALPHA of the
+    // unexplored edges, go back when it holds less than 1/BETA of the verticies.
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    private BreadthFirstSearch() { }
+
+    /**
+     * Number of edges on the shortest path from start to every vertex it can
+     * reach.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @param executor
+     *            expands the levels, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each level is split into.
+     * @return map of reachable vertex to its distance.
+     */
+    public static Map<Graph.Vertex<Integer>, Integer> getDistances(Graph<Integer> g, Graph.Vertex<Integer> start, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int index = compact.indexOf(start);
+        if (index < 0)
+            throw (new IllegalArgumentException("Start vertex is not in the graph."));
+
+        int[] distances = getDistances(compact, index, executor, parallelism);
+        Map<Graph.Vertex<Integer>, Integer> map = new HashMap<Graph.Vertex<Integer>, Integer>();
+        for (int v = 0; v < distances.length; v++) {
+            if (distances[v] >= 0)
+                map.put(compact.getVertex(v), distances[v]);
+        }
+        return map;
+    }
+
+    /**
+     * Number of edges on the shortest path from start to every vertex of a
+     * compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param executor
+     *            expands the levels, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each level is split into.
+     * @return distance of each vertex index, -1 if unreachable.
+     */
+    public static int[] getDistances(final CompactGraph<?> g, int start, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        final int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        final int[] distances = new int[n];
+        Arrays.fill(distances, -1);
+        final AtomicLongArray visited = new AtomicLongArray(words(n));
+        distances[start] = 0;
+        claim(visited, start);
+
+        // Incoming edges are only needed once the search goes bottom-up
+        CompactGraph<?> transpose = null;
+
+        IntList frontier = new IntList();
+        frontier.add(start);
+        long[] frontierBits = null;
+        int frontierSize = 1;
+        long frontierEdges = g.getOutDegree(start);
+        long unexploredEdges = g.getNumberOfEdges() - frontierEdges;
+        boolean bottomUp = false;
+        for (int level = 0; frontierSize > 0; level++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+                frontierBits = toBitmap(frontier, n);
+                if (transpose == null)
+                    transpose = g.transpose();
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+                frontier = toList(frontierBits, n);
+            }
+
+            long[] counts;
+            if (bottomUp) {
+                long[] next = new long[words(n)];
+                counts = bottomUp(g, transpose, level, distances, visited, frontierBits, next, executor, parallelism);
+                frontierBits = next;
+            } else {
+                IntList next = new IntList();
+                counts = topDown(g, level, distances, visited, frontier, next, executor, parallelism);
+                frontier = next;
+            }
+            frontierSize = (int) counts[0];
+            frontierEdges = counts[1];
+            unexploredEdges -= frontierEdges;
+        }
+        return distances;
+    }
+
+    /**
+     * Every frontier vertex claims its unvisited neighbours.
+     *
+     * @return size of the next frontier and the number of edges leaving it.
+     */
+    private static long[] topDown(final CompactGraph<?> g, final int level, final int[] distances, final AtomicLongArray visited, final IntList frontier,
+                                  IntList next, ExecutorService executor, int parallelism) {
+        int size = frontier.size();
+        if (size < SEQUENTIAL_THRESHOLD)
+            parallelism = 1;
+
+        int chunk = (size + parallelism - 1) / parallelism;
+        final List<IntList> lists = new ArrayList<IntList>(parallelism);
+        List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>(parallelism);
+        for (int from = 0; from < size; from += chunk) {
+            final int start = from;
+            final int end = Math.min(size, from + chunk);
+            final IntList claimed = (parallelism == 1) ? next : new IntList();
+            lists.add(claimed);
+            tasks.add(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    long edges = 0;
+                    for (int i = start; i < end; i++) {
+                        int v = frontier.get(i);
+                        for (int e = g.getEdgeStart(v), last = g.getEdgeEnd(v); e < last; e++) {
+                            int w = g.getTarget(e);
+                            if (claim(visited, w)) {
+                                distances[w] = level + 1;
+                                claimed.add(w);
+                                edges += g.getOutDegree(w);
+                            }
+                        }
+                    }
+                    return new long[] { claimed.size(), edges };
+                }
+            });
+        }
+
+        long[] counts = run(tasks, executor);
+        if (parallelism > 1) {
+            for (IntList list : lists) {
+                next.addAll(list);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Every unvisited vertex looks for a parent in the frontier. Each task
+     * owns whole words of the bitmaps so it can write them without a
+     * compare-and-set.
+     *
+     * @return size of the next frontier and the number of edges leaving it.
+     */
+    private static long[] bottomUp(final CompactGraph<?> g, final CompactGraph<?> transpose, final int level, final int[] distances,
+                                   final AtomicLongArray visited, final long[] frontier, final long[] next, ExecutorService executor, int parallelism) {
+        final int n = g.getNumberOfVerticies();
+        int words = frontier.length;
+        int chunk = (words + parallelism - 1) / parallelism;
+        List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>(parallelism);
+        for (int from = 0; from < words; from += chunk) {
+            final int startWord = from;
+            final int endWord = Math.min(words, from + chunk);
+            tasks.add(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    long count = 0;
+                    long edges = 0;
+                    for (int word = startWord; word < endWord; word++) {
+                        long seen = visited.get(word);
+                        if (seen == -1L)
+                            continue;
+                        long found = 0;
+                        int base = word << 6;
+                        for (int v = base, last = Math.min(n, base + 64); v < last; v++) {
+                            long bit = 1L << (v - base);
+                            if ((seen & bit) != 0)
+                                continue;
+                            for (int e = transpose.getEdgeStart(v), end = transpose.getEdgeEnd(v); e < end; e++) {
+                                int u = transpose.getTarget(e);
+                                if ((frontier[u >>> 6] & (1L << u)) != 0) {
+                                    distances[v] = level + 1;
+                                    found |= bit;
+                                    count++;
+                                    edges += g.getOutDegree(v);
+                                    break;
+                                }
+                            }
+                        }
+                        if (found != 0) {
+                            next[word] = found;
+                            visited.set(word, seen | found);
+                        }
+                    }
+                    return new long[] { count, edges };
+                }
+            });
+        }
+        return run(tasks, executor);
+    }
+
+    /**
+     * @return True if this call marked the vertex visited.
+     */
+    private static boolean claim(AtomicLongArray visited, int v) {
+        int word = v >>> 6;
+        long bit = 1L << v;
+        while (true) {
+            long current = visited.get(word);
+            if ((current & bit) != 0)
+                return false;
+            if (visited.compareAndSet(word, current, current | bit))
+                return true;
+        }
+    }
+
+    private static int words(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    private static long[] toBitmap(IntList list, int n) {
+        long[] bits = new long[words(n)];
+        for (int i = 0; i < list.size(); i++) {
+            int v = list.get(i);
+            bits[v >>> 6] |= 1L << v;
+        }
+        return bits;
+    }
+
+    private static IntList toList(long[] bits, int n) {
+        IntList list = new IntList();
+        for (int word = 0; word < bits.length; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                list.add((word << 6) + Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return sum of the tasks' counts.
+     */
+    private static long[] run(List<Callable<long[]>> tasks, ExecutorService executor) {
+        long[] counts = new long[2];
+        if (executor == null || tasks.size() == 1) {
+            for (Callable<long[]> task : tasks) {
+                long[] result;
+                try {
+                    result = task.call();
+                } catch (Exception e) {
+                    throw (new IllegalStateException("Expanding frontier failed.", e));
+                }
+                counts[0] += result[0];
+                counts[1] += result[1];
+            }
+            return counts;
+        }
+
+        try {
+            for (Future<long[]> future : executor.invokeAll(tasks)) {
+                long[] result = future.get();
+                counts[0] += result[0];
+                counts[1] += result[1];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while expanding frontier.", e));
+        } catch (ExecutionException e) {
+            throw (new IllegalStateException("Expanding frontier failed.", e.getCause()));
+        }
+        return counts;
+    }
+}
@@ -1,57 +1,114 @@
 package edu.jwetherell.algorithms.graph;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 
+/**
+ * Cycle detection. An undirected graph has a cycle if a depth first search
+ * finds an edge to a visited vertex other than the one it came from. A
+ * directed graph has a cycle if a strongly connected component holds more than
+ * one vertex or a vertex has an edge to itself. Both searches keep their own
+ * stack instead of recursing and leave the graph unchanged.
+ *
+ * http://en.wikipedia.org/wiki/Cycle_(graph_theory)#Cycle_detection
+ *
+ * Worst case: O(V + E)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
 public class CycleDetection {
 
-    private static Set<Graph.Vertex<Integer>> visitedVerticies = new HashSet<Graph.Vertex<Integer>>();
-    private static Set<Graph.Edge<Integer>> visitedEdges = new HashSet<Graph.Edge<Integer>>();
-
     private CycleDetection() {
     };
 
     public static boolean detect(Graph<Integer> g) {
         if (g == null)
             return false;
-        visitedVerticies.clear();
-        visitedEdges.clear();
-        List<Graph.Vertex<Integer>> verticies = g.getVerticies();
-        if (verticies == null || verticies.size() == 0)
+
+        return detect(new CompactGraph<Integer>(g));
+    }
+
+    /**
+     * Cycle detection on a compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @return True if the graph contains a cycle.
+     */
+    public static boolean detect(CompactGraph<?> g) {
+        if (g == null)
             return false;
 
-        // Select the zero-ith element as the root
-        Graph.Vertex<Integer> root = verticies.get(0);
-        return depthFirstSearch(root);
+        if (g.getType() == Graph.TYPE.DIRECTED)
+            return detectDirected(g);
+        return detectUndirected(g);
     }
 
-    private static final boolean depthFirstSearch(Graph.Vertex<Integer> vertex) {
-        if (!visitedVerticies.contains(vertex)) {
-            // Not visited
-            visitedVerticies.add(vertex);
-
-            List<Graph.Edge<Integer>> edges = vertex.getEdges();
-            if (edges != null) {
-                for (Graph.Edge<Integer> edge : edges) {
-                    Graph.Vertex<Integer> to = edge.getToVertex();
-                    boolean result = false;
-                    if (to != null && !visitedEdges.contains(edge)) {
-                        visitedEdges.add(edge);
-                        Graph.Edge<Integer> recip = new Graph.Edge<Integer>(edge.getCost(), edge.getToVertex(),
-                                edge.getFromVertex());
-                        visitedEdges.add(recip);
-                        result = depthFirstSearch(to);
-                    }
-                    if (result == true)
-                        return result;
+    private static boolean detectDirected(CompactGraph<?> g) {
+        int n = g.getNumberOfVerticies();
+        for (int v = 0; v < n; v++) {
+            for (int e = g.getEdgeStart(v), last = g.getEdgeEnd(v); e < last; e++) {
+                if (g.getTarget(e) == v)
+                    return true;
+            }
+        }
+
+        int[] components = StronglyConnectedComponents.getComponents(g);
+        boolean[] seen = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            if (seen[components[v]])
+                return true;
+            seen[components[v]] = true;
+        }
+        return false;
+    }
+
+    private static boolean detectUndirected(CompactGraph<?> g) {
+        int n = g.getNumberOfVerticies();
+        boolean[] visited = new boolean[n];
+        int[] parent = new int[n];
+
+        // The search's own call stack of verticies with the next edge each one
+        // will follow, and whether the edge back to its parent was skipped.
+        int[] calls = new int[n];
+        int[] nextEdge = new int[n];
+        boolean[] skippedParent = new boolean[n];
+        int depth = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (visited[root])
+                continue;
+
+            visited[root] = true;
+            parent[root] = -1;
+            calls[depth] = root;
+            nextEdge[depth] = g.getEdgeStart(root);
+            skippedParent[depth++] = false;
+            while (depth > 0) {
+                int v = calls[depth - 1];
+                int e = nextEdge[depth - 1];
+                if (e == g.getEdgeEnd(v)) {
+                    depth--;
+                    continue;
+                }
+                nextEdge[depth - 1]++;
+
+                int w = g.getTarget(e);
+                // Each edge is stored both ways, one way back is the edge
+                // which was just followed. A second one is a parallel edge.
+                if (w == parent[v] && !skippedParent[depth - 1]) {
+                    skippedParent[depth - 1] = true;
+                    continue;
                 }
+                if (visited[w])
+                    return true;
+
+                visited[w] = true;
+                parent[w] = v;
+                calls[depth] = w;
+                nextEdge[depth] = g.getEdgeStart(w);
+                skippedParent[depth++] = false;
             }
-        } else {
-            // visited
-            return true;
         }
         return false;
     }
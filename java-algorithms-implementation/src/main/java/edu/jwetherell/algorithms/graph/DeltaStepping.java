@@ -0,0 +1,310 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Delta-stepping single source shortest paths. Verticies are kept in buckets
+ * of width delta by their tentative cost. The lowest bucket is emptied by
+ * relaxing its light edges (cost <= delta) until no vertex falls back into it,
+ * then the heavy edges of every vertex removed from it are relaxed once. All
+ * verticies of a bucket are relaxed in parallel, costs are lowered with a
+ * compare-and-set so the workers need no locks. Only works on non-negative
+ * path weights.
+ *
+ * http://en.wikipedia.org/wiki/Parallel_single-source_shortest_path_algorithm#Delta_stepping_algorithm
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class DeltaStepping {
+
+    // Frontiers smaller than this are relaxed on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private static final long UNREACHED = pack(Integer.MAX_VALUE, -1);
+
+    private DeltaStepping() { }
+
+    /**
+     * Delta-stepping shortest paths with delta set to the average edge cost.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @param executor
+     *            runs the bucket relaxations.
+     * @param parallelism
+     *            number of tasks each relaxation is split into.
+     * @return map of vertex to its cost and path.
+     */
+    public static Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> getShortestPaths(Graph<Integer> g, Graph.Vertex<Integer> start, ExecutorService executor, int parallelism) {
+        return getShortestPathTree(g, start, 0, executor, parallelism).toMap();
+    }
+
+    /**
+     * Delta-stepping shortest paths.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @param delta
+     *            bucket width, zero to use the average edge cost.
+     * @param executor
+     *            runs the bucket relaxations.
+     * @param parallelism
+     *            number of tasks each relaxation is split into.
+     * @return map of vertex to its cost and path.
+     */
+    public static Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> getShortestPaths(Graph<Integer> g, Graph.Vertex<Integer> start, int delta, ExecutorService executor, int parallelism) {
+        return getShortestPathTree(g, start, delta, executor, parallelism).toMap();
+    }
+
+    /**
+     * Delta-stepping shortest paths, the paths are only built when asked for.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @param delta
+     *            bucket width, zero to use the average edge cost.
+     * @param executor
+     *            runs the bucket relaxations.
+     * @param parallelism
+     *            number of tasks each relaxation is split into.
+     * @return shortest path tree rooted at start.
+     */
+    public static ShortestPathTree<Integer> getShortestPathTree(Graph<Integer> g, Graph.Vertex<Integer> start, int delta, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int index = compact.indexOf(start);
+        if (index < 0)
+            throw (new IllegalArgumentException("Start vertex is not in the graph."));
+
+        AtomicLongArray costs = search(compact, index, delta, executor, parallelism);
+
+        Map<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>> costMap = new TreeMap<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>>();
+        Map<Graph.Vertex<Integer>, Graph.Edge<Integer>> previous = new TreeMap<Graph.Vertex<Integer>, Graph.Edge<Integer>>();
+        for (int v = 0; v < compact.getNumberOfVerticies(); v++) {
+            long packed = costs.get(v);
+            Graph.Vertex<Integer> vertex = compact.getVertex(v);
+            costMap.put(vertex, new Graph.CostVertexPair<Integer>(costOf(packed), vertex));
+            int edge = edgeOf(packed);
+            if (edge >= 0)
+                previous.put(vertex, compact.getEdge(edge));
+        }
+        return (new ShortestPathTree<Integer>(compact.getVertex(index), costMap, previous));
+    }
+
+    /**
+     * Delta-stepping shortest paths on a compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param delta
+     *            bucket width, zero to use the average edge cost.
+     * @param executor
+     *            runs the bucket relaxations.
+     * @param parallelism
+     *            number of tasks each relaxation is split into.
+     * @return cost from start to every vertex, Integer.MAX_VALUE if unreachable.
+     */
+    public static int[] getShortestPaths(CompactGraph<?> g, int start, int delta, ExecutorService executor, int parallelism) {
+        AtomicLongArray costs = search(g, start, delta, executor, parallelism);
+        int[] result = new int[costs.length()];
+        for (int v = 0; v < result.length; v++) {
+            result[v] = costOf(costs.get(v));
+        }
+        return result;
+    }
+
+    /**
+     * @return cost and last edge of the shortest path to each vertex, packed
+     *         with the cost in the high bits so comparing the longs compares
+     *         the costs.
+     */
+    private static AtomicLongArray search(CompactGraph<?> g, int start, int delta, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+        if (executor == null)
+            throw (new NullPointerException("Executor must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+        if (delta < 0 || parallelism < 1)
+            throw (new IllegalArgumentException("Delta must be non-negative and parallelism positive."));
+
+        // Delta-stepping only works on positive cost graphs
+        long total = 0;
+        for (int e = 0; e < g.getNumberOfEdges(); e++) {
+            int cost = g.getCost(e);
+            if (cost < 0)
+                throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
+            total += cost;
+        }
+        if (delta == 0)
+            delta = (int) Math.max(1, total / Math.max(1, g.getNumberOfEdges()));
+
+        AtomicLongArray costs = new AtomicLongArray(n);
+        for (int v = 0; v < n; v++) {
+            costs.set(v, UNREACHED);
+        }
+        costs.set(start, pack(0, -1));
+
+        // A vertex can sit in an old bucket after it moved to a lower one, the
+        // stamps drop those copies and duplicates within a bucket.
+        int[] stamps = new int[n];
+        int phase = 0;
+        TreeMap<Integer, IntList> buckets = new TreeMap<Integer, IntList>();
+        IntList first = new IntList();
+        first.add(start);
+        buckets.put(0, first);
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Integer, IntList> entry = buckets.pollFirstEntry();
+            int bucket = entry.getKey();
+            IntList frontier = entry.getValue();
+            IntList removed = new IntList();
+
+            // Light edges can put verticies back into this bucket
+            while (frontier.size() > 0) {
+                phase++;
+                IntList current = new IntList();
+                for (int i = 0; i < frontier.size(); i++) {
+                    int v = frontier.get(i);
+                    if (stamps[v] == phase || costOf(costs.get(v)) / delta != bucket)
+                        continue;
+                    stamps[v] = phase;
+                    current.add(v);
+                    removed.add(v);
+                }
+                IntList reached = relax(g, costs, current, delta, true, executor, parallelism);
+                frontier = distribute(costs, reached, buckets, bucket, delta);
+            }
+
+            // Heavy edges always land in a later bucket
+            IntList reached = relax(g, costs, removed, delta, false, executor, parallelism);
+            distribute(costs, reached, buckets, bucket, delta);
+        }
+        return costs;
+    }
+
+    /**
+     * Put each reached vertex in the bucket for its cost.
+     *
+     * @return verticies which fell into the current bucket.
+     */
+    private static IntList distribute(AtomicLongArray costs, IntList reached, TreeMap<Integer, IntList> buckets, int current, int delta) {
+        IntList same = new IntList();
+        for (int i = 0; i < reached.size(); i++) {
+            int v = reached.get(i);
+            int bucket = costOf(costs.get(v)) / delta;
+            if (bucket == current) {
+                same.add(v);
+                continue;
+            }
+            IntList list = buckets.get(bucket);
+            if (list == null) {
+                list = new IntList();
+                buckets.put(bucket, list);
+            }
+            list.add(v);
+        }
+        return same;
+    }
+
+    /**
+     * Relax the light or heavy edges of the verticies, split across the
+     * executor when there are enough of them.
+     *
+     * @return verticies whose cost was lowered.
+     */
+    private static IntList relax(final CompactGraph<?> g, final AtomicLongArray costs, final IntList verticies, final int delta, final boolean light,
+                                 ExecutorService executor, int parallelism) {
+        int size = verticies.size();
+        if (parallelism == 1 || size < SEQUENTIAL_THRESHOLD)
+            return relax(g, costs, verticies, 0, size, delta, light);
+
+        int chunk = (size + parallelism - 1) / parallelism;
+        List<Callable<IntList>> tasks = new ArrayList<Callable<IntList>>(parallelism);
+        for (int from = 0; from < size; from += chunk) {
+            final int start = from;
+            final int end = Math.min(size, from + chunk);
+            tasks.add(new Callable<IntList>() {
+                @Override
+                public IntList call() {
+                    return relax(g, costs, verticies, start, end, delta, light);
+                }
+            });
+        }
+
+        IntList reached = new IntList();
+        try {
+            for (Future<IntList> future : executor.invokeAll(tasks)) {
+                reached.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while relaxing edges.", e));
+        } catch (ExecutionException e) {
+            throw (new IllegalStateException("Relaxing edges failed.", e.getCause()));
+        }
+        return reached;
+    }
+
+    private static IntList relax(CompactGraph<?> g, AtomicLongArray costs, IntList verticies, int from, int to, int delta, boolean light) {
+        IntList reached = new IntList();
+        for (int i = from; i < to; i++) {
+            int vertex = verticies.get(i);
+            int lowestCostToThisVertex = costOf(costs.get(vertex));
+            for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                int cost = g.getCost(e);
+                if ((cost <= delta) != light)
+                    continue;
+
+                int target = g.getTarget(e);
+                long packed = pack(lowestCostToThisVertex + cost, e);
+                while (true) {
+                    long current = costs.get(target);
+                    if (costOf(current) <= costOf(packed))
+                        break;
+                    if (costs.compareAndSet(target, current, packed)) {
+                        // Found a shorter path to a reachable vertex
+                        reached.add(target);
+                        break;
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static long pack(int cost, int edge) {
+        return (((long) cost) << 32) | (edge & 0xFFFFFFFFL);
+    }
+
+    private static int costOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int edgeOf(long packed) {
+        return (int) packed;
+    }
+}
@@ -1,51 +1,74 @@
 package edu.jwetherell.algorithms.graph;
 
-import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.Set;
 import java.util.TreeMap;
 
+import edu.jwetherell.algorithms.dataStructures.BinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
+import edu.jwetherell.algorithms.dataStructures.IndexedBinaryHeap;
 
 /**
  * Dijkstra's shortest path. Only works on non-negative path weights. Returns a
  * tuple of total cost of shortest path and the path.
  * 
- * Worst case: O(|E| + |V| log |V|)
+ * Worst case: O((|E| + |V|) log |V|)
  * 
  * @author Justin Wetherell <phishman3579@gmail.com>
  */
 public class Dijkstra {
 
     private static Map<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>> costs = null;
-    private static Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>> paths = null;
-    private static Queue<Graph.CostVertexPair<Integer>> unvisited = null;
+    private static Map<Graph.Vertex<Integer>, Graph.Edge<Integer>> previous = null;
+    private static IndexedBinaryHeap<Graph.CostVertexPair<Integer>> unvisited = null;
+
+    // Forward and backward search state of the bidirectional search
+    private static final ThreadLocal<SearchState[]> states = new ThreadLocal<SearchState[]>() {
+        @Override
+        protected SearchState[] initialValue() {
+            return new SearchState[] { new SearchState(), new SearchState() };
+        }
+    };
 
     private Dijkstra() { }
 
     public static Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> getShortestPaths(Graph<Integer> g, Graph.Vertex<Integer> start) {
-        getShortestPath(g, start, null);
-        Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> map = new HashMap<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>>();
-        for (Graph.CostVertexPair<Integer> pair : costs.values()) {
-            int cost = pair.getCost();
-            Graph.Vertex<Integer> vertex = pair.getVertex();
-            Set<Graph.Edge<Integer>> path = paths.get(vertex);
-            map.put(vertex, new Graph.CostPathPair<Integer>(cost, path));
-        }
-        return map;
+        return getShortestPathTree(g, start).toMap();
+    }
+
+    /**
+     * Dijkstra's shortest paths from start to every vertex, the paths are only
+     * built when asked for.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            vertex to start from.
+     * @return shortest path tree rooted at start.
+     */
+    public static ShortestPathTree<Integer> getShortestPathTree(Graph<Integer> g, Graph.Vertex<Integer> start) {
+        search(g, start, null);
+        return (new ShortestPathTree<Integer>(start, costs, previous));
     }
 
     public static Graph.CostPathPair<Integer> getShortestPath(Graph<Integer> g, Graph.Vertex<Integer> start, Graph.Vertex<Integer> end) {
+        search(g, start, end);
+        if (end != null)
+            return (new ShortestPathTree<Integer>(start, costs, previous)).getCostPathPair(end);
+        return null;
+    }
+
+    private static void search(Graph<Integer> g, Graph.Vertex<Integer> start, Graph.Vertex<Integer> end) {
         if (g == null)
             throw (new NullPointerException("Graph must be non-NULL."));
 
         // Reset variables
         costs = null;
-        paths = null;
+        previous = null;
         unvisited = null;
 
         // Dijkstra's algorithm only works on positive cost graphs
@@ -53,10 +76,9 @@ public class Dijkstra {
         if (hasNegativeEdge)
             throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
 
-        paths = new TreeMap<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>();
-        for (Graph.Vertex<Integer> v : g.getVerticies()) {
-            paths.put(v, new LinkedHashSet<Graph.Edge<Integer>>());
-        }
+        // Only the last edge of each shortest path is kept, the paths are
+        // rebuilt from them on demand.
+        previous = new TreeMap<Graph.Vertex<Integer>, Graph.Edge<Integer>>();
 
         costs = new TreeMap<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>>();
         for (Graph.Vertex<Integer> v : g.getVerticies()) {
@@ -66,59 +88,221 @@ public class Dijkstra {
                 costs.put(v, new Graph.CostVertexPair<Integer>(Integer.MAX_VALUE, v));
         }
 
-        unvisited = new PriorityQueue<Graph.CostVertexPair<Integer>>();
-        unvisited.addAll(costs.values()); // Shallow copy
+        // Only reached verticies are queued, their position in the heap is
+        // tracked so a cheaper path can move them forward in O(log n).
+        unvisited = new IndexedBinaryHeap<Graph.CostVertexPair<Integer>>(BinaryHeap.Type.MIN);
+        unvisited.add(costs.get(start));
+
+        while (unvisited.size() > 0) {
+            Graph.CostVertexPair<Integer> lowestCostToThisVertex = unvisited.removeHead();
+            Graph.Vertex<Integer> vertex = lowestCostToThisVertex.getVertex();
+
+            // If we are looking for shortest path, we found it.
+            if (end != null && vertex.equals(end))
+                break;
 
-        Graph.Vertex<Integer> vertex = start;
-        while (true) {
             // Compute costs from current vertex to all reachable vertices which
             // haven't been visited
             for (Graph.Edge<Integer> e : vertex.getEdges()) {
                 Graph.CostVertexPair<Integer> pair = costs.get(e.getToVertex());
-                Graph.CostVertexPair<Integer> lowestCostToThisVertex = costs.get(vertex);
                 int cost = lowestCostToThisVertex.getCost() + e.getCost();
-                if (pair.getCost() == Integer.MAX_VALUE) {
-                    // Haven't seen this vertex yet
-                    pair.setCost(cost);
-                    Set<Graph.Edge<Integer>> set = paths.get(e.getToVertex());
-                    set.addAll(paths.get(e.getFromVertex()));
-                    set.add(e);
-                } else if (cost < pair.getCost()) {
+                if (cost < pair.getCost()) {
                     // Found a shorter path to a reachable vertex
+                    boolean seen = (pair.getCost() != Integer.MAX_VALUE);
                     pair.setCost(cost);
-                    Set<Graph.Edge<Integer>> set = paths.get(e.getToVertex());
-                    set.clear();
-                    set.addAll(paths.get(e.getFromVertex()));
-                    set.add(e);
+                    previous.put(e.getToVertex(), e);
+                    if (seen)
+                        unvisited.decreaseKey(pair);
+                    else
+                        unvisited.add(pair);
                 }
             }
+        }
+    }
+
+    /**
+     * Dijkstra's shortest paths on a compact graph.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @return cost from start to every vertex, Integer.MAX_VALUE if unreachable.
+     */
+    public static int[] getShortestPaths(CompactGraph<?> g, int start) {
+        int[] previous = new int[g.getNumberOfVerticies()];
+        return getShortestPaths(g, start, -1, previous);
+    }
+
+    /**
+     * Dijkstra's shortest path on a compact graph.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param end
+     *            index of the ending vertex.
+     * @return cost and vertex indices of the shortest path or NULL if end is
+     *         unreachable.
+     */
+    public static CompactGraph.CostPathPair getShortestPath(CompactGraph<?> g, int start, int end) {
+        int[] previous = new int[g.getNumberOfVerticies()];
+        int[] dist = getShortestPaths(g, start, end, previous);
+        if (dist[end] == Integer.MAX_VALUE)
+            return null;
+        return (new CompactGraph.CostPathPair(dist[end], toPath(previous, start, end)));
+    }
 
-            // Termination conditions
-            if (end != null && vertex.equals(end)) {
-                // If we are looking for shortest path, we found it.
+    private static int[] getShortestPaths(CompactGraph<?> g, int start, int end, int[] previous) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n || end >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        // Dijkstra's algorithm only works on positive cost graphs
+        for (int e = 0; e < g.getNumberOfEdges(); e++) {
+            if (g.getCost(e) < 0)
+                throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
+        }
+
+        int[] dist = new int[n];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        boolean[] visited = new boolean[n];
+        dist[start] = 0;
+
+        // Lazy deletion, each entry packs the cost in the high bits and the
+        // vertex in the low bits so stale entries are skipped when removed.
+        Queue<Long> unvisited = new PriorityQueue<Long>();
+        unvisited.add(pack(0, start));
+        while (unvisited.size() > 0) {
+            int vertex = (int) unvisited.remove().longValue();
+            if (visited[vertex])
+                continue;
+            visited[vertex] = true;
+            if (vertex == end)
                 break;
-            } else if (unvisited.size() > 0) {
-                // If there are other vertices to visit (which haven't been
-                // visited yet)
-                Graph.CostVertexPair<Integer> pair = unvisited.remove();
-                vertex = pair.getVertex();
-                if (pair.getCost() == Integer.MAX_VALUE) {
-                    // If the only edge left to explore has MAX_VALUE then it
-                    // cannot be reached from the starting vertex
-                    break;
+
+            int lowestCostToThisVertex = dist[vertex];
+            for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                int to = g.getTarget(e);
+                int cost = lowestCostToThisVertex + g.getCost(e);
+                if (!visited[to] && cost < dist[to]) {
+                    // Found a shorter path to a reachable vertex
+                    dist[to] = cost;
+                    previous[to] = vertex;
+                    unvisited.add(pack(cost, to));
                 }
-            } else {
-                // No more edges to explore, we are done.
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Bidirectional Dijkstra's shortest path on a compact graph. Searches
+     * forward from start and backward from end, always growing the side with
+     * the cheaper frontier, and stops once the two frontiers together cost
+     * more than the best path through a vertex both have reached. It usually
+     * settles far fewer verticies than a one sided search.
+     * 
+     * The search state is kept per thread and reused, so a query only touches
+     * the verticies it reaches. Edge costs are not checked per query and must
+     * be non-negative.
+     * 
+     * @param g
+     *            graph to search.
+     * @param start
+     *            index of the starting vertex.
+     * @param end
+     *            index of the ending vertex.
+     * @return cost and vertex indices of the shortest path or NULL if end is
+     *         unreachable.
+     */
+    public static CompactGraph.CostPathPair getShortestPathBidirectional(CompactGraph<?> g, int start, int end) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n || end < 0 || end >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        if (start == end)
+            return (new CompactGraph.CostPathPair(0, new int[] { start }));
+
+        CompactGraph<?> reverse = g.transpose();
+        SearchState[] pair = states.get();
+        SearchState forward = pair[0];
+        SearchState backward = pair[1];
+        forward.reset(n);
+        backward.reset(n);
+        forward.update(start, 0, 0, -1);
+        backward.update(end, 0, 0, -1);
+
+        long best = Long.MAX_VALUE;
+        int meet = -1;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            // Neither frontier can improve on the best meeting point
+            if ((long) forward.peekKey() + backward.peekKey() >= best)
                 break;
+
+            boolean isForward = (forward.peekKey() <= backward.peekKey());
+            SearchState state = (isForward) ? forward : backward;
+            SearchState other = (isForward) ? backward : forward;
+            CompactGraph<?> graph = (isForward) ? g : reverse;
+
+            int vertex = state.poll();
+            int lowestCostToThisVertex = state.getCost(vertex);
+            for (int e = graph.getEdgeStart(vertex), last = graph.getEdgeEnd(vertex); e < last; e++) {
+                int to = graph.getTarget(e);
+                int cost = lowestCostToThisVertex + graph.getCost(e);
+                if (cost < state.getCost(to))
+                    state.update(to, cost, cost, vertex);
+                if (other.isReached(to)) {
+                    long total = (long) state.getCost(to) + other.getCost(to);
+                    if (total < best) {
+                        best = total;
+                        meet = to;
+                    }
+                }
             }
         }
+        if (meet < 0)
+            return null;
 
-        if (end != null) {
-            Graph.CostVertexPair<Integer> pair = costs.get(end);
-            Set<Graph.Edge<Integer>> set = paths.get(end);
-            return (new Graph.CostPathPair<Integer>(pair.getCost(), set));
+        // Forward half ends at the meeting vertex, the backward predecessors
+        // lead from there to end.
+        int[] half = forward.getPath(meet);
+        int length = half.length;
+        for (int v = meet; v != end; v = backward.getPrevious(v)) {
+            length++;
         }
-        return null;
+        int[] path = Arrays.copyOf(half, length);
+        for (int v = backward.getPrevious(meet), i = half.length; i < length; v = backward.getPrevious(v), i++) {
+            path[i] = v;
+        }
+        return (new CompactGraph.CostPathPair((int) best, path));
+    }
+
+    private static long pack(int cost, int vertex) {
+        return (((long) cost) << 32) | (vertex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Walk the predecessor array back from end to start.
+     */
+    static int[] toPath(int[] previous, int start, int end) {
+        int length = 1;
+        for (int v = end; v != start; v = previous[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = end, i = length - 1; i >= 0; v = previous[v], i--) {
+            path[i] = v;
+        }
+        return path;
     }
 
     private static boolean checkForNegativeEdges(List<Graph.Vertex<Integer>> vertitices) {
@@ -0,0 +1,170 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.Arrays;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Dinic's maximum flow. The cost of each edge is its capacity. A breadth first
+ * search from the source levels the residual network, then a blocking flow is
+ * pushed along arcs which go exactly one level further until the sink can't be
+ * reached. Each vertex remembers the arc it got stuck on so the blocking flow
+ * never retries a dead arc, and the depth first search keeps its own stack.
+ * Every phase costs a search of the whole network and the number of phases
+ * grows with the length of the augmenting paths, so on long networks like
+ * grids PushRelabel is usually faster.
+ *
+ * http://en.wikipedia.org/wiki/Dinic's_algorithm
+ *
+ * Worst case: O(V^2 * E)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class Dinic {
+
+    private Dinic() { }
+
+    /**
+     * Dinic's maximum flow from source to sink.
+     *
+     * @param g
+     *            graph whose edge costs are capacities.
+     * @param source
+     *            vertex the flow leaves.
+     * @param sink
+     *            vertex the flow enters.
+     * @return value of the maximum flow.
+     */
+    public static long getMaximumFlow(Graph<Integer> g, Graph.Vertex<Integer> source, Graph.Vertex<Integer> sink) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        return getMaximumFlow(compact, compact.indexOf(source), compact.indexOf(sink), null);
+    }
+
+    /**
+     * Dinic's maximum flow on a compact graph.
+     *
+     * @param g
+     *            graph whose edge costs are capacities.
+     * @param source
+     *            index of the vertex the flow leaves.
+     * @param sink
+     *            index of the vertex the flow enters.
+     * @param flows
+     *            receives the flow on each edge index, NULL if not needed.
+     * @return value of the maximum flow.
+     */
+    public static long getMaximumFlow(CompactGraph<?> g, int source, int sink, int[] flows) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+        if (source == sink)
+            throw (new IllegalArgumentException("Source and sink must differ."));
+
+        ResidualGraph r = new ResidualGraph(g);
+        int[] levels = new int[n];
+        int[] queue = new int[n];
+        int[] current = new int[n];
+        int[] path = new int[n];
+
+        long flow = 0;
+        while (level(r, source, sink, levels, queue)) {
+            System.arraycopy(r.offsets, 0, current, 0, n);
+            flow += block(r, source, sink, levels, current, path);
+        }
+
+        if (flows != null)
+            r.getFlows(flows);
+        return flow;
+    }
+
+    /**
+     * Level each vertex by its distance from the source in the residual
+     * network.
+     *
+     * @return True if the sink is reachable.
+     */
+    private static boolean level(ResidualGraph r, int source, int sink, int[] levels, int[] queue) {
+        Arrays.fill(levels, -1);
+        levels[source] = 0;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int a = r.offsets[u], last = r.offsets[u + 1]; a < last; a++) {
+                int v = r.targets[a];
+                if (levels[v] < 0 && r.capacities[a] > 0) {
+                    levels[v] = levels[u] + 1;
+                    // Verticies past the sink's level can't be on a shortest path
+                    if (v == sink)
+                        return true;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Push flow along level increasing paths until none is left.
+     *
+     * @return flow pushed.
+     */
+    private static long block(ResidualGraph r, int source, int sink, int[] levels, int[] current, int[] path) {
+        int sinkLevel = levels[sink];
+        long flow = 0;
+        int depth = 0;
+        int u = source;
+        while (true) {
+            if (u == sink) {
+                int bottleneck = Integer.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    bottleneck = Math.min(bottleneck, r.capacities[path[i]]);
+                }
+                // Retreat to the tail of the first arc this saturates
+                int saturated = -1;
+                for (int i = 0; i < depth; i++) {
+                    int a = path[i];
+                    r.capacities[a] -= bottleneck;
+                    r.capacities[r.partners[a]] += bottleneck;
+                    if (saturated < 0 && r.capacities[a] == 0)
+                        saturated = i;
+                }
+                flow += bottleneck;
+                depth = saturated;
+                u = (depth == 0) ? source : r.targets[path[depth - 1]];
+                continue;
+            }
+
+            int a = current[u];
+            int last = r.offsets[u + 1];
+            while (a < last) {
+                int v = r.targets[a];
+                if (r.capacities[a] > 0 && levels[v] == levels[u] + 1 && (levels[v] < sinkLevel || v == sink))
+                    break;
+                a++;
+            }
+            current[u] = a;
+
+            if (a < last) {
+                path[depth++] = a;
+                u = r.targets[a];
+                continue;
+            }
+
+            // Dead end, nothing more gets through u in this phase
+            levels[u] = -1;
+            if (depth == 0)
+                return flow;
+            u = r.targets[r.partners[path[--depth]]];
+            current[u]++;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * All pairs shortest path costs in one flat row-major int array, the cost from
+ * vertex i to vertex j is at i*size+j. Verticies are addressed by index, the
+ * vertex objects are kept when the matrix was built from a Graph so results
+ * can be mapped back. A matrix mapped from a Snapshot file reads the costs
+ * straight out of the file instead of an array.
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class DistanceMatrix<T extends Comparable<T>> {
+
+    /** Cost of a path which doesn't exist */
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    // Costs per region of a mapped matrix
+    static final int REGION_SHIFT = 28;
+    static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+
+    private int size = 0;
+    private int[] distances = null;
+    private IntBuffer[] regions = null;
+    private List<Graph.Vertex<T>> verticies = null;
+    private Map<Graph.Vertex<T>, Integer> indices = null;
+
+    /**
+     * @param size
+     *            number of verticies.
+     * @param distances
+     *            row-major size*size costs, INFINITY where there is no path.
+     */
+    public DistanceMatrix(int size, int[] distances) {
+        if (distances == null)
+            throw (new NullPointerException("Distances must be non-NULL."));
+        if (size < 0 || (long) size * size != distances.length)
+            throw (new IllegalArgumentException("Distances must hold size*size costs."));
+
+        this.size = size;
+        this.distances = distances;
+    }
+
+    /**
+     * @param verticies
+     *            vertex of each index.
+     * @param distances
+     *            row-major costs, INFINITY where there is no path.
+     */
+    public DistanceMatrix(List<Graph.Vertex<T>> verticies, int[] distances) {
+        this((verticies != null) ? verticies.size() : 0, distances);
+        setVerticies(verticies);
+    }
+
+    /**
+     * Read-only matrix over the mapped regions of a file.
+     *
+     * @param size
+     *            number of verticies.
+     * @param regions
+     *            row-major costs, 1 << REGION_SHIFT per region.
+     * @param verticies
+     *            vertex of each index, NULL if not built from a Graph.
+     */
+    DistanceMatrix(int size, IntBuffer[] regions, List<Graph.Vertex<T>> verticies) {
+        this.size = size;
+        this.regions = regions;
+        if (verticies != null)
+            setVerticies(verticies);
+    }
+
+    private void setVerticies(List<Graph.Vertex<T>> verticies) {
+        this.verticies = new ArrayList<Graph.Vertex<T>>(verticies);
+        this.indices = new HashMap<Graph.Vertex<T>, Integer>();
+        for (int i = 0; i < size; i++) {
+            indices.put(this.verticies.get(i), i);
+        }
+    }
+
+    /**
+     * @return number of verticies.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cost of the shortest path.
+     *
+     * @param from
+     *            index of the first vertex.
+     * @param to
+     *            index of the last vertex.
+     * @return cost or INFINITY if there is no path.
+     */
+    public int get(int from, int to) {
+        if (distances != null)
+            return distances[from * size + to];
+        long index = (long) from * size + to;
+        return regions[(int) (index >>> REGION_SHIFT)].get((int) (index & REGION_MASK));
+    }
+
+    /**
+     * @return costs of an in memory matrix, NULL if mapped from a file.
+     */
+    int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Cost of the shortest path, only available when built from a Graph.
+     *
+     * @param from
+     *            first vertex.
+     * @param to
+     *            last vertex.
+     * @return cost or INFINITY if there is no path or either vertex is unknown.
+     */
+    public int get(Graph.Vertex<T> from, Graph.Vertex<T> to) {
+        int i = indexOf(from);
+        int j = indexOf(to);
+        if (i < 0 || j < 0)
+            return INFINITY;
+        return get(i, j);
+    }
+
+    /**
+     * Vertex object for the index, only available when built from a Graph.
+     *
+     * @return vertex or NULL if not built from a Graph.
+     */
+    public Graph.Vertex<T> getVertex(int index) {
+        if (verticies == null)
+            return null;
+        return verticies.get(index);
+    }
+
+    /**
+     * Index of the vertex, only available when built from a Graph.
+     *
+     * @return index or -1 if not found.
+     */
+    public int indexOf(Graph.Vertex<T> vertex) {
+        if (indices == null)
+            return -1;
+        Integer index = indices.get(vertex);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * Does the graph contain a negative weight cycle, one shows up as a
+     * vertex which can reach itself for less than nothing.
+     *
+     * @return True if a negative weight cycle exists.
+     */
+    public boolean containsNegativeWeightCycle() {
+        for (int i = 0; i < size; i++) {
+            if (get(i, i) < 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Convert to the nested map format of
+     * FloydWarshall.getAllPairsShortestPaths(), pairs without a path are left
+     * out. Only available when built from a Graph.
+     *
+     * @return map of from vertex to map of to vertex to cost.
+     */
+    public Map<Graph.Vertex<T>, Map<Graph.Vertex<T>, Integer>> toMap() {
+        if (verticies == null)
+            throw (new IllegalStateException("Matrix was not built from a Graph."));
+
+        Map<Graph.Vertex<T>, Map<Graph.Vertex<T>, Integer>> allShortestPaths = new HashMap<Graph.Vertex<T>, Map<Graph.Vertex<T>, Integer>>();
+        for (int i = 0; i < size; i++) {
+            Map<Graph.Vertex<T>, Integer> map = new HashMap<Graph.Vertex<T>, Integer>();
+            for (int j = 0; j < size; j++) {
+                int cost = get(i, j);
+                if (cost != INFINITY)
+                    map.put(verticies.get(j), cost);
+            }
+            allShortestPaths.put(verticies.get(i), map);
+        }
+        return allShortestPaths;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int cost = get(i, j);
+                builder.append((cost == INFINITY) ? "-" : String.valueOf(cost));
+                builder.append((j < size - 1) ? "\t" : "\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,316 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.jwetherell.algorithms.dataStructures.BinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+import edu.jwetherell.algorithms.dataStructures.IndexedBinaryHeap;
+
+/**
+ * Single source shortest paths which are kept up to date while the graph's
+ * edges change, in the style of Ramalingam and Reps. It listens to the graph
+ * and only repairs the part of the shortest path tree an update touches.
+ *
+ * A cheaper edge can only lower costs, so Dijkstra's search starts at its
+ * target and stops where the costs don't improve. A dearer or removed edge
+ * only matters if it is in the tree. Then the verticies below it are visited
+ * by their old cost and each keeps its cost if another edge from an unaffected
+ * vertex still gives it, otherwise it is affected and so are its children. The
+ * affected verticies are seeded with their cheapest edge from the rest of the
+ * tree and settled with Dijkstra's search.
+ *
+ * Only works on non-negative edge costs. Not thread safe, the graph must only
+ * be changed through Graph.addEdge(), removeEdge() and setEdgeCost().
+ *
+ * http://en.wikipedia.org/wiki/Dynamic_problem_(algorithms)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class DynamicShortestPaths<T extends Comparable<T>> implements Graph.EdgeListener<T> {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private Graph<T> graph = null;
+    private Graph.Vertex<T> source = null;
+    private Map<Graph.Vertex<T>, Graph.CostVertexPair<T>> costs = new HashMap<Graph.Vertex<T>, Graph.CostVertexPair<T>>();
+    private Map<Graph.Vertex<T>, Graph.Edge<T>> previous = new HashMap<Graph.Vertex<T>, Graph.Edge<T>>();
+    private Map<Graph.Vertex<T>, List<Graph.Edge<T>>> incoming = new HashMap<Graph.Vertex<T>, List<Graph.Edge<T>>>();
+    private IndexedBinaryHeap<Graph.CostVertexPair<T>> unvisited = new IndexedBinaryHeap<Graph.CostVertexPair<T>>(BinaryHeap.Type.MIN);
+
+    /**
+     * Compute the shortest paths from the source and start listening to the
+     * graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param source
+     *            vertex to start from.
+     */
+    public DynamicShortestPaths(Graph<T> g, Graph.Vertex<T> source) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+        if (source == null)
+            throw (new NullPointerException("Source must be non-NULL."));
+
+        this.graph = g;
+        this.source = source;
+
+        for (Graph.Vertex<T> v : g.getVerticies()) {
+            getPair(v);
+            for (Graph.Edge<T> e : v.getEdges()) {
+                if (e.getCost() < 0)
+                    throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
+                getIncoming(e.getToVertex()).add(e);
+            }
+        }
+
+        Graph.CostVertexPair<T> pair = getPair(source);
+        pair.setCost(0);
+        unvisited.add(pair);
+        settle();
+
+        g.addListener(this);
+    }
+
+    /**
+     * Stop listening to the graph, the paths are not updated anymore.
+     */
+    public void detach() {
+        graph.removeListener(this);
+    }
+
+    public Graph.Vertex<T> getSource() {
+        return source;
+    }
+
+    /**
+     * Cost of the shortest path from the source to the vertex.
+     *
+     * @param vertex
+     *            to find.
+     * @return cost of the path or Integer.MAX_VALUE if it cannot be reached.
+     */
+    public int getCost(Graph.Vertex<T> vertex) {
+        Graph.CostVertexPair<T> pair = costs.get(vertex);
+        if (pair == null)
+            return INFINITY;
+        return pair.getCost();
+    }
+
+    /**
+     * Cost and path from the source to the vertex.
+     *
+     * @param vertex
+     *            to find.
+     * @return cost and path or NULL if the vertex is not in the graph.
+     */
+    public Graph.CostPathPair<T> getShortestPath(Graph.Vertex<T> vertex) {
+        Graph.CostVertexPair<T> pair = costs.get(vertex);
+        if (pair == null)
+            return null;
+
+        // Only walks this vertex's path, no snapshot of the whole tree
+        List<Graph.Edge<T>> reversed = new ArrayList<Graph.Edge<T>>();
+        Graph.Edge<T> e = previous.get(vertex);
+        while (e != null) {
+            reversed.add(e);
+            e = previous.get(e.getFromVertex());
+        }
+
+        Set<Graph.Edge<T>> path = new LinkedHashSet<Graph.Edge<T>>();
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.add(reversed.get(i));
+        }
+        return (new Graph.CostPathPair<T>(pair.getCost(), path));
+    }
+
+    /**
+     * Cost and path of every vertex in the graph, the same result as
+     * Dijkstra.getShortestPaths().
+     *
+     * @return map of vertex to its cost and path.
+     */
+    public Map<Graph.Vertex<T>, Graph.CostPathPair<T>> getShortestPaths() {
+        return getShortestPathTree().toMap();
+    }
+
+    /**
+     * Snapshot of the current shortest path tree, it is not updated by later
+     * changes to the graph.
+     *
+     * @return shortest path tree rooted at the source.
+     */
+    public ShortestPathTree<T> getShortestPathTree() {
+        Map<Graph.Vertex<T>, Graph.CostVertexPair<T>> costMap = new HashMap<Graph.Vertex<T>, Graph.CostVertexPair<T>>();
+        for (Map.Entry<Graph.Vertex<T>, Graph.CostVertexPair<T>> entry : costs.entrySet()) {
+            costMap.put(entry.getKey(), new Graph.CostVertexPair<T>(entry.getValue().getCost(), entry.getKey()));
+        }
+        return (new ShortestPathTree<T>(source, costMap, new HashMap<Graph.Vertex<T>, Graph.Edge<T>>(previous)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void edgeAdded(Graph.Edge<T> e) {
+        if (e.getCost() < 0)
+            throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
+
+        getPair(e.getFromVertex());
+        getIncoming(e.getToVertex()).add(e);
+        if (relax(e))
+            settle();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void edgeRemoved(Graph.Edge<T> e) {
+        List<Graph.Edge<T>> list = getIncoming(e.getToVertex());
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == e) {
+                list.remove(i);
+                break;
+            }
+        }
+        if (previous.get(e.getToVertex()) == e)
+            repair(e.getToVertex());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void edgeCostChanged(Graph.Edge<T> e, int oldCost) {
+        if (e.getCost() < 0)
+            throw (new IllegalArgumentException("Negative cost Edges are not allowed."));
+
+        if (e.getCost() < oldCost) {
+            if (relax(e))
+                settle();
+        } else if (previous.get(e.getToVertex()) == e) {
+            repair(e.getToVertex());
+        }
+    }
+
+    /**
+     * Lower the cost of the edge's target if the edge gives a shorter path
+     * and queue it.
+     *
+     * @return True if the cost was lowered.
+     */
+    private boolean relax(Graph.Edge<T> e) {
+        int fromCost = getPair(e.getFromVertex()).getCost();
+        if (fromCost == INFINITY)
+            return false;
+
+        Graph.CostVertexPair<T> pair = getPair(e.getToVertex());
+        int cost = fromCost + e.getCost();
+        if (cost >= pair.getCost())
+            return false;
+
+        pair.setCost(cost);
+        previous.put(e.getToVertex(), e);
+        if (unvisited.contains(pair))
+            unvisited.decreaseKey(pair);
+        else
+            unvisited.add(pair);
+        return true;
+    }
+
+    /**
+     * Dijkstra's search over the queued verticies.
+     */
+    private void settle() {
+        while (unvisited.size() > 0) {
+            Graph.Vertex<T> vertex = unvisited.removeHead().getVertex();
+            for (Graph.Edge<T> e : vertex.getEdges()) {
+                relax(e);
+            }
+        }
+    }
+
+    /**
+     * The tree edge into the vertex got dearer or went away, find and
+     * recompute the verticies whose cost can't stay the same.
+     */
+    private void repair(Graph.Vertex<T> vertex) {
+        // Visit the sub-tree by old cost, a vertex is decided once every
+        // vertex with a lower cost is.
+        Set<Graph.Vertex<T>> affected = new HashSet<Graph.Vertex<T>>();
+        unvisited.add(getPair(vertex));
+        while (unvisited.size() > 0) {
+            Graph.CostVertexPair<T> pair = unvisited.removeHead();
+            Graph.Vertex<T> v = pair.getVertex();
+
+            Graph.Edge<T> alternative = null;
+            for (Graph.Edge<T> e : getIncoming(v)) {
+                Graph.Vertex<T> from = e.getFromVertex();
+                int fromCost = getPair(from).getCost();
+                // A strictly cheaper unaffected vertex can't be below v
+                if (fromCost < pair.getCost() && !affected.contains(from) && fromCost + e.getCost() == pair.getCost()) {
+                    alternative = e;
+                    break;
+                }
+            }
+            if (alternative != null) {
+                previous.put(v, alternative);
+                continue;
+            }
+
+            affected.add(v);
+            for (Graph.Edge<T> e : v.getEdges()) {
+                Graph.CostVertexPair<T> child = getPair(e.getToVertex());
+                if (previous.get(e.getToVertex()) == e && !unvisited.contains(child))
+                    unvisited.add(child);
+            }
+        }
+
+        for (Graph.Vertex<T> v : affected) {
+            getPair(v).setCost(INFINITY);
+            previous.remove(v);
+        }
+
+        // Seed each affected vertex with its cheapest edge from the rest
+        for (Graph.Vertex<T> v : affected) {
+            for (Graph.Edge<T> e : getIncoming(v)) {
+                if (!affected.contains(e.getFromVertex()))
+                    relax(e);
+            }
+        }
+        settle();
+    }
+
+    private Graph.CostVertexPair<T> getPair(Graph.Vertex<T> vertex) {
+        Graph.CostVertexPair<T> pair = costs.get(vertex);
+        if (pair == null) {
+            pair = new Graph.CostVertexPair<T>(INFINITY, vertex);
+            costs.put(vertex, pair);
+        }
+        return pair;
+    }
+
+    private List<Graph.Edge<T>> getIncoming(Graph.Vertex<T> vertex) {
+        List<Graph.Edge<T>> list = incoming.get(vertex);
+        if (list == null) {
+            list = new ArrayList<Graph.Edge<T>>();
+            incoming.put(vertex, list);
+        }
+        return list;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getShortestPathTree().toString();
+    }
+}
@@ -1,76 +1,227 @@
 package edu.jwetherell.algorithms.graph;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 
 /**
  * Floyd–Warshall algorithm is a graph analysis algorithm for finding shortest
  * paths in a weighted graph (with positive or negative edge weights).
- * 
+ *
+ * The costs live in one flat array which is processed in square tiles, so
+ * each pass over a tile stays in cache. For every block of intermediate
+ * verticies the diagonal tile is solved first, then the tiles in its row and
+ * column, then all the others. Tiles within the last two steps don't depend
+ * on each other and can be handed to an executor.
+ *
  * Worst case: O(V^3)
- * 
+ *
  * @author Justin Wetherell <phishman3579@gmail.com>
  */
 public class FloydWarshall {
 
+    private static final int INFINITY = DistanceMatrix.INFINITY;
+
+    // 64x64 ints is 16KB, three tiles fit in a typical L1/L2 cache
+    private static final int TILE_SIZE = 64;
+
     private FloydWarshall() {
     }
 
     public static Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Integer>> getAllPairsShortestPaths(
             Graph<Integer> g) {
-        Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Integer>> allShortestPaths = new HashMap<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Integer>>();
+        return getAllPairsShortestPathMatrix(g).toMap();
+    }
 
-        List<Graph.Vertex<Integer>> vertices = g.getVerticies();
-        int[][] sums = new int[vertices.size()][vertices.size()];
+    /**
+     * All pairs shortest path costs computed on the calling thread.
+     *
+     * @param g
+     *            graph to search.
+     * @return matrix of costs addressed by vertex index.
+     */
+    public static DistanceMatrix<Integer> getAllPairsShortestPathMatrix(Graph<Integer> g) {
+        return getAllPairsShortestPathMatrix(g, null, 1);
+    }
 
-        for (int i = 0; i < sums.length; i++) {
-            for (int j = 0; j < sums[i].length; j++) {
-                sums[i][j] = Integer.MAX_VALUE;
-            }
+    /**
+     * All pairs shortest path costs with the independent tiles of each step
+     * split across the executor.
+     *
+     * @param g
+     *            graph to search.
+     * @param executor
+     *            runs the tiles, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each step is split into.
+     * @return matrix of costs addressed by vertex index.
+     */
+    public static DistanceMatrix<Integer> getAllPairsShortestPathMatrix(Graph<Integer> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        return getAllPairsShortestPathMatrix(new CompactGraph<Integer>(g), executor, parallelism);
+    }
+
+    /**
+     * All pairs shortest path costs of a compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param executor
+     *            runs the tiles, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks each step is split into.
+     * @return matrix of costs addressed by vertex index, which also maps back
+     *         to the verticies if g was built from a Graph.
+     * @throws IllegalArgumentException
+     *             if the graph has more than 46340 verticies, the costs
+     *             wouldn't fit in one int array. Only a matrix mapped with
+     *             Snapshot.mapDistanceMatrix() can be that large.
+     */
+    public static <T extends Comparable<T>> DistanceMatrix<T> getAllPairsShortestPathMatrix(CompactGraph<T> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        int[] distances = getAllPairsShortestPathCosts(g, executor, parallelism);
+        if (n == 0 || g.getVertex(0) == null)
+            return (new DistanceMatrix<T>(n, distances));
+
+        List<Graph.Vertex<T>> verticies = new ArrayList<Graph.Vertex<T>>(n);
+        for (int i = 0; i < n; i++) {
+            verticies.add(g.getVertex(i));
         }
+        return (new DistanceMatrix<T>(verticies, distances));
+    }
 
-        List<Graph.Edge<Integer>> edges = g.getEdges();
-        for (Graph.Edge<Integer> e : edges) {
-            int indexOfFrom = vertices.indexOf(e.getFromVertex());
-            int indexOfTo = vertices.indexOf(e.getToVertex());
-            sums[indexOfFrom][indexOfTo] = e.getCost();
+    private static int[] getAllPairsShortestPathCosts(CompactGraph<?> g, ExecutorService executor, int parallelism) {
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        final int n = g.getNumberOfVerticies();
+        // The costs are one in memory array, n*n has to be a valid array length
+        if ((long) n * n > Integer.MAX_VALUE)
+            throw (new IllegalArgumentException("Graph has " + n + " verticies, at most 46340 fit in an in memory distance matrix."));
+        final int[] sums = new int[n * n];
+        Arrays.fill(sums, INFINITY);
+        for (int i = 0; i < n; i++) {
+            sums[i * n + i] = 0;
+            for (int e = g.getEdgeStart(i), last = g.getEdgeEnd(i); e < last; e++) {
+                int index = i * n + g.getTarget(e);
+                if (g.getCost(e) < sums[index])
+                    sums[index] = g.getCost(e);
+            }
         }
 
-        for (int k = 0; k < vertices.size(); k++) {
-            for (int i = 0; i < vertices.size(); i++) {
-                for (int j = 0; j < vertices.size(); j++) {
-                    if (i == j) {
-                        sums[i][j] = 0;
-                    } else {
-                        int ijCost = sums[i][j];
-                        int ikCost = sums[i][k];
-                        int kjCost = sums[k][j];
-                        int summed = (ikCost != Integer.MAX_VALUE && kjCost != Integer.MAX_VALUE) ? (ikCost + kjCost)
-                                : Integer.MAX_VALUE;
-                        if (ijCost > summed)
-                            sums[i][j] = summed;
+        final int tiles = (n + TILE_SIZE - 1) / TILE_SIZE;
+        for (int k = 0; k < tiles; k++) {
+            final int kTile = k;
+
+            // Diagonal tile depends only on itself
+            relax(sums, n, kTile, kTile, kTile);
+
+            // Row and column tiles depend on the diagonal tile
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(parallelism);
+            for (int p = 0; p < parallelism; p++) {
+                final int part = p;
+                final int parts = parallelism;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int t = part; t < tiles; t += parts) {
+                            if (t == kTile) continue;
+                            relax(sums, n, kTile, t, kTile);
+                            relax(sums, n, t, kTile, kTile);
+                        }
+                        return null;
+                    }
+                });
+            }
+            run(tasks, executor);
+
+            // The rest depend on their row and column tiles
+            tasks.clear();
+            for (int p = 0; p < parallelism; p++) {
+                final int part = p;
+                final int parts = parallelism;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = part; i < tiles; i += parts) {
+                            if (i == kTile) continue;
+                            for (int j = 0; j < tiles; j++) {
+                                if (j == kTile) continue;
+                                relax(sums, n, i, j, kTile);
+                            }
+                        }
+                        return null;
                     }
+                });
+            }
+            run(tasks, executor);
+        }
+
+        return sums;
+    }
+
+    /**
+     * Relax the tile at (iTile, jTile) through every intermediate vertex of
+     * kTile.
+     */
+    private static void relax(int[] sums, int n, int iTile, int jTile, int kTile) {
+        int iEnd = Math.min(n, (iTile + 1) * TILE_SIZE);
+        int jStart = jTile * TILE_SIZE;
+        int jEnd = Math.min(n, jStart + TILE_SIZE);
+        int kEnd = Math.min(n, (kTile + 1) * TILE_SIZE);
+        for (int k = kTile * TILE_SIZE; k < kEnd; k++) {
+            int kRow = k * n;
+            for (int i = iTile * TILE_SIZE; i < iEnd; i++) {
+                int iRow = i * n;
+                int ikCost = sums[iRow + k];
+                if (ikCost == INFINITY)
+                    continue;
+                for (int j = jStart; j < jEnd; j++) {
+                    int kjCost = sums[kRow + j];
+                    if (kjCost == INFINITY)
+                        continue;
+                    int summed = ikCost + kjCost;
+                    if (summed < sums[iRow + j])
+                        sums[iRow + j] = summed;
                 }
             }
         }
+    }
 
-        for (int i = 0; i < sums.length; i++) {
-            for (int j = 0; j < sums[i].length; j++) {
-                Graph.Vertex<Integer> from = vertices.get(i);
-                Graph.Vertex<Integer> to = vertices.get(j);
-                Map<Graph.Vertex<Integer>, Integer> map = allShortestPaths.get(from);
-                if (map == null)
-                    map = new HashMap<Graph.Vertex<Integer>, Integer>();
-                int cost = sums[i][j];
-                if (cost != Integer.MAX_VALUE)
-                    map.put(to, cost);
-                allShortestPaths.put(from, map);
+    private static void run(List<Callable<Void>> tasks, ExecutorService executor) {
+        if (executor == null || tasks.size() == 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    throw (new IllegalStateException("Relaxing tiles failed.", e));
+                }
             }
+            return;
         }
 
-        return allShortestPaths;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while relaxing tiles.", e));
+        } catch (ExecutionException e) {
+            throw (new IllegalStateException("Relaxing tiles failed.", e.getCause()));
+        }
     }
 }
@@ -0,0 +1,36 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of ints, used for frontiers and buckets of vertex indices
+ * without boxing them.
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+final class IntList {
+
+    private int[] array = new int[16];
+    private int size = 0;
+
+    void add(int value) {
+        if (size == array.length)
+            array = Arrays.copyOf(array, size << 1);
+        array[size++] = value;
+    }
+
+    void addAll(IntList list) {
+        if (size + list.size > array.length)
+            array = Arrays.copyOf(array, Math.max(size + list.size, size << 1));
+        System.arraycopy(list.array, 0, array, size, list.size);
+        size += list.size;
+    }
+
+    int get(int index) {
+        return array[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -1,81 +1,280 @@
 package edu.jwetherell.algorithms.graph;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 
 /**
  * Johnson's algorithm is a way to find the shortest paths between all pairs of
  * vertices in a sparse directed graph. It allows some of the edge weights to be
  * negative numbers, but no negative-weight cycles may exist.
- * 
+ *
+ * Bellman-Ford runs once from a virtual source with a zero cost edge to every
+ * vertex, which is the same as starting with every vertex at cost zero. Its
+ * costs reweight the edges so none is negative, only a new cost array is made
+ * and the rest of the graph is shared. Then Dijkstra runs from every vertex,
+ * the sources are split across an executor and each task reuses one heap and
+ * set of cost arrays for all of its sources.
+ *
  * Worst case: O(V^2 log V + VE)
- * 
+ *
  * @author Justin Wetherell <phishman3579@gmail.com>
  */
 public class Johnson {
 
+    private static final int INFINITY = DistanceMatrix.INFINITY;
+
     private Johnson() {
     }
 
     public static Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>> getAllPairsShortestPaths(
             Graph<Integer> g) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int n = compact.getNumberOfVerticies();
+        // The paths are one in memory array, n*n has to be a valid array length
+        if ((long) n * n > Integer.MAX_VALUE)
+            throw (new IllegalArgumentException("Graph has " + n + " verticies, at most 46340 fit in an in memory path matrix."));
+        int[] previous = new int[n * n];
+        if (search(compact, null, previous, null, 1) == null) {
+            System.out.println("Graph contains a negative weight cycle. Cannot compute shortest path.");
+            return null;
+        }
+
         Map<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>> allShortestPaths = new HashMap<Graph.Vertex<Integer>, Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>>();
+        for (int s = 0; s < n; s++) {
+            Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>> paths = new HashMap<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>();
+            for (int v = 0; v < n; v++) {
+                paths.put(compact.getVertex(v), getPath(compact, previous, s, v));
+            }
+            allShortestPaths.put(compact.getVertex(s), paths);
+        }
+        return allShortestPaths;
+    }
+
+    /**
+     * All pairs shortest path costs of a graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param executor
+     *            runs the searches, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks the sources are split into.
+     * @return matrix of costs addressed by vertex index or NULL if the graph
+     *         contains a negative weight cycle.
+     * @throws IllegalArgumentException
+     *             if the graph has more than 46340 verticies, the costs
+     *             wouldn't fit in one int array.
+     */
+    public static DistanceMatrix<Integer> getAllPairsShortestPathMatrix(Graph<Integer> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        return getAllPairsShortestPathMatrix(new CompactGraph<Integer>(g), executor, parallelism);
+    }
+
+    /**
+     * All pairs shortest path costs of a compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @param executor
+     *            runs the searches, NULL to use the calling thread.
+     * @param parallelism
+     *            number of tasks the sources are split into.
+     * @return matrix of costs addressed by vertex index, which also maps back
+     *         to the verticies if g was built from a Graph. NULL if the graph
+     *         contains a negative weight cycle.
+     * @throws IllegalArgumentException
+     *             if the graph has more than 46340 verticies, the costs
+     *             wouldn't fit in one int array.
+     */
+    public static <T extends Comparable<T>> DistanceMatrix<T> getAllPairsShortestPathMatrix(CompactGraph<T> g, ExecutorService executor, int parallelism) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        // The costs are one in memory array, n*n has to be a valid array length
+        if ((long) n * n > Integer.MAX_VALUE)
+            throw (new IllegalArgumentException("Graph has " + n + " verticies, at most 46340 fit in an in memory distance matrix."));
+        int[] distances = new int[n * n];
+        if (search(g, distances, null, executor, parallelism) == null)
+            return null;
+        if (n == 0 || g.getVertex(0) == null)
+            return (new DistanceMatrix<T>(n, distances));
+
+        List<Graph.Vertex<T>> verticies = new ArrayList<Graph.Vertex<T>>(n);
+        for (int i = 0; i < n; i++) {
+            verticies.add(g.getVertex(i));
+        }
+        return (new DistanceMatrix<T>(verticies, distances));
+    }
+
+    /**
+     * Fill the row-major cost and/or predecessor matrices, either may be NULL.
+     *
+     * @return the potential of each vertex or NULL if the graph contains a
+     *         negative weight cycle.
+     */
+    private static int[] search(CompactGraph<?> g, final int[] distances, final int[] previous, ExecutorService executor, int parallelism) {
+        if (parallelism < 1)
+            throw (new IllegalArgumentException("Parallelism must be positive."));
+
+        final int[] potentials = getPotentials(g);
+        if (potentials == null)
+            return null;
+
+        // w'(u,v) = w(u,v) + h(u) - h(v) is never negative
+        int[] reweighted = new int[g.getNumberOfEdges()];
+        for (int u = 0; u < g.getNumberOfVerticies(); u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                reweighted[e] = g.getCost(e) + potentials[u] - potentials[g.getTarget(e)];
+            }
+        }
+        final CompactGraph<?> graph = g.withCosts(reweighted);
+
+        final int n = g.getNumberOfVerticies();
+        int parts = Math.max(1, Math.min(parallelism, n));
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(parts);
+        for (int p = 0; p < parts; p++) {
+            final int part = p;
+            final int step = parts;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    // One heap and set of arrays per task, reused for each source
+                    SearchState state = new SearchState();
+                    for (int s = part; s < n; s += step) {
+                        search(graph, s, state);
+                        int row = s * n;
+                        for (int v = 0; v < n; v++) {
+                            int cost = state.getCost(v);
+                            if (distances != null)
+                                distances[row + v] = (cost == INFINITY) ? INFINITY : cost - potentials[s] + potentials[v];
+                            if (previous != null)
+                                previous[row + v] = state.getPrevious(v);
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        run(tasks, executor);
+        return potentials;
+    }
 
-        // Add the connector Vertex to all edges.
-        for (Graph.Vertex<Integer> v : g.getVerticies()) {
-            Graph<Integer> graph = new Graph<Integer>(g); // Clone the original
-                                                          // graph
-            Graph.Vertex<Integer> connector = new Graph.Vertex<Integer>(Integer.MAX_VALUE); // Make
-                                                                                            // new
-                                                                                            // Vertex
-                                                                                            // that
-                                                                                            // connects
-                                                                                            // to
-                                                                                            // all
-                                                                                            // Vertices
-            graph.getVerticies().add(connector);
-
-            int indexOfV = graph.getVerticies().indexOf(v);
-            Graph.Edge<Integer> e = new Graph.Edge<Integer>(0, connector, graph.getVerticies().get(indexOfV));
-            connector.addEdge(e);
-            graph.getEdges().add(e);
-
-            Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> costs = BellmanFord.getShortestPaths(graph,
-                    connector);
-            if (BellmanFord.containsNegativeWeightCycle()) {
-                System.out.println("Graph contains a negative weight cycle. Cannot compute shortest path.");
-                return null;
+    /**
+     * Dijkstra's search from the source over the reweighted graph.
+     */
+    private static void search(CompactGraph<?> g, int source, SearchState state) {
+        state.reset(g.getNumberOfVerticies());
+        state.update(source, 0, 0, -1);
+        while (!state.isEmpty()) {
+            int vertex = state.poll();
+            int lowestCostToThisVertex = state.getCost(vertex);
+            for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                int to = g.getTarget(e);
+                int cost = lowestCostToThisVertex + g.getCost(e);
+                if (cost < state.getCost(to))
+                    state.update(to, cost, cost, vertex);
             }
-            for (Graph.Vertex<Integer> v2 : costs.keySet()) {
-                int index = graph.getVerticies().indexOf(v2);
-                Graph.Vertex<Integer> vertexToAdjust = graph.getVerticies().get(index);
-                Graph.CostPathPair<Integer> pair = costs.get(v2);
-                vertexToAdjust.setWeight(pair.getCost());
+        }
+    }
+
+    /**
+     * Bellman-Ford costs from a virtual source connected to every vertex by a
+     * zero cost edge.
+     *
+     * @return cost of each vertex or NULL if the graph contains a negative
+     *         weight cycle.
+     */
+    private static int[] getPotentials(CompactGraph<?> g) {
+        int n = g.getNumberOfVerticies();
+        int[] potentials = new int[n];
+        // The virtual source adds one vertex so up to n passes can change a cost
+        for (int i = 0; i < n; i++) {
+            boolean changed = false;
+            for (int u = 0; u < n; u++) {
+                int cost = potentials[u];
+                for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                    int to = g.getTarget(e);
+                    int alternative = cost + g.getCost(e);
+                    if (alternative < potentials[to]) {
+                        potentials[to] = alternative;
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed)
+                return potentials;
+        }
+
+        // Any change after n passes means a negative weight cycle
+        for (int u = 0; u < n; u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                if (potentials[u] + g.getCost(e) < potentials[g.getTarget(e)])
+                    return null;
             }
+        }
+        return potentials;
+    }
 
-            for (Graph.Edge<Integer> e2 : graph.getEdges()) {
-                int startCost = e2.getFromVertex().getWeight();
-                int endCode = e2.getToVertex().getWeight();
-                int adjCost = e2.getCost() + startCost - endCode;
-                e2.setCost(adjCost);
+    /**
+     * Edges of the shortest path from s to v, the cheapest edge is used when
+     * two verticies are joined by more than one.
+     */
+    private static Set<Graph.Edge<Integer>> getPath(CompactGraph<Integer> g, int[] previous, int s, int v) {
+        int n = g.getNumberOfVerticies();
+        List<Graph.Edge<Integer>> reversed = new ArrayList<Graph.Edge<Integer>>();
+        for (int to = v, from = previous[s * n + v]; from >= 0; to = from, from = previous[s * n + from]) {
+            int cheapest = -1;
+            for (int e = g.getEdgeStart(from), last = g.getEdgeEnd(from); e < last; e++) {
+                if (g.getTarget(e) == to && (cheapest < 0 || g.getCost(e) < g.getCost(cheapest)))
+                    cheapest = e;
             }
+            reversed.add(g.getEdge(cheapest));
+        }
+        Set<Graph.Edge<Integer>> path = new LinkedHashSet<Graph.Edge<Integer>>();
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.add(reversed.get(i));
+        }
+        return path;
+    }
 
-            int index = graph.getVerticies().indexOf(connector);
-            graph.getVerticies().remove(index);
-            index = graph.getEdges().indexOf(e);
-            graph.getEdges().remove(index);
+    private static void run(List<Callable<Void>> tasks, ExecutorService executor) {
+        if (executor == null || tasks.size() == 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    throw (new IllegalStateException("Searching from sources failed.", e));
+                }
+            }
+            return;
+        }
 
-            Map<Graph.Vertex<Integer>, Graph.CostPathPair<Integer>> costPaths = Dijkstra.getShortestPaths(graph, v);
-            Map<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>> paths = new HashMap<Graph.Vertex<Integer>, Set<Graph.Edge<Integer>>>();
-            for (Graph.Vertex<Integer> v2 : costPaths.keySet()) {
-                Graph.CostPathPair<Integer> pair = costPaths.get(v2);
-                paths.put(v2, pair.getPath());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
             }
-            allShortestPaths.put(v, paths);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IllegalStateException("Interrupted while searching from sources.", e));
+        } catch (ExecutionException e) {
+            throw (new IllegalStateException("Searching from sources failed.", e.getCause()));
         }
-        return allShortestPaths;
     }
 }
@@ -0,0 +1,89 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.DisjointSet;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Kruskal's minimum spanning tree. Only works on undirected graphs. The edges
+ * are sorted by cost and each one is added to the tree unless both its
+ * verticies are already connected, which a disjoint-set structure answers in
+ * nearly constant time. A graph which is not connected gets a minimum spanning
+ * forest.
+ *
+ * http://en.wikipedia.org/wiki/Kruskal's_algorithm
+ *
+ * Worst case: O(E log E)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class Kruskal {
+
+    private Kruskal() { }
+
+    public static Graph.CostPathPair<Integer> getMinimumSpanningTree(Graph<Integer> g) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int[] tree = getMinimumSpanningTree(compact);
+
+        int cost = 0;
+        Set<Graph.Edge<Integer>> path = new LinkedHashSet<Graph.Edge<Integer>>();
+        for (int e : tree) {
+            cost += compact.getCost(e);
+            path.add(compact.getEdge(e));
+        }
+        return (new Graph.CostPathPair<Integer>(cost, path));
+    }
+
+    /**
+     * Kruskal's minimum spanning tree on a compact graph.
+     *
+     * @param g
+     *            undirected graph.
+     * @return indices of the tree's edges in the order they were added, the
+     *         edges of g.getEdge() when built from a Graph.
+     */
+    public static int[] getMinimumSpanningTree(CompactGraph<?> g) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        // Kruskal's algorithm only works on undirected graphs
+        if (g.getType() == Graph.TYPE.DIRECTED) throw (new IllegalArgumentException("Undirected graphs only."));
+
+        // Each undirected edge is stored both ways, only the copy leaving the
+        // lower vertex is kept. The cost is packed in the high bits and the
+        // edge index in the low bits so a primitive sort orders by cost.
+        int n = g.getNumberOfVerticies();
+        int[] sources = new int[g.getNumberOfEdges()];
+        long[] sorted = new long[g.getNumberOfEdges() / 2];
+        int size = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                sources[e] = u;
+                if (u < g.getTarget(e)) {
+                    if (size == sorted.length)
+                        sorted = Arrays.copyOf(sorted, Math.max(16, size << 1));
+                    sorted[size++] = (((long) g.getCost(e)) << 32) | (e & 0xFFFFFFFFL);
+                }
+            }
+        }
+        Arrays.sort(sorted, 0, size);
+
+        int[] tree = new int[Math.max(n - 1, 0)];
+        int edges = 0;
+        DisjointSet components = new DisjointSet(n);
+        for (int i = 0; i < size && edges < tree.length; i++) {
+            int e = (int) sorted[i];
+            if (components.union(sources[e], g.getTarget(e)))
+                tree[edges++] = e;
+        }
+
+        return (edges == tree.length) ? tree : Arrays.copyOf(tree, edges);
+    }
+}
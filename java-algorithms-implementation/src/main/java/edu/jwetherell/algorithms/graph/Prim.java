@@ -1,13 +1,18 @@
 package edu.jwetherell.algorithms.graph;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
+import edu.jwetherell.algorithms.dataStructures.BinaryHeap;
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
+import edu.jwetherell.algorithms.dataStructures.IndexedBinaryHeap;
 
 /**
  * Prim's minimum spanning tree. Only works on undirected graphs. It finds a
@@ -20,8 +25,9 @@ public class Prim {
 
     private static int cost = 0;
     private static Set<Graph.Edge<Integer>> path = null;
-    private static List<Graph.Vertex<Integer>> unvisited = null;
-    private static Queue<Graph.Edge<Integer>> edgesAvailable = null;
+    private static Map<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>> costs = null;
+    private static Map<Graph.Vertex<Integer>, Graph.Edge<Integer>> edges = null;
+    private static IndexedBinaryHeap<Graph.CostVertexPair<Integer>> unvisited = null;
 
     private Prim() { }
 
@@ -32,35 +38,112 @@ public class Prim {
         // Reset variables
         cost = 0;
         path = null;
+        costs = null;
+        edges = null;
         unvisited = null;
-        edgesAvailable = null;
 
         // Prim's algorithm only works on undirected graphs
         if (g.getType() == Graph.TYPE.DIRECTED) throw (new IllegalArgumentException("Undirected graphs only."));
 
         path = new LinkedHashSet<Graph.Edge<Integer>>();
 
-        unvisited = new ArrayList<Graph.Vertex<Integer>>();
-        unvisited.addAll(g.getVerticies());
-        unvisited.remove(start);
-
-        edgesAvailable = new PriorityQueue<Graph.Edge<Integer>>();
+        // Cheapest known edge into each vertex not yet in the tree, a cheaper
+        // edge moves the vertex forward in the heap in O(log n).
+        costs = new TreeMap<Graph.Vertex<Integer>, Graph.CostVertexPair<Integer>>();
+        edges = new TreeMap<Graph.Vertex<Integer>, Graph.Edge<Integer>>();
+        unvisited = new IndexedBinaryHeap<Graph.CostVertexPair<Integer>>(BinaryHeap.Type.MIN);
 
+        Set<Graph.Vertex<Integer>> visited = new TreeSet<Graph.Vertex<Integer>>();
         Graph.Vertex<Integer> vertex = start;
-        while (!unvisited.isEmpty()) {
+        visited.add(vertex);
+        while (true) {
             for (Graph.Edge<Integer> e : vertex.getEdges()) {
-                if (unvisited.contains(e.getToVertex()))
-                    edgesAvailable.add(e);
+                Graph.Vertex<Integer> to = e.getToVertex();
+                if (visited.contains(to))
+                    continue;
+
+                Graph.CostVertexPair<Integer> pair = costs.get(to);
+                if (pair == null) {
+                    pair = new Graph.CostVertexPair<Integer>(e.getCost(), to);
+                    costs.put(to, pair);
+                    edges.put(to, e);
+                    unvisited.add(pair);
+                } else if (e.getCost() < pair.getCost()) {
+                    pair.setCost(e.getCost());
+                    edges.put(to, e);
+                    unvisited.decreaseKey(pair);
+                }
             }
 
-            Graph.Edge<Integer> e = edgesAvailable.remove();
+            // Every vertex reachable from start is in the tree
+            if (unvisited.size() == 0)
+                break;
+
+            Graph.CostVertexPair<Integer> pair = unvisited.removeHead();
+            Graph.Edge<Integer> e = edges.get(pair.getVertex());
             cost += e.getCost();
             path.add(e);
 
-            vertex = e.getToVertex();
-            unvisited.remove(vertex);
+            vertex = pair.getVertex();
+            visited.add(vertex);
         }
 
         return (new Graph.CostPathPair<Integer>(cost, path));
     }
+
+    /**
+     * Prim's minimum spanning tree on a compact graph.
+     * 
+     * @param g
+     *            undirected graph.
+     * @param start
+     *            index of the starting vertex.
+     * @return indices of the tree's edges in the order they were added, the
+     *         edges of g.getEdge() when built from a Graph.
+     */
+    public static int[] getMinimumSpanningTree(CompactGraph<?> g, int start) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        // Prim's algorithm only works on undirected graphs
+        if (g.getType() == Graph.TYPE.DIRECTED) throw (new IllegalArgumentException("Undirected graphs only."));
+
+        int n = g.getNumberOfVerticies();
+        if (start < 0 || start >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+
+        int[] tree = new int[Math.max(n - 1, 0)];
+        int size = 0;
+        boolean[] visited = new boolean[n];
+
+        // Each entry packs the edge cost in the high bits and the edge index
+        // in the low bits, edges into visited verticies are skipped on removal.
+        Queue<Long> available = new PriorityQueue<Long>();
+        int vertex = start;
+        visited[vertex] = true;
+        while (size < tree.length) {
+            for (int e = g.getEdgeStart(vertex), last = g.getEdgeEnd(vertex); e < last; e++) {
+                if (!visited[g.getTarget(e)])
+                    available.add((((long) g.getCost(e)) << 32) | (e & 0xFFFFFFFFL));
+            }
+
+            int edge = -1;
+            while (available.size() > 0) {
+                int e = (int) available.remove().longValue();
+                if (!visited[g.getTarget(e)]) {
+                    edge = e;
+                    break;
+                }
+            }
+            // Graph is not connected
+            if (edge < 0)
+                break;
+
+            tree[size++] = edge;
+            vertex = g.getTarget(edge);
+            visited[vertex] = true;
+        }
+
+        return (size == tree.length) ? tree : Arrays.copyOf(tree, size);
+    }
 }
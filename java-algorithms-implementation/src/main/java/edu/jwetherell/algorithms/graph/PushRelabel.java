@@ -0,0 +1,198 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.Arrays;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Push-relabel maximum flow with FIFO vertex selection. The cost of each edge
+ * is its capacity. The source floods its arcs, then verticies holding excess
+ * flow are discharged in first-in first-out order, pushing downhill along
+ * residual arcs and lifting themselves when they can't. Excess which can't
+ * reach the sink climbs back to the source. Every so often a global relabel
+ * sets each height to the exact residual distance to the sink, or to the
+ * source for verticies cut off from the sink, which saves most of the single
+ * step relabels.
+ *
+ * http://en.wikipedia.org/wiki/Push%E2%80%93relabel_maximum_flow_algorithm
+ *
+ * Worst case: O(V^3)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class PushRelabel {
+
+    // Relabel globally once the single step relabels scanned this many arcs
+    // per vertex, plus the number of edges.
+    private static final int GLOBAL_RELABEL_FREQUENCY = 6;
+
+    private PushRelabel() { }
+
+    /**
+     * Push-relabel maximum flow from source to sink.
+     *
+     * @param g
+     *            graph whose edge costs are capacities.
+     * @param source
+     *            vertex the flow leaves.
+     * @param sink
+     *            vertex the flow enters.
+     * @return value of the maximum flow.
+     */
+    public static long getMaximumFlow(Graph<Integer> g, Graph.Vertex<Integer> source, Graph.Vertex<Integer> sink) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        return getMaximumFlow(compact, compact.indexOf(source), compact.indexOf(sink), null);
+    }
+
+    /**
+     * Push-relabel maximum flow on a compact graph.
+     *
+     * @param g
+     *            graph whose edge costs are capacities.
+     * @param source
+     *            index of the vertex the flow leaves.
+     * @param sink
+     *            index of the vertex the flow enters.
+     * @param flows
+     *            receives the flow on each edge index, NULL if not needed.
+     * @return value of the maximum flow.
+     */
+    public static long getMaximumFlow(CompactGraph<?> g, int source, int sink, int[] flows) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        if (source < 0 || source >= n || sink < 0 || sink >= n)
+            throw (new IllegalArgumentException("Vertex index is out of range."));
+        if (source == sink)
+            throw (new IllegalArgumentException("Source and sink must differ."));
+
+        ResidualGraph r = new ResidualGraph(g);
+        int[] heights = new int[n];
+        long[] excess = new long[n];
+        int[] current = new int[n];
+        int[] queue = new int[n];
+        boolean[] queued = new boolean[n];
+        int head = 0;
+        int size = 0;
+
+        // Flood every arc leaving the source
+        for (int a = r.offsets[source], last = r.offsets[source + 1]; a < last; a++) {
+            int c = r.capacities[a];
+            if (c == 0)
+                continue;
+            int v = r.targets[a];
+            r.capacities[a] = 0;
+            r.capacities[r.partners[a]] += c;
+            excess[v] += c;
+            excess[source] -= c;
+            if (v != sink && v != source && !queued[v]) {
+                queued[v] = true;
+                queue[(head + size++) % n] = v;
+            }
+        }
+
+        int[] scratch = new int[n];
+        relabel(r, source, sink, heights, current, scratch);
+        long threshold = (long) GLOBAL_RELABEL_FREQUENCY * n + r.targets.length / 2;
+        long work = 0;
+        while (size > 0) {
+            int u = queue[head];
+            head = (head + 1) % n;
+            size--;
+            queued[u] = false;
+
+            // Discharge u
+            int last = r.offsets[u + 1];
+            while (excess[u] > 0) {
+                int a = current[u];
+                if (a == last) {
+                    // Lift u just above its lowest residual neighbour
+                    int lowest = Integer.MAX_VALUE;
+                    for (int b = r.offsets[u]; b < last; b++) {
+                        if (r.capacities[b] > 0 && heights[r.targets[b]] < lowest)
+                            lowest = heights[r.targets[b]];
+                    }
+                    heights[u] = lowest + 1;
+                    current[u] = r.offsets[u];
+                    work += last - r.offsets[u] + 1;
+                    if (work > threshold)
+                        break;
+                    continue;
+                }
+
+                int v = r.targets[a];
+                if (r.capacities[a] > 0 && heights[u] == heights[v] + 1) {
+                    int pushed = (int) Math.min(excess[u], r.capacities[a]);
+                    r.capacities[a] -= pushed;
+                    r.capacities[r.partners[a]] += pushed;
+                    excess[u] -= pushed;
+                    excess[v] += pushed;
+                    if (v != sink && v != source && !queued[v]) {
+                        queued[v] = true;
+                        queue[(head + size++) % n] = v;
+                    }
+                } else {
+                    current[u]++;
+                }
+            }
+
+            if (work > threshold) {
+                if (excess[u] > 0 && !queued[u]) {
+                    queued[u] = true;
+                    queue[(head + size++) % n] = u;
+                }
+                relabel(r, source, sink, heights, current, scratch);
+                work = 0;
+            }
+        }
+
+        if (flows != null)
+            r.getFlows(flows);
+        return excess[sink];
+    }
+
+    /**
+     * Global relabel, the height of each vertex becomes its residual distance
+     * to the sink, or the number of verticies plus its residual distance to
+     * the source if it can't reach the sink.
+     */
+    private static void relabel(ResidualGraph r, int source, int sink, int[] heights, int[] current, int[] queue) {
+        int n = r.getNumberOfVerticies();
+        Arrays.fill(heights, -1);
+        heights[source] = n;
+        heights[sink] = 0;
+        search(r, sink, heights, queue);
+        search(r, source, heights, queue);
+        for (int v = 0; v < n; v++) {
+            // Unreachable verticies hold no excess and never will
+            if (heights[v] < 0)
+                heights[v] = 2 * n;
+        }
+        System.arraycopy(r.offsets, 0, current, 0, n);
+    }
+
+    /**
+     * Breadth first search backwards along residual arcs from the root,
+     * labelling every unlabelled vertex one higher than the vertex it reaches.
+     */
+    private static void search(ResidualGraph r, int root, int[] heights, int[] queue) {
+        queue[0] = root;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int a = r.offsets[v], last = r.offsets[v + 1]; a < last; a++) {
+                int u = r.targets[a];
+                if (heights[u] < 0 && r.capacities[r.partners[a]] > 0) {
+                    heights[u] = heights[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+    }
+}
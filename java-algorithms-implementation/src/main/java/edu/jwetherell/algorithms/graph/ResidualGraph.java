@@ -0,0 +1,80 @@
+package edu.jwetherell.algorithms.graph;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+
+/**
+ * Residual network of a CompactGraph for the maximum flow algorithms. Every
+ * edge becomes a pair of arcs, a forward arc holding the unused capacity and a
+ * reverse arc holding the flow which can be pushed back. The arcs of each
+ * vertex are contiguous, like the edges of the CompactGraph, and each arc
+ * knows its partner.
+ *
+ * Not thread safe, every flow computation builds its own.
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+final class ResidualGraph {
+
+    final int[] offsets;
+    final int[] targets;
+    final int[] partners;
+    final int[] capacities;
+
+    // Forward arc of each edge of the CompactGraph
+    private final int[] forward;
+
+    /**
+     * Build the residual network, the cost of each edge is its capacity.
+     */
+    ResidualGraph(CompactGraph<?> g) {
+        int n = g.getNumberOfVerticies();
+        int m = g.getNumberOfEdges();
+        offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += g.getOutDegree(u);
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                if (g.getCost(e) < 0)
+                    throw (new IllegalArgumentException("Capacities must be non-negative."));
+                offsets[g.getTarget(e) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        targets = new int[2 * m];
+        partners = new int[2 * m];
+        capacities = new int[2 * m];
+        forward = new int[m];
+        int[] next = new int[n];
+        System.arraycopy(offsets, 0, next, 0, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = g.getEdgeStart(u), last = g.getEdgeEnd(u); e < last; e++) {
+                int v = g.getTarget(e);
+                int a = next[u]++;
+                int b = next[v]++;
+                targets[a] = v;
+                capacities[a] = g.getCost(e);
+                partners[a] = b;
+                targets[b] = u;
+                partners[b] = a;
+                forward[e] = a;
+            }
+        }
+    }
+
+    int getNumberOfVerticies() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Flow on each edge of the CompactGraph.
+     */
+    void getFlows(int[] flows) {
+        if (flows.length != forward.length)
+            throw (new IllegalArgumentException("Flows must have one entry per edge."));
+        for (int e = 0; e < forward.length; e++) {
+            flows[e] = capacities[partners[forward[e]]];
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.Arrays;
+
+/**
+ * Scratch space for one point-to-point search over a CompactGraph: tentative
+ * costs, predecessors and an indexed min-heap of vertex indices. The arrays are
+ * kept between searches and a vertex's entries are only trusted when its stamp
+ * matches the current search, so starting a new search is O(1) and a search
+ * only touches the verticies it reaches.
+ *
+ * Not thread safe, each thread keeps its own instances in a ThreadLocal.
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+final class SearchState {
+
+    private static final int NOT_QUEUED = -1;
+    private static final int SETTLED = -2;
+
+    private int search = 0;
+    private int[] stamps = new int[0];
+    private int[] costs = new int[0];
+    private int[] keys = new int[0];
+    private int[] previous = new int[0];
+    private int[] positions = new int[0];
+    private int[] heap = new int[0];
+    private int size = 0;
+
+    /**
+     * Start a new search over a graph with the number of verticies.
+     */
+    void reset(int numberOfVerticies) {
+        if (stamps.length < numberOfVerticies) {
+            stamps = new int[numberOfVerticies];
+            costs = new int[numberOfVerticies];
+            keys = new int[numberOfVerticies];
+            previous = new int[numberOfVerticies];
+            positions = new int[numberOfVerticies];
+            heap = new int[numberOfVerticies];
+            search = 0;
+        }
+        size = 0;
+        if (++search == Integer.MAX_VALUE) {
+            // Stamps wrapped, forget every previous search
+            Arrays.fill(stamps, 0);
+            search = 1;
+        }
+    }
+
+    private void touch(int vertex) {
+        if (stamps[vertex] == search)
+            return;
+        stamps[vertex] = search;
+        costs[vertex] = Integer.MAX_VALUE;
+        previous[vertex] = -1;
+        positions[vertex] = NOT_QUEUED;
+    }
+
+    /**
+     * @return cost to the vertex or Integer.MAX_VALUE if not reached yet.
+     */
+    int getCost(int vertex) {
+        return (stamps[vertex] == search) ? costs[vertex] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return vertex the vertex was reached from or -1.
+     */
+    int getPrevious(int vertex) {
+        return (stamps[vertex] == search) ? previous[vertex] : -1;
+    }
+
+    /**
+     * Walk the predecessors back from the vertex to where the search started.
+     *
+     * @return vertex indices along the path, the search's source first.
+     */
+    int[] getPath(int vertex) {
+        int length = 0;
+        for (int v = vertex; v >= 0; v = getPrevious(v)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = vertex, i = length - 1; v >= 0; v = getPrevious(v), i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    boolean isSettled(int vertex) {
+        return (stamps[vertex] == search && positions[vertex] == SETTLED);
+    }
+
+    boolean isReached(int vertex) {
+        return (stamps[vertex] == search);
+    }
+
+    boolean isEmpty() {
+        return (size == 0);
+    }
+
+    /**
+     * @return key of the head of the heap or Integer.MAX_VALUE if empty.
+     */
+    int peekKey() {
+        return (size == 0) ? Integer.MAX_VALUE : keys[heap[0]];
+    }
+
+    /**
+     * Lower the cost of the vertex and queue it with the key, a settled vertex
+     * is queued again.
+     */
+    void update(int vertex, int cost, int key, int from) {
+        touch(vertex);
+        costs[vertex] = cost;
+        keys[vertex] = key;
+        previous[vertex] = from;
+        int position = positions[vertex];
+        if (position < 0) {
+            position = size++;
+            heap[position] = vertex;
+        }
+        heapUp(position);
+    }
+
+    /**
+     * Remove the vertex with the lowest key and mark it settled.
+     */
+    int poll() {
+        int vertex = heap[0];
+        positions[vertex] = SETTLED;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            heapDown(0);
+        }
+        return vertex;
+    }
+
+    private void heapUp(int position) {
+        int vertex = heap[position];
+        int key = keys[vertex];
+        while (position > 0) {
+            int parentPosition = (position - 1) >> 1;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key)
+                break;
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = vertex;
+        positions[vertex] = position;
+    }
+
+    private void heapDown(int position) {
+        int vertex = heap[position];
+        int key = keys[vertex];
+        int half = size >> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = heap[childPosition];
+            int rightPosition = childPosition + 1;
+            if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+                childPosition = rightPosition;
+                child = heap[rightPosition];
+            }
+            if (key <= keys[child])
+                break;
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+        heap[position] = vertex;
+        positions[vertex] = position;
+    }
+}
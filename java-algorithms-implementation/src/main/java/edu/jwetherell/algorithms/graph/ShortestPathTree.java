@@ -0,0 +1,139 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Result of a single source shortest path search. Only the cost and the last
+ * edge of the shortest path to each vertex are kept, the path itself is
+ * rebuilt by walking those edges back to the source when it's asked for.
+ *
+ * http://en.wikipedia.org/wiki/Shortest-path_tree
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class ShortestPathTree<T extends Comparable<T>> {
+
+    private Graph.Vertex<T> source = null;
+    private Map<Graph.Vertex<T>, Graph.CostVertexPair<T>> costs = null;
+    private Map<Graph.Vertex<T>, Graph.Edge<T>> previous = null;
+
+    /**
+     * @param source
+     *            vertex the search started from.
+     * @param costs
+     *            cost of the shortest path to every vertex in the graph,
+     *            Integer.MAX_VALUE if it cannot be reached.
+     * @param previous
+     *            last edge of the shortest path to every reached vertex except
+     *            the source.
+     */
+    public ShortestPathTree(Graph.Vertex<T> source, Map<Graph.Vertex<T>, Graph.CostVertexPair<T>> costs, Map<Graph.Vertex<T>, Graph.Edge<T>> previous) {
+        if (source == null || costs == null || previous == null)
+            throw (new NullPointerException("Source, costs and previous must be non-NULL."));
+
+        this.source = source;
+        this.costs = costs;
+        this.previous = previous;
+    }
+
+    public Graph.Vertex<T> getSource() {
+        return source;
+    }
+
+    /**
+     * Is there a path from the source to the vertex.
+     *
+     * @param vertex
+     *            to find.
+     * @return True if the vertex can be reached from the source.
+     */
+    public boolean hasPathTo(Graph.Vertex<T> vertex) {
+        return (distanceTo(vertex) != Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cost of the shortest path from the source to the vertex.
+     *
+     * @param vertex
+     *            to find.
+     * @return cost of the path or Integer.MAX_VALUE if it cannot be reached.
+     */
+    public int distanceTo(Graph.Vertex<T> vertex) {
+        Graph.CostVertexPair<T> pair = costs.get(vertex);
+        if (pair == null)
+            return Integer.MAX_VALUE;
+        return pair.getCost();
+    }
+
+    /**
+     * Edges of the shortest path from the source to the vertex, in order.
+     *
+     * @param vertex
+     *            to find.
+     * @return edges of the path, empty if the vertex is the source or cannot
+     *         be reached.
+     */
+    public Set<Graph.Edge<T>> pathTo(Graph.Vertex<T> vertex) {
+        List<Graph.Edge<T>> reversed = new ArrayList<Graph.Edge<T>>();
+        Graph.Edge<T> e = previous.get(vertex);
+        while (e != null) {
+            reversed.add(e);
+            e = previous.get(e.getFromVertex());
+        }
+
+        Set<Graph.Edge<T>> path = new LinkedHashSet<Graph.Edge<T>>();
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            path.add(reversed.get(i));
+        }
+        return path;
+    }
+
+    /**
+     * Cost and path from the source to the vertex.
+     *
+     * @param vertex
+     *            to find.
+     * @return cost and path or NULL if the vertex is not in the graph.
+     */
+    public Graph.CostPathPair<T> getCostPathPair(Graph.Vertex<T> vertex) {
+        Graph.CostVertexPair<T> pair = costs.get(vertex);
+        if (pair == null)
+            return null;
+        return (new Graph.CostPathPair<T>(pair.getCost(), pathTo(vertex)));
+    }
+
+    /**
+     * Build the cost and path of every vertex in the graph. Warning this
+     * materializes every path.
+     *
+     * @return map of vertex to its cost and path.
+     */
+    public Map<Graph.Vertex<T>, Graph.CostPathPair<T>> toMap() {
+        Map<Graph.Vertex<T>, Graph.CostPathPair<T>> map = new HashMap<Graph.Vertex<T>, Graph.CostPathPair<T>>();
+        for (Graph.CostVertexPair<T> pair : costs.values()) {
+            Graph.Vertex<T> vertex = pair.getVertex();
+            map.put(vertex, new Graph.CostPathPair<T>(pair.getCost(), pathTo(vertex)));
+        }
+        return map;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Source = ").append(source.getValue()).append("\n");
+        for (Graph.CostVertexPair<T> pair : costs.values()) {
+            builder.append("\t").append(pair.toString());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,481 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Binary snapshots of graphs and distance matrices, so a restarted process can
+ * load its state instead of rebuilding it. Files are written and read through
+ * NIO channels, all fixed size numbers are big-endian.
+ *
+ * A graph snapshot holds the verticies followed by the edges, each number a
+ * variable length integer of 7 bits per byte. Signed numbers are zig-zag
+ * encoded and edge endpoints are stored as differences, so most take a byte
+ * or two. An undirected graph only stores one of each pair of reciprocal
+ * edges.
+ *
+ * A distance matrix snapshot holds a fixed size header, the flat row-major
+ * matrix of 32 bit costs and then the verticies if it was built from a Graph.
+ * It can be read into memory or mapped, a mapped matrix is ready as soon as
+ * the header is read and pages in costs as they are asked for.
+ *
+ * http://en.wikipedia.org/wiki/Variable-length_quantity
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class Snapshot {
+
+    private static final int GRAPH_MAGIC = 0x47524150; // "GRAP"
+    private static final int MATRIX_MAGIC = 0x444D4154; // "DMAT"
+    private static final byte VERSION = 1;
+    private static final int MATRIX_HEADER_SIZE = 16;
+    private static final byte HAS_VERTICIES = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Snapshot() { }
+
+    /**
+     * Write a snapshot of the graph.
+     *
+     * @param g
+     *            graph to write.
+     * @param file
+     *            to write, replaced if it exists.
+     * @throws IOException
+     *             if the file can't be written.
+     */
+    public static void writeGraph(Graph<Integer> g, File file) throws IOException {
+        if (g == null || file == null)
+            throw (new NullPointerException("Graph and file must be non-NULL."));
+
+        List<Graph.Vertex<Integer>> verticies = g.getVerticies();
+        Map<Graph.Vertex<Integer>, Integer> indices = new HashMap<Graph.Vertex<Integer>, Integer>(verticies.size() * 2);
+        for (int i = 0; i < verticies.size(); i++) {
+            if (!indices.containsKey(verticies.get(i)))
+                indices.put(verticies.get(i), i);
+        }
+
+        // Reading the snapshot adds the reciprocal of each undirected edge, so
+        // an edge is left out if it is the reciprocal of an earlier one.
+        boolean undirected = (g.getType() == Graph.TYPE.UNDIRECTED);
+        Map<Long, List<Integer>> pending = new HashMap<Long, List<Integer>>();
+        List<int[]> edges = new ArrayList<int[]>(undirected ? g.getEdges().size() / 2 : g.getEdges().size());
+        for (Graph.Edge<Integer> e : g.getEdges()) {
+            Integer from = indices.get(e.getFromVertex());
+            Integer to = indices.get(e.getToVertex());
+            if (from == null || to == null)
+                continue;
+
+            if (undirected) {
+                List<Integer> costs = pending.get(getKey(from, to));
+                if (costs != null && costs.remove((Integer) e.getCost())) {
+                    if (costs.isEmpty())
+                        pending.remove(getKey(from, to));
+                    continue;
+                }
+                Long key = getKey(to, from);
+                costs = pending.get(key);
+                if (costs == null) {
+                    costs = new ArrayList<Integer>(1);
+                    pending.put(key, costs);
+                }
+                costs.add(e.getCost());
+            }
+            edges.add(new int[] { from, to, e.getCost() });
+        }
+
+        Output output = new Output(file);
+        try {
+            output.writeInt(GRAPH_MAGIC);
+            output.writeByte(VERSION);
+            output.writeByte(undirected ? 1 : 0);
+            writeVerticies(output, verticies);
+            output.writeVarint(edges.size());
+            int previous = 0;
+            for (int[] e : edges) {
+                output.writeSignedVarint(e[0] - previous);
+                output.writeSignedVarint(e[1] - e[0]);
+                output.writeSignedVarint(e[2]);
+                previous = e[0];
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Read a graph snapshot.
+     *
+     * @param file
+     *            written by writeGraph().
+     * @return graph equal to the one written.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public static Graph<Integer> readGraph(File file) throws IOException {
+        if (file == null)
+            throw (new NullPointerException("File must be non-NULL."));
+
+        Input input = new Input(file, 0);
+        try {
+            if (input.readInt() != GRAPH_MAGIC)
+                throw (new IllegalArgumentException("Not a graph snapshot."));
+            if (input.readByte() != VERSION)
+                throw (new IllegalArgumentException("Unsupported snapshot version."));
+            Graph.TYPE type = (input.readByte() == 1) ? Graph.TYPE.UNDIRECTED : Graph.TYPE.DIRECTED;
+            List<Graph.Vertex<Integer>> verticies = readVerticies(input);
+
+            int numberOfEdges = input.readVarint();
+            List<Graph.Edge<Integer>> edges = new ArrayList<Graph.Edge<Integer>>(numberOfEdges);
+            int from = 0;
+            for (int i = 0; i < numberOfEdges; i++) {
+                from += input.readSignedVarint();
+                int to = from + input.readSignedVarint();
+                int cost = input.readSignedVarint();
+                if (from < 0 || from >= verticies.size() || to < 0 || to >= verticies.size())
+                    throw (new IllegalArgumentException("Edge " + i + " is out of range."));
+                edges.add(new Graph.Edge<Integer>(cost, verticies.get(from), verticies.get(to)));
+            }
+            return (new Graph<Integer>(type, verticies, edges));
+        } catch (BufferUnderflowException e) {
+            throw (new IllegalArgumentException("Truncated snapshot."));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Write a snapshot of the distance matrix.
+     *
+     * @param matrix
+     *            to write.
+     * @param file
+     *            to write, replaced if it exists.
+     * @throws IOException
+     *             if the file can't be written.
+     */
+    public static void writeDistanceMatrix(DistanceMatrix<Integer> matrix, File file) throws IOException {
+        if (matrix == null || file == null)
+            throw (new NullPointerException("Matrix and file must be non-NULL."));
+
+        int size = matrix.size();
+        boolean hasVerticies = (size > 0 && matrix.getVertex(0) != null);
+        Output output = new Output(file);
+        try {
+            output.writeInt(MATRIX_MAGIC);
+            output.writeByte(VERSION);
+            output.writeByte(hasVerticies ? HAS_VERTICIES : 0);
+            output.writeByte(0);
+            output.writeByte(0);
+            output.writeInt(size);
+            output.writeInt(0);
+
+            int[] distances = matrix.getDistances();
+            if (distances != null) {
+                output.writeInts(distances);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    for (int j = 0; j < size; j++) {
+                        output.writeInt(matrix.get(i, j));
+                    }
+                }
+            }
+
+            if (hasVerticies) {
+                List<Graph.Vertex<Integer>> verticies = new ArrayList<Graph.Vertex<Integer>>(size);
+                for (int i = 0; i < size; i++) {
+                    verticies.add(matrix.getVertex(i));
+                }
+                writeVerticies(output, verticies);
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Read a distance matrix snapshot into memory.
+     *
+     * @param file
+     *            written by writeDistanceMatrix().
+     * @return matrix equal to the one written.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public static DistanceMatrix<Integer> readDistanceMatrix(File file) throws IOException {
+        if (file == null)
+            throw (new NullPointerException("File must be non-NULL."));
+
+        Input input = new Input(file, 0);
+        try {
+            int[] header = readMatrixHeader(input);
+            int size = header[0];
+            if ((long) size * size > Integer.MAX_VALUE)
+                throw (new IllegalArgumentException("Matrix is too large to read, map it instead."));
+
+            int[] distances = new int[size * size];
+            input.readInts(distances);
+            if (header[1] == 0)
+                return (new DistanceMatrix<Integer>(size, distances));
+            return (new DistanceMatrix<Integer>(readVerticies(input), distances));
+        } catch (BufferUnderflowException e) {
+            throw (new IllegalArgumentException("Truncated snapshot."));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Map a distance matrix snapshot. The matrix is read-only and reads its
+     * costs from the file as they are asked for, it stays valid after the
+     * file is closed.
+     *
+     * @param file
+     *            written by writeDistanceMatrix().
+     * @return matrix equal to the one written.
+     * @throws IOException
+     *             if the file can't be read.
+     */
+    public static DistanceMatrix<Integer> mapDistanceMatrix(File file) throws IOException {
+        if (file == null)
+            throw (new NullPointerException("File must be non-NULL."));
+
+        int size;
+        boolean hasVerticies;
+        Input input = new Input(file, 0);
+        try {
+            int[] header = readMatrixHeader(input);
+            size = header[0];
+            hasVerticies = (header[1] != 0);
+        } catch (BufferUnderflowException e) {
+            throw (new IllegalArgumentException("Truncated snapshot."));
+        } finally {
+            input.close();
+        }
+
+        long total = (long) size * size;
+        long end = MATRIX_HEADER_SIZE + total * 4;
+        IntBuffer[] regions = new IntBuffer[(int) ((total + DistanceMatrix.REGION_MASK) >>> DistanceMatrix.REGION_SHIFT)];
+        RandomAccessFile random = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = random.getChannel();
+            if (channel.size() < end)
+                throw (new IllegalArgumentException("Truncated snapshot."));
+            for (int r = 0; r < regions.length; r++) {
+                long first = (long) r << DistanceMatrix.REGION_SHIFT;
+                long length = Math.min(total - first, 1L << DistanceMatrix.REGION_SHIFT);
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, MATRIX_HEADER_SIZE + first * 4, length * 4).asIntBuffer();
+            }
+        } finally {
+            random.close();
+        }
+
+        List<Graph.Vertex<Integer>> verticies = null;
+        if (hasVerticies) {
+            input = new Input(file, end);
+            try {
+                verticies = readVerticies(input);
+            } catch (BufferUnderflowException e) {
+                throw (new IllegalArgumentException("Truncated snapshot."));
+            } finally {
+                input.close();
+            }
+        }
+        return (new DistanceMatrix<Integer>(size, regions, verticies));
+    }
+
+    /**
+     * @return size and flags of the matrix.
+     */
+    private static int[] readMatrixHeader(Input input) throws IOException {
+        if (input.readInt() != MATRIX_MAGIC)
+            throw (new IllegalArgumentException("Not a distance matrix snapshot."));
+        if (input.readByte() != VERSION)
+            throw (new IllegalArgumentException("Unsupported snapshot version."));
+        int flags = input.readByte();
+        input.readByte();
+        input.readByte();
+        int size = input.readInt();
+        input.readInt();
+        if (size < 0)
+            throw (new IllegalArgumentException("Negative matrix size."));
+        return new int[] { size, flags & HAS_VERTICIES };
+    }
+
+    private static void writeVerticies(Output output, List<Graph.Vertex<Integer>> verticies) throws IOException {
+        output.writeVarint(verticies.size());
+        for (Graph.Vertex<Integer> v : verticies) {
+            output.writeSignedVarint(v.getValue());
+            output.writeSignedVarint(v.getWeight());
+        }
+    }
+
+    private static List<Graph.Vertex<Integer>> readVerticies(Input input) throws IOException {
+        int size = input.readVarint();
+        List<Graph.Vertex<Integer>> verticies = new ArrayList<Graph.Vertex<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            int value = input.readSignedVarint();
+            int weight = input.readSignedVarint();
+            verticies.add(new Graph.Vertex<Integer>(value, weight));
+        }
+        return verticies;
+    }
+
+    private static Long getKey(int from, int to) {
+        return (((long) from) << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Buffered writes to a file channel.
+     */
+    private static final class Output {
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "rw");
+            this.file.setLength(0);
+            this.channel = this.file.getChannel();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void writeInts(int[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                ensure(4);
+                int count = Math.min(buffer.remaining() / 4, values.length - written);
+                buffer.asIntBuffer().put(values, written, count);
+                buffer.position(buffer.position() + count * 4);
+                written += count;
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void writeSignedVarint(int value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        private void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Buffered reads from a file channel, reading past the end of the file
+     * throws a BufferUnderflowException.
+     */
+    private static final class Input {
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Input(File file, long position) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.channel = this.file.getChannel();
+            this.channel.position(position);
+            this.buffer.limit(0);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes)
+                return;
+            buffer.compact();
+            while (buffer.position() < bytes && channel.read(buffer) > 0) {
+                // Keep reading until enough bytes arrive or the file ends
+            }
+            buffer.flip();
+        }
+
+        private int readByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        private int readInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        private void readInts(int[] values) throws IOException {
+            int read = 0;
+            while (read < values.length) {
+                ensure(4);
+                int count = Math.min(buffer.remaining() / 4, values.length - read);
+                if (count == 0)
+                    throw (new BufferUnderflowException());
+                buffer.asIntBuffer().get(values, read, count);
+                buffer.position(buffer.position() + count * 4);
+                read += count;
+            }
+        }
+
+        private int readVarint() throws IOException {
+            ensure(5);
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw (new IllegalArgumentException("Malformed variable length integer."));
+        }
+
+        private int readSignedVarint() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private void close() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.jwetherell.algorithms.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
+import edu.jwetherell.algorithms.dataStructures.Graph;
+
+/**
+ * Tarjan's strongly connected components. A strongly connected component is a
+ * largest set of verticies where every vertex can reach every other. A depth
+ * first search numbers the verticies as it reaches them and tracks the lowest
+ * number reachable from each one's sub-tree, a vertex which can't reach
+ * anything lower than itself is the root of a component. The search keeps its
+ * own stack instead of recursing, so deep graphs can't overflow the thread's
+ * stack.
+ *
+ * http://en.wikipedia.org/wiki/Tarjan's_strongly_connected_components_algorithm
+ *
+ * Worst case: O(V + E)
+ *
+ * @author Justin Wetherell <phishman3579@gmail.com>
+ */
+public class StronglyConnectedComponents {
+
+    private StronglyConnectedComponents() { }
+
+    /**
+     * Strongly connected components of the graph, the graph is not modified.
+     *
+     * @param g
+     *            graph to search.
+     * @return components in reverse topological order, no edge leaves a
+     *         component for a later one.
+     */
+    public static List<List<Graph.Vertex<Integer>>> getComponents(Graph<Integer> g) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(g);
+        int[] components = getComponents(compact);
+        int count = 0;
+        for (int c : components) {
+            count = Math.max(count, c + 1);
+        }
+
+        List<List<Graph.Vertex<Integer>>> result = new ArrayList<List<Graph.Vertex<Integer>>>(count);
+        for (int c = 0; c < count; c++) {
+            result.add(new ArrayList<Graph.Vertex<Integer>>());
+        }
+        for (int v = 0; v < components.length; v++) {
+            result.get(components[v]).add(compact.getVertex(v));
+        }
+        return result;
+    }
+
+    /**
+     * Strongly connected components of a compact graph.
+     *
+     * @param g
+     *            graph to search.
+     * @return component of each vertex index, numbered in reverse topological
+     *         order so no edge goes from a lower to a higher component.
+     */
+    public static int[] getComponents(CompactGraph<?> g) {
+        if (g == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int n = g.getNumberOfVerticies();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] components = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(components, -1);
+
+        // Verticies waiting for their component, and the search's own call
+        // stack of verticies with the next edge each one will follow.
+        int[] stack = new int[n];
+        int size = 0;
+        int[] calls = new int[n];
+        int[] nextEdge = new int[n];
+        int depth = 0;
+
+        int counter = 0;
+        int count = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0)
+                continue;
+
+            index[root] = low[root] = counter++;
+            stack[size++] = root;
+            calls[depth] = root;
+            nextEdge[depth++] = g.getEdgeStart(root);
+            while (depth > 0) {
+                int v = calls[depth - 1];
+                int e = nextEdge[depth - 1];
+                if (e < g.getEdgeEnd(v)) {
+                    nextEdge[depth - 1]++;
+                    int w = g.getTarget(e);
+                    if (index[w] < 0) {
+                        // Descend into w
+                        index[w] = low[w] = counter++;
+                        stack[size++] = w;
+                        calls[depth] = w;
+                        nextEdge[depth++] = g.getEdgeStart(w);
+                    } else if (components[w] < 0 && index[w] < low[v]) {
+                        // w is still on the stack, so it is in v's component
+                        low[v] = index[w];
+                    }
+                    continue;
+                }
+
+                // Every edge of v is done, return to the caller
+                depth--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--size];
+                        components[w] = count;
+                    } while (w != v);
+                    count++;
+                }
+                if (depth > 0) {
+                    int caller = calls[depth - 1];
+                    if (low[v] < low[caller])
+                        low[caller] = low[v];
+                }
+            }
+        }
+        return components;
+    }
+}
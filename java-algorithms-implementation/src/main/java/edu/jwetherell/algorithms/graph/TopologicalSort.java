@@ -3,6 +3,7 @@ package edu.jwetherell.algorithms.graph;
 import java.util.ArrayList;
 import java.util.List;
 
+import edu.jwetherell.algorithms.dataStructures.CompactGraph;
 import edu.jwetherell.algorithms.dataStructures.Graph;
 
 /**
@@ -17,30 +18,113 @@ public class TopologicalSort {
     private TopologicalSort() {
     };
 
+    /**
+     * Topological sort in reverse, sinks first, the graph is not modified.
+     * This is the order the method has always returned, use
+     * sortSourcesFirst() for the usual order.
+     * 
+     * @param graph
+     *            directed graph.
+     * @return verticies where every edge uv has v before u. If the graph
+     *         contains a cycle only the verticies which lead to no cycle are
+     *         returned.
+     */
     public static final List<Graph.Vertex<Integer>> sort(Graph<Integer> graph) {
-        List<Graph.Vertex<Integer>> sorted = new ArrayList<Graph.Vertex<Integer>>();
-        List<Graph.Vertex<Integer>> noOutgoing = new ArrayList<Graph.Vertex<Integer>>();
-        for (Graph.Vertex<Integer> v : graph.getVerticies()) {
-            if (v.getEdges().size() == 0) {
-                noOutgoing.add(v);
-            }
+        if (graph == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(graph);
+        int[] sorted = new int[compact.getNumberOfVerticies()];
+        int size = sortSinksFirst(compact, sorted);
+        return toVerticies(compact, sorted, size);
+    }
+
+    /**
+     * Kahn's topological sort, sources first, the graph is not modified.
+     * 
+     * @param graph
+     *            directed graph.
+     * @return verticies where every edge uv has u before v. If the graph
+     *         contains a cycle only the verticies no cycle leads to are
+     *         returned.
+     */
+    public static final List<Graph.Vertex<Integer>> sortSourcesFirst(Graph<Integer> graph) {
+        if (graph == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        CompactGraph<Integer> compact = new CompactGraph<Integer>(graph);
+        int[] sorted = new int[compact.getNumberOfVerticies()];
+        int size = sort(compact, sorted);
+        return toVerticies(compact, sorted, size);
+    }
+
+    private static List<Graph.Vertex<Integer>> toVerticies(CompactGraph<Integer> compact, int[] sorted, int size) {
+        if (size < sorted.length)
+            System.out.println("cycle detected");
+
+        List<Graph.Vertex<Integer>> result = new ArrayList<Graph.Vertex<Integer>>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(compact.getVertex(sorted[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Kahn's topological sort on a compact graph, the graph is not modified.
+     * 
+     * @param graph
+     *            directed graph.
+     * @return vertex indices where every edge uv has u before v, or NULL if
+     *         the graph contains a cycle.
+     */
+    public static final int[] sort(CompactGraph<?> graph) {
+        if (graph == null)
+            throw (new NullPointerException("Graph must be non-NULL."));
+
+        int[] sorted = new int[graph.getNumberOfVerticies()];
+        if (sort(graph, sorted) < sorted.length)
+            return null;
+        return sorted;
+    }
+
+    /**
+     * @return number of verticies sorted, less than all of them if the graph
+     *         contains a cycle.
+     */
+    private static int sort(CompactGraph<?> graph, int[] sorted) {
+        int n = graph.getNumberOfVerticies();
+        int[] incoming = new int[n];
+        for (int e = 0; e < graph.getNumberOfEdges(); e++) {
+            incoming[graph.getTarget(e)]++;
         }
-        while (noOutgoing.size() > 0) {
-            Graph.Vertex<Integer> v = noOutgoing.remove(0);
-            sorted.add(v);
-            for (Graph.Edge<Integer> e : graph.getEdges()) {
-                Graph.Vertex<Integer> v2 = e.getFromVertex();
-                Graph.Vertex<Integer> v3 = e.getToVertex();
-                if (v3.equals(v)) {
-                    graph.getEdges().remove(e);
-                    v2.getEdges().remove(e);
-                }
-                if (v2.getEdges().size() == 0)
-                    noOutgoing.add(v2);
+
+        // The sorted array doubles as the queue of verticies with no incoming
+        // edges left, head chases tail through it.
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (incoming[v] == 0)
+                sorted[tail++] = v;
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = sorted[head];
+            for (int e = graph.getEdgeStart(v), last = graph.getEdgeEnd(v); e < last; e++) {
+                int to = graph.getTarget(e);
+                if (--incoming[to] == 0)
+                    sorted[tail++] = to;
             }
         }
-        if (graph.getEdges().size() > 0)
-            System.out.println("cycle detected");
-        return sorted;
+        return tail;
+    }
+
+    /**
+     * Kahn's algorithm on the transpose, verticies with no outgoing edges left
+     * are taken first. Vertex indices are shared with the transpose, which the
+     * graph builds once and keeps.
+     * 
+     * @return number of verticies sorted, less than all of them if the graph
+     *         contains a cycle.
+     */
+    private static int sortSinksFirst(CompactGraph<?> graph, int[] sorted) {
+        return sort(graph.transpose(), sorted);
     }
 }